@@ -230,6 +230,17 @@ class DDMReader
     protected CcsidManager getCurrentCcsidManager() {
         return ccsidManager;
     }
+
+	/**
+	 * Is there data in the buffer which has been received from the client,
+	 * but not read yet?
+	 *
+	 * @return true if there is unread data in the buffer
+	 */
+	protected boolean hasBufferedData()
+	{
+		return pos < count;
+	}
     
 	protected boolean terminateChainOnErr()
 	{
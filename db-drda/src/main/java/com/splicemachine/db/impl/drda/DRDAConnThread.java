@@ -271,6 +271,8 @@ class DRDAConnThread extends Thread {
 
 			// get a new session
 			prevSession = session;
+			if (session != null)
+				saveSessionState();
 			session = server.getNextSession(session);
 			if (session == null)
 				close();
@@ -305,6 +307,10 @@ class DRDAConnThread extends Thread {
                                 // DDMReader.fill(), which will happen
                                 // only when timeSlice is set.
                             }
+							// Let another session have this thread until the
+							// client sends its next request.
+							if (parkIdleSession())
+								break;
 							currentTimeSlice = getTimeSlice();
 						} while ((currentTimeSlice <= 0)  || 
 							(System.currentTimeMillis() - timeStart < currentTimeSlice));
@@ -409,6 +415,22 @@ class DRDAConnThread extends Thread {
 		return session;
 	}
 
+	/**
+	 * Whether warnings for SELECT are sent on CNTQRY
+	 */
+	boolean getSendWarningsOnCNTQRY()
+	{
+		return sendWarningsOnCNTQRY;
+	}
+
+	/**
+	 * Get the DRDA diagnostic level
+	 */
+	byte getDiagnosticLevel()
+	{
+		return diagnosticLevel;
+	}
+
 	/**
 	 * Get Database we are working on
 	 *
@@ -636,9 +658,10 @@ class DRDAConnThread extends Thread {
 	}
 
 	/**
-	 * Initialize for a new session
+	 * Initialize for a new session, or for a session which was parked by
+	 * another thread
 	 */
-	private void initializeForSession()
+	void initializeForSession()
 	{
 		// set input and output sockets
 		sockis = session.sessionInput;
@@ -653,12 +676,83 @@ class DRDAConnThread extends Thread {
 		appRequester = session.appRequester;
 
 		// set sqlamLevel
-		if (session.state == Session.ATTEXC)
+		if (appRequester != null)
 			sqlamLevel = appRequester.getManagerLevel(CodePoint.SQLAM);
 
-        /* All sessions MUST start as EBCDIC */
-        reader.setEbcdicCcsid();
-        writer.setEbcdicCcsid();
+        /* All sessions MUST start as EBCDIC, but may have switched to UTF-8
+         * while running on another thread */
+        if (session.utf8Ccsid)
+            switchToUtf8();
+        else
+            switchToEbcdic();
+
+        deferredReset = session.deferredReset;
+        pendingStatementTimeout = session.pendingStatementTimeout;
+        sendWarningsOnCNTQRY = session.sendWarningsOnCNTQRY;
+        diagnosticLevel = session.diagnosticLevel;
+	}
+
+	/**
+	 * Save the state which belongs to the session rather than the thread,
+	 * so that the session can be picked up by another thread.
+	 */
+	void saveSessionState()
+	{
+		session.database = database;
+		session.utf8Ccsid =
+			(reader.getCurrentCcsidManager() instanceof Utf8CcsidManager);
+		session.deferredReset = deferredReset;
+		session.pendingStatementTimeout = pendingStatementTimeout;
+		session.sendWarningsOnCNTQRY = sendWarningsOnCNTQRY;
+		session.diagnosticLevel = diagnosticLevel;
+	}
+
+	/**
+	 * Set what the application requester can handle, once we know its
+	 * product id
+	 */
+	void setClientCapabilities()
+	{
+		// All versions of DNC,the only client supported, handle
+		// warnings on CNTQRY
+		sendWarningsOnCNTQRY = true;
+		// The client can not request DIAGLVL because when run with
+		// an older server it will cause an exception. Older version
+		// of the server do not recognize requests for DIAGLVL.
+		if ((appRequester.getClientType() == appRequester.DNC_CLIENT) &&
+				appRequester.greaterThanOrEqualTo(10, 2, 0)) {
+			diagnosticLevel = CodePoint.DIAGLVL1;
+		}
+	}
+
+	/**
+	 * If the session has finished its request chain and the client has not
+	 * sent anything more, hand the session over to the server's selector
+	 * rather than blocking this thread on the next read.
+	 *
+	 * Only sessions which have been checked and have accessed a database can
+	 * be parked, since the connection thread keeps the state of the exchanges
+	 * which lead up to that. XA sessions are never parked, since their
+	 * transaction is tracked by the thread's DRDAXAProtocol.
+	 *
+	 * @return true if the session was parked, and this thread no longer
+	 * owns it
+	 */
+	private boolean parkIdleSession()
+	{
+		if (session == null || session.state != Session.CHKSEC ||
+			session.appRequester == null || database == null ||
+			database instanceof XADatabase || reader.hasBufferedData())
+			return false;
+		saveSessionState();
+		if (!server.parkSession(session))
+			return false;
+		session = null;
+		database = null;
+		appRequester = null;
+		sockis = null;
+		sockos = null;
+		return true;
 	}
 	/**      
 	 * In initial state for a session, 
@@ -3432,16 +3526,7 @@ class DRDAConnThread extends Thread {
                     if (appRequester.getClientType() != appRequester.DNC_CLIENT) {
                         invalidClient(appRequester.prdid);
                     }
-                    // All versions of DNC,the only client supported, handle
-                    // warnings on CNTQRY
-                    sendWarningsOnCNTQRY = true;
-					// The client can not request DIAGLVL because when run with
-					// an older server it will cause an exception. Older version
-					// of the server do not recognize requests for DIAGLVL.
-					if ((appRequester.getClientType() == appRequester.DNC_CLIENT) &&
-							appRequester.greaterThanOrEqualTo(10, 2, 0)) {
-						diagnosticLevel = CodePoint.DIAGLVL1;
-					}
+                    setClientCapabilities();
 
 					removeFromRequired(CodePoint.PRDID);
 					break;
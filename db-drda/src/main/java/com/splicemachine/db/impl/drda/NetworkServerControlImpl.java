@@ -35,6 +35,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import javax.net.SocketFactory;
@@ -44,6 +45,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.SSLServerSocketFactory;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.Charset;
 import java.security.Permission;
 import java.security.AccessController;
@@ -277,6 +279,8 @@ public final class NetworkServerControlImpl {
 										// and changing timeSlice
 
 	private boolean keepAlive = true;   // keepAlive value for client socket 
+	private boolean multiplexSessions = false; // park idle sessions on a
+										// selector rather than a thread
 	private int minPoolSize;			//minimum pool size for pooled connections
 	private int maxPoolSize;			//maximum pool size for pooled connections
 	private Object poolSync = new Object();	// object to use for syning reading
@@ -324,6 +328,12 @@ public final class NetworkServerControlImpl {
 	// number of DRDAConnThreads waiting for something to do
 	private int freeThreads;
 
+	// object to use for syncing the scheduling of sessions onto threads
+	private Object scheduleSync = new Object();
+
+	// watches the sockets of idle sessions, if multiplexSessions is set
+	private SessionSelector sessionSelector;
+
 	// known application requesters
 	private Hashtable appRequesterTable = new Hashtable();
 
@@ -673,6 +683,14 @@ public final class NetworkServerControlImpl {
 		switch (getSSLMode()) {
 		case SSL_OFF:
 		default:
+			if (multiplexSessions) {
+				// accept from a channel, so that idle client sockets can
+				// be watched by the SessionSelector
+				ServerSocketChannel channel = ServerSocketChannel.open();
+				channel.socket().bind(new InetSocketAddress(hostAddress,
+															portNumber));
+				return channel.socket();
+			}
 			ServerSocketFactory sf =
 				ServerSocketFactory.getDefault();
 			return sf.createServerSocket(portNumber
@@ -791,6 +809,19 @@ public final class NetworkServerControlImpl {
                             NetworkServerMBean.class,
                             "type=NetworkServer");
 
+		// Idle sessions wait on a selector rather than on a connection thread
+		if (serverSocket.getChannel() != null) {
+			sessionSelector = (SessionSelector) AccessController.doPrivileged(
+								new PrivilegedExceptionAction() {
+									public Object run() throws Exception
+									{
+										return new SessionSelector(thisControl);
+									}
+								}
+							);
+			sessionSelector.start();
+		}
+
 		// We accept clients on a separate thread so we don't run into a problem
 		// blocking on the accept when trying to process a shutdown
 		final ClientThread clientThread =	 
@@ -830,6 +861,10 @@ public final class NetworkServerControlImpl {
 	                            //interrupt client thread
 	                            clientThread.interrupt();
 
+	                            //stop watching idle sessions
+	                            if (sessionSelector != null)
+	                                sessionSelector.close();
+
 	                            return null;
 	                       }
 	                    });
@@ -3084,6 +3119,12 @@ public final class NetworkServerControlImpl {
 			StringUtil.SQLEqualsIgnoreCase(propval,"false"))
 			keepAlive = false;
 		
+		propval = PropertyUtil.getSystemProperty(
+			Property.DRDA_PROP_MULTIPLEX_SESSIONS);
+		if (propval != null &&
+			StringUtil.SQLEqualsIgnoreCase(propval,"true"))
+			multiplexSessions = true;
+
 		propval = PropertyUtil.getSystemProperty( 
 			Property.DRDA_PROP_HOSTNAME);
 		if (propval != null){
@@ -3897,6 +3938,7 @@ public final class NetworkServerControlImpl {
 		retval.put(Property.DRDA_PROP_PORTNUMBER, new Integer(portNumber).toString());
 		retval.put(Property.DRDA_PROP_HOSTNAME, hostArg);
 		retval.put(Property.DRDA_PROP_KEEPALIVE, new Boolean(keepAlive).toString());
+		retval.put(Property.DRDA_PROP_MULTIPLEX_SESSIONS, new Boolean(multiplexSessions).toString());
 
 		String tracedir = getTraceDirectory();
 		if (tracedir != null)
@@ -3943,10 +3985,7 @@ public final class NetworkServerControlImpl {
 
 	/**
 	 * Add a session - for use by <code>ClientThread</code>. Put the session
-	 * into the session table and the run queue. Start a new
-	 * <code>DRDAConnThread</code> if there are more sessions waiting than
-	 * there are free threads, and the maximum number of threads is not
-	 * exceeded.
+	 * into the session table and schedule it to run.
 	 *
 	 * <p><code>addSession()</code> should only be called from one thread at a
 	 * time.
@@ -3970,43 +4009,79 @@ public final class NetworkServerControlImpl {
 
 		sessionTable.put(new Integer(connectionNumber), session);
 
-		// Check whether there are enough free threads to service all the
-		// threads in the run queue in addition to the newly added session.
-		boolean enoughThreads;
-		synchronized (runQueue) {
-			enoughThreads = (runQueue.size() < freeThreads);
-		}
-		// No need to hold the synchronization on runQueue any longer than
-		// this. Since no other threads can make runQueue grow, and no other
-		// threads will reduce the number of free threads without removing
-		// sessions from runQueue, (runQueue.size() < freeThreads) cannot go
-		// from true to false until addSession() returns.
-
-		DRDAConnThread thread = null;
-
-		// try to start a new thread if we don't have enough free threads
-		if (!enoughThreads) {
-			// Synchronize on threadsSync to ensure that the value of
-			// maxThreads doesn't change until the new thread is added to
-			// threadList.
-			synchronized (threadsSync) {
-				// only start a new thread if we have no maximum number of
-				// threads or the maximum number of threads is not exceeded
-				if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
-					thread = new DRDAConnThread(session, this, getTimeSlice(),
-												getLogConnections());
-					threadList.add(thread);
-					thread.start();
+		scheduleSession(session);
+	}
+
+	/**
+	 * Schedule a session to run - for use by <code>ClientThread</code> with
+	 * new sessions, and by <code>SessionSelector</code> with idle sessions
+	 * whose client has sent another request. Put the session into the run
+	 * queue, or start a new <code>DRDAConnThread</code> for it if there are
+	 * more sessions waiting than there are free threads, and the maximum
+	 * number of threads is not exceeded.
+	 *
+	 * @param session the session to run
+	 */
+	void scheduleSession(Session session) {
+		// Only one session is scheduled at a time, so the run queue can only
+		// be grown by us while we decide whether a new thread is needed.
+		synchronized (scheduleSync) {
+			// Check whether there are enough free threads to service all the
+			// threads in the run queue in addition to this session.
+			boolean enoughThreads;
+			synchronized (runQueue) {
+				enoughThreads = (runQueue.size() < freeThreads);
+			}
+			// No need to hold the synchronization on runQueue any longer than
+			// this. Since no other threads can make runQueue grow, and no
+			// other threads will reduce the number of free threads without
+			// removing sessions from runQueue, (runQueue.size() < freeThreads)
+			// cannot go from true to false until we are done.
+
+			DRDAConnThread thread = null;
+
+			// try to start a new thread if we don't have enough free threads
+			if (!enoughThreads) {
+				// Synchronize on threadsSync to ensure that the value of
+				// maxThreads doesn't change until the new thread is added to
+				// threadList.
+				synchronized (threadsSync) {
+					// only start a new thread if we have no maximum number of
+					// threads or the maximum number of threads is not exceeded
+					if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
+						thread = new DRDAConnThread(session, this, getTimeSlice(),
+													getLogConnections());
+						threadList.add(thread);
+						thread.start();
+					}
 				}
 			}
-		}
 
-		// add the session to the run queue if we didn't start a new thread
-		if (thread == null) {
-			runQueueAdd(session);
+			// add the session to the run queue if we didn't start a new thread
+			if (thread == null) {
+				runQueueAdd(session);
+			}
 		}
 	}
 
+	/**
+	 * Hand an idle session over to the <code>SessionSelector</code>, so that
+	 * the calling <code>DRDAConnThread</code> can work on other sessions until
+	 * the client sends its next request. The caller must not touch the session
+	 * once it has been parked.
+	 *
+	 * @param session a session which has no request in progress
+	 * @return false if the session cannot be parked, and should stay with the
+	 * calling thread
+	 */
+	boolean parkSession(Session session) {
+		SessionSelector selector = sessionSelector;
+		if (selector == null || shutdown || !selector.canPark(session))
+			return false;
+		selector.park(session);
+		return true;
+	}
+
 	/**
 	 * Remove a thread from the thread list. Should be called when a
 	 * <code>DRDAConnThread</code> has been closed.
@@ -4092,6 +4167,15 @@ public final class NetworkServerControlImpl {
     int getRunQueueSize() {
         return runQueue.size();
     }
+
+    int getIdleSessions() {
+        SessionSelector selector = sessionSelector;
+        return selector == null ? 0 : selector.getIdleSessionCount();
+    }
+
+    boolean getMultiplexSessions() {
+        return multiplexSessions;
+    }
     
     int getThreadListSize() {
         return threadList.size();
@@ -114,6 +114,11 @@ class NetworkServerMBeanImpl implements NetworkServerMBean {
         String on = getServerProperty(Property.DRDA_PROP_KEEPALIVE);
         return ( "true".equals(on) ? true : false);
     }
+
+    public boolean getDrdaMultiplexSessions() {
+        checkMonitor();
+        return server.getMultiplexSessions();
+    }
     
     public int getDrdaMaxThreads() {
         checkMonitor();
@@ -278,7 +283,8 @@ class NetworkServerMBeanImpl implements NetworkServerMBean {
     public int getConnectionCount() {
         checkMonitor();
         
-        return getActiveConnectionCount() + getWaitingConnectionCount();
+        return getActiveConnectionCount() + getWaitingConnectionCount() +
+                getIdleConnectionCount();
     }
     
     public int getActiveConnectionCount() {
@@ -292,6 +298,12 @@ class NetworkServerMBeanImpl implements NetworkServerMBean {
         
         return server.getRunQueueSize();
     }
+
+    public int getIdleConnectionCount() {
+        checkMonitor();
+
+        return server.getIdleSessions();
+    }
     
     public int getConnectionThreadPoolSize() {
         checkMonitor();
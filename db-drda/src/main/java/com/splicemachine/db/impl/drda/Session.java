@@ -73,6 +73,14 @@ class Session
 	protected LocalizedResource langUtil;		// localization information for command session
 										// client
 
+	// DRDAConnThread state which has to follow the session from one
+	// connection thread to the next
+	protected boolean utf8Ccsid;		// UTF-8 rather than EBCDIC strings
+	protected boolean deferredReset;	// a connection reset is pending
+	protected int pendingStatementTimeout = -1; // < 0 means no pending timeout
+	protected boolean sendWarningsOnCNTQRY;	// send warnings for SELECT on CNTQRY
+	protected byte diagnosticLevel = CodePoint.DIAGLVL0; // DRDA diagnostic level
+
 	private	Hashtable	dbtable;		// Table of databases accessed in this session
 	private NetworkServerControlImpl nsctrl;        // NetworkServerControlImpl needed for logging
                                                         // message if tracing fails.
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Watches the sockets of idle sessions, so that a session which is waiting for
+ * the client's next request does not tie up a <code>DRDAConnThread</code>.
+ * <p>
+ * A <code>DRDAConnThread</code> which has finished replying to a request chain
+ * parks the session here, and goes on to work on another session. Once the
+ * client sends more data, the session is put back on the run queue (starting
+ * a new connection thread if needed), exactly as if it were a new session.
+ * The connection threads keep reading and writing with blocking streams; the
+ * socket is only switched to non-blocking mode while it is parked.
+ * <p>
+ * Only sessions whose socket was accepted from a
+ * <code>ServerSocketChannel</code> can be parked, which rules out SSL.
+ */
+final class SessionSelector extends Thread {
+
+	private final NetworkServerControlImpl server;
+	private final Selector selector;
+	// sessions parked since the last select, waiting to be registered
+	private final ConcurrentLinkedQueue<Session> newlyIdle =
+			new ConcurrentLinkedQueue<Session>();
+	private final AtomicInteger idleSessions = new AtomicInteger();
+	private volatile boolean closed;
+
+	SessionSelector(NetworkServerControlImpl server) throws IOException {
+		NetworkServerControlImpl.setUniqueThreadName(this, "NetworkServerSessionSelector");
+		setDaemon(true);
+		this.server = server;
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * @return true if the session's socket can be watched by this selector
+	 */
+	boolean canPark(Session session) {
+		return !closed && session.clientSocket.getChannel() != null;
+	}
+
+	/**
+	 * Watch the session's socket until the client sends its next request.
+	 * The caller must not touch the session after calling this method.
+	 */
+	void park(Session session) {
+		if (closed) {
+			server.scheduleSession(session);
+			return;
+		}
+		idleSessions.incrementAndGet();
+		newlyIdle.add(session);
+		selector.wakeup();
+	}
+
+	/**
+	 * @return the number of sessions which are waiting for the client's
+	 * next request
+	 */
+	int getIdleSessionCount() {
+		return idleSessions.get();
+	}
+
+	/**
+	 * Stop watching sessions. Parked sessions are left alone; they are
+	 * closed along with all the other sessions when the server shuts down.
+	 */
+	void close() {
+		closed = true;
+		selector.wakeup();
+	}
+
+	public void run() {
+		List<Session> ready = new ArrayList<Session>();
+		try {
+			while (!closed) {
+				selector.select();
+				registerIdleSessions();
+				if (selector.selectedKeys().isEmpty())
+					continue;
+				// A channel has to be deregistered from the selector before it
+				// can go back to blocking mode, which only happens on the next
+				// select after its key was cancelled. That select may pick up
+				// more ready sessions, so keep going until it does not.
+				do {
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						key.cancel();
+						ready.add((Session) key.attachment());
+					}
+					selector.selectNow();
+				} while (!selector.selectedKeys().isEmpty());
+
+				for (Session session : ready)
+					resume(session);
+				ready.clear();
+			}
+		} catch (IOException ioe) {
+			if (!closed)
+				server.consoleExceptionPrintTrace(ioe);
+		} finally {
+			closed = true;
+			// Anything still parked goes back to the run queue, where a
+			// connection thread will find out what the client is up to.
+			Set<Session> parked = new LinkedHashSet<Session>(ready);
+			for (SelectionKey key : selector.keys()) {
+				key.cancel();
+				parked.add((Session) key.attachment());
+			}
+			try {
+				selector.selectNow();
+				selector.close();
+			} catch (IOException ignored) {
+				// we are going away anyway
+			}
+			if (!server.getShutdown()) {
+				Session session;
+				while ((session = newlyIdle.poll()) != null)
+					parked.add(session);
+				for (Session p : parked)
+					resume(p);
+			}
+		}
+	}
+
+	private void registerIdleSessions() {
+		Session session;
+		while ((session = newlyIdle.poll()) != null) {
+			try {
+				SocketChannel channel = session.clientSocket.getChannel();
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ, session);
+			} catch (IOException ioe) {
+				// most likely the socket was closed under us; let a
+				// connection thread clean it up
+				resume(session);
+			}
+		}
+	}
+
+	private void resume(Session session) {
+		idleSessions.decrementAndGet();
+		try {
+			session.clientSocket.getChannel().configureBlocking(true);
+		} catch (IOException ioe) {
+			// the connection thread will get the same error when it reads
+		}
+		server.scheduleSession(session);
+	}
+}
@@ -108,6 +108,22 @@ public interface NetworkServerMBean {
      *         clients (<code>db.drda.keepAlive</code>)
      */
     public boolean getDrdaKeepAlive();
+
+    /**
+     * <p>
+     * Whether or not connections which are waiting for the client's next
+     * request are handed over to a single selector thread, so that they do
+     * not tie up a connection thread. This corresponds to the
+     * <code>db.drda.multiplexSessions</code> property.</p>
+     * <p>
+     * Requires <code>SystemPermission("server", "monitor")</code> if a security
+     * manager is installed.</p>
+     *
+     * @return whether or not idle connections are multiplexed over a selector
+     *         (<code>db.drda.multiplexSessions</code>)
+     * @see #getIdleConnectionCount()
+     */
+    public boolean getDrdaMultiplexSessions();
     
     /**
      * <p>
@@ -270,8 +286,8 @@ public interface NetworkServerMBean {
     
     /**
      * <p>
-     * Gets the total number of current connections (waiting or active) to the
-     * Network Server.</p>
+     * Gets the total number of current connections (waiting, active or idle)
+     * to the Network Server.</p>
      * <p>
      * Requires <code>SystemPermission("server", "monitor")</code> if a security
      * manager is installed.</p>
@@ -279,6 +295,7 @@ public interface NetworkServerMBean {
      * @return the number of current connections
      * @see #getActiveConnectionCount()
      * @see #getWaitingConnectionCount()
+     * @see #getIdleConnectionCount()
      */
     public int getConnectionCount();
 
@@ -324,6 +341,21 @@ public interface NetworkServerMBean {
      * @see #getDrdaTimeSlice()
      */
     public int getWaitingConnectionCount();
+
+    /**
+     * <p>
+     * Gets the number of connections which are waiting for the client's next
+     * request without holding on to a connection thread. This number will
+     * always be 0 unless DrdaMultiplexSessions is true.</p>
+     * <p>
+     * Requires <code>SystemPermission("server", "monitor")</code> if a security
+     * manager is installed.</p>
+     *
+     * @return the number of idle connections
+     * @see #getDrdaMultiplexSessions()
+     * @see #getWaitingConnectionCount()
+     */
+    public int getIdleConnectionCount();
     
     /**
      * <p>
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import com.splicemachine.db.iapi.reference.DRDAConstants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the state a session builds up on one DRDAConnThread is still
+ * there when the session is parked and then resumed by another thread.
+ */
+public class ParkedSessionStateTest{
+    private ServerSocket serverSocket;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception{
+        serverSocket = new ServerSocket(0,1,InetAddress.getLoopbackAddress());
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        for(Socket socket : sockets){
+            socket.close();
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    public void clientCapabilitiesFollowTheSession() throws Exception{
+        Session session = newSession(1,"10020");
+        DRDAConnThread parkingThread = new DRDAConnThread(session,null,0,false);
+        parkingThread.initializeForSession();
+        parkingThread.setClientCapabilities();
+        Assert.assertTrue(parkingThread.getSendWarningsOnCNTQRY());
+        Assert.assertEquals(CodePoint.DIAGLVL1,parkingThread.getDiagnosticLevel());
+        parkingThread.saveSessionState();
+
+        DRDAConnThread resumingThread = new DRDAConnThread(session,null,0,false);
+        resumingThread.initializeForSession();
+        Assert.assertTrue("Lost the CNTQRY warnings setting",resumingThread.getSendWarningsOnCNTQRY());
+        Assert.assertEquals("Lost the diagnostic level",CodePoint.DIAGLVL1,resumingThread.getDiagnosticLevel());
+    }
+
+    @Test
+    public void olderClientKeepsTheDefaultDiagnosticLevel() throws Exception{
+        Session session = newSession(1,"10010");
+        DRDAConnThread parkingThread = new DRDAConnThread(session,null,0,false);
+        parkingThread.initializeForSession();
+        parkingThread.setClientCapabilities();
+        parkingThread.saveSessionState();
+
+        DRDAConnThread resumingThread = new DRDAConnThread(session,null,0,false);
+        resumingThread.initializeForSession();
+        Assert.assertTrue(resumingThread.getSendWarningsOnCNTQRY());
+        Assert.assertEquals(CodePoint.DIAGLVL0,resumingThread.getDiagnosticLevel());
+    }
+
+    @Test
+    public void newSessionStartsWithDefaults() throws Exception{
+        Session parked = newSession(1,"10020");
+        DRDAConnThread thread = new DRDAConnThread(parked,null,0,false);
+        thread.initializeForSession();
+        thread.setClientCapabilities();
+        thread.saveSessionState();
+
+        DRDAConnThread other = new DRDAConnThread(newSession(2,"10020"),null,0,false);
+        other.initializeForSession();
+        Assert.assertFalse(other.getSendWarningsOnCNTQRY());
+        Assert.assertEquals(CodePoint.DIAGLVL0,other.getDiagnosticLevel());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private Session newSession(int connNum,String clientVersion) throws Exception{
+        Socket client = new Socket(serverSocket.getInetAddress(),serverSocket.getLocalPort());
+        sockets.add(client);
+        Socket accepted = serverSocket.accept();
+        sockets.add(accepted);
+        Session session = new Session(null,connNum,accepted,null,false);
+        session.appRequester = new AppRequester();
+        session.appRequester.setClientVersion(DRDAConstants.DERBY_DRDA_CLIENT_ID+clientVersion);
+        return session;
+    }
+}
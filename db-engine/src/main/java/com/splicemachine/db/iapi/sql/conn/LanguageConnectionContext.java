@@ -883,6 +883,25 @@ public interface LanguageConnectionContext extends Context {
         public PreparedStatement prepareInternalStatement(String sqlText) 
 	    throws StandardException;
 
+	/**
+	 * Return an Activation for a statement executed through java.sql.Statement
+	 * which runs the plan compiled for the statement with its literals replaced
+	 * by parameters, with the parameters set to the literal values, so that
+	 * statements which only differ in their literals share one plan in the
+	 * statement cache.
+	 *
+	 * @param compilationSchema schema
+	 * @param sqlText sql query string
+	 * @param isForReadOnly read only status for resultset
+	 * @param scrollable whether the activation is for a scrollable result set
+	 * @return the activation, or null if parameterizing literals is disabled
+	 *         or not possible for this statement, in which case the caller
+	 *         should prepare sqlText with prepareInternalStatement
+	 */
+	Activation getParameterizedActivation(SchemaDescriptor compilationSchema,
+			String sqlText, boolean isForReadOnly, boolean scrollable)
+		throws StandardException;
+
 	/**
 	 * Control whether or not optimizer trace is on.
 	 *
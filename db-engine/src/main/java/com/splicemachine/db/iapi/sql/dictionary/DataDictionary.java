@@ -793,6 +793,18 @@ public interface DataDictionary{
     public void deletePartitionStatistics(long conglomerate,
                                           TransactionController tc) throws StandardException;
 
+    /**
+     * Removes the Table and Column Statistics of a single partition of a conglomerate.
+     *
+     * @param conglomerate
+     * @param partitionId
+     * @param tc
+     * @throws StandardException
+     */
+    public void deletePartitionStatistics(long conglomerate,
+                                          String partitionId,
+                                          TransactionController tc) throws StandardException;
+
 
     public void clearCaches();
 
@@ -2087,6 +2099,15 @@ public interface DataDictionary{
 
     public boolean canUseCache(TransactionController xactMgr) throws StandardException;
 
+    /**
+     * Whether the cached descriptors of a single table can be used, which is narrower than
+     * {@link #canUseCache(TransactionController)}: DDL on other tables does not prevent it.
+     *
+     * @param xactMgr the transaction to check, or null for the current compile transaction
+     * @param tableId the table, or null if it is not known, in which case DDL on any table prevents it
+     */
+    boolean canUseCache(TransactionController xactMgr,UUID tableId) throws StandardException;
+
     boolean canUseSPSCache() throws StandardException;
 
     void addBackup(TupleDescriptor descriptor, TransactionController tc) throws StandardException;
@@ -30,6 +30,7 @@ import com.splicemachine.db.iapi.sql.compile.CostEstimate;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.RowLocation;
 import java.util.BitSet;
+import java.util.Map;
 
 /**
  * The StoreCostController interface provides methods that an access client
@@ -174,6 +175,16 @@ public interface StoreCostController extends RowCountable{
      */
     long cardinality(int columnNumber);
 
+    /**
+     *
+     * Retrieve the most frequent values of the specified column, with the fraction of the rows holding each.
+     * If not available, returns an empty map.
+     *
+     * @param columnNumber the id of the column to estimate (indexed from 1)
+     * @return an estimate of the selectivity fraction of each of the most frequent non-null values
+     */
+    Map<DataValueDescriptor,Double> frequentValueSelectivity(int columnNumber);
+
     /**
      *
      * Get Average Row Width of the Conglomerate
@@ -336,6 +336,8 @@ public class GenericStatement implements Statement{
 
                 // did it get updated while we waited for the lock on it?
                 if(preparedStmt.upToDate()){
+                    if(foundInCache)
+                        lcc.getDataDictionary().getDataDictionaryCache().statementCacheHit(preparedStmt);
                     return preparedStmt;
                 }
 
@@ -389,7 +391,11 @@ public class GenericStatement implements Statement{
                 cc.setReliability(CompilerContext.INTERNAL_SQL_LEGAL);
             }
 
+            long compileStart=System.nanoTime();
             fourPhasePrepare(lcc,paramDefaults,timestamps,beginTimestamp,foundInCache,cc);
+            if(foundInCache)
+                lcc.getDataDictionary().getDataDictionaryCache().statementCacheCompiled(this,preparedStmt,
+                        System.nanoTime()-compileStart);
         }catch(StandardException se){
             if(foundInCache)
                 ((GenericLanguageConnectionContext)lcc).removeStatement(this);
@@ -56,6 +56,9 @@ public class GenericStorablePreparedStatement extends GenericPreparedStatement
     private ByteArray byteCode;
     private String className;
 
+    // not formatable; only used by the statement cache
+    private volatile long compileNanos;
+
     /**
      * Default constructor, for formatable only.
      */
@@ -80,6 +83,37 @@ public class GenericStorablePreparedStatement extends GenericPreparedStatement
         return byteCode;
     }
 
+    /**
+     * @return how long the last compilation of this statement took, in nanoseconds
+     */
+    public long getCompileNanos() {
+        return compileNanos;
+    }
+
+    public void setCompileNanos(long compileNanos) {
+        this.compileNanos = compileNanos;
+    }
+
+    /**
+     * Estimate the heap space taken up by the compiled plan, not counting the statement text. The generated
+     * class dominates, and the rest is a rough allowance for the result description, parameter types and
+     * saved objects.
+     *
+     * @return the estimated size of this statement, in bytes
+     */
+    public int estimateMemoryUsage() {
+        long size = 512L;
+        if (byteCode != null && byteCode.getArray() != null)
+            size += byteCode.getLength();
+        if (resultDesc != null)
+            size += 128L * resultDesc.getColumnCount();
+        if (paramTypeDescriptors != null)
+            size += 64L * paramTypeDescriptors.length;
+        if (savedObjects != null)
+            size += 64L * savedObjects.length;
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
     /**
      * Get and load the activation class.  Will always return a loaded/valid class or null if the class cannot be loaded.
      *
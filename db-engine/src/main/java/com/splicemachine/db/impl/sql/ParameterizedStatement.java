@@ -0,0 +1,326 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.ParameterValueSet;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.TypeId;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The text of a statement with its literals replaced by parameter markers, along with the literal values,
+ * so that statements which only differ in their literals can share one compiled plan.
+ * <p>
+ * This works on the lexical level, so that it costs a single pass over the text rather than a parse. Only
+ * literals in the WHERE, HAVING, ON, SET and VALUES clauses are replaced, and not those which the grammar or the
+ * optimizer needs to see: ORDER BY/GROUP BY positions and FETCH FIRST/OFFSET/TOP/LIMIT counts (which are outside
+ * those clauses), LIKE patterns (which can be turned into index ranges), typed literals such as
+ * {@code DATE '...'}, and the length, precision and scale of data types. Statements which already have
+ * parameter markers, use JDBC escapes, or are not SELECT/INSERT/UPDATE/DELETE are left alone.
+ * <p>
+ * Replacing a literal with a parameter can still change the meaning of a statement, since the parameter takes the
+ * type of its context rather than the type of the literal. {@link #bind} therefore refuses literals which would
+ * not convert to the parameter's type without loss, and the statement is then run with its literals as usual.
+ */
+public final class ParameterizedStatement{
+    private static final int STRING=0;
+    private static final int INTEGER=1;
+    private static final int DECIMAL=2;
+    private static final int APPROXIMATE=3;
+
+    private static final Set<String> STATEMENTS=words("SELECT","INSERT","UPDATE","DELETE","WITH");
+    private static final Set<String> CLAUSES=words("SELECT","FROM","WHERE","GROUP","HAVING","ORDER","FETCH",
+            "OFFSET","TOP","LIMIT","VALUES","SET","ON","INTO","UNION","INTERSECT","EXCEPT");
+    private static final Set<String> PARAMETERIZED_CLAUSES=words("WHERE","HAVING","ON","SET","VALUES");
+    private static final Set<String> LITERAL_ONLY=words("LIKE","ESCAPE","DATE","TIME","TIMESTAMP","INTERVAL","X",
+            "TOP","FIRST","NEXT","OFFSET","LIMIT");
+    // data types, and the functions named after them, whose arguments have to stay literals
+    private static final Set<String> LITERAL_ARGUMENTS=words("CHAR","CHARACTER","VARCHAR","VARYING","DECIMAL","DEC",
+            "NUMERIC","FLOAT","BLOB","CLOB","BINARY","VARBINARY","DATE","TIME","TIMESTAMP");
+    private static final Set<String> SIGNED_AFTER=words("WHERE","AND","OR","NOT","BETWEEN","IN","ON","SET","VALUES",
+            "HAVING","WHEN","THEN","ELSE");
+
+    private final String text;
+    private final int[] kinds;
+    private final String[] values;
+
+    private ParameterizedStatement(String text,int[] kinds,String[] values){
+        this.text=text;
+        this.kinds=kinds;
+        this.values=values;
+    }
+
+    /**
+     * @param sql the text of the statement
+     * @return the parameterized statement, or null if the statement has no literals which can be replaced
+     */
+    public static ParameterizedStatement parameterize(String sql){
+        int n=sql.length();
+        StringBuilder out=new StringBuilder(n);
+        List<String> literals=new ArrayList<>();
+        StringBuilder kinds=new StringBuilder();
+        Deque<Frame> frames=new ArrayDeque<>();
+        Frame frame=new Frame(null,false);
+        boolean first=true;
+        String prevWord=null; // the previous token, if it was a word
+        char prevSymbol=0;    // the previous token, if it was punctuation
+
+        int i=0;
+        while(i<n){
+            char c=sql.charAt(i);
+            if(Character.isWhitespace(c)){
+                out.append(c);
+                i++;
+                continue;
+            }
+            if(c=='-' && i+1<n && sql.charAt(i+1)=='-'){
+                int end=sql.indexOf('\n',i);
+                if(end<0) end=n;
+                out.append(sql,i,end);
+                i=end;
+                continue;
+            }
+            if(c=='/' && i+1<n && sql.charAt(i+1)=='*'){
+                int end=sql.indexOf("*/",i+2);
+                if(end<0) return null;
+                out.append(sql,i,end+2);
+                i=end+2;
+                continue;
+            }
+
+            if(first && !Character.isLetter(c))
+                return null;
+
+            if(Character.isLetter(c) || c=='_'){
+                int end=i+1;
+                while(end<n && isIdentifierPart(sql.charAt(end))) end++;
+                String word=sql.substring(i,end).toUpperCase(Locale.ENGLISH);
+                if(first && !STATEMENTS.contains(word))
+                    return null;
+                first=false;
+                if(CLAUSES.contains(word))
+                    frame.clause=word;
+                out.append(sql,i,end);
+                prevWord=word;
+                prevSymbol=0;
+                i=end;
+            }else if(c=='"'){
+                int end=endOfQuoted(sql,i);
+                if(end<0) return null;
+                out.append(sql,i,end);
+                prevWord=null;
+                prevSymbol=0;
+                i=end;
+            }else if(c=='\''){
+                int end=endOfQuoted(sql,i);
+                if(end<0) return null;
+                if(frame.parameterized() && !LITERAL_ONLY.contains(prevWord)){
+                    literals.add(sql.substring(i+1,end-1).replace("''","'"));
+                    kinds.append((char)STRING);
+                    out.append('?');
+                }else
+                    out.append(sql,i,end);
+                prevWord=null;
+                prevSymbol=0;
+                i=end;
+            }else if(isNumberStart(sql,i) || (isSign(c) && isNumberStart(sql,i+1)
+                    && (SIGNED_AFTER.contains(prevWord) || (prevSymbol!=0 && "=<>(,+-*/".indexOf(prevSymbol)>=0)))){
+                int end=isSign(c)?i+1:i;
+                int kind=INTEGER;
+                while(end<n && Character.isDigit(sql.charAt(end))) end++;
+                if(end<n && sql.charAt(end)=='.'){
+                    kind=DECIMAL;
+                    end++;
+                    while(end<n && Character.isDigit(sql.charAt(end))) end++;
+                }
+                if(end<n && (sql.charAt(end)=='e' || sql.charAt(end)=='E')){
+                    int exp=end+1;
+                    if(exp<n && isSign(sql.charAt(exp))) exp++;
+                    if(exp<n && Character.isDigit(sql.charAt(exp))){
+                        kind=APPROXIMATE;
+                        end=exp;
+                        while(end<n && Character.isDigit(sql.charAt(end))) end++;
+                    }
+                }
+                if(end<n && isIdentifierPart(sql.charAt(end)))
+                    return null; // something odd like 1abc, let the parser deal with it
+                if(frame.parameterized() && !LITERAL_ONLY.contains(prevWord)){
+                    literals.add(sql.substring(c=='+'?i+1:i,end));
+                    kinds.append((char)kind);
+                    out.append('?');
+                }else
+                    out.append(sql,i,end);
+                prevWord=null;
+                prevSymbol=0;
+                i=end;
+            }else{
+                switch(c){
+                    case '?': // already parameterized
+                    case '{': // JDBC escape
+                    case ';':
+                        return null;
+                    case '(':
+                        frames.push(frame);
+                        frame=new Frame(frame.clause,frame.literalsOnly || LITERAL_ARGUMENTS.contains(prevWord));
+                        break;
+                    case ')':
+                        if(frames.isEmpty()) return null;
+                        frame=frames.pop();
+                        break;
+                    default:
+                        break;
+                }
+                out.append(c);
+                prevWord=null;
+                prevSymbol=c;
+                i++;
+            }
+        }
+        if(literals.isEmpty() || !frames.isEmpty())
+            return null;
+
+        int[] k=new int[kinds.length()];
+        for(int j=0;j<k.length;j++){
+            k[j]=kinds.charAt(j);
+        }
+        return new ParameterizedStatement(out.toString(),k,literals.toArray(new String[literals.size()]));
+    }
+
+    /**
+     * @return the text of the statement, with parameter markers in place of the literals
+     */
+    public String getText(){
+        return text;
+    }
+
+    public int getParameterCount(){
+        return values.length;
+    }
+
+    /**
+     * Set the parameters of a compiled plan for {@link #getText()} to the literal values.
+     *
+     * @param types the types of the parameters, as inferred by the compiler
+     * @param pvs   the parameters to set
+     * @return false if a literal would not have the same meaning as a parameter of the inferred type, in
+     * which case the original statement has to be compiled instead.
+     */
+    public boolean bind(DataTypeDescriptor[] types,ParameterValueSet pvs){
+        if(types==null || types.length!=values.length)
+            return false;
+        try{
+            for(int i=0;i<values.length;i++){
+                DataTypeDescriptor type=types[i];
+                TypeId typeId=type.getTypeId();
+                if(kinds[i]==STRING){
+                    if(typeId.isStringTypeId()){
+                        if(values[i].length()>type.getMaximumWidth())
+                            return false;
+                    }else if(!typeId.isDateTimeTimeStampTypeId())
+                        return false;
+                    pvs.getParameterForSet(i).setValue(values[i]);
+                }else{
+                    if(!typeId.isNumericTypeId() || typeId.isRealTypeId())
+                        return false;
+                    BigDecimal value=new BigDecimal(values[i]);
+                    if(typeId.isIntegerNumericTypeId() && kinds[i]!=INTEGER)
+                        return false;
+                    if(typeId.isDecimalTypeId()
+                            && (value.scale()>type.getScale()
+                            || value.precision()-value.scale()>type.getPrecision()-type.getScale()))
+                        return false;
+                    DataValueDescriptor dvd=pvs.getParameterForSet(i);
+                    dvd.setBigDecimal(value);
+                }
+            }
+            return true;
+        }catch(StandardException|NumberFormatException e){
+            // out of range for the type, or a malformed date/time; the original statement
+            // will report it properly
+            return false;
+        }
+    }
+
+    @Override
+    public String toString(){
+        return text+" "+Arrays.toString(values);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    private static final class Frame{
+        private String clause;
+        private final boolean literalsOnly;
+
+        Frame(String clause,boolean literalsOnly){
+            this.clause=clause;
+            this.literalsOnly=literalsOnly;
+        }
+
+        boolean parameterized(){
+            return !literalsOnly && PARAMETERIZED_CLAUSES.contains(clause);
+        }
+    }
+
+    private static Set<String> words(String... words){
+        return new HashSet<>(Arrays.asList(words));
+    }
+
+    private static boolean isIdentifierPart(char c){
+        return Character.isLetterOrDigit(c) || c=='_' || c=='$' || c=='#' || c=='@';
+    }
+
+    private static boolean isSign(char c){
+        return c=='-' || c=='+';
+    }
+
+    private static boolean isNumberStart(String sql,int i){
+        if(i>=sql.length()) return false;
+        char c=sql.charAt(i);
+        return Character.isDigit(c) || (c=='.' && i+1<sql.length() && Character.isDigit(sql.charAt(i+1)));
+    }
+
+    /**
+     * @return the position just past the closing quote of the quoted string or identifier at {@code start},
+     * or -1 if it is not closed
+     */
+    private static int endOfQuoted(String sql,int start){
+        char quote=sql.charAt(start);
+        int i=start+1;
+        while(i<sql.length()){
+            if(sql.charAt(i)==quote){
+                if(i+1<sql.length() && sql.charAt(i+1)==quote)
+                    i+=2;
+                else
+                    return i+1;
+            }else
+                i++;
+        }
+        return -1;
+    }
+}
@@ -25,12 +25,14 @@
 
 package com.splicemachine.db.impl.sql.catalog;
 
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.monitor.ModuleControl;
 import com.splicemachine.db.iapi.services.monitor.ModuleSupportable;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
 import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
+import com.splicemachine.db.iapi.store.access.TransactionController;
 
 public abstract class BaseDataDictionary implements DataDictionary, ModuleControl, ModuleSupportable,java.security.PrivilegedAction {
 	protected static final String		CFG_SYSTABLES_ID = "SystablesIdentifier";
@@ -208,4 +210,9 @@ public abstract class BaseDataDictionary implements DataDictionary, ModuleContro
 	public boolean canUseSPSCache() throws StandardException{
 		return canUseCache(null);
 	}
+
+	@Override
+	public boolean canUseCache(TransactionController xactMgr,UUID tableId) throws StandardException{
+		return canUseCache(xactMgr);
+	}
 }
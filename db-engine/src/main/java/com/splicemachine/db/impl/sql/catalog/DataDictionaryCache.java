@@ -42,43 +42,75 @@ import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
 import org.apache.log4j.Logger;
 import org.spark_project.guava.cache.Cache;
 import org.spark_project.guava.cache.CacheBuilder;
+import org.spark_project.guava.cache.RemovalCause;
 import org.spark_project.guava.cache.RemovalListener;
 import org.spark_project.guava.cache.RemovalNotification;
+import org.spark_project.guava.cache.Weigher;
 
-import javax.management.MXBean;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
  * Cache Holder for making sense of data dictionary caching and concurrency.
  *
+ * The table descriptor, conglomerate and partition statistics caches share one cache bounded by
+ * {@link Property#LANG_DD_CACHE_MAX_MEMORY}, with each entry weighed by the estimated size of its descriptor, so
+ * that they compete for the same memory rather than each holding a fixed number of entries. The other caches
+ * hold small descriptors of roughly the same size, and stay bounded by their number of entries.
+ *
+ * Lookups of table descriptors and of conglomerates and statistics of known tables ask the data dictionary
+ * whether the cache can be used for that table, so that DDL on one table only makes lookups of that table
+ * bypass the cache.
+ * The remaining caches (permissions, stored prepared statements, schemas, sequences, roles) can hold
+ * descriptors which DDL on a table also changes, so they are bypassed while DDL on any table is in flight
+ * or not yet visible, as well as for DDL which does not name its tables.
+ *
  */
-public class DataDictionaryCache {
+public class DataDictionaryCache implements DataDictionaryCacheIFace {
     private static Logger LOG = Logger.getLogger(DataDictionaryCache.class);
-    private Cache<UUID,TableDescriptor> oidTdCache;
-    private Cache<TableKey,TableDescriptor> nameTdCache;
+    private Cache<DescriptorKey,WeighedDescriptor> descriptorCache;
     private Cache<TableKey,SPSDescriptor> spsNameCache;
     private Cache<String,SequenceUpdater> sequenceGeneratorCache;
     private Cache<PermissionsDescriptor,PermissionsDescriptor> permissionsCache;
-    private Cache<Long,List<PartitionStatisticsDescriptor>> partitionStatisticsCache;
     private Cache<UUID, SPSDescriptor> storedPreparedStatementCache;
-    private Cache<Long,Conglomerate> conglomerateCache;
     private Cache<GenericStatement,GenericStorablePreparedStatement> statementCache;
     private Cache<String,SchemaDescriptor> schemaCache;
     private Cache<String,Optional<RoleGrantDescriptor>> roleCache;
-    private int tdCacheSize;
+    // the table of each conglomerate whose table descriptor was cached, to check whether there is DDL on it
+    private Cache<Long,UUID> conglomerateTableCache;
+    // parameterized statement texts which did not compile
+    private Cache<String,Boolean> parameterizationRejectCache;
     private int stmtCacheSize;
     private int permissionsCacheSize;
+    private long ddCacheMaxMemory;
+    private long stmtCacheMaxMemory;
+    private boolean parameterizeLiterals;
     private DataDictionary dd;
 
+    private final CacheCounters oidTdCounters = new CacheCounters("TABLE_BY_ID");
+    private final CacheCounters nameTdCounters = new CacheCounters("TABLE_BY_NAME");
+    private final CacheCounters partitionStatisticsCounters = new CacheCounters("PARTITION_STATISTICS");
+    private final CacheCounters conglomerateCounters = new CacheCounters("CONGLOMERATE");
+    private final CacheCounters schemaCounters = new CacheCounters("SCHEMA");
+    private final CacheCounters roleCounters = new CacheCounters("ROLE");
+    private final CacheCounters permissionsCounters = new CacheCounters("PERMISSIONS");
+    private final CacheCounters sequenceGeneratorCounters = new CacheCounters("SEQUENCE_GENERATOR");
+    private final CacheCounters spsNameCounters = new CacheCounters("SPS_BY_NAME");
+    private final CacheCounters storedPreparedStatementCounters = new CacheCounters("SPS_BY_ID");
+    private final CacheCounters statementCounters = new CacheCounters("STATEMENT");
+    private final AtomicLong compileNanosSaved = new AtomicLong();
+    private final AtomicLong parameterizedStatements = new AtomicLong();
+    private final AtomicLong parameterizationRejects = new AtomicLong();
 
-    public DataDictionaryCache(Properties startParams,DataDictionary dd) throws StandardException {
-        String value=startParams.getProperty(Property.LANG_TD_CACHE_SIZE);
-        tdCacheSize= PropertyUtil.intPropertyValue(Property.LANG_TD_CACHE_SIZE, value,
-                0, Integer.MAX_VALUE, Property.LANG_TD_CACHE_SIZE_DEFAULT);
 
-        value=startParams.getProperty(Property.LANG_SPS_CACHE_SIZE);
+    public DataDictionaryCache(Properties startParams,DataDictionary dd) throws StandardException {
+        String value=startParams.getProperty(Property.LANG_SPS_CACHE_SIZE);
         stmtCacheSize=PropertyUtil.intPropertyValue(Property.LANG_SPS_CACHE_SIZE,value,
                 0,Integer.MAX_VALUE,Property.LANG_SPS_CACHE_SIZE_DEFAULT);
 
@@ -90,7 +122,19 @@ public class DataDictionaryCache {
         permissionsCacheSize=PropertyUtil.intPropertyValue(Property.LANG_PERMISSIONS_CACHE_SIZE, value,
                 0, Integer.MAX_VALUE, Property.LANG_PERMISSIONS_CACHE_SIZE_DEFAULT);
 
-        RemovalListener<Object,Dependent> dependentInvalidator = new RemovalListener<Object, Dependent>() {
+        value=PropertyUtil.getPropertyFromSet(startParams,Property.LANG_DD_CACHE_MAX_MEMORY);
+        ddCacheMaxMemory=1024L*1024L*PropertyUtil.intPropertyValue(Property.LANG_DD_CACHE_MAX_MEMORY,value,
+                1,Integer.MAX_VALUE,Property.LANG_DD_CACHE_MAX_MEMORY_DEFAULT);
+
+        value=PropertyUtil.getPropertyFromSet(startParams,Property.STATEMENT_CACHE_MAX_MEMORY);
+        stmtCacheMaxMemory=1024L*1024L*PropertyUtil.intPropertyValue(Property.STATEMENT_CACHE_MAX_MEMORY,value,
+                1,Integer.MAX_VALUE,Property.STATEMENT_CACHE_MAX_MEMORY_DEFAULT);
+
+        value=PropertyUtil.getPropertyFromSet(startParams,Property.STATEMENT_CACHE_PARAMETERIZE_LITERALS);
+        parameterizeLiterals=PropertyUtil.booleanProperty(Property.STATEMENT_CACHE_PARAMETERIZE_LITERALS,value,
+                Property.STATEMENT_CACHE_PARAMETERIZE_LITERALS_DEFAULT);
+
+        final RemovalListener<Object,Dependent> dependentInvalidator = new RemovalListener<Object, Dependent>() {
             @Override
             public void onRemoval(RemovalNotification<Object, Dependent> removalNotification) {
                 LanguageConnectionContext lcc=(LanguageConnectionContext)
@@ -102,102 +146,153 @@ public class DataDictionaryCache {
                 }
             }
         };
-        oidTdCache = CacheBuilder.newBuilder().maximumSize(tdCacheSize).build();
-        nameTdCache = CacheBuilder.newBuilder().maximumSize(tdCacheSize).build();
+        RemovalListener<Object,Dependent> statementInvalidator = new RemovalListener<Object, Dependent>() {
+            @Override
+            public void onRemoval(RemovalNotification<Object, Dependent> removalNotification) {
+                // a statement is replaced by itself to weigh it again once it is compiled
+                if (removalNotification.getCause() != RemovalCause.REPLACED)
+                    dependentInvalidator.onRemoval(removalNotification);
+            }
+        };
+        descriptorCache = CacheBuilder.newBuilder()
+                .maximumWeight(ddCacheMaxMemory)
+                .weigher(new Weigher<DescriptorKey, WeighedDescriptor>() {
+                    @Override
+                    public int weigh(DescriptorKey key, WeighedDescriptor value) {
+                        return value.weight;
+                    }
+                })
+                .removalListener(new RemovalListener<DescriptorKey, WeighedDescriptor>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<DescriptorKey, WeighedDescriptor> removalNotification) {
+                        CacheCounters counters = removalNotification.getKey().counters;
+                        counters.entries.decrementAndGet();
+                        counters.weight.addAndGet(-removalNotification.getValue().weight);
+                        if (removalNotification.wasEvicted())
+                            counters.evictions.incrementAndGet();
+                    }
+                }).build();
         if(stmtCacheSize>0){
-            spsNameCache = CacheBuilder.newBuilder().maximumSize(stmtCacheSize).removalListener(dependentInvalidator).build();
-            storedPreparedStatementCache = CacheBuilder.newBuilder().maximumSize(stmtCacheSize).removalListener(dependentInvalidator).build();
+            spsNameCache = CacheBuilder.newBuilder().maximumSize(stmtCacheSize).recordStats().removalListener(dependentInvalidator).build();
+            storedPreparedStatementCache = CacheBuilder.newBuilder().maximumSize(stmtCacheSize).recordStats().removalListener(dependentInvalidator).build();
         }
-        sequenceGeneratorCache=CacheBuilder.newBuilder().maximumSize(seqgenCacheSize).build();
-        partitionStatisticsCache = CacheBuilder.newBuilder().maximumSize(8092).build();
-        conglomerateCache = CacheBuilder.newBuilder().maximumSize(1024).build();
-        statementCache = CacheBuilder.newBuilder().maximumSize(1024).removalListener(dependentInvalidator).build();
-        schemaCache = CacheBuilder.newBuilder().maximumSize(1024).build();
-        roleCache = CacheBuilder.newBuilder().maximumSize(100).build();
-        permissionsCache=CacheBuilder.newBuilder().maximumSize(permissionsCacheSize).build();
+        sequenceGeneratorCache=CacheBuilder.newBuilder().maximumSize(seqgenCacheSize).recordStats().build();
+        statementCache = CacheBuilder.newBuilder()
+                .maximumWeight(stmtCacheMaxMemory)
+                .weigher(new Weigher<GenericStatement, GenericStorablePreparedStatement>() {
+                    @Override
+                    public int weigh(GenericStatement key, GenericStorablePreparedStatement value) {
+                        return 2 * key.getSource().length() + value.estimateMemoryUsage();
+                    }
+                })
+                .recordStats()
+                .removalListener(statementInvalidator).build();
+        parameterizationRejectCache = CacheBuilder.newBuilder().maximumSize(1024).build();
+        conglomerateTableCache = CacheBuilder.newBuilder().maximumSize(16384).build();
+        schemaCache = CacheBuilder.newBuilder().maximumSize(1024).recordStats().build();
+        roleCache = CacheBuilder.newBuilder().maximumSize(100).recordStats().build();
+        permissionsCache=CacheBuilder.newBuilder().maximumSize(permissionsCacheSize).recordStats().build();
         this.dd = dd;
     }
 
     public TableDescriptor nameTdCacheFind(TableKey tableKey) throws StandardException {
-        if (!dd.canUseCache(null))
-            return null;
         if (LOG.isDebugEnabled())
             LOG.debug("nameTdCacheFind " + tableKey);
-        return nameTdCache.getIfPresent(tableKey);
+        TableDescriptor td = descriptorFind(nameTdCounters, tableKey);
+        if (td != null && !dd.canUseCache(null, td.getUUID())) {
+            // the table is being altered, or was altered after this transaction started
+            nameTdCounters.miss();
+            return null;
+        }
+        nameTdCounters.found(td);
+        return td;
     }
 
     public void nameTdCacheAdd(TableKey tableKey, TableDescriptor td) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, td.getUUID()))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("nameTdCacheAdd " + tableKey + " : " + td);
-        nameTdCache.put(tableKey,td);
+        nameTdCounters.loaded();
+        descriptorAdd(nameTdCounters, tableKey, td, estimateSize(td));
+        conglomerateTablesAdd(td);
     }
 
     public TableDescriptor nameTdCacheRemove(TableKey tableKey) throws StandardException {
-        TableDescriptor td = nameTdCache.getIfPresent(tableKey);
+        TableDescriptor td = descriptorFind(nameTdCounters, tableKey);
         if (LOG.isDebugEnabled())
             LOG.debug("nameTdCacheInvalidate " + tableKey + (td != null ? " found" : " null"));
-        nameTdCache.invalidate(tableKey);
+        descriptorCache.invalidate(new DescriptorKey(nameTdCounters, tableKey));
         return td;
     }
 
     public TableDescriptor oidTdCacheFind(UUID tableID) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, tableID)) {
+            oidTdCounters.miss();
             return null;
-        TableDescriptor td =  oidTdCache.getIfPresent(tableID);
+        }
+        TableDescriptor td = descriptorFind(oidTdCounters, tableID);
         if (LOG.isDebugEnabled())
             LOG.debug("oidTdCacheFind " + tableID + (td != null ? " found" : " null"));
+        oidTdCounters.found(td);
         if (td!=null) // bind in previous command might have set
             td.setReferencedColumnMap(null);
         return td;
     }
 
     public void oidTdCacheAdd(UUID tableID, TableDescriptor td) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, tableID))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("oidTdCacheAdd " + tableID + " : " + td);
-        oidTdCache.put(tableID,td);
+        oidTdCounters.loaded();
+        descriptorAdd(oidTdCounters, tableID, td, estimateSize(td));
+        conglomerateTablesAdd(td);
     }
 
     public TableDescriptor oidTdCacheRemove(UUID tableID) throws StandardException {
-        TableDescriptor td = oidTdCache.getIfPresent(tableID);
+        TableDescriptor td = descriptorFind(oidTdCounters, tableID);
         if (LOG.isDebugEnabled())
             LOG.debug("oidTdCacheRemove " + tableID + (td != null ? " found" : " null"));
-        oidTdCache.invalidate(tableID);
+        descriptorCache.invalidate(new DescriptorKey(oidTdCounters, tableID));
         return td;
     }
 
 
     public List<PartitionStatisticsDescriptor> partitionStatisticsCacheFind(Long conglomID) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, conglomerateTableCache.getIfPresent(conglomID))) {
+            partitionStatisticsCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("partitionStatisticsCacheFind " + conglomID);
-        return partitionStatisticsCache.getIfPresent(conglomID);
+        List<PartitionStatisticsDescriptor> list = descriptorFind(partitionStatisticsCounters, conglomID);
+        partitionStatisticsCounters.found(list);
+        return list;
     }
 
     public void partitionStatisticsCacheAdd(Long conglomID, List<PartitionStatisticsDescriptor> list) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, conglomerateTableCache.getIfPresent(conglomID)))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("partitionStatisticsCacheAdd " + conglomID);
-        partitionStatisticsCache.put(conglomID, list);
+        partitionStatisticsCounters.loaded();
+        descriptorAdd(partitionStatisticsCounters, conglomID, list, estimateSize(list));
     }
 
     public void partitionStatisticsCacheRemove(Long conglomID) throws StandardException {
         if (LOG.isDebugEnabled())
             LOG.debug("invalidateCachedStatistics " + conglomID);
-        partitionStatisticsCache.invalidate(conglomID);
+        descriptorCache.invalidate(new DescriptorKey(partitionStatisticsCounters, conglomID));
     }
 
     public void permissionCacheAdd(PermissionsDescriptor key, PermissionsDescriptor permissions) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("permissionCacheAdd " + key);
         if (key != null && permissions != null) {
+            permissionsCounters.loaded();
             permissionsCache.put(key, permissions);
         }
     }
@@ -209,19 +304,23 @@ public class DataDictionaryCache {
     }
 
     public PermissionsDescriptor permissionCacheFind(PermissionsDescriptor desc) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null)) {
+            permissionsCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("permissionCacheFind " + desc);
-        return permissionsCache.getIfPresent(desc);
+        return permissionsCounters.found(permissionsCache.getIfPresent(desc));
     }
 
     public SPSDescriptor spsNameCacheFind(TableKey tableKey) throws StandardException {
-        if (!dd.canUseSPSCache())
+        if (!dd.canUseSPSCache()) {
+            spsNameCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("spsNameCacheFind " + tableKey);
-        return spsNameCache.getIfPresent(tableKey);
+        return spsNameCounters.found(spsNameCache.getIfPresent(tableKey));
     }
 
     public void spsNameCacheAdd(TableKey tableKey, SPSDescriptor sps) throws StandardException {
@@ -229,33 +328,42 @@ public class DataDictionaryCache {
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("spsNameCacheAdd tableKey=" + tableKey + " descriptor="+sps);
+        spsNameCounters.loaded();
         spsNameCache.put(tableKey, sps);
     }
 
     public void storedPreparedStatementCacheAdd(SPSDescriptor desc) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("storedPreparedStatementCacheAdd " + desc);
+        storedPreparedStatementCounters.loaded();
         storedPreparedStatementCache.put(desc.getUUID(), desc);
     }
 
     public SPSDescriptor storedPreparedStatementCacheFind(UUID uuid) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null)) {
+            storedPreparedStatementCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("storedPreparedStatementCacheFind " + uuid);
-        return storedPreparedStatementCache.getIfPresent(uuid);
+        return storedPreparedStatementCounters.found(storedPreparedStatementCache.getIfPresent(uuid));
     }
 
 
     public Conglomerate conglomerateCacheFind(TransactionController xactMgr,Long conglomId) throws StandardException {
-        if (!dd.canUseCache(xactMgr) && conglomId>=DataDictionary.FIRST_USER_TABLE_NUMBER)
+        if (conglomId>=DataDictionary.FIRST_USER_TABLE_NUMBER
+                && !dd.canUseCache(xactMgr, conglomerateTableCache.getIfPresent(conglomId))) {
             // Use cache even if dd says we can't as long as it's a system table (conglomID is < FIRST_USER_TABLE_NUMBER)
+            conglomerateCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("conglomerateCacheFind " + conglomId);
-        return conglomerateCache.getIfPresent(conglomId);
+        Conglomerate conglomerate = descriptorFind(conglomerateCounters, conglomId);
+        conglomerateCounters.found(conglomerate);
+        return conglomerate;
     }
 
     public Conglomerate conglomerateCacheFind(Long conglomId) throws StandardException {
@@ -263,11 +371,12 @@ public class DataDictionaryCache {
     }
 
     public void conglomerateCacheAdd(Long conglomId, Conglomerate conglomerate,TransactionController xactMgr) throws StandardException {
-        if (!dd.canUseCache(xactMgr))
+        if (!dd.canUseCache(xactMgr, conglomerateTableCache.getIfPresent(conglomId)))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("conglomerateCacheAdd " + conglomId + " : " + conglomerate);
-        conglomerateCache.put(conglomId,conglomerate);
+        conglomerateCounters.loaded();
+        descriptorAdd(conglomerateCounters, conglomId, conglomerate, estimateSize(conglomerate));
     }
 
     public void conglomerateCacheAdd(Long conglomId, Conglomerate conglomerate) throws StandardException {
@@ -277,23 +386,26 @@ public class DataDictionaryCache {
     public void conglomerateCacheRemove(Long conglomId) throws StandardException {
         if (LOG.isDebugEnabled())
             LOG.debug("conglomerateCacheRemove " + conglomId);
-        conglomerateCache.invalidate(conglomId);
+        descriptorCache.invalidate(new DescriptorKey(conglomerateCounters, conglomId));
     }
 
 
     public SchemaDescriptor schemaCacheFind(String schemaName) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null)) {
+            schemaCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("schemaCacheFind " + schemaName);
-        return schemaCache.getIfPresent(schemaName);
+        return schemaCounters.found(schemaCache.getIfPresent(schemaName));
     }
 
     public void schemaCacheAdd(String schemaName, SchemaDescriptor descriptor) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("schemaCacheAdd " + schemaName + " : " + descriptor);
+        schemaCounters.loaded();
         schemaCache.put(schemaName,descriptor);
     }
 
@@ -316,36 +428,41 @@ public class DataDictionaryCache {
     }
 
     public SequenceUpdater sequenceGeneratorCacheFind(String uuid) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null)) {
+            sequenceGeneratorCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("sequenceGeneratorCacheFind " + uuid);
-        return sequenceGeneratorCache.getIfPresent(uuid);
+        return sequenceGeneratorCounters.found(sequenceGeneratorCache.getIfPresent(uuid));
     }
 
     public void clearAll() {
         if (LOG.isDebugEnabled())
             LOG.debug("clearAll");
-        oidTdCache.invalidateAll();
-        nameTdCache.invalidateAll();
-        spsNameCache.invalidateAll();
+        descriptorCache.invalidateAll();
+        conglomerateTableCache.invalidateAll();
+        if (spsNameCache != null) {
+            spsNameCache.invalidateAll();
+            storedPreparedStatementCache.invalidateAll();
+        }
         sequenceGeneratorCache.invalidateAll();
         permissionsCache.invalidateAll();
-        partitionStatisticsCache.invalidateAll();
-        storedPreparedStatementCache.invalidateAll();
         schemaCache.invalidateAll();
         statementCache.invalidateAll();
+        parameterizationRejectCache.invalidateAll();
         roleCache.invalidateAll();
     }
 
     public void clearTableCache(){
-        oidTdCache.invalidateAll();
-        nameTdCache.invalidateAll();
-        partitionStatisticsCache.invalidateAll();
+        descriptorInvalidateAll(oidTdCounters);
+        descriptorInvalidateAll(nameTdCounters);
+        descriptorInvalidateAll(partitionStatisticsCounters);
         schemaCache.invalidateAll();
         sequenceGeneratorCache.invalidateAll();
         permissionsCache.invalidateAll();
         statementCache.invalidateAll();
+        parameterizationRejectCache.invalidateAll();
         roleCache.invalidateAll();
     }
 
@@ -361,14 +478,17 @@ public class DataDictionaryCache {
         statementCache.invalidate(gs);
     }
 
+    @Override
     public void clearStatementCache() {
         if (LOG.isDebugEnabled())
             LOG.debug("clearStatementCache ");
         statementCache.invalidateAll();
+        parameterizationRejectCache.invalidateAll();
     }
 
     public void statementCacheAdd(GenericStatement gs, GenericStorablePreparedStatement gsp) throws StandardException {
-        if (!dd.canUseCache(null))
+        // plans are not tied to the tables they read here, so they are not cached during DDL on any table
+        if (!dd.canUseCache(null, null))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("statementCacheAdd " + gs.toString());
@@ -376,7 +496,7 @@ public class DataDictionaryCache {
     }
 
     public GenericStorablePreparedStatement statementCacheFind(GenericStatement gs) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null))
             return null;
         GenericStorablePreparedStatement gsps = statementCache.getIfPresent(gs);
         if (LOG.isDebugEnabled())
@@ -384,20 +504,159 @@ public class DataDictionaryCache {
         return gsps;
     }
 
+    /**
+     * Record that a statement was found compiled in the statement cache.
+     */
+    public void statementCacheHit(GenericStorablePreparedStatement gsps) {
+        statementCounters.hits.incrementAndGet();
+        compileNanosSaved.addAndGet(gsps.getCompileNanos());
+    }
+
+    /**
+     * Record that a statement in the statement cache had to be compiled. The statement was weighed when it
+     * was added to the cache, before it had a plan, so it is weighed again here.
+     */
+    public void statementCacheCompiled(GenericStatement gs, GenericStorablePreparedStatement gsps, long compileNanos) {
+        statementCounters.misses.incrementAndGet();
+        statementCounters.loaded(compileNanos);
+        gsps.setCompileNanos(compileNanos);
+        statementCache.asMap().replace(gs, gsps, gsps);
+    }
+
+    /**
+     * @return true if literals should be replaced by parameters before looking up the statement cache
+     */
+    public boolean parameterizeLiterals() {
+        return parameterizeLiterals;
+    }
+
+    /**
+     * @return false if the parameterized text has failed to compile before
+     */
+    public boolean isParameterizable(String parameterizedText) {
+        return parameterizationRejectCache.getIfPresent(parameterizedText) == null;
+    }
+
+    public void parameterizedStatementPrepared() {
+        parameterizedStatements.incrementAndGet();
+    }
+
+    public void parameterizationFailed(String parameterizedText) {
+        if (LOG.isDebugEnabled())
+            LOG.debug("parameterizationFailed " + parameterizedText);
+        parameterizationRejects.incrementAndGet();
+        parameterizationRejectCache.put(parameterizedText, Boolean.TRUE);
+    }
+
+    @Override
+    public long getStatementCacheHits() {
+        return statementCounters.hits.get();
+    }
+
+    @Override
+    public long getStatementCacheMisses() {
+        return statementCounters.misses.get();
+    }
+
+    @Override
+    public double getStatementCacheHitRate() {
+        long hits = statementCounters.hits.get();
+        long total = hits + statementCounters.misses.get();
+        return total == 0 ? 0d : ((double) hits) / total;
+    }
+
+    @Override
+    public long getStatementCacheEvictions() {
+        return statementCache.stats().evictionCount();
+    }
+
+    @Override
+    public long getStatementCacheSize() {
+        return statementCache.size();
+    }
+
+    @Override
+    public long getStatementCacheMemoryEstimate() {
+        long total = 0L;
+        for (Map.Entry<GenericStatement, GenericStorablePreparedStatement> entry : statementCache.asMap().entrySet()) {
+            total += 2L * entry.getKey().getSource().length() + entry.getValue().estimateMemoryUsage();
+        }
+        return total;
+    }
+
+    @Override
+    public long getStatementCacheMaxMemory() {
+        return stmtCacheMaxMemory;
+    }
+
+    @Override
+    public long getStatementCacheCompileTimeSavedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(compileNanosSaved.get());
+    }
+
+    @Override
+    public boolean isStatementCacheParameterizeLiterals() {
+        return parameterizeLiterals;
+    }
+
+    @Override
+    public long getParameterizedStatementCount() {
+        return parameterizedStatements.get();
+    }
+
+    @Override
+    public long getParameterizationRejectCount() {
+        return parameterizationRejects.get();
+    }
+
+    @Override
+    public List<DictionaryCacheStatistics> getCacheStatistics() {
+        List<DictionaryCacheStatistics> stats = new ArrayList<>();
+        stats.add(oidTdCounters.snapshot());
+        stats.add(nameTdCounters.snapshot());
+        stats.add(partitionStatisticsCounters.snapshot());
+        stats.add(conglomerateCounters.snapshot());
+        stats.add(schemaCounters.snapshot(schemaCache));
+        stats.add(roleCounters.snapshot(roleCache));
+        stats.add(permissionsCounters.snapshot(permissionsCache));
+        stats.add(sequenceGeneratorCounters.snapshot(sequenceGeneratorCache));
+        if (spsNameCache != null) {
+            stats.add(spsNameCounters.snapshot(spsNameCache));
+            stats.add(storedPreparedStatementCounters.snapshot(storedPreparedStatementCache));
+        }
+        stats.add(statementCounters.snapshot(statementCache.size(), getStatementCacheMemoryEstimate(),
+                statementCache.stats().evictionCount()));
+        return stats;
+    }
+
+    @Override
+    public long getDescriptorCacheMemoryEstimate() {
+        return oidTdCounters.weight.get() + nameTdCounters.weight.get()
+                + partitionStatisticsCounters.weight.get() + conglomerateCounters.weight.get();
+    }
+
+    @Override
+    public long getDescriptorCacheMaxMemory() {
+        return ddCacheMaxMemory;
+    }
+
     public void roleCacheAdd(String roleName, Optional<RoleGrantDescriptor> optional) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null))
             return;
         if (LOG.isDebugEnabled())
             LOG.debug("roleCacheAdd " + roleName);
+        roleCounters.loaded();
         roleCache.put(roleName,optional);
     }
 
     public Optional<RoleGrantDescriptor> roleCacheFind(String roleName) throws StandardException {
-        if (!dd.canUseCache(null))
+        if (!dd.canUseCache(null, null)) {
+            roleCounters.miss();
             return null;
+        }
         if (LOG.isDebugEnabled())
             LOG.debug("roleCacheFind " + roleName);
-        return roleCache.getIfPresent(roleName);
+        return roleCounters.found(roleCache.getIfPresent(roleName));
     }
 
     public void roleCacheRemove(String roleName) throws StandardException {
@@ -406,12 +665,160 @@ public class DataDictionaryCache {
         roleCache.invalidate(roleName);
     }
 
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    @SuppressWarnings("unchecked")
+    private <T> T descriptorFind(CacheCounters counters, Object key) {
+        WeighedDescriptor descriptor = descriptorCache.getIfPresent(new DescriptorKey(counters, key));
+        return descriptor == null ? null : (T) descriptor.value;
+    }
+
+    private void descriptorAdd(CacheCounters counters, Object key, Object value, int weight) {
+        counters.entries.incrementAndGet();
+        counters.weight.addAndGet(weight);
+        descriptorCache.put(new DescriptorKey(counters, key), new WeighedDescriptor(value, weight));
+    }
 
+    private void descriptorInvalidateAll(CacheCounters counters) {
+        for (Iterator<DescriptorKey> it = descriptorCache.asMap().keySet().iterator(); it.hasNext(); ) {
+            if (it.next().counters == counters)
+                it.remove();
+        }
+    }
+
+    private void conglomerateTablesAdd(TableDescriptor td) {
+        ConglomerateDescriptorList cds = td.getConglomerateDescriptorList();
+        if (cds == null)
+            return;
+        for (ConglomerateDescriptor cd : cds) {
+            conglomerateTableCache.put(cd.getConglomerateNumber(), td.getUUID());
+        }
+    }
+
+    /*
+     * The estimates below are rough, and only have to be right relative to each other: a table descriptor is
+     * dominated by its column descriptors, partition statistics by the sketches of each column.
+     */
+
+    private static int estimateSize(TableDescriptor td) {
+        ColumnDescriptorList columns = td.getColumnDescriptorList();
+        ConglomerateDescriptorList conglomerates = td.getConglomerateDescriptorList();
+        return 1024 + 256 * (columns == null ? 0 : columns.size())
+                + 256 * (conglomerates == null ? 0 : conglomerates.size());
+    }
+
+    private static int estimateSize(List<PartitionStatisticsDescriptor> partitions) {
+        long size = 128L;
+        for (PartitionStatisticsDescriptor partition : partitions) {
+            List<ColumnStatsDescriptor> columns = partition.getColumnStatsDescriptors();
+            size += 256L + 2048L * (columns == null ? 0 : columns.size());
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static int estimateSize(Conglomerate conglomerate) {
+        return 256 + Math.max(conglomerate.estimateMemoryUsage(), 0);
+    }
 
-    @MXBean
-    @SuppressWarnings("UnusedDeclaration")
-    public interface DataDictionaryCacheIFace {
+    /**
+     * The key of an entry in the shared descriptor cache, made up of the key within one of the caches which
+     * share it and the counters of that cache.
+     */
+    private static final class DescriptorKey {
+        private final CacheCounters counters;
+        private final Object key;
 
+        DescriptorKey(CacheCounters counters, Object key) {
+            this.counters = counters;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DescriptorKey)) return false;
+            DescriptorKey that = (DescriptorKey) o;
+            return counters == that.counters && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * counters.hashCode() + key.hashCode();
+        }
+    }
+
+    /**
+     * A descriptor with the weight it had when it was added, so that it is subtracted again when it is removed
+     * even if the descriptor changed in between.
+     */
+    private static final class WeighedDescriptor {
+        private final Object value;
+        private final int weight;
+
+        WeighedDescriptor(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class CacheCounters {
+        private final String name;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong loads = new AtomicLong();
+        private final AtomicLong loadNanos = new AtomicLong();
+        // only kept for the caches sharing the descriptor cache, the others record their own
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong weight = new AtomicLong();
+        // when this thread last missed, so that the time until it adds the entry can be counted as load time
+        private final ThreadLocal<Long> missStart = new ThreadLocal<>();
+
+        CacheCounters(String name) {
+            this.name = name;
+        }
+
+        <T> T found(T value) {
+            if (value == null)
+                miss();
+            else {
+                hits.incrementAndGet();
+                missStart.remove();
+            }
+            return value;
+        }
+
+        void miss() {
+            misses.incrementAndGet();
+            missStart.set(System.nanoTime());
+        }
+
+        void loaded() {
+            Long start = missStart.get();
+            if (start != null) {
+                missStart.remove();
+                loaded(System.nanoTime() - start);
+            }
+        }
+
+        void loaded(long nanos) {
+            loads.incrementAndGet();
+            loadNanos.addAndGet(nanos);
+        }
+
+        DictionaryCacheStatistics snapshot() {
+            return snapshot(entries.get(), weight.get(), evictions.get());
+        }
+
+        DictionaryCacheStatistics snapshot(Cache<?, ?> cache) {
+            return snapshot(cache.size(), -1L, cache.stats().evictionCount());
+        }
+
+        DictionaryCacheStatistics snapshot(long size, long memoryEstimate, long evictionCount) {
+            return new DictionaryCacheStatistics(name, size, memoryEstimate, hits.get(), misses.get(), evictionCount,
+                    loads.get(), TimeUnit.NANOSECONDS.toMillis(loadNanos.get()));
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql.catalog;
+
+import javax.management.MXBean;
+import java.util.List;
+
+/**
+ * JMX Hook for monitoring the data dictionary caches.
+ */
+@MXBean
+public interface DataDictionaryCacheIFace {
+
+    /**
+     * @return the number of times a compiled plan was found in the statement cache
+     */
+    long getStatementCacheHits();
+
+    /**
+     * @return the number of times a statement had to be compiled, because it was not in the statement
+     * cache or its plan had been invalidated
+     */
+    long getStatementCacheMisses();
+
+    double getStatementCacheHitRate();
+
+    /**
+     * @return the number of plans evicted from the statement cache to stay within its memory limit
+     */
+    long getStatementCacheEvictions();
+
+    long getStatementCacheSize();
+
+    /**
+     * @return the estimated heap space taken up by the plans in the statement cache, in bytes
+     */
+    long getStatementCacheMemoryEstimate();
+
+    long getStatementCacheMaxMemory();
+
+    /**
+     * @return the compile time which plans found in the statement cache would otherwise have taken
+     */
+    long getStatementCacheCompileTimeSavedMillis();
+
+    boolean isStatementCacheParameterizeLiterals();
+
+    /**
+     * @return the number of statements which ran with a plan compiled for their literals replaced by
+     * parameters
+     */
+    long getParameterizedStatementCount();
+
+    /**
+     * @return the number of parameterized statements which failed to compile, and ran with their literals
+     */
+    long getParameterizationRejectCount();
+
+    void clearStatementCache();
+
+    /**
+     * @return the size, hit and miss counts and load times of each of the data dictionary caches
+     */
+    List<DictionaryCacheStatistics> getCacheStatistics();
+
+    /**
+     * @return the estimated heap space taken up by the table descriptor, conglomerate and partition
+     * statistics caches, in bytes
+     */
+    long getDescriptorCacheMemoryEstimate();
+
+    long getDescriptorCacheMaxMemory();
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql.catalog;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the statistics of one of the caches in {@link DataDictionaryCache}.
+ */
+public class DictionaryCacheStatistics {
+    private final String cacheName;
+    private final long size;
+    private final long memoryEstimate;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long loads;
+    private final long loadTimeMillis;
+
+    @ConstructorProperties({"cacheName","size","memoryEstimate","hits","misses","evictions","loads","loadTimeMillis"})
+    public DictionaryCacheStatistics(String cacheName,
+                                     long size,
+                                     long memoryEstimate,
+                                     long hits,
+                                     long misses,
+                                     long evictions,
+                                     long loads,
+                                     long loadTimeMillis) {
+        this.cacheName = cacheName;
+        this.size = size;
+        this.memoryEstimate = memoryEstimate;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.loads = loads;
+        this.loadTimeMillis = loadTimeMillis;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the estimated heap space taken up by the entries of the cache in bytes, or -1 if the
+     * cache is bounded by its number of entries only
+     */
+    public long getMemoryEstimate() {
+        return memoryEstimate;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which did not find an entry, including those which had to bypass
+     * the cache because of an ongoing DDL operation
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of entries added to the cache after a miss
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * @return the time spent between a miss and adding the entry which was missing, which is the time
+     * spent reading it from the dictionary (or compiling it, for statements)
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return cacheName + "{size=" + size + ", memoryEstimate=" + memoryEstimate + ", hits=" + hits +
+                ", misses=" + misses + ", evictions=" + evictions + ", loads=" + loads +
+                ", loadTimeMillis=" + loadTimeMillis + "}";
+    }
+}
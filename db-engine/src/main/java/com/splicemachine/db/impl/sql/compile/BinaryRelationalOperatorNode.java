@@ -42,6 +42,7 @@ import com.splicemachine.db.iapi.types.TypeId;
 import com.splicemachine.db.iapi.util.JBitSet;
 import java.sql.Types;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -1463,8 +1464,7 @@ public class BinaryRelationalOperatorNode
                 selectivity = (1.0d - right.nullSelectivity()) / right.nonZeroCardinality(innerRowCount);
             } else if (leftOperand instanceof ColumnReference && ((ColumnReference) leftOperand).getSource().getTableColumnDescriptor() != null) {
                 ColumnReference left = (ColumnReference) leftOperand;
-                selectivity = ((1.0d - left.nullSelectivity()) * (1.0d - right.nullSelectivity())) /
-                        Math.min(left.nonZeroCardinality(outerRowCount), right.nonZeroCardinality(innerRowCount));
+                selectivity = equiJoinSelectivity(left, right, outerRowCount, innerRowCount);
                 selectivity = selectivityJoinType.equals(SelectivityUtil.SelectivityJoinType.INNER) ?
                         selectivity : 1.0d - selectivity;
                 if (optTable instanceof FromBaseTable && ((FromBaseTable) optTable).getExistsBaseTable()) {
@@ -1483,6 +1483,42 @@ public class BinaryRelationalOperatorNode
         return selectivity;
     }
 
+    /**
+     *
+     * The selectivity of an inner equijoin between two columns.
+     *
+     * Without more information, the rows of each side are assumed to be spread evenly over the values of the
+     * column with the fewest distinct values. That badly underestimates joins on skewed columns (status codes,
+     * tenant ids, etc.) where a few values hold most of the rows of both sides, so the values which are frequent
+     * on both sides are estimated from their own frequencies, and only the remaining rows are assumed to be
+     * spread evenly over the remaining values.
+     *
+     */
+    private static double equiJoinSelectivity(ColumnReference left, ColumnReference right,
+                                              long outerRowCount, long innerRowCount) throws StandardException {
+        double leftFraction = 1.0d - left.nullSelectivity();
+        double rightFraction = 1.0d - right.nullSelectivity();
+        long cardinality = Math.min(left.nonZeroCardinality(outerRowCount), right.nonZeroCardinality(innerRowCount));
+        double frequentSelectivity = 0.0d;
+        Map<DataValueDescriptor, Double> rightFrequent = right.frequentValueSelectivity();
+        if (!rightFrequent.isEmpty()) {
+            for (Map.Entry<DataValueDescriptor, Double> leftValue : left.frequentValueSelectivity().entrySet()) {
+                // the two sides may be of different (comparable) types, so match on compare() rather than hashing
+                for (Map.Entry<DataValueDescriptor, Double> rightValue : rightFrequent.entrySet()) {
+                    if (leftValue.getKey().compare(rightValue.getKey()) != 0)
+                        continue;
+                    frequentSelectivity += leftValue.getValue() * rightValue.getValue();
+                    leftFraction -= leftValue.getValue();
+                    rightFraction -= rightValue.getValue();
+                    cardinality--;
+                    break;
+                }
+            }
+        }
+        return frequentSelectivity +
+                Math.max(leftFraction, 0.0d) * Math.max(rightFraction, 0.0d) / Math.max(cardinality, 1L);
+    }
+
     public RelationalOperator getTransitiveSearchClause(ColumnReference otherCR) throws StandardException{
         return (RelationalOperator)getNodeFactory().getNode(getNodeType(),otherCR,rightOperand,getContextManager());
     }
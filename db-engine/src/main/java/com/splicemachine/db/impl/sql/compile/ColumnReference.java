@@ -31,6 +31,7 @@ import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
 import com.splicemachine.db.iapi.store.access.StoreCostController;
 import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.services.compiler.MethodBuilder;
@@ -39,6 +40,7 @@ import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.util.JBitSet;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -1414,6 +1416,18 @@ public class ColumnReference extends ValueNode {
 		return getCompilerContext().getStoreCostController(cd).nullSelectivity(leftPosition);
 	}
 
+	/**
+	 * The most frequent values of the column with the fraction of the rows holding each, from statistics.
+	 * Returns an empty map when there are no statistics for the column.
+	 */
+	public Map<DataValueDescriptor,Double> frequentValueSelectivity() throws StandardException {
+		if (source == null || source.getTableColumnDescriptor() ==null)
+			return Collections.emptyMap();
+		ConglomerateDescriptor cd = getSource().getTableColumnDescriptor().getTableDescriptor().getConglomerateDescriptorList().getBaseConglomerateDescriptor();
+		int leftPosition = getSource().getColumnPosition();
+		return getCompilerContext().getStoreCostController(cd).frequentValueSelectivity(leftPosition);
+	}
+
 	public StoreCostController getStoreCostController() throws StandardException{
 		StoreCostController storeCostController = null;
 		ColumnDescriptor cd = getSource().getTableColumnDescriptor();
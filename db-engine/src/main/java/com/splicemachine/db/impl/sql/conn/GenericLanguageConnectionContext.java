@@ -61,6 +61,8 @@ import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.iapi.util.InterruptStatus;
 import com.splicemachine.db.impl.sql.GenericStatement;
 import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.db.impl.sql.ParameterizedStatement;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.compile.CompilerContextImpl;
 import com.splicemachine.db.impl.sql.execute.*;
 import java.util.*;
@@ -1090,6 +1092,44 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         return connFactory.getStatement(getDefaultSchema(),sqlText,true).prepare(this);
     }
 
+    @Override
+    public Activation getParameterizedActivation(SchemaDescriptor compilationSchema,
+                                                 String sqlText,
+                                                 boolean isForReadOnly,
+                                                 boolean scrollable) throws StandardException{
+        DataDictionaryCache cache=getDataDictionary().getDataDictionaryCache();
+        if(restoreMode || !cache.parameterizeLiterals())
+            return null;
+        ParameterizedStatement statement=ParameterizedStatement.parameterize(sqlText);
+        if(statement==null || !cache.isParameterizable(statement.getText()))
+            return null;
+
+        int depth=getStatementDepth();
+        PreparedStatement ps;
+        try{
+            ps=prepareInternalStatement(compilationSchema,statement.getText(),isForReadOnly,false);
+        }catch(StandardException se){
+            if(se.getSeverity()>ExceptionSeverity.STATEMENT_SEVERITY)
+                throw se;
+            // Most likely a parameter where the grammar wants a literal, or one whose type cannot
+            // be inferred. Compiling the original text will tell, so clean up as the retry in
+            // GenericStatement.prepare() does and let the caller do that.
+            cache.parameterizationFailed(statement.getText());
+            while(getStatementDepth()>depth){
+                popStatementContext(getStatementContext(),null);
+            }
+            return null;
+        }
+
+        Activation activation=ps.getActivation(this,scrollable);
+        if(!statement.bind(ps.getParameterTypes(),activation.getParameterValueSet())){
+            activation.close();
+            return null;
+        }
+        cache.parameterizedStatementPrepared();
+        return activation;
+    }
+
     /**
      * Remove the activation to those known about by this connection.
      */
@@ -216,6 +216,20 @@ public final class AvgAggregator extends OrderableAggregator
 				accumulate(addend);
 		}
 
+		/**
+		 * Add a partial sum which was computed over {@code count} non-null values. The count may be
+		 * 0 when the values which make up {@code sum} have already been counted.
+		 *
+		 * @param sum the sum of the values
+		 * @param count the number of values which were summed
+		 */
+		public void add(DataValueDescriptor sum,long count) throws StandardException{
+				long counted = this.count;
+				accumulate(sum);
+				//accumulate() counts the sum as a single value
+				this.count = counted+count;
+		}
+
 		/**
 		 * Return the result of the aggregation.  If the count
 		 * is zero, then we haven't averaged anything yet, so
@@ -72,6 +72,14 @@ public final class MaxMinAggregator extends OrderableAggregator {
 		}
 	}
 
+	/**
+	 * @return true if this is a MAX aggregate, false for MIN
+	 */
+	public boolean isMax()
+	{
+		return isMax;
+	}
+
 	/**
 	 * @return ExecAggregator the new aggregator
 	 */
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ParameterizedStatementTest {
+
+    @Test
+    public void replacesLiteralsInPredicates() {
+        ParameterizedStatement ps = ParameterizedStatement.parameterize(
+                "select a, 'x' from t where b = 'it''s' and c > -1.5 and d in (1, 2e3) order by 1 fetch first 10 rows only");
+        assertEquals("select a, 'x' from t where b = ? and c > ? and d in (?, ?) order by 1 fetch first 10 rows only",
+                ps.getText());
+        assertEquals(4, ps.getParameterCount());
+        assertEquals("select a, 'x' from t where b = ? and c > ? and d in (?, ?) order by 1 fetch first 10 rows only [it's, -1.5, 1, 2e3]",
+                ps.toString());
+    }
+
+    @Test
+    public void statementsDifferingInLiteralsShareText() {
+        assertEquals(ParameterizedStatement.parameterize("SELECT * FROM T WHERE ID = 1").getText(),
+                ParameterizedStatement.parameterize("SELECT * FROM T WHERE ID = 42").getText());
+    }
+
+    @Test
+    public void leavesLiteralsTheGrammarOrOptimizerNeeds() {
+        ParameterizedStatement ps = ParameterizedStatement.parameterize(
+                "select top 5 a from t --splice-properties index=i1\n" +
+                        "where b like 'ab%' and c = cast(d as varchar(10)) and e = date '2016-01-01' and f = x'0a'" +
+                        " and g = 3 group by a offset 2 rows");
+        assertEquals("select top 5 a from t --splice-properties index=i1\n" +
+                "where b like 'ab%' and c = cast(d as varchar(10)) and e = date '2016-01-01' and f = x'0a'" +
+                " and g = ? group by a offset 2 rows", ps.getText());
+    }
+
+    @Test
+    public void subqueriesHaveTheirOwnClauses() {
+        ParameterizedStatement ps = ParameterizedStatement.parameterize(
+                "select 1 from t where a in (select 2 from u where b = 3) and c = 4");
+        assertEquals("select 1 from t where a in (select 2 from u where b = ?) and c = ?", ps.getText());
+    }
+
+    @Test
+    public void replacesInsertValuesAndUpdateSet() {
+        assertEquals("insert into t values (?, ?), (?, ?)",
+                ParameterizedStatement.parameterize("insert into t values (1, 'a'), (-2, 'b')").getText());
+        assertEquals("update t set a = a + ?, b = ? where c = ?",
+                ParameterizedStatement.parameterize("update t set a = a + 1, b = 'x' where c = 2").getText());
+        assertEquals("delete from \"T 1\" where \"A\" <> ?",
+                ParameterizedStatement.parameterize("delete from \"T 1\" where \"A\" <> 'z'").getText());
+    }
+
+    @Test
+    public void leavesOtherStatementsAlone() {
+        assertNull(ParameterizedStatement.parameterize("select * from t"));
+        assertNull(ParameterizedStatement.parameterize("select * from t where a = ? and b = 1"));
+        assertNull(ParameterizedStatement.parameterize("create table t (a varchar(10) default 'x')"));
+        assertNull(ParameterizedStatement.parameterize("call syscs_util.foo('x', 1)"));
+        assertNull(ParameterizedStatement.parameterize("values 1"));
+        assertNull(ParameterizedStatement.parameterize("select * from t where d = {d '2016-01-01'}"));
+        assertNull(ParameterizedStatement.parameterize("select * from t where a = 'unterminated"));
+        assertNull(ParameterizedStatement.parameterize("select * from t where (a = 1"));
+    }
+}
@@ -599,11 +599,27 @@ public interface Property {
 	 * The size of the table descriptor cache used by the
 	 * data dictionary.  Database.  Static.
 	 * <p>
+	 * No longer used; table descriptors are bounded by
+	 * {@link #LANG_DD_CACHE_MAX_MEMORY} instead.
+	 * <p>
 	 * Undocumented.
 	 */
 	String	LANG_TD_CACHE_SIZE = "derby.language.tableDescriptorCacheSize";
 	int		LANG_TD_CACHE_SIZE_DEFAULT = 64;
 
+	/**
+	 * The estimated amount of memory, in megabytes, shared by the table
+	 * descriptor, conglomerate and partition statistics caches of the data
+	 * dictionary. Entries are evicted in least-recently-used order across
+	 * all of them once it is exceeded, so that a few tables with many
+	 * columns or statistics partitions do not push out everything else.
+	 * Database.  Static.
+	 * <p>
+	 * Externally visible.
+	 */
+	String	LANG_DD_CACHE_MAX_MEMORY = "derby.language.dataDictionaryCacheMaxMemoryMB";
+	int		LANG_DD_CACHE_MAX_MEMORY_DEFAULT = 64;
+
     /**
      * The size of the permissions cache used by the data dictionary.
      * Database.  Static.
@@ -667,6 +683,35 @@ public interface Property {
 	String STATEMENT_CACHE_SIZE = "derby.language.statementCacheSize";
 	int STATEMENT_CACHE_SIZE_DEFAULT = 100;
 
+	/**
+	 * The estimated amount of memory, in megabytes, which the compiled plans
+	 * in the statement cache of the data dictionary may take up. Plans are
+	 * evicted in least-recently-used order once it is exceeded.  Database.
+	 * Static.
+	 * <p>
+	 * Externally visible.
+	 */
+	String STATEMENT_CACHE_MAX_MEMORY = "derby.language.statementCacheMaxMemoryMB";
+	int STATEMENT_CACHE_MAX_MEMORY_DEFAULT = 64;
+
+	/**
+	 * If true, the literals in the WHERE, HAVING, ON, SET and VALUES clauses
+	 * of statements executed through java.sql.Statement are replaced by
+	 * parameter markers before looking up the statement cache, so that
+	 * statements which differ only in those literals share one compiled plan.
+	 * Literals which the plan or the grammar depend on (ORDER BY and GROUP BY
+	 * positions, FETCH FIRST/OFFSET/TOP counts, LIKE patterns, type lengths)
+	 * are left alone, and statements whose parameterized form does not
+	 * compile or bind are run with their literals as usual.  Database.
+	 * Static.
+	 * <p>
+	 * Default is false.
+	 * <p>
+	 * Externally visible.
+	 */
+	String STATEMENT_CACHE_PARAMETERIZE_LITERALS = "derby.language.statementCacheParameterizeLiterals";
+	boolean STATEMENT_CACHE_PARAMETERIZE_LITERALS_DEFAULT = false;
+
 	/**
 	 * Tells if the system stored procedures should be updated during database boot up.
 	 * Default is false.  System property.  Loaded once (static initializer).
@@ -1081,6 +1126,20 @@ public interface Property {
 	 * client socket setKeepAlive value
 	 */
 	public final static String DRDA_PROP_KEEPALIVE = "derby.drda.keepAlive";
+
+	/**
+	 * db.drda.multiplexSessions
+	 *
+	 *<BR>
+	 * If true, sessions which are waiting for the client's next request are
+	 * handed over to a single selector thread instead of holding on to a
+	 * connection thread, so that the connection threads are only needed for
+	 * the sessions which are actually executing a request. Only applies when
+	 * SSL is off.
+	 *<BR>
+	 * Default: false
+	 */
+	public final static String DRDA_PROP_MULTIPLEX_SESSIONS = "derby.drda.multiplexSessions";
 	
 
     /**
@@ -21,6 +21,7 @@ import com.splicemachine.access.api.PartitionFactory;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.constants.EnvUtils;
 import com.splicemachine.derby.stream.compaction.SparkCompactionFunction;
+import com.splicemachine.hbase.PurgeWatermarkFileInfo;
 import com.splicemachine.hbase.SICompactionScanner;
 import com.splicemachine.olap.DistributedCompaction;
 import com.splicemachine.pipeline.Exceptions;
@@ -58,6 +59,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
     private String conglomId = null;
     private String tableDisplayName = null;
     private String indexDisplayName = null;
+    private ZoneMapFileInfo zoneMapFileInfo = null;
 
     private static final String TABLE_DISPLAY_NAME_ATTR = SIConstants.TABLE_DISPLAY_NAME_ATTR;
     private static final String INDEX_DISPLAY_NAME_ATTR = SIConstants.INDEX_DISPLAY_NAME_ATTR;
@@ -238,6 +240,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         }
 
         StoreFile.Writer writer = null;
+        SICompactionState state = null;
         List<Path> newFiles =new ArrayList<>();
         boolean cleanSeqId = false;
         IOException e = null;
@@ -251,12 +254,17 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                 if (scanner == null) {
                     scanner = createScanner(store, scanners, scanType, smallestReadPoint, fd.earliestPutTs);
                 }
+                zoneMapFileInfo = null;
                 if (needsSI(store.getTableName())) {
                     SIDriver driver=SIDriver.driver();
-                    SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
+                    state = new SICompactionState(driver.getTxnSupplier(),
                             driver.getRollForward(),
-                            driver.getConfiguration().getActiveTransactionCacheSize());
-                    scanner = new SICompactionScanner(state,scanner);
+                            driver.getConfiguration().getActiveTransactionCacheSize(),
+                            driver.getPurgeWatermark().getWatermark(),
+                            scanType == ScanType.COMPACT_DROP_DELETES);
+                    scanner = new SICompactionScanner(state,scanner,driver.getConfiguration().getCompactionResolveBlockSize());
+                    if (driver.getConfiguration().getZoneMapsEnabled())
+                        zoneMapFileInfo = new ZoneMapFileInfo();
                 }
                 if (scanner == null) {
                     // NULL scanner returned from coprocessor hooks means skip normal processing.
@@ -296,9 +304,16 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     if (e != null) {
                         writer.close();
                     } else {
+                        if (zoneMapFileInfo != null)
+                            zoneMapFileInfo.appendTo(writer);
+                        // the purge watermarks of the files we compacted carry over to the one we wrote
+                        PurgeWatermarkFileInfo.appendTo(writer, state,
+                                readersToClose.isEmpty() ? request.getFiles() : readersToClose);
                         writer.appendMetadata(fd.maxSeqId, request.isAllFiles());
                         writer.close();
                         newFiles.add(writer.getPath());
+                        if (state != null)
+                            state.reportPurged(store.getRegionInfo().getRegionNameAsString());
                     }
                 }
             } finally {
@@ -420,6 +435,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     CellUtil.setSequenceId(c, 0);
                 }
                 writer.append(c);
+                if (zoneMapFileInfo != null)
+                    zoneMapFileInfo.add(c);
                 int len = KeyValueUtil.length(c);
                 ++progress.currentCompactedKVs;
                 progress.totalCompactedSize += len;
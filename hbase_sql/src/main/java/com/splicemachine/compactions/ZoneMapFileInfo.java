@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.compactions;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.ValuePredicate;
+import com.splicemachine.storage.ZoneMap;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Keeps a {@link ZoneMap} of the packed rows of each store file in the file info of the file.
+ * <p>
+ * Compactions collect the zone map of the file they write, which scans then use to skip reading a store
+ * when none of its rows can satisfy the {@link ValuePredicate}s of the scan.
+ * <p>
+ * A store is only skipped when <em>every</em> one of its files has a zone map which rules out the predicates,
+ * and its memstore is empty. Skipping some of the files of a store would not be correct: an SI row may be spread
+ * over several files (an update only writes the columns which changed, and a delete only writes a tombstone), so
+ * the visible version of a row could be assembled from the files which were not skipped. When none of the files
+ * hold a qualifying value of a column however, no version of any row can have one. Files written by flushes and
+ * bulk loads have no zone map, so stores holding them are always read until they have been compacted.
+ */
+public class ZoneMapFileInfo {
+    private static final Logger LOG = Logger.getLogger(ZoneMapFileInfo.class);
+    public static final byte[] FILE_INFO_KEY = Bytes.toBytes("SPLICE_ZONE_MAP");
+
+    private final ZoneMap zoneMap = new ZoneMap();
+    private boolean valid = true;
+
+    /**
+     * Add a cell written by the compaction to the zone map of the file. Only the packed row cells are of
+     * interest, everything else is ignored.
+     */
+    public void add(Cell cell) {
+        if (!valid
+                || cell.getTypeByte() != KeyValue.Type.Put.getCode()
+                || !CellUtil.matchingQualifier(cell, SIConstants.PACKED_COLUMN_BYTES))
+            return;
+        try {
+            zoneMap.update(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+        } catch (RuntimeException e) {
+            //the zone map is an optimization, so don't fail the compaction over a row we couldn't summarize
+            SpliceLogUtils.warn(LOG, "Unable to add row to zone map, the file will not have one: %s", e.getMessage());
+            valid = false;
+        }
+    }
+
+    public void appendTo(StoreFile.Writer writer) throws IOException {
+        if (valid)
+            writer.appendFileInfo(FILE_INFO_KEY, zoneMap.toBytes());
+    }
+
+    /**
+     * @return true if none of the rows of the store can be returned by the scan, so the store does not
+     * have to be read at all
+     */
+    public static boolean canSkip(Store store, Scan scan) throws IOException {
+        byte[] filterBytes = scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL);
+        if (filterBytes == null || scan.isReversed() || !HConfiguration.getConfiguration().getZoneMapsEnabled())
+            return false;
+        List<ValuePredicate> predicates = EntryPredicateFilter.fromBytes(filterBytes).getPredicates();
+        if (predicates.isEmpty() || store.getFlushableSize() > 0)
+            return false;
+        for (StoreFile file : store.getStorefiles()) {
+            byte[] zoneMapBytes = file.getMetadataValue(FILE_INFO_KEY);
+            if (zoneMapBytes == null || ZoneMap.fromBytes(zoneMapBytes).mayMatch(predicates))
+                return false;
+        }
+        if (LOG.isTraceEnabled())
+            SpliceLogUtils.trace(LOG, "skipping store %s, no rows can satisfy %s", store, predicates);
+        return true;
+    }
+}
@@ -681,6 +681,10 @@ public class SpliceSparkKryoRegistrator implements KryoRegistrator, KryoPool.Kry
         instance.register(IndexToBaseRowFilterPredicateFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(IndexTransformFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(InnerJoinNullFilterFunction.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(BuildJoinKeyFilterFunction.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(JoinKeyFilterFunction.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(JoinKeyFilter.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(MergeJoinKeyFilterFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(MapFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(RowTransformFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(TxnViewDecoderFunction.class,EXTERNALIZABLE_SERIALIZER);
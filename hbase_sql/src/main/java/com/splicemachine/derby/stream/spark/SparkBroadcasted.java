@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.derby.impl.SpliceSpark;
+import com.splicemachine.derby.stream.iapi.Broadcasted;
+import org.apache.spark.broadcast.Broadcast;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A value shipped to the executors as a Spark broadcast variable.
+ */
+public class SparkBroadcasted<T> implements Broadcasted<T>{
+    private Broadcast<T> bcast;
+
+    public SparkBroadcasted(){ }
+
+    public SparkBroadcasted(T value){
+        this.bcast=SpliceSpark.getContext().broadcast(value);
+    }
+
+    @Override
+    public T getValue(){
+        return bcast.getValue();
+    }
+
+    @Override
+    public void release(){
+        bcast.unpersist(false);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeObject(bcast);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        bcast=(Broadcast<T>)in.readObject();
+    }
+}
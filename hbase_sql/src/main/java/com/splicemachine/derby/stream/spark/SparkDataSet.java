@@ -208,6 +208,16 @@ public class SparkDataSet<V> implements DataSet<V> {
         return rdd.count();
     }
 
+    @Override
+    public <Op extends SpliceOperation> V reduce(SpliceFunction2<Op,V,V,V> function) {
+        int numPartitions = rdd.getNumPartitions();
+        if (numPartitions == 0)
+            return null;
+        // combine the partial results on the executors, a few at a time, so only a handful reach the driver
+        int depth = Math.max(2, (int) Math.ceil(Math.log(numPartitions) / Math.log(8)));
+        return rdd.treeReduce(new SparkSpliceFunctionWrapper2<>(function), depth);
+    }
+
     @Override
     public DataSet<V> union(DataSet< V> dataSet) {
         return union(dataSet, RDDName.UNION.displayName(), false, null);
@@ -411,6 +421,11 @@ public class SparkDataSet<V> implements DataSet<V> {
         rdd.persist(StorageLevel.MEMORY_AND_DISK_SER_2());
     }
 
+    @Override
+    public void unpersist() {
+        rdd.unpersist(false);
+    }
+
     @Override
     public Iterator<V> iterator() {
         return toLocalIterator();
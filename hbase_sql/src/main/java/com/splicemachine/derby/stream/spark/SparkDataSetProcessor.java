@@ -18,6 +18,7 @@ package com.splicemachine.derby.stream.spark;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -28,6 +29,7 @@ import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
 import scala.Tuple2;
 import com.splicemachine.access.HConfiguration;
@@ -45,6 +47,7 @@ import com.splicemachine.derby.impl.spark.WholeTextInputFormat;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.impl.store.access.BaseSpliceTransaction;
 import com.splicemachine.derby.stream.function.Partitioner;
+import com.splicemachine.derby.stream.iapi.Broadcasted;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -227,6 +230,38 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
         }
     }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public DataSet<ByteBuffer> readTextFileChunks(String path, SpliceOperation op) {
+        try {
+            FileInfo fileInfo = ImportUtils.getImportFileInfo(path);
+            String displayString="";
+            if(op!=null)
+                displayString = op.getScopeName()+": "+OperationContext.Scope.READ_TEXT_FILE.displayName();
+
+            SpliceSpark.pushScope(displayString);
+            JavaPairRDD<LongWritable, Text> pairRdd=SpliceSpark.getContext().newAPIHadoopFile(
+                    path,
+                    SMTextInputFormat.class,
+                    LongWritable.class,
+                    Text.class,
+                    new Configuration(HConfiguration.unwrapDelegate()));
+
+            JavaRDD rdd =pairRdd.values().mapPartitions(new LinesToChunks());
+            RDDUtils.setAncestorRDDNames(rdd, 1, new String[] {fileInfo.toSummary()}, null);
+            return new SparkDataSet<>(rdd,OperationContext.Scope.READ_TEXT_FILE.displayName());
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        } finally {
+            SpliceSpark.popScope();
+        }
+    }
+
+    @Override
+    public <T> Broadcasted<T> broadcast(T value) {
+        return new SparkBroadcasted<>(value);
+    }
+
     @Override
     public <K, V> PairDataSet<K, V> getEmptyPair() {
         return new SparkPairDataSet<>(SpliceSpark.getContext().parallelizePairs(Collections.<Tuple2<K,V>>emptyList(), 1));
@@ -284,4 +319,43 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
     }
 
 
+
+    /**
+     * Packs the lines of a split back to back, so they are parsed from the bytes they were read as instead of being
+     * decoded into a String each.
+     */
+    private static class LinesToChunks implements FlatMapFunction<Iterator<Text>, ByteBuffer> {
+        private static final int CHUNK_SIZE = 1024*1024;
+
+        @Override
+        public Iterator<ByteBuffer> call(final Iterator<Text> lines) throws Exception {
+            return new Iterator<ByteBuffer>() {
+                @Override
+                public boolean hasNext() {
+                    return lines.hasNext();
+                }
+
+                @Override
+                public ByteBuffer next() {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int length = 0;
+                    // Text objects are reused by the record reader, their bytes have to be copied before moving on
+                    while (lines.hasNext() && length < CHUNK_SIZE) {
+                        Text line = lines.next();
+                        if (length + line.getLength() + 1 > chunk.length)
+                            chunk = Arrays.copyOf(chunk, Math.max(chunk.length*2, length + line.getLength() + 1));
+                        System.arraycopy(line.getBytes(), 0, chunk, length, line.getLength());
+                        length += line.getLength();
+                        chunk[length++] = '\n';
+                    }
+                    return ByteBuffer.wrap(chunk, 0, length);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
 }
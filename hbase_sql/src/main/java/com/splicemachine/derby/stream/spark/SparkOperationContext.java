@@ -58,6 +58,8 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
     public Accumulator<Long> rowsWritten;
     public Accumulator<Long> retryAttempts;
     public Accumulator<Long> regionTooBusyExceptions;
+    public Accumulator<Long> spilledBytes;
+    public Accumulator<Long> spillPasses;
 
     public Accumulator<Long> pipelineRowsWritten;
     public Accumulator<Long> thrownErrorsRows;
@@ -94,6 +96,8 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         this.rowsJoinedLeft=SpliceSpark.getContext().accumulator(0l,baseName+" rows joined left",param);
         this.rowsJoinedRight=SpliceSpark.getContext().accumulator(0l,baseName+" rows joined right",param);
         this.rowsProduced=SpliceSpark.getContext().accumulator(0l,baseName+" rows produced",param);
+        this.spilledBytes=SpliceSpark.getContext().accumulator(0l,baseName+" bytes spilled",param);
+        this.spillPasses=SpliceSpark.getContext().accumulator(0l,baseName+" spill passes",param);
 
         this.retryAttempts =SpliceSpark.getContext().accumulator(0L, "(WritePipeline) retry attempts", param);
         this.regionTooBusyExceptions =SpliceSpark.getContext().accumulator(0L, "(WritePipeline) region too busy exceptions", param);
@@ -123,6 +127,8 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         this.rowsJoinedLeft=SpliceSpark.getContext().accumulator(0l,"rows joined left",param);
         this.rowsJoinedRight=SpliceSpark.getContext().accumulator(0l,"rows joined right",param);
         this.rowsProduced=SpliceSpark.getContext().accumulator(0l,"rows produced",param);
+        this.spilledBytes=SpliceSpark.getContext().accumulator(0l,"bytes spilled",param);
+        this.spillPasses=SpliceSpark.getContext().accumulator(0l,"spill passes",param);
 
         this.retryAttempts =SpliceSpark.getContext().accumulator(0L, "(WritePipeline) retry attempts", param);
         this.regionTooBusyExceptions =SpliceSpark.getContext().accumulator(0L, "(WritePipeline) region too busy exceptions", param);
@@ -172,6 +178,8 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         out.writeObject(catchThrownRows);
         out.writeObject(catchRetriedRows);
         out.writeObject(pipelineRowsWritten);
+        out.writeObject(spilledBytes);
+        out.writeObject(spillPasses);
     }
 
     @Override
@@ -208,6 +216,8 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         catchThrownRows=(Accumulator<Long>)in.readObject();
         catchRetriedRows=(Accumulator<Long>)in.readObject();
         pipelineRowsWritten=(Accumulator<Long>)in.readObject();
+        spilledBytes=(Accumulator<Long>)in.readObject();
+        spillPasses=(Accumulator<Long>)in.readObject();
     }
 
     @Override
@@ -369,6 +379,26 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         return regionTooBusyExceptions.value();
     }
 
+    @Override
+    public void recordSpill(long bytes){
+        spilledBytes.add(bytes);
+    }
+
+    @Override
+    public void recordSpillPass(){
+        spillPasses.add(1l);
+    }
+
+    @Override
+    public long getSpilledBytes(){
+        return spilledBytes.value();
+    }
+
+    @Override
+    public long getSpillPasses(){
+        return spillPasses.value();
+    }
+
 
     @Override
     public void pushScope(String displayName){
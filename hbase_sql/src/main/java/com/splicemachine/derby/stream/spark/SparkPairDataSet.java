@@ -116,6 +116,12 @@ public class SparkPairDataSet<K,V> implements PairDataSet<K, V>{
         return new SparkPairDataSet<>(rdd2);
     }
 
+    @Override
+    public PairDataSet<K, V> sortByKey(Comparator<K> comparator, String name, OperationContext context, long limit) {
+        // the limit is applied downstream, Spark performs its own (distributed) sort
+        return sortByKey(comparator, name);
+    }
+
     @Override
     public PairDataSet<K, V> partitionBy(Partitioner<K> partitioner, Comparator<K> comparator) {
         partitioner.initialize();
@@ -138,6 +144,12 @@ public class SparkPairDataSet<K,V> implements PairDataSet<K, V>{
         return new SparkPairDataSet<>(rdd1);
     }
 
+    @Override
+    public PairDataSet<K, Iterable<V>> groupByKey(String name, OperationContext context) {
+        // Spark manages its own shuffle memory
+        return groupByKey(name);
+    }
+
     @Override
     public <W> PairDataSet<K, Tuple2<V, Optional<W>>> hashLeftOuterJoin(PairDataSet<K, W> rightDataSet){
         return new SparkPairDataSet<>(rdd.leftOuterJoin(((SparkPairDataSet<K,W>)rightDataSet).rdd));
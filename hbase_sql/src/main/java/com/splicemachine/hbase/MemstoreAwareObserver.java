@@ -19,12 +19,14 @@ import com.splicemachine.access.client.ClientRegionConstants;
 import com.splicemachine.access.client.MemStoreFlushAwareScanner;
 import com.splicemachine.access.client.MemstoreAware;
 import com.splicemachine.compactions.SpliceCompactionRequest;
+import com.splicemachine.compactions.ZoneMapFileInfo;
 import com.splicemachine.derby.hbase.*;
 import com.splicemachine.mrio.MRConstants;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.utils.BlockingProbe;
 import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
 import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.client.ConnectionUtils;
@@ -34,8 +36,10 @@ import org.apache.hadoop.hbase.coprocessor.ObserverContext;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.regionserver.*;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
+import org.apache.hadoop.hbase.util.CollectionBackedScanner;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.NavigableSet;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -218,6 +222,9 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
 
                 throw new DoNotRetryIOException();
             }
+        }else if (s == null && ZoneMapFileInfo.canSkip(store, scan)) {
+            // none of the rows of this store can satisfy the scan's predicates, so don't read any of them
+            return new CollectionBackedScanner(new ArrayList<Cell>(), store.getComparator());
         }else return s;
 
     }
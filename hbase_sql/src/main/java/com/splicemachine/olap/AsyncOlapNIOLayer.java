@@ -126,7 +126,7 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 throw Exceptions.rawIOException((Throwable)OlapSerializationUtils.decode(fr.getErrorBytes()));
             case IN_PROGRESS:
                 OlapMessage.ProgressResponse pr=response.getExtension(OlapMessage.ProgressResponse.response);
-                return new SubmittedResult(pr.getTickTimeMillis());
+                return new SubmittedResult(pr.getTickTimeMillis(),pr.getQueueWaitMillis(),pr.getRunningJobs(),pr.getQueuedJobs());
             case CANCELLED:
                 return new CancelledResult();
             case COMPLETED:
@@ -441,8 +441,12 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             OlapResult or=parseFromResponse(olapResult);
             //TODO -sf- deal with a OlapServer failover here (i.e. a move to NOT_SUBMITTED from any other state
             if(or instanceof SubmittedResult) {
-                future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
+                SubmittedResult sr = (SubmittedResult) or;
+                future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(sr.getTickTime());
                 future.lastStatus = System.currentTimeMillis();
+                if(LOG.isDebugEnabled() && sr.getQueueWaitMillis()>0)
+                    LOG.debug("Job " + future.job.getUniqueName() + " waited " + sr.getQueueWaitMillis() + " ms in queue, " +
+                            sr.getRunningJobs() + " jobs running and " + sr.getQueuedJobs() + " queued");
             } else if(future.submitted && !future.isDone() && or instanceof NotSubmittedResult) {
                 // The job is no longer submitted, assume aborted
                 long millisSinceLastStatus = System.currentTimeMillis() - future.lastStatus;
@@ -88,6 +88,11 @@ public class DistributedCompaction extends DistributedJob{
         return jobGroup;
     }
 
+    @Override
+    public Type getType(){
+        return Type.COMPACTION;
+    }
+
     @Override
     public int hashCode(){
         return jobGroup.hashCode();
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Decides when the jobs submitted to the OLAP server get to run.
+ * <p>
+ * At most {@code maxRunning} jobs run at once, and each {@link DistributedJob.Type type} of job has its own limit
+ * as well, so that a burst of jobs of one type cannot take over the server. Jobs beyond the limits are queued by
+ * type and, within a type, by user.
+ * <p>
+ * Whenever a slot frees up, it goes to the type with the fewest running jobs relative to its weight, among the
+ * types which have queued jobs and are below their limit. Within a type, it goes to the user with the fewest
+ * running jobs, and to the job which waited longest among the jobs of that user.
+ */
+class OlapJobScheduler{
+    private static final Logger LOG=Logger.getLogger(OlapJobScheduler.class);
+
+    private final Executor executor;
+    private final Clock clock;
+    private final int maxRunning;
+    /*indexed by the ordinal of the job type*/
+    private final TypeQueue[] queues;
+
+    /*guarded by this, volatile for the sake of status reporting*/
+    private volatile int running;
+    private volatile int queued;
+
+    OlapJobScheduler(SConfiguration config,Executor executor,Clock clock){
+        this(executor,clock,config.getOlapServerThreads(),
+                new int[]{
+                        config.getOlapServerMaxConcurrentQueries(),
+                        config.getOlapServerMaxConcurrentCompactions(),
+                        config.getOlapServerMaxConcurrentMaintenanceJobs()},
+                new int[]{
+                        config.getOlapServerQueryWeight(),
+                        config.getOlapServerCompactionWeight(),
+                        config.getOlapServerMaintenanceWeight()});
+    }
+
+    /**
+     * @param maxRunningByType the maximum number of running jobs of each type, in the order of
+     *                         {@link DistributedJob.Type}
+     * @param weights the weight of each type, in the order of {@link DistributedJob.Type}
+     */
+    OlapJobScheduler(Executor executor,Clock clock,int maxRunning,int[] maxRunningByType,int[] weights){
+        DistributedJob.Type[] types=DistributedJob.Type.values();
+        assert maxRunningByType.length==types.length && weights.length==types.length:"Incorrect number of types";
+        this.executor=executor;
+        this.clock=clock;
+        this.maxRunning=maxRunning;
+        this.queues=new TypeQueue[types.length];
+        for(int i=0;i<types.length;i++){
+            queues[i]=new TypeQueue(Math.max(1,maxRunningByType[i]),Math.max(1,weights[i]));
+        }
+    }
+
+    /**
+     * Queue a job, and run it once its turn comes.
+     *
+     * @param job the job to run
+     * @param status the status of the job. Jobs which are no longer submitted by the time their turn comes
+     *               (because they were cancelled, or their client went away) are dropped without running.
+     * @param task the work to do
+     */
+    synchronized void submit(DistributedJob job,OlapJobStatus status,Runnable task){
+        String user=job.getUserId();
+        queues[job.getType().ordinal()].add(new QueuedJob(job.getType(),user==null?"":user,status,task));
+        queued++;
+        status.markQueued(this,clock.currentTimeMillis());
+        runNext();
+    }
+
+    int runningJobs(){
+        return running;
+    }
+
+    int queuedJobs(){
+        return queued;
+    }
+
+    long currentTimeMillis(){
+        return clock.currentTimeMillis();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private synchronized void finished(QueuedJob job){
+        running--;
+        queues[job.type.ordinal()].finished(job.user);
+        runNext();
+    }
+
+    /*
+     * Start jobs until there are no slots left, or none of the queued jobs may run. Must hold the lock.
+     */
+    private void runNext(){
+        while(running<maxRunning){
+            TypeQueue next=null;
+            for(TypeQueue queue : queues){
+                if(queue.isEmpty() || queue.running>=queue.maxRunning) continue;
+                //compare running/weight without dividing
+                if(next==null || queue.running*next.weight<next.running*queue.weight)
+                    next=queue;
+            }
+            if(next==null) return;
+
+            final QueuedJob job=next.poll();
+            queued--;
+            if(job.status.currentState()!=OlapJobStatus.State.SUBMITTED || !job.status.isAvailable()){
+                if(LOG.isTraceEnabled())
+                    LOG.trace("Dropping queued job which is no longer wanted, with state "+job.status.currentState());
+                job.status.cancel();
+                continue;
+            }
+            job.status.markDequeued(clock.currentTimeMillis());
+            running++;
+            next.started(job.user);
+            try{
+                executor.execute(new Runnable(){
+                    @Override
+                    public void run(){
+                        try{
+                            job.task.run();
+                        }finally{
+                            finished(job);
+                        }
+                    }
+                });
+            }catch(RejectedExecutionException ree){
+                LOG.error("Unable to run job",ree);
+                running--;
+                next.finished(job.user);
+                job.status.markCompleted(new FailedOlapResult(ree));
+            }
+        }
+    }
+
+    private static class QueuedJob{
+        final DistributedJob.Type type;
+        final String user;
+        final OlapJobStatus status;
+        final Runnable task;
+        /*the order in which the job was queued, to break ties between users*/
+        long sequence;
+
+        QueuedJob(DistributedJob.Type type,String user,OlapJobStatus status,Runnable task){
+            this.type=type;
+            this.user=user;
+            this.status=status;
+            this.task=task;
+        }
+    }
+
+    /*
+     * The jobs of one type, queued by user.
+     */
+    private static class TypeQueue{
+        final int maxRunning;
+        final int weight;
+        int running;
+        private final Map<String,ArrayDeque<QueuedJob>> queuedByUser=new HashMap<>();
+        private final Map<String,Integer> runningByUser=new HashMap<>();
+        private long nextSequence;
+
+        TypeQueue(int maxRunning,int weight){
+            this.maxRunning=maxRunning;
+            this.weight=weight;
+        }
+
+        boolean isEmpty(){
+            return queuedByUser.isEmpty();
+        }
+
+        void add(QueuedJob job){
+            ArrayDeque<QueuedJob> userQueue=queuedByUser.get(job.user);
+            if(userQueue==null){
+                userQueue=new ArrayDeque<>();
+                queuedByUser.put(job.user,userQueue);
+            }
+            job.sequence=nextSequence++;
+            userQueue.add(job);
+        }
+
+        QueuedJob poll(){
+            String nextUser=null;
+            int nextRunning=0;
+            long nextSeq=0;
+            for(Map.Entry<String,ArrayDeque<QueuedJob>> entry : queuedByUser.entrySet()){
+                String user=entry.getKey();
+                int userRunning=running(user);
+                long seq=entry.getValue().peek().sequence;
+                if(nextUser==null || userRunning<nextRunning || (userRunning==nextRunning && seq<nextSeq)){
+                    nextUser=user;
+                    nextRunning=userRunning;
+                    nextSeq=seq;
+                }
+            }
+            ArrayDeque<QueuedJob> userQueue=queuedByUser.get(nextUser);
+            QueuedJob job=userQueue.poll();
+            if(userQueue.isEmpty())
+                queuedByUser.remove(nextUser);
+            return job;
+        }
+
+        void started(String user){
+            running++;
+            runningByUser.put(user,running(user)+1);
+        }
+
+        void finished(String user){
+            running--;
+            int userRunning=running(user)-1;
+            if(userRunning<=0)
+                runningByUser.remove(user);
+            else
+                runningByUser.put(user,userRunning);
+        }
+
+        private int running(String user){
+            Integer userRunning=runningByUser.get(user);
+            return userRunning==null?0:userRunning;
+        }
+    }
+}
@@ -39,6 +39,10 @@ public class OlapJobStatus implements OlapStatus{
 
     private volatile AtomicReference<OlapStatus.State> currentState = new AtomicReference<>(State.NOT_SUBMITTED);
     private volatile OlapResult results;
+    /*the scheduler which queued the job, and when the job entered and left its queue*/
+    private volatile OlapJobScheduler scheduler;
+    private volatile long queuedTime = -1l;
+    private volatile long dequeuedTime = -1l;
 
     public OlapJobStatus(long tickTime,int numTicks){
         //TODO -sf- remove the constants
@@ -60,10 +64,13 @@ public class OlapJobStatus implements OlapStatus{
         State curState = currentState();
         switch(curState){
             case NOT_SUBMITTED:
-            case SUBMITTED:
                 return new SubmittedResult(tickTime);
+            case SUBMITTED:
+                if(scheduler==null)
+                    return new SubmittedResult(tickTime);
+                //queued jobs report their progress like running ones
             case RUNNING:
-                return new ProgressResult();
+                return progress();
             default:
                 return results;
         }
@@ -150,6 +157,15 @@ public class OlapJobStatus implements OlapStatus{
 
     /*package-private methods*/
     /* ****************************************************************************************************************/
+    void markQueued(OlapJobScheduler scheduler,long time){
+        this.queuedTime = time;
+        this.scheduler = scheduler;
+    }
+
+    void markDequeued(long time){
+        this.dequeuedTime = time;
+    }
+
     State currentState(){
         /*
          * Get the current state of the job. If the job has timed out because the waiting client has died (or
@@ -161,6 +177,14 @@ public class OlapJobStatus implements OlapStatus{
     /*private helper methods*/
     /* ****************************************************************************************************************/
 
+    private ProgressResult progress(){
+        OlapJobScheduler s = scheduler;
+        if(s==null) return new ProgressResult();
+        long dequeued = dequeuedTime;
+        long queueWait = (dequeued>=0?dequeued:s.currentTimeMillis())-queuedTime;
+        return new ProgressResult(queueWait,s.runningJobs(),s.queuedJobs());
+    }
+
     private State checkFailed(){
         /*
          * Checks whether the current state is failed or not. Used by internal compaction checking to determine
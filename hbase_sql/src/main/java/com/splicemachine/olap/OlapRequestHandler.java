@@ -25,7 +25,6 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.MessageEvent;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
@@ -36,7 +35,7 @@ import java.util.concurrent.ThreadFactory;
 class OlapRequestHandler extends AbstractOlapHandler{
     private static final Logger LOG =Logger.getLogger(OlapRequestHandler.class);
 
-    private final ExecutorService executionPool;
+    private final OlapJobScheduler scheduler;
     private final Clock clock;
     private final long clientCheckTimeMs;
 
@@ -45,8 +44,8 @@ class OlapRequestHandler extends AbstractOlapHandler{
                        Clock clock,
                        long clientCheckTimeMs){
         super(jobRegistry);
-        this.executionPool=configureThreadPool(config);
         this.clock=clock;
+        this.scheduler=configureScheduler(config,clock);
         this.clientCheckTimeMs=clientCheckTimeMs;
     }
 
@@ -94,22 +93,21 @@ class OlapRequestHandler extends AbstractOlapHandler{
         }
         final Callable<Void> job=jr.toCallable(jobStatus,clock,clientCheckTimeMs);
 
-        executionPool.submit(new Callable<Void>() {
+        scheduler.submit(jr,jobStatus,new Runnable() {
             @Override
-            public Void call() throws Exception {
+            public void run() {
                 try {
-                    return job.call();
+                    job.call();
                 } catch (Throwable t) {
                     LOG.error("Uncaught exception", t);
                     if (jobStatus.isRunning()) {
                         jobStatus.markCompleted(new FailedOlapResult(t));
                     }
                 }
-                return null;
             }
         });
         if(LOG.isTraceEnabled())
-            LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted");
+            LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted, "+scheduler.runningJobs()+" running and "+scheduler.queuedJobs()+" queued");
         writeResponse(e,jr.getUniqueName(),jobStatus);
     }
 
@@ -119,9 +117,12 @@ class OlapRequestHandler extends AbstractOlapHandler{
     /*private helper methods*/
 
 
-    private ExecutorService configureThreadPool(SConfiguration config){
-        //TODO -sf- bound this by the number of possible Spark tasks which can run in YARN
+    private OlapJobScheduler configureScheduler(SConfiguration config,Clock clock){
+        /*
+         * The scheduler never runs more jobs than the configured number of threads, so the pool itself
+         * need not be bounded.
+         */
         ThreadFactory tf =new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olap-worker-%d").build();
-        return Executors.newCachedThreadPool(tf);
+        return new OlapJobScheduler(config,Executors.newCachedThreadPool(tf),clock);
     }
 }
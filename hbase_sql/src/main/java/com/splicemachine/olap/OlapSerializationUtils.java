@@ -18,6 +18,7 @@ package com.splicemachine.olap;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ZeroCopyLiteralByteString;
 import com.splicemachine.olap.OlapMessage;
+import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
 
 import java.io.*;
@@ -72,8 +73,15 @@ class OlapSerializationUtils{
                 case SUBMITTED:
                 case RUNNING:
                     response.setType(OlapMessage.Response.Type.IN_PROGRESS);
-                    OlapMessage.ProgressResponse build=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime).build();
-                    response.setExtension(OlapMessage.ProgressResponse.response,build);
+                    OlapMessage.ProgressResponse.Builder progress=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime);
+                    OlapResult result=status.getResult();
+                    if(result instanceof ProgressResult){
+                        ProgressResult queueStatus=(ProgressResult)result;
+                        progress.setQueueWaitMillis(queueStatus.getQueueWaitMillis())
+                                .setRunningJobs(queueStatus.getRunningJobs())
+                                .setQueuedJobs(queueStatus.getQueuedJobs());
+                    }
+                    response.setExtension(OlapMessage.ProgressResponse.response,progress.build());
                     break;
                 case CANCELED:
                     shouldRemoveAfterWriting[0]=true;
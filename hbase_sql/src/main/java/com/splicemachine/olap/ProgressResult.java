@@ -22,6 +22,34 @@ import com.splicemachine.derby.iapi.sql.olap.OlapResult;
  *         Date: 4/4/16
  */
 public class ProgressResult implements OlapResult{
+    private long queueWaitMillis;
+    private int runningJobs;
+    private int queuedJobs;
+
+    public ProgressResult(){
+    }
+
+    public ProgressResult(long queueWaitMillis,int runningJobs,int queuedJobs){
+        this.queueWaitMillis=queueWaitMillis;
+        this.runningJobs=runningJobs;
+        this.queuedJobs=queuedJobs;
+    }
+
+    /**
+     * @return how long the job waited to be run (or has been waiting so far, if it is still queued)
+     */
+    public long getQueueWaitMillis(){ return queueWaitMillis; }
+
+    /**
+     * @return the number of jobs running on the server
+     */
+    public int getRunningJobs(){ return runningJobs; }
+
+    /**
+     * @return the number of jobs waiting to be run on the server
+     */
+    public int getQueuedJobs(){ return queuedJobs; }
+
     @Override public Throwable getThrowable(){ return null; }
     @Override public boolean isSuccess(){ return false; }
 }
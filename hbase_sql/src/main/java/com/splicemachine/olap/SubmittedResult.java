@@ -24,6 +24,9 @@ import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 public class SubmittedResult implements OlapResult{
     private static final long serialVersionUID = 1l;
     private long tickTime;
+    private long queueWaitMillis;
+    private int runningJobs;
+    private int queuedJobs;
 
     public SubmittedResult(){
     }
@@ -32,10 +35,29 @@ public class SubmittedResult implements OlapResult{
         this.tickTime=tickTime;
     }
 
+    public SubmittedResult(long tickTime,long queueWaitMillis,int runningJobs,int queuedJobs){
+        this.tickTime=tickTime;
+        this.queueWaitMillis=queueWaitMillis;
+        this.runningJobs=runningJobs;
+        this.queuedJobs=queuedJobs;
+    }
+
     public long getTickTime(){
         return tickTime;
     }
 
+    public long getQueueWaitMillis(){
+        return queueWaitMillis;
+    }
+
+    public int getRunningJobs(){
+        return runningJobs;
+    }
+
+    public int getQueuedJobs(){
+        return queuedJobs;
+    }
+
     @Override public boolean isSuccess(){ return false; }
 
     @Override
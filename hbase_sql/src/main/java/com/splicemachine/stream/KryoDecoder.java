@@ -20,6 +20,7 @@ import com.esotericsoftware.kryo.io.Input;
 import com.splicemachine.derby.impl.SpliceSparkKryoRegistrator;
 import com.splicemachine.utils.kryo.KryoPool;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import org.apache.log4j.Logger;
@@ -29,17 +30,19 @@ public class KryoDecoder extends ByteToMessageDecoder {
     private static final Logger LOG = Logger.getLogger(KryoDecoder.class);
     static private KryoPool kp = SpliceSparkKryoRegistrator.getInstance();
 
+    private final Input input = new Input(4096);
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
 //        LOG.warn("Decoding");
         
-        if (in.readableBytes() < 2)
+        if (in.readableBytes() < 4)
             return;
 
 
         in.markReaderIndex();
 
-        int len = in.readUnsignedShort();
+        int len = in.readInt();
 //        LOG.warn("Read lenght " + len);
 
         if (in.readableBytes() < len) {
@@ -51,9 +54,9 @@ public class KryoDecoder extends ByteToMessageDecoder {
 
 //        LOG.warn("Decoding object ");
 
-        byte[] buf = new byte[len];
-        in.readBytes(buf);
-        Input input = new Input(buf);
+        // read straight from the inbound buffer instead of copying the whole message first
+        int end = in.readerIndex() + len;
+        input.setInputStream(new ByteBufInputStream(in, len));
 
         Kryo decoder = kp.get();
         try {
@@ -62,7 +65,7 @@ public class KryoDecoder extends ByteToMessageDecoder {
         }
         finally {
             kp.returnInstance(decoder);
-
+            in.readerIndex(end);
         }
 
 
@@ -20,15 +20,17 @@ import com.esotericsoftware.kryo.io.Output;
 import com.splicemachine.derby.impl.SpliceSparkKryoRegistrator;
 import com.splicemachine.utils.kryo.KryoPool;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
-import java.io.ByteArrayOutputStream;
-
+/**
+ * Writes each message as its length, as an int, followed by the message serialized with Kryo. The message is
+ * serialized straight into the outbound buffer, and the length is filled in once it is known.
+ */
 public class KryoEncoder extends MessageToByteEncoder<Object> {
 
 
-    ByteArrayOutputStream outStream;
     Output output;
 
 
@@ -36,13 +38,14 @@ public class KryoEncoder extends MessageToByteEncoder<Object> {
 
 
     public KryoEncoder() {
-        outStream = new ByteArrayOutputStream();
-        output = new Output(outStream, 4096);
+        output = new Output(4096);
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Object in, ByteBuf out) throws Exception {
-        outStream.reset();
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0); // placeholder, we don't know the length yet
+        output.setOutputStream(new ByteBufOutputStream(out));
 
         Kryo encoder = kp.get();
         try {
@@ -52,9 +55,7 @@ public class KryoEncoder extends MessageToByteEncoder<Object> {
         }
 
         output.flush();
-        byte[] outArray = outStream.toByteArray();
-        out.writeShort(outArray.length);
-        out.writeBytes(outArray);
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
     }
 
 }
@@ -74,7 +74,8 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
             updateLimitOffset();
             int streamingBatches = HConfiguration.getConfiguration().getSparkResultStreamingBatches();
             int streamingBatchSize = HConfiguration.getConfiguration().getSparkResultStreamingBatchSize();
-            streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize);
+            int streamingBufferedBatches = HConfiguration.getConfiguration().getSparkResultStreamingBufferedBatches();
+            streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize, streamingBufferedBatches);
             StreamListenerServer server = getServer();
             server.register(streamListener);
             HostAndPort hostAndPort = server.getHostAndPort();
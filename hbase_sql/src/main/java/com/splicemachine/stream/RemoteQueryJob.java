@@ -62,4 +62,9 @@ public class RemoteQueryJob extends DistributedJob {
     public String getName() {
         return "query-"+uuid;
     }
+
+    @Override
+    public String getUserId() {
+        return userId;
+    }
 }
@@ -50,7 +50,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
     private int numPartitions;
     private String host;
     private int port;
-    private Semaphore permits;
+    private Semaphore credits;
+    private volatile boolean closeRequested;
     private volatile long offset = 0;
     private volatile long limit = Long.MAX_VALUE;
     private Integer partition;
@@ -73,7 +74,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         this.numPartitions = numPartitions;
         this.batches = batches;
         this.batchSize = batchSize;
-        this.permits = new Semaphore(batches - 1); // we start with one permit taken
+        this.credits = new Semaphore(batches);
 
     }
 
@@ -86,6 +87,9 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         this.future = this.workerGroup.submit(new Callable<Long>() {
             private long consumed;
             private long sent;
+            private long batchesSent;
+            private long stallNanos;
+            private Object[] rows = new Object[batchSize];
             private int currentBatch;
 
             @Override
@@ -98,17 +102,18 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                     ah.reinitialize(null, false);
                     prepared = true;
                 }
+                long start = System.nanoTime();
                 try {
                     while (locatedRowIterator.hasNext()) {
                         T lr = locatedRowIterator.next();
                         consumed++;
 
-
-                        ctx.write(lr, ctx.voidPromise());
-                        currentBatch++;
+                        rows[currentBatch++] = lr;
                         sent++;
 
-                        flushAndGetPermit();
+                        if (currentBatch >= batchSize) {
+                            sendBatch();
+                        }
 
                         if (checkLimit()) {
                             return consumed;
@@ -116,6 +121,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
 
                         consumeOffset();
                     }
+                    sendBatch();
+                    ctx.write(new StreamProtocol.PartitionStats(partition, sent, batchesSent, System.nanoTime() - start, stallNanos));
                     // Data has been written, request close
                     ctx.writeAndFlush(new StreamProtocol.RequestClose());
 
@@ -127,23 +134,30 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
             }
 
             /**
-             * If the current batch exceeds the batch size, flush the connection and take a new permit, blocking if the client
-             * hasn't had time yet to process previous messages
+             * Send the rows of the current batch, if any, blocking until the client gives us a credit for it if it
+             * hasn't had time yet to process previous batches
              */
-            private void flushAndGetPermit() throws InterruptedException {
-                if (currentBatch >= batchSize) {
-                    ctx.flush();
-                    currentBatch = 0;
-                    permits.acquire();
-                }
+            private void sendBatch() throws InterruptedException {
+                if (currentBatch == 0 || closeRequested)
+                    return;
+                long start = System.nanoTime();
+                credits.acquire();
+                stallNanos += System.nanoTime() - start;
+                // the batch is encoded asynchronously, so it gets an array of its own
+                ctx.writeAndFlush(new StreamProtocol.Batch(rows, currentBatch), ctx.voidPromise());
+                batchesSent++;
+                rows = new Object[batchSize];
+                currentBatch = 0;
             }
 
             /**
              * If the client hast told us to ignore up to 'offset' messages, consume them here. The client request can
              * arrive after we've already sent some messages.
              */
-            private void consumeOffset() {
+            private void consumeOffset() throws InterruptedException {
                 if (consumed < offset) {
+                    // rows already read have to get to the client before it's told how many were skipped
+                    sendBatch();
                     long count = 0;
                     while (locatedRowIterator.hasNext() && consumed < offset) {
                         locatedRowIterator.next();
@@ -158,9 +172,9 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the client told us to send no more than 'limit' messages, check it here
              * @return true if there's a limit and we reached it, false otherwise
              */
-            private boolean checkLimit() {
+            private boolean checkLimit() throws InterruptedException {
                 if (consumed > limit) {
-                    ctx.flush();
+                    sendBatch();
                     if (LOG.isTraceEnabled())
                         LOG.trace("Reached limit, stopping. consumed " + consumed + " sent " + sent + " limit " + limit);
                     return true;
@@ -173,13 +187,14 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        if (msg instanceof StreamProtocol.Continue) {
-            permits.release();
+        if (msg instanceof StreamProtocol.Credit) {
+            credits.release(((StreamProtocol.Credit) msg).batches);
         } else if (msg instanceof StreamProtocol.ConfirmClose) {
             ctx.close().sync();
         } else if (msg instanceof StreamProtocol.RequestClose) {
             limit = 0; // If they want to close they don't need more data
-            permits.release();
+            closeRequested = true;
+            credits.release(); // in case we are waiting for a credit
             // wait for the writing thread to finish
             future.get();
             ctx.writeAndFlush(new StreamProtocol.ConfirmClose());
@@ -240,7 +255,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                 ", numPartitions=" + numPartitions +
                 ", host='" + host + '\'' +
                 ", port=" + port +
-                ", permits=" + permits +
+                ", credits=" + credits +
                 ", offset=" + offset +
                 ", limit=" + limit +
                 ", partition=" + partition +
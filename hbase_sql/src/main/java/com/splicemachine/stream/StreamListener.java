@@ -15,7 +15,9 @@
 
 package com.splicemachine.stream;
 
+import com.splicemachine.access.configuration.PipelineConfiguration;
 import com.splicemachine.derby.iapi.sql.olap.OlapResult;
+import com.splicemachine.derby.stream.ResultStreamingStatistics;
 import com.splicemachine.pipeline.Exceptions;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
@@ -24,15 +26,24 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.apache.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * This class handles connections from Spark tasks streaming data to the query client. One connection is created from
  * each task, it handles failures and recovery in case the task is retried.
  *
+ * Each task sends its partition in batches of rows, and may only send as many batches as it has been given credits
+ * for. A task starts with 'batches' credits, and gets a new one each time a batch of its partition is consumed. Tasks
+ * streaming a partition ahead of the one being read also get a credit for each batch they send, as long as there's
+ * room for it in a buffer of 'bufferBatches' batches shared by all partitions, so they don't have to wait for the
+ * partitions before them to be read.
+ *
  * Created by dgomezferro on 5/20/16.
  */
 @ChannelHandler.Sharable
@@ -41,8 +52,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private static final Object SENTINEL = new Object();
     private static final Object FAILURE = new Object();
     private static final Object RETRY = new Object();
-    private final int queueSize;
-    private final int batchSize;
+    private final Semaphore bufferCredits;
     private final UUID uuid;
     private long limit;
     private long offset;
@@ -50,8 +60,10 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private Map<Channel, PartitionState> partitionMap = new ConcurrentHashMap<>();
     private ConcurrentMap<Integer, PartitionState> partitionStateMap = new ConcurrentHashMap<>();
 
+    private ConcurrentMap<Integer, StreamProtocol.PartitionStats> partitionStats = new ConcurrentHashMap<>();
+
     private T currentResult;
-    private int currentQueue = -1;
+    private volatile int currentQueue = -1;
     // There's at least one partition, this will be updated when we get a connection
     private volatile long numPartitions = 1;
     private final List<AutoCloseable> closeables = new ArrayList<>();
@@ -69,12 +81,15 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     }
 
     public StreamListener(long limit, long offset, int batches, int batchSize) {
+        this(limit, offset, batches, batchSize, PipelineConfiguration.DEFAULT_SPARK_RESULT_STREAMING_BUFFERED_BATCHES);
+    }
+
+    public StreamListener(long limit, long offset, int batches, int batchSize, int bufferBatches) {
         this.offset = offset;
         this.limit = limit;
-        this.batchSize = batchSize;
-        this.queueSize = batches*batchSize;
+        this.bufferCredits = new Semaphore(bufferBatches);
         // start with this to force a channel advancement
-        PartitionState first = new PartitionState(0, 0);
+        PartitionState first = new PartitionState(0);
         first.messages.add(SENTINEL);
         first.initialized = true;
         this.partitionStateMap.put(-1, first);
@@ -83,7 +98,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
 
     public Iterator<T> getIterator() {
         // Initialize first partition
-        PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize));
+        PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1));
         if (failure != null) {
             ps.messages.add(FAILURE);
         }
@@ -118,8 +133,24 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         } else if (msg instanceof StreamProtocol.ConfirmClose) {
             ctx.close().sync();
             partitionMap.remove(channel);
+        } else if (msg instanceof StreamProtocol.PartitionStats) {
+            StreamProtocol.PartitionStats stats = (StreamProtocol.PartitionStats) msg;
+            if (partitionStats.put(stats.partition, stats) == null) {
+                // only count a partition once, even if a retried task streamed it again
+                ResultStreamingStatistics.getInstance().partitionStreamed(
+                        stats.rows, stats.batches, stats.elapsedNanos, stats.stallNanos);
+            }
+            if (LOG.isDebugEnabled())
+                LOG.debug(String.format("Partition %d streamed %d rows in %d batches at %.0f rows/s, stalled for %d ms",
+                        stats.partition, stats.rows, stats.batches, stats.getThroughput(),
+                        TimeUnit.NANOSECONDS.toMillis(stats.stallNanos)));
+        } else if (msg instanceof StreamProtocol.Batch && state.partition != currentQueue && bufferCredits.tryAcquire()) {
+            // This partition is ahead of the one being read, buffer the batch and let the task send another one
+            state.borrowed.incrementAndGet();
+            state.messages.add(msg);
+            ctx.writeAndFlush(new StreamProtocol.Credit(1));
         } else {
-            // Data or StreamProtocol.Skipped
+            // StreamProtocol.Batch or StreamProtocol.Skipped
             // We can't block here, we negotiate throughput with the server to guarantee it
             state.messages.add(msg);
         }
@@ -151,6 +182,10 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         try {
             while (next == null) {
                 PartitionState state = partitionStateMap.get(currentQueue);
+                if (state.batch != null) {
+                    next = nextInBatch(state);
+                    continue;
+                }
                 // We take a message first to make sure we have a connection
                 Object msg = canBlock ? state.messages.take() : state.messages.remove();
                 if (!state.initialized && (offset > 0 || limit > 0)) {
@@ -171,6 +206,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                     state.next.channel.writeAndFlush(new StreamProtocol.Skip(serverLimit, currentOffset));
                     state.next.initialized = true;
                     state.messages.clear();
+                    bufferCredits.release(state.borrowed.getAndSet(0));
                     offset = currentOffset;
 
                     // Update maps with the new state/channel
@@ -200,40 +236,17 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                     }
 
                     // Set the partitionState so we can block on the queue in case the connection hasn't opened yet
-                    PartitionState ps = partitionStateMap.putIfAbsent(currentQueue, new PartitionState(currentQueue, queueSize));
+                    PartitionState ps = partitionStateMap.putIfAbsent(currentQueue, new PartitionState(currentQueue));
                     if (failure != null) {
                         ps.messages.add(FAILURE);
                     }
+                } else if (msg instanceof StreamProtocol.Skipped) {
+                    StreamProtocol.Skipped skipped = (StreamProtocol.Skipped) msg;
+                    offset -= skipped.skipped;
+                    state.readTotal += skipped.skipped;
                 } else {
-                    if (msg instanceof StreamProtocol.Skipped) {
-                        StreamProtocol.Skipped skipped = (StreamProtocol.Skipped) msg;
-                        offset -= skipped.skipped;
-                        state.readTotal += skipped.skipped;
-                    } else if (offset > 0) {
-                        // We still have to ignore 'offset' messages
-                        offset--;
-                        state.consumed++;
-                        state.readTotal++;
-                    } else {
-                        // We are returning a message
-                        next = (T) msg;
-                        state.consumed++;
-                        state.readTotal++;
-                        // Check the limit
-                        if (limit > 0) {
-                            limit--;
-                            if (limit == 0) {
-                                stopAllStreams();
-                            }
-                        }
-                    }
-
-                    if (state.consumed > batchSize) {
-                        if (LOG.isTraceEnabled())
-                            LOG.trace("Writing CONT");
-                        state.channel.writeAndFlush(new StreamProtocol.Continue());
-                        state.consumed -= batchSize;
-                    }
+                    state.batch = (StreamProtocol.Batch) msg;
+                    state.position = 0;
                 }
             }
             currentResult = next;
@@ -242,10 +255,65 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
     }
 
+    /**
+     * Returns the next row of the batch being read from this partition, or null if the rows left in the batch have to
+     * be ignored because of the offset. Once the batch is exhausted the credit it took is given back.
+     */
+    private T nextInBatch(PartitionState state) {
+        StreamProtocol.Batch batch = state.batch;
+        T next = null;
+        if (offset > 0) {
+            // We still have to ignore 'offset' messages
+            int skipped = (int) Math.min(offset, batch.size - state.position);
+            offset -= skipped;
+            state.position += skipped;
+            state.readTotal += skipped;
+        }
+        if (state.position < batch.size) {
+            // We are returning a message
+            next = (T) batch.rows[state.position];
+            batch.rows[state.position] = null;
+            state.position++;
+            state.readTotal++;
+            // Check the limit
+            if (limit > 0) {
+                limit--;
+                if (limit == 0) {
+                    stopAllStreams();
+                }
+            }
+        }
+        if (state.position >= batch.size) {
+            state.batch = null;
+            if (decrementIfPositive(state.borrowed)) {
+                // the task already got a credit for this batch when it was buffered
+                bufferCredits.release();
+            } else {
+                if (LOG.isTraceEnabled())
+                    LOG.trace("Writing CREDIT");
+                state.channel.writeAndFlush(new StreamProtocol.Credit(1));
+            }
+        }
+        return next;
+    }
+
+    private static boolean decrementIfPositive(AtomicInteger counter) {
+        while (true) {
+            int current = counter.get();
+            if (current <= 0)
+                return false;
+            if (counter.compareAndSet(current, current - 1))
+                return true;
+        }
+    }
+
     private void clearCurrentQueue() {
         PartitionState ps = partitionStateMap.remove(currentQueue);
-        if (ps != null && ps.channel != null)
-            partitionMap.remove(ps.channel);
+        if (ps != null) {
+            bufferCredits.release(ps.borrowed.getAndSet(0));
+            if (ps.channel != null)
+                partitionMap.remove(ps.channel);
+        }
     }
 
     /**
@@ -269,7 +337,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
         // create fake queue with finish message so the next call to next() returns null
         currentQueue = (int) numPartitions + 1;
-        PartitionState ps = new PartitionState(currentQueue, 0);
+        PartitionState ps = new PartitionState(currentQueue);
         ps.messages.add(SENTINEL);
         partitionStateMap.putIfAbsent(currentQueue, ps);
         close();
@@ -287,7 +355,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         Channel channel = ctx.channel();
         this.numPartitions = numPartitions;
 
-        PartitionState ps = new PartitionState(partition, queueSize);
+        PartitionState ps = new PartitionState(partition);
         PartitionState old = partitionStateMap.putIfAbsent(partition, ps);
         ps = old != null ? old : ps;
 
@@ -297,7 +365,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         Channel previousChannel = ps.channel;
         if (previousChannel != null) {
             LOG.info("Received connection from retried task, current state " + ps);
-            PartitionState nextState = new PartitionState(partition, queueSize);
+            PartitionState nextState = new PartitionState(partition);
             nextState.channel = channel;
             ps.next = nextState;
             partitionMap.put(channel, ps.next);
@@ -350,6 +418,13 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         return uuid;
     }
 
+    /**
+     * @return the throughput and stall time of the partitions which finished streaming so far
+     */
+    public Collection<StreamProtocol.PartitionStats> getPartitionStats() {
+        return partitionStats.values();
+    }
+
     public void addCloseable(AutoCloseable autoCloseable) {
         synchronized (closeables) {
             if (closed) {
@@ -385,15 +460,17 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
 class PartitionState {
     int partition;
     Channel channel;
-    ArrayBlockingQueue<Object> messages;
-    long consumed;
+    // bounded by the credits given to the task
+    LinkedBlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+    StreamProtocol.Batch batch; // the batch being read
+    int position;
+    final AtomicInteger borrowed = new AtomicInteger(); // batches queued with a credit from the shared buffer
     long readTotal;
     boolean initialized;
     volatile PartitionState next = null; // used when a task is retried after a failure
 
-    PartitionState(int partition, int queueSize) {
+    PartitionState(int partition) {
         this.partition = partition;
-        this.messages = new ArrayBlockingQueue<>(queueSize + 4);  // Extra to account for out of band messages
     }
 
     @Override
@@ -402,7 +479,8 @@ class PartitionState {
                 "partition=" + partition +
                 ", channel=" + channel +
                 ", messages=" + messages.size() +
-                ", consumed=" + consumed +
+                ", position=" + position +
+                ", borrowed=" + borrowed +
                 ", initialized=" + initialized +
                 ", next=" + next +
                 '}';
@@ -15,6 +15,11 @@
 
 package com.splicemachine.stream;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
 import java.io.Serializable;
 import java.util.UUID;
 
@@ -100,7 +105,104 @@ public class StreamProtocol implements Serializable {
         }
     }
 
-    public static class Continue implements Serializable {
+    /**
+     * Lets the server send {@code batches} more batches of the partition
+     */
+    public static class Credit implements Serializable {
+        public int batches;
+
+        public Credit() {}
+
+        public Credit(int batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public String toString() {
+            return "Credit{" +
+                    "batches=" + batches +
+                    '}';
+        }
+    }
+
+    /**
+     * A batch of rows of the partition. The rows are written back to back, without the per message framing and class
+     * header each of them would need if it were sent on its own.
+     */
+    public static class Batch implements KryoSerializable, Serializable {
+        public Object[] rows;
+        public int size;
+
+        public Batch() {}
+
+        public Batch(Object[] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output) {
+            output.writeInt(size, true);
+            for (int i = 0; i < size; i++) {
+                kryo.writeClassAndObject(output, rows[i]);
+            }
+        }
+
+        @Override
+        public void read(Kryo kryo, Input input) {
+            size = input.readInt(true);
+            rows = new Object[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = kryo.readClassAndObject(input);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Batch{" +
+                    "size=" + size +
+                    '}';
+        }
+    }
+
+    /**
+     * Sent by the server before it requests to close, with how long it took to stream the partition and how much
+     * of that time it spent waiting for credits
+     */
+    public static class PartitionStats implements Serializable {
+        public int partition;
+        public long rows;
+        public long batches;
+        public long elapsedNanos;
+        public long stallNanos;
+
+        public PartitionStats() {}
+
+        public PartitionStats(int partition, long rows, long batches, long elapsedNanos, long stallNanos) {
+            this.partition = partition;
+            this.rows = rows;
+            this.batches = batches;
+            this.elapsedNanos = elapsedNanos;
+            this.stallNanos = stallNanos;
+        }
+
+        /**
+         * @return the rows sent per second, or 0 if no time has been measured
+         */
+        public double getThroughput() {
+            return elapsedNanos > 0 ? rows * 1e9d / elapsedNanos : 0d;
+        }
+
+        @Override
+        public String toString() {
+            return "PartitionStats{" +
+                    "partition=" + partition +
+                    ", rows=" + rows +
+                    ", batches=" + batches +
+                    ", elapsedNanos=" + elapsedNanos +
+                    ", stallNanos=" + stallNanos +
+                    '}';
+        }
     }
 
     public static class RequestClose implements Serializable {
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import com.splicemachine.derby.iapi.sql.olap.OlapResult;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class OlapJobSchedulerTest{
+    private final IncrementingClock clock = new IncrementingClock();
+    /*the jobs which were started and have not finished yet, in the order they were started*/
+    private final List<Runnable> started = new ArrayList<>();
+    private final List<String> ran = new ArrayList<>();
+    private final Executor executor = new Executor(){
+        @Override
+        public void execute(Runnable command){
+            started.add(command);
+        }
+    };
+
+    @Test
+    public void testQueuesJobsBeyondTheLimitOfTheirType() throws Exception{
+        OlapJobScheduler scheduler = new OlapJobScheduler(executor,clock,4,new int[]{2,2,2},new int[]{1,1,1});
+        submit(scheduler,DistributedJob.Type.QUERY,"user","q1");
+        submit(scheduler,DistributedJob.Type.QUERY,"user","q2");
+        submit(scheduler,DistributedJob.Type.QUERY,"user","q3");
+        Assert.assertEquals(2,scheduler.runningJobs());
+        Assert.assertEquals(1,scheduler.queuedJobs());
+
+        //other types still get to run
+        submit(scheduler,DistributedJob.Type.COMPACTION,null,"c1");
+        Assert.assertEquals(3,scheduler.runningJobs());
+
+        finishNext();
+        Assert.assertEquals(3,scheduler.runningJobs());
+        Assert.assertEquals(0,scheduler.queuedJobs());
+        finishAll();
+        Assert.assertEquals(0,scheduler.runningJobs());
+        Assert.assertEquals(4,ran.size());
+    }
+
+    @Test
+    public void testQueriesCannotStarveCompactions() throws Exception{
+        OlapJobScheduler scheduler = new OlapJobScheduler(executor,clock,4,new int[]{3,4,4},new int[]{2,1,1});
+        for(int i=0;i<10;i++){
+            submit(scheduler,DistributedJob.Type.QUERY,"user","q"+i);
+        }
+        Assert.assertEquals(3,scheduler.runningJobs());
+        Assert.assertEquals(7,scheduler.queuedJobs());
+
+        submit(scheduler,DistributedJob.Type.COMPACTION,null,"c");
+        Assert.assertEquals(4,scheduler.runningJobs());
+        Assert.assertEquals(7,scheduler.queuedJobs());
+    }
+
+    @Test
+    public void testFreeSlotsAreSharedByWeight() throws Exception{
+        OlapJobScheduler scheduler = new OlapJobScheduler(executor,clock,3,new int[]{3,3,3},new int[]{2,1,1});
+        for(int i=0;i<3;i++){
+            submit(scheduler,DistributedJob.Type.MAINTENANCE,null,"m"+i);
+        }
+        for(int i=0;i<5;i++){
+            submit(scheduler,DistributedJob.Type.QUERY,"user","q"+i);
+            submit(scheduler,DistributedJob.Type.COMPACTION,null,"c"+i);
+        }
+        Assert.assertEquals(10,scheduler.queuedJobs());
+
+        //as the maintenance jobs finish, queries get twice the slots compactions do
+        finishNext();
+        finishNext();
+        finishNext();
+        Assert.assertEquals(3,scheduler.runningJobs());
+        Assert.assertEquals(7,scheduler.queuedJobs());
+        finishAll();
+        Assert.assertEquals("Incorrect run order!",
+                "[m0, m1, m2, q0, c0, q1, q2, c1, q3, q4, c2, c3, c4]",ran.toString());
+    }
+
+    @Test
+    public void testUsersShareTheirType() throws Exception{
+        OlapJobScheduler scheduler = new OlapJobScheduler(executor,clock,2,new int[]{2,2,2},new int[]{1,1,1});
+        submit(scheduler,DistributedJob.Type.QUERY,"a","a1");
+        submit(scheduler,DistributedJob.Type.QUERY,"a","a2");
+        submit(scheduler,DistributedJob.Type.QUERY,"a","a3");
+        submit(scheduler,DistributedJob.Type.QUERY,"a","a4");
+        submit(scheduler,DistributedJob.Type.QUERY,"b","b1");
+
+        //b has nothing running, so it goes ahead of a's older jobs
+        finishNext();
+        Assert.assertEquals("[a1]",ran.toString());
+        finishAll();
+        Assert.assertEquals("[a1, a2, b1, a3, a4]",ran.toString());
+    }
+
+    @Test
+    public void testCancelledJobsAreNotRun() throws Exception{
+        OlapJobScheduler scheduler = new OlapJobScheduler(executor,clock,1,new int[]{1,1,1},new int[]{1,1,1});
+        submit(scheduler,DistributedJob.Type.QUERY,"user","q1");
+        OlapJobStatus cancelled = submit(scheduler,DistributedJob.Type.QUERY,"user","q2");
+        submit(scheduler,DistributedJob.Type.QUERY,"user","q3");
+        cancelled.cancel();
+
+        finishAll();
+        Assert.assertEquals("[q1, q3]",ran.toString());
+        Assert.assertEquals(OlapStatus.State.CANCELED,cancelled.checkState());
+        Assert.assertEquals(0,scheduler.queuedJobs());
+    }
+
+    @Test
+    public void testReportsQueueWait() throws Exception{
+        OlapJobScheduler scheduler = new OlapJobScheduler(executor,clock,1,new int[]{1,1,1},new int[]{1,1,1});
+        submit(scheduler,DistributedJob.Type.QUERY,"user","q1");
+        OlapJobStatus status = submit(scheduler,DistributedJob.Type.QUERY,"user","q2");
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(5));
+
+        OlapResult result = status.getResult();
+        Assert.assertTrue("Queued job does not report progress!",result instanceof ProgressResult);
+        ProgressResult progress = (ProgressResult)result;
+        Assert.assertEquals(5l,progress.getQueueWaitMillis());
+        Assert.assertEquals(1,progress.getRunningJobs());
+        Assert.assertEquals(1,progress.getQueuedJobs());
+
+        finishNext();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(5));
+        progress = (ProgressResult)status.getResult();
+        Assert.assertEquals("Time spent running was counted as waiting!",5l,progress.getQueueWaitMillis());
+        Assert.assertEquals(0,progress.getQueuedJobs());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private OlapJobStatus submit(OlapJobScheduler scheduler,DistributedJob.Type type,String user,final String name){
+        OlapJobStatus status = new OlapJobStatus(1000l,10);
+        Assert.assertTrue(status.markSubmitted());
+        scheduler.submit(new TestJob(type,user),status,new Runnable(){
+            @Override
+            public void run(){
+                ran.add(name);
+            }
+        });
+        return status;
+    }
+
+    private void finishNext(){
+        started.remove(0).run();
+    }
+
+    private void finishAll(){
+        while(!started.isEmpty()){
+            finishNext();
+        }
+    }
+
+    private static class TestJob extends DistributedJob{
+        private final Type type;
+        private final String user;
+
+        TestJob(Type type,String user){
+            this.type = type;
+            this.user = user;
+        }
+
+        @Override
+        public Callable<Void> toCallable(OlapStatus jobStatus,Clock clock,long clientTimeoutCheckIntervalMs){
+            return null;
+        }
+
+        @Override public String getName(){ return "test"; }
+        @Override public Type getType(){ return type; }
+        @Override public String getUserId(){ return user; }
+    }
+}
@@ -20,6 +20,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.SpliceSpark;
 import com.splicemachine.derby.stream.BaseStreamTest;
+import com.splicemachine.derby.stream.ResultStreamingStatistics;
 import org.apache.commons.collections.IteratorUtils;
 import org.apache.log4j.Logger;
 import org.apache.spark.api.java.JavaPairRDD;
@@ -248,6 +249,59 @@ public class StreamableRDDTest extends BaseStreamTest implements Serializable {
         assertEquals(limit, count);
     }
 
+    @Test
+    public void testBufferedPartitions() throws StandardException {
+        int batches = 2;
+        int batchSize = 100;
+        int bufferBatches = 4;
+        StreamListener<ExecRow> sl = new StreamListener<>(-1, 0, batches, batchSize, bufferBatches);
+        HostAndPort hostAndPort = server.getHostAndPort();
+        server.register(sl);
+        ResultStreamingStatistics streamingStats = ResultStreamingStatistics.getInstance();
+        long partitionsBefore = streamingStats.getStreamedPartitionCount();
+        long rowsBefore = streamingStats.getStreamedRowCount();
+
+        List<Tuple2<ExecRow,ExecRow>> manyRows = new ArrayList<>();
+        for(int i = 0; i < 10000; ++i) {
+            manyRows.add(new Tuple2<ExecRow, ExecRow>(getExecRow(i, 1), getExecRow(i, 2)));
+        }
+
+        JavaPairRDD<ExecRow, ExecRow> rdd = SpliceSpark.getContext().parallelizePairs(manyRows, 6);
+        final StreamableRDD srdd = new StreamableRDD(rdd.values(), null, sl.getUuid(), hostAndPort.getHostText(), hostAndPort.getPort(), batches, batchSize);
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    srdd.submit();
+                } catch (Exception e) {
+                    LOG.error(e);
+                    throw new RuntimeException(e);
+                }
+
+            }
+        }.start();
+        Iterator<ExecRow> it = sl.getIterator();
+        int count = 0;
+        while (it.hasNext()) {
+            ExecRow execRow = it.next();
+            assertNotNull(execRow);
+            assertEquals(count, execRow.getColumn(1).getInt());
+            count++;
+        }
+        assertEquals(10000, count);
+
+        Collection<StreamProtocol.PartitionStats> stats = sl.getPartitionStats();
+        assertEquals("Missing partition stats", 6, stats.size());
+        long rows = 0;
+        for (StreamProtocol.PartitionStats ps : stats) {
+            rows += ps.rows;
+            assertTrue("Batches larger than the batch size", ps.batches * batchSize >= ps.rows);
+        }
+        assertEquals(10000, rows);
+        assertTrue("Partition stats not published", streamingStats.getStreamedPartitionCount() - partitionsBefore >= 6);
+        assertTrue("Partition stats not published", streamingStats.getStreamedRowCount() - rowsBefore >= 10000);
+    }
+
     @Test
     public void testSmallLimit() throws StandardException {
         int limit = 2000;
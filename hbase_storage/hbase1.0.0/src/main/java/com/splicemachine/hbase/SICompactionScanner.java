@@ -26,16 +26,26 @@ import java.util.List;
 /**
  * Decorator for an HBase scanner that performs SI operations at compaction time. Delegates the core work to
  * SICompactionState.
+ * <p/>
+ * Rows are read from the underlying scanner a block at a time, so that the transactions of the whole block can
+ * be looked up at once before any of its rows are returned.
  */
 public class SICompactionScanner implements InternalScanner {
     private final SICompactionState compactionState;
     private final InternalScanner delegate;
-    private List<Cell> rawList =new ArrayList<>();
+    private final int blockSize;
+    /*the rows of the current block. The lists are reused from one block to the next*/
+    private final List<List<Cell>> rows = new ArrayList<>();
+    private int blockRows;
+    private int nextRow;
+    private boolean more = true;
 
     public SICompactionScanner(SICompactionState compactionState,
-                               InternalScanner scanner) {
+                               InternalScanner scanner,
+                               int blockSize) {
         this.compactionState = compactionState;
         this.delegate = scanner;
+        this.blockSize = Math.max(1,blockSize);
     }
 
     @Override
@@ -43,10 +53,11 @@ public class SICompactionScanner implements InternalScanner {
         /*
          * Read data from the underlying scanner and send the results through the SICompactionState.
          */
-        rawList.clear();
-        final boolean more = delegate.next(rawList);
-        compactionState.mutate(rawList, list);
-        return more;
+        if(nextRow==blockRows && more)
+            readBlock();
+        if(nextRow<blockRows)
+            compactionState.mutate(rows.get(nextRow++), list);
+        return nextRow<blockRows || more;
     }
 
     public boolean next(List<Cell> results, int limit) throws IOException {
@@ -57,4 +68,22 @@ public class SICompactionScanner implements InternalScanner {
     public void close() throws IOException {
         delegate.close();
     }
-}
\ No newline at end of file
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void readBlock() throws IOException {
+        blockRows = 0;
+        nextRow = 0;
+        while(more && blockRows<blockSize){
+            if(rows.size()==blockRows)
+                rows.add(new ArrayList<Cell>());
+            List<Cell> row = rows.get(blockRows);
+            row.clear();
+            more = delegate.next(row);
+            if(!row.isEmpty())
+                blockRows++;
+        }
+        compactionState.resolve(rows.subList(0,blockRows));
+    }
+}
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import com.splicemachine.hbase.PurgeWatermarkFileInfo;
 import com.splicemachine.si.constants.SIConstants;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -32,6 +33,7 @@ import org.apache.hadoop.hbase.regionserver.BaseHRegionUtil;
 import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.KeyValueScanner;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.regionserver.Store;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 import com.splicemachine.utils.SpliceLogUtils;
@@ -159,6 +161,7 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
             }
             memScannerList.add(getMemStoreScanner());
             this.region = openHRegion();
+            checkPurgeWatermark();
             RegionScanner regionScanner = BaseHRegionUtil.getScanner(region, scan, memScannerList);
             if (flushed) {
                 if (scanner != null)
@@ -211,6 +214,26 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
         return res;
     }
 
+    /*
+     * The region server fails the reads of transactions older than the purge watermark of its region, and so
+     * must we, since we read the files of the region directly
+     */
+    private void checkPurgeWatermark() throws IOException {
+        long snapshot = PurgeWatermarkFileInfo.snapshotOf(scan);
+        if (snapshot < 0)
+            return;
+        try {
+            for (HColumnDescriptor family : htd.getFamilies()) {
+                Store store = region.getStore(family.getName());
+                if (store != null)
+                    PurgeWatermarkFileInfo.checkSnapshot(snapshot, PurgeWatermarkFileInfo.watermarkOf(store.getStorefiles()), hri);
+            }
+        } catch (IOException e) {
+            region.close();
+            throw e;
+        }
+    }
+
     private HRegion openHRegion() throws IOException {
         return HRegion.openHRegion(conf, fs, rootDir, hri, new ReadOnlyTableDescriptor(htd), null,null, null);
     }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.data.HExceptionFactory;
+import com.splicemachine.si.impl.HOperationFactory;
+import com.splicemachine.si.impl.HSnapshotTooOld;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.server.SICompactionState;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.client.OperationWithAttributes;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps the purge watermark of each store file in the file info of the file.
+ * <p>
+ * A compaction which purges versions of rows records the watermark it purged with in the file it writes, and the
+ * files it compacts pass their watermarks on to it, since the versions they were missing are still missing. The
+ * watermark of a region is the highest one of its files.
+ * <p>
+ * Read-only transactions aren't recorded in the transaction table, so the watermark may be set after one of them
+ * began. Such a transaction could miss versions it should see; rather than return the wrong ones, its reads of
+ * a region fail with {@link HSnapshotTooOld} once the watermark of the region has passed its snapshot.
+ */
+public class PurgeWatermarkFileInfo{
+    public static final byte[] FILE_INFO_KEY=Bytes.toBytes("SPLICE_PURGE_WATERMARK");
+
+    @SuppressWarnings("unchecked")
+    private static final TxnOperationFactory txnOperationFactory=
+            new SimpleTxnOperationFactory(HExceptionFactory.INSTANCE,HOperationFactory.INSTANCE);
+
+    private PurgeWatermarkFileInfo(){}
+
+    /**
+     * @param state the state of the compaction, or null if it is not SI-managed
+     * @param compacted the files the compaction read
+     */
+    public static void appendTo(StoreFile.Writer writer,SICompactionState state,Collection<StoreFile> compacted) throws IOException{
+        long watermark=state!=null && state.getPurgedCells()>0? state.getPurgeWatermark(): 0l;
+        watermark=Math.max(watermark,watermarkOf(compacted));
+        if(watermark>0)
+            writer.appendFileInfo(FILE_INFO_KEY,Bytes.toBytes(watermark));
+    }
+
+    /**
+     * @return the highest watermark of the files, or 0 if none of them had anything purged
+     */
+    public static long watermarkOf(Collection<StoreFile> files){
+        long watermark=0l;
+        for(StoreFile file : files){
+            watermark=Math.max(watermark,watermarkOf(file.getMetadataValue(FILE_INFO_KEY)));
+        }
+        return watermark;
+    }
+
+    /**
+     * @return the watermark recorded in the file info of a file, or 0 if it had nothing purged
+     */
+    public static long watermarkOf(Map<byte[],byte[]> fileInfo){
+        return watermarkOf(fileInfo.get(FILE_INFO_KEY));
+    }
+
+    /**
+     * @return the snapshot of the transaction the operation reads with, or -1 if it does not read with a
+     * snapshot, so purging does not affect it
+     */
+    public static long snapshotOf(OperationWithAttributes operation){
+        byte[] txnData=operation.getAttribute(SIConstants.SI_TRANSACTION_ID_KEY);
+        if(txnData==null) return -1l;
+        TxnView txn=txnOperationFactory.fromReads(txnData,0,txnData.length);
+        return snapshotOf(txn);
+    }
+
+    /**
+     * @return the snapshot of the transaction, or -1 if it does not read with a snapshot
+     */
+    public static long snapshotOf(TxnView txn){
+        if(txn.getIsolationLevel()!=Txn.IsolationLevel.SNAPSHOT_ISOLATION) return -1l;
+        /*
+         * A child transaction sees what its parents see, which may be decided by the begin timestamp of the oldest
+         * of them
+         */
+        long snapshot=txn.getBeginTimestamp();
+        for(TxnView parent=txn.getParentTxnView();parent!=null && !Txn.ROOT_TRANSACTION.equals(parent);parent=parent.getParentTxnView()){
+            snapshot=Math.min(snapshot,parent.getBeginTimestamp());
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param snapshot the snapshot of the reading transaction, or -1 if it does not read with one
+     * @throws HSnapshotTooOld if versions visible to the snapshot may have been purged
+     */
+    public static void checkSnapshot(long snapshot,long watermark,HRegionInfo region) throws IOException{
+        /*
+         * A transaction sees the versions committed before it began, and versions committed before the watermark
+         * are only purged if a newer one was committed before the watermark too. So no version the transaction
+         * could see is gone as long as it began at or after the watermark.
+         */
+        if(snapshot>=0 && snapshot<watermark)
+            throw new HSnapshotTooOld(snapshot,watermark,region.getRegionNameAsString());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static long watermarkOf(byte[] value){
+        return value==null? 0l: Bytes.toLong(value);
+    }
+}
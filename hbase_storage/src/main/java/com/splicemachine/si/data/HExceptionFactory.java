@@ -18,6 +18,7 @@ package com.splicemachine.si.data;
 import com.splicemachine.access.api.OperationCancelledException;
 import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.si.api.data.ReadOnlyModificationException;
+import com.splicemachine.si.api.txn.SnapshotTooOld;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.WriteConflict;
 import com.splicemachine.si.api.txn.lifecycle.CannotCommitException;
@@ -155,6 +156,9 @@ public class HExceptionFactory implements ExceptionFactory{
         }else if(e instanceof CannotCommitException){
             assert e instanceof IOException:"Programmer error: CannotCommitException should be an IOException";
             return (IOException)e;
+        }else if(e instanceof SnapshotTooOld){
+            assert e instanceof IOException:"Programmer error: SnapshotTooOld should be an IOException";
+            return (IOException)e;
         }else if(e instanceof RetriesExhaustedWithDetailsException){
             RetriesExhaustedWithDetailsException rewde=(RetriesExhaustedWithDetailsException)e;
             for(Throwable c : rewde.getCauses()){
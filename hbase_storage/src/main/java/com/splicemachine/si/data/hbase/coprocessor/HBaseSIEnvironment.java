@@ -105,7 +105,7 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.partitionFactory =TableFactoryService.loadTableFactory(clock,this.config,partitionCache);
         TxnNetworkLayerFactory txnNetworkLayerFactory= TableFactoryService.loadTxnNetworkLayer(this.config);
         this.txnStore = new CoprocessorTxnStore(txnNetworkLayerFactory,timestampSource,null);
-        int completedTxnCacheSize = config.getCompletedTxnCacheSize();
+        int completedTxnCacheSize = CompletedTxnCacheSupplier.maxEntriesFor(config.getCompletedTxnCacheMemory());
         int completedTxnConcurrency = config.getCompletedTxnConcurrency();
         this.txnSupplier = new CompletedTxnCacheSupplier(txnStore,completedTxnCacheSize,completedTxnConcurrency);
         this.txnStore.setCache(txnSupplier);
@@ -131,7 +131,7 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.partitionFactory =TableFactoryService.loadTableFactory(clock, this.config,partitionCache);
         TxnNetworkLayerFactory txnNetworkLayerFactory= TableFactoryService.loadTxnNetworkLayer(this.config);
         this.txnStore = new CoprocessorTxnStore(txnNetworkLayerFactory,timestampSource,null);
-        int completedTxnCacheSize = config.getCompletedTxnCacheSize();
+        int completedTxnCacheSize = CompletedTxnCacheSupplier.maxEntriesFor(config.getCompletedTxnCacheMemory());
         int completedTxnConcurrency = config.getCompletedTxnConcurrency();
         this.txnSupplier = new CompletedTxnCacheSupplier(txnStore,completedTxnCacheSize,completedTxnConcurrency);
         this.txnStore.setCache(txnSupplier);
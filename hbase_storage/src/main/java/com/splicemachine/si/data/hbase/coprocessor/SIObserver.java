@@ -22,7 +22,12 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
 import org.apache.hadoop.hbase.HConstants;
@@ -32,12 +37,16 @@ import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.OperationWithAttributes;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.BaseRegionObserver;
 import org.apache.hadoop.hbase.coprocessor.ObserverContext;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.io.FSDataInputStreamWrapper;
+import org.apache.hadoop.hbase.io.Reference;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.regionserver.*;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
@@ -49,6 +58,7 @@ import org.spark_project.guava.collect.Maps;
 import com.splicemachine.access.HConfiguration;
 import com.splicemachine.concurrent.SystemClock;
 import com.splicemachine.constants.EnvUtils;
+import com.splicemachine.hbase.PurgeWatermarkFileInfo;
 import com.splicemachine.hbase.SICompactionScanner;
 import com.splicemachine.hbase.ZkUtils;
 import com.splicemachine.kvpair.KVPair;
@@ -82,6 +92,10 @@ public class SIObserver extends BaseRegionObserver{
     private TxnOperationFactory txnOperationFactory;
     private OperationStatusFactory operationStatusFactory;
     private TransactionalRegion region;
+    /*the highest purge watermark of the files of the region, see PurgeWatermarkFileInfo*/
+    private final AtomicLong purgeWatermark=new AtomicLong(0l);
+    /*the snapshots of the open scanners which read with one*/
+    private final ConcurrentMap<InternalScanner,Long> scannerSnapshots=new ConcurrentHashMap<>();
 
     @Override
     public void start(CoprocessorEnvironment e) throws IOException{
@@ -117,6 +131,8 @@ public class SIObserver extends BaseRegionObserver{
     @Override
     public void preGetOp(ObserverContext<RegionCoprocessorEnvironment> e,Get get,List<Cell> results) throws IOException{
         SpliceLogUtils.trace(LOG,"preGet %s",get);
+        if(tableEnvMatch && purgeWatermark.get()>0)
+            checkSnapshot(e,PurgeWatermarkFileInfo.snapshotOf(get));
         if(tableEnvMatch && shouldUseSI(get)){
             get.setMaxVersions();
             get.setTimeRange(0L,Long.MAX_VALUE);
@@ -140,6 +156,51 @@ public class SIObserver extends BaseRegionObserver{
         return super.preScannerOpen(e,scan,s);
     }
 
+    @Override
+    public RegionScanner postScannerOpen(ObserverContext<RegionCoprocessorEnvironment> e,Scan scan,RegionScanner s) throws IOException{
+        if(tableEnvMatch){
+            long snapshot=PurgeWatermarkFileInfo.snapshotOf(scan);
+            if(snapshot>=0){
+                checkSnapshot(e,snapshot);
+                scannerSnapshots.put(s,snapshot);
+            }
+        }
+        return super.postScannerOpen(e,scan,s);
+    }
+
+    @Override
+    public boolean postScannerNext(ObserverContext<RegionCoprocessorEnvironment> e,InternalScanner s,
+                                   List<Result> results,int limit,boolean hasMore) throws IOException{
+        if(tableEnvMatch){
+            /*
+             * A compaction may have replaced the files the scanner reads since it was opened, in which case the
+             * rows it just read may have come from the new ones
+             */
+            Long snapshot=scannerSnapshots.get(s);
+            if(snapshot!=null)
+                checkSnapshot(e,snapshot);
+        }
+        return super.postScannerNext(e,s,results,limit,hasMore);
+    }
+
+    @Override
+    public void postScannerClose(ObserverContext<RegionCoprocessorEnvironment> e,InternalScanner s) throws IOException{
+        scannerSnapshots.remove(s);
+        super.postScannerClose(e,s);
+    }
+
+    @Override
+    public StoreFile.Reader postStoreFileReaderOpen(ObserverContext<RegionCoprocessorEnvironment> ctx,FileSystem fs,Path p,
+                                                    FSDataInputStreamWrapper in,long size,CacheConfig cacheConf,
+                                                    Reference r,StoreFile.Reader reader) throws IOException{
+        /*
+         * Files are opened when the region opens, and when a compaction is done, before scanners can read them
+         */
+        if(tableEnvMatch)
+            raisePurgeWatermark(PurgeWatermarkFileInfo.watermarkOf(reader.loadFileInfo()));
+        return super.postStoreFileReaderOpen(ctx,fs,p,in,size,cacheConf,r,reader);
+    }
+
     @Override
     public void postCompact(ObserverContext<RegionCoprocessorEnvironment> e,Store store,StoreFile resultFile){
         if(tableEnvMatch){
@@ -166,10 +227,23 @@ public class SIObserver extends BaseRegionObserver{
                                       InternalScanner scanner,ScanType scanType,CompactionRequest compactionRequest) throws IOException{
         if(tableEnvMatch){
             SIDriver driver=SIDriver.driver();
-            SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
+            /*
+             * We can't record a purge watermark in the file this compaction writes, which reads rely on to tell
+             * whether versions they need are gone, so nothing is purged here
+             */
+            final SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
                     driver.getRollForward(),
-                    driver.getConfiguration().getActiveTransactionCacheSize());
-            return new SICompactionScanner(state,scanner);
+                    driver.getConfiguration().getActiveTransactionCacheSize(),
+                    0l,
+                    scanType==ScanType.COMPACT_DROP_DELETES);
+            final String regionName = store.getRegionInfo().getRegionNameAsString();
+            return new SICompactionScanner(state,scanner,driver.getConfiguration().getCompactionResolveBlockSize()){
+                @Override
+                public void close() throws IOException{
+                    super.close();
+                    state.reportPurged(regionName);
+                }
+            };
         }else{
             return super.preCompact(e,store,scanner,scanType,compactionRequest);
         }
@@ -254,6 +328,18 @@ public class SIObserver extends BaseRegionObserver{
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    private void checkSnapshot(ObserverContext<RegionCoprocessorEnvironment> e,long snapshot) throws IOException{
+        PurgeWatermarkFileInfo.checkSnapshot(snapshot,purgeWatermark.get(),e.getEnvironment().getRegionInfo());
+    }
+
+    private void raisePurgeWatermark(long watermark){
+        long current;
+        do{
+            current=purgeWatermark.get();
+            if(current>=watermark) return;
+        }while(!purgeWatermark.compareAndSet(current,watermark));
+    }
+
     private void addSIFilterToGet(Get get) throws IOException{
         byte[] attribute=get.getAttribute(SIConstants.SI_TRANSACTION_ID_KEY);
         assert attribute!=null: "Transaction information is missing";
@@ -23,6 +23,7 @@ import com.google.protobuf.Service;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.hadoop.hbase.Coprocessor;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.coprocessor.CoprocessorService;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.protobuf.ResponseConverter;
@@ -37,6 +38,7 @@ import com.splicemachine.hbase.ZkUtils;
 import com.splicemachine.si.api.txn.lifecycle.TxnLifecycleStore;
 import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.coprocessor.TxnMessage;
+import com.splicemachine.si.impl.TxnUtils;
 import com.splicemachine.si.impl.data.StripedTxnLifecycleStore;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.region.RegionServerControl;
@@ -55,6 +57,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     private static final Logger LOG=Logger.getLogger(TxnLifecycleEndpoint.class);
 
     private TxnLifecycleStore lifecycleStore;
+    private HRegionInfo regionInfo;
     private volatile boolean isTxnTable=false;
 
     public static final CountedReference<TransactionResolver> resolverRef=new CountedReference<>(new Supplier<TransactionResolver>(){
@@ -69,10 +72,20 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     });
 
+    public TxnLifecycleEndpoint(){
+    }
+
+    /*for testing*/
+    TxnLifecycleEndpoint(TxnLifecycleStore lifecycleStore,HRegionInfo regionInfo){
+        this.lifecycleStore=lifecycleStore;
+        this.regionInfo=regionInfo;
+    }
+
     @Override
     public void start(CoprocessorEnvironment env) throws IOException{
         RegionCoprocessorEnvironment rce=(RegionCoprocessorEnvironment)env;
         HRegion region=(HRegion)rce.getRegion();
+        regionInfo=region.getRegionInfo();
         HBaseSIEnvironment siEnv = HBaseSIEnvironment.loadEnvironment(new SystemClock(),ZkUtils.getRecoverableZooKeeper());
         SConfiguration configuration=siEnv.configuration();
         TableType table=EnvUtils.getTableType(configuration,rce);
@@ -173,6 +186,26 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     }
 
+    @Override
+    public void getTransactions(RpcController controller,TxnMessage.TxnBatchRequest request,RpcCallback<TxnMessage.TxnBatchResponse> done){
+        try{
+            TxnMessage.TxnBatchResponse.Builder response=TxnMessage.TxnBatchResponse.newBuilder();
+            int count=request.getTxnIdsCount();
+            for(int i=0;i<count;i++){
+                long txnId=request.getTxnIds(i);
+                //the request is sent to every region of the transaction table, so only answer for our own rows
+                if(!regionInfo.containsRow(TxnUtils.getRowKey(txnId))) continue;
+                TxnMessage.Txn transaction=lifecycleStore.getTransaction(txnId);
+                //leave out transactions we have no record of, the caller treats a missing id as not found
+                if(transaction!=null)
+                    response.addTxns(transaction);
+            }
+            done.run(response.build());
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
     @Override
     public void getActiveTransactionIds(RpcController controller,TxnMessage.ActiveTxnRequest request,RpcCallback<TxnMessage.ActiveTxnIdResponse> done){
         long endTxnId=request.getEndTxnId();
@@ -242,6 +242,40 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        if(txnIds.length==1){
+            //a single transaction only needs to go to the region which holds it
+            txns[0]=getTransaction(txnIds[0]);
+            return txns;
+        }else if(txnIds.length==0) return txns;
+
+        lookups.addAndGet(txnIds.length);
+        TxnMessage.TxnBatchRequest.Builder request=TxnMessage.TxnBatchRequest.newBuilder();
+        for(long txnId : txnIds){
+            request.addTxnIds(txnId);
+        }
+        Map<Long,TxnMessage.Txn> found=new HashMap<>(txnIds.length);
+        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
+            for(TxnMessage.TxnBatchResponse response : table.getTxns(request.build())){
+                int size=response.getTxnsCount();
+                for(int i=0;i<size;i++){
+                    TxnMessage.Txn messageTxn=response.getTxns(i);
+                    found.put(messageTxn.getInfo().getTxnId(),messageTxn);
+                }
+            }
+        } catch(Throwable throwable){
+            throw new IOException(throwable);
+        }
+        for(int i=0;i<txnIds.length;i++){
+            TxnMessage.Txn messageTxn=found.get(txnIds[i]);
+            if(messageTxn!=null)
+                txns[i]=decode(messageTxn);
+        }
+        return txns;
+    }
+
     /*caching methods--since we don't have a cache, these are no-ops*/
     @Override
     public boolean transactionCached(long txnId){
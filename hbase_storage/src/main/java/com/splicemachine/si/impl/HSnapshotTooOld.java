@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.api.txn.SnapshotTooOld;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+
+/**
+ * Exception indicating that a transaction began before the purge watermark of the region it reads. Retrying the
+ * read with the same transaction would fail again, so HBase must not retry it.
+ */
+public class HSnapshotTooOld extends DoNotRetryIOException implements SnapshotTooOld{
+    private long beginTimestamp=-1l;
+    private long purgeWatermark=-1l;
+
+    public HSnapshotTooOld(long beginTimestamp,long purgeWatermark,String regionName){
+        /*
+         * We are rebuilt from our message on the other side of an RPC, so the timestamps have to be in it
+         */
+        super(String.format("[%1$d,%2$d] Transaction snapshot %1$d is older than the purge watermark %2$d of region %3$s",
+                beginTimestamp,purgeWatermark,regionName));
+        this.beginTimestamp=beginTimestamp;
+        this.purgeWatermark=purgeWatermark;
+    }
+
+    public HSnapshotTooOld(String message){
+        super(message);
+    }
+
+    @Override
+    public long getBeginTimestamp(){
+        if(beginTimestamp<0)
+            beginTimestamp=parse(0);
+        return beginTimestamp;
+    }
+
+    @Override
+    public long getPurgeWatermark(){
+        if(purgeWatermark<0)
+            purgeWatermark=parse(1);
+        return purgeWatermark;
+    }
+
+    private long parse(int position){
+        String message=getMessage();
+        String[] timestamps=message.substring(message.indexOf('[')+1,message.indexOf(']')).split(",");
+        return Long.parseLong(timestamps[position]);
+    }
+}
@@ -117,6 +117,23 @@ public abstract class SkeletonTxnNetworkLayer implements TxnNetworkLayer{
         return done.get();
     }
 
+    @Override
+    public Collection<TxnMessage.TxnBatchResponse> getTxns(final TxnMessage.TxnBatchRequest request) throws IOException{
+        Map<byte[], TxnMessage.TxnBatchResponse> data=coprocessorService(TxnMessage.TxnLifecycleService.class,
+                HConstants.EMPTY_START_ROW,HConstants.EMPTY_END_ROW,new Batch.Call<TxnMessage.TxnLifecycleService, TxnMessage.TxnBatchResponse>(){
+                    @Override
+                    public TxnMessage.TxnBatchResponse call(TxnMessage.TxnLifecycleService instance) throws IOException{
+                        ServerRpcController controller=new ServerRpcController();
+                        BlockingRpcCallback<TxnMessage.TxnBatchResponse> response=new BlockingRpcCallback<>();
+
+                        instance.getTransactions(controller,request,response);
+                        dealWithError(controller);
+                        return response.get();
+                    }
+                });
+        return data.values();
+    }
+
     protected abstract TxnMessage.TxnLifecycleService getLifecycleService(byte[] rowKey) throws IOException;
 
     protected abstract <C> Map<byte[],C> coprocessorService(Class<TxnMessage.TxnLifecycleService> txnLifecycleServiceClass,
@@ -38,5 +38,7 @@ public interface TxnNetworkLayer extends AutoCloseable{
 
     TxnMessage.Txn getTxn(byte[] rowKey,TxnMessage.TxnRequest request) throws IOException;
 
+    Collection<TxnMessage.TxnBatchResponse> getTxns(TxnMessage.TxnBatchRequest request) throws IOException;
+
     void close() throws IOException;
 }
@@ -15,6 +15,8 @@
 
 package com.splicemachine.si.impl.server;
 
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.LongOpenHashSet;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.readresolve.RollForward;
@@ -25,41 +27,121 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
+import com.splicemachine.storage.ByteEntryAccumulator;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 /**
  * Captures the SI logic to perform when a data table is compacted (without explicit HBase dependencies). Provides the
  * guts for SICompactionScanner.
  * <p/>
  * It is handed key-values and can change them.
+ * <p/>
+ * The transactions which wrote the key-values are looked up through {@link #resolve(List)} a block of rows at a
+ * time, so that the ones which aren't cached yet can be fetched with a single request; rows which weren't part of a
+ * resolved block fall back to looking up each transaction as it comes.
+ * <p/>
+ * When given a purge watermark, it also discards the versions of each row which no active transaction can see
+ * anymore. Every active transaction can see the versions committed before the watermark, so the newest of those
+ * shadows every version older than it. Versions hold only the columns they changed, so the columns of the
+ * shadowed versions are merged into the newest one rather than dropped. When the newest of those versions is a
+ * delete, the whole row is gone for every active transaction.
  */
 public class SICompactionState {
     private static final Logger LOG = Logger.getLogger(SICompactionState.class);
     private final TxnSupplier transactionStore;
-    private SortedSet<Cell> dataToReturn;
+    /*the key-values of the current row, kept in sorted order*/
+    private final List<Cell> dataToReturn = new ArrayList<>();
+    /*the transactions of the current block of rows, as found by resolve()*/
+    private final LongObjectOpenHashMap<TxnView> resolved = new LongObjectOpenHashMap<>();
+    private final LongOpenHashSet unresolved = new LongOpenHashSet();
     private final RollForward rollForward;
     private ByteSlice rowSlice = new ByteSlice();
+    private final long purgeWatermark;
+    private final boolean dropDeletes;
+    /*the versions of the current row, newest first, reused between rows*/
+    private final List<Cell> userData = new ArrayList<>();
+    private final List<Cell> markers = new ArrayList<>();
+    private EntryDecoder decoder;
+    private long purgedCells;
+    private long purgedBytes;
 
     public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize) {
+        this(transactionStore,rollForward,activeTransactionCacheSize,0l,false);
+    }
+
+    /**
+     * @param purgeWatermark the timestamp before which committed versions are visible to every active transaction,
+     *                       or 0 to keep every version
+     * @param dropDeletes whether every file of the store is being compacted. The tombstones of deleted rows can only
+     *                    be discarded then; otherwise they still have to hide the versions in the other files.
+     */
+    public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize,
+                             long purgeWatermark,boolean dropDeletes) {
         this.rollForward = rollForward;
         this.transactionStore = new ActiveTxnCacheSupplier(transactionStore,activeTransactionCacheSize);
-        this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
+        this.purgeWatermark = purgeWatermark;
+        this.dropDeletes = dropDeletes;
+    }
+
+    /**
+     * Look up the transactions of a block of rows which are about to be passed to {@link #mutate(List, List)}.
+     * Transactions whose commit timestamp is already recorded in the rows, or which are cached, are not looked up
+     * again; all of the others are fetched at once.
+     *
+     * @param rows - the key values of each row of the block
+     */
+    public void resolve(List<List<Cell>> rows) throws IOException {
+        resolved.clear();
+        unresolved.clear();
+        for (List<Cell> row : rows) {
+            for (Cell cell : row) {
+                long timestamp = cell.getTimestamp();
+                switch (getKeyValueType(cell)) {
+                    case COMMIT_TIMESTAMP:
+                        //commit timestamps sort before the rest of their row, so these are known before we need them
+                        TxnView txn = knownTransaction(timestamp,cell);
+                        if (txn != null)
+                            resolved.put(timestamp,txn);
+                        break;
+                    case TOMBSTONE:
+                    case ANTI_TOMBSTONE:
+                    case USER_DATA:
+                        if (!resolved.containsKey(timestamp) && !transactionStore.transactionCached(timestamp))
+                            unresolved.add(timestamp);
+                        break;
+                    default:
+                        //not versioned by SI
+                }
+            }
+        }
+        if (unresolved.isEmpty()) return;
+
+        long[] txnIds = unresolved.toArray();
+        TxnView[] txns = transactionStore.getTransactions(txnIds);
+        for (int i = 0; i < txnIds.length; i++) {
+            if (txns[i] != null)
+                resolved.put(txnIds[i],txns[i]);
+        }
     }
 
     /**
      * Given a list of key-values, populate the results list with possibly mutated values.
      *
-     * @param rawList - the input of key values to process
+     * @param rawList - the input of key values to process, which are all of a single row
      * @param results - the output key values
      */
     public void mutate(List<Cell> rawList, List<Cell> results) throws IOException {
@@ -67,9 +149,43 @@ public class SICompactionState {
         for (Cell aRawList : rawList) {
             mutate(aRawList);
         }
+        if(purgeWatermark>0)
+            purge();
         results.addAll(dataToReturn);
     }
 
+    /**
+     * @return the timestamp before which committed versions may be discarded, or 0 if none are
+     */
+    public long getPurgeWatermark(){
+        return purgeWatermark;
+    }
+
+    /**
+     * @return the number of cells discarded because no active transaction could see them
+     */
+    public long getPurgedCells(){
+        return purgedCells;
+    }
+
+    /**
+     * @return the number of bytes saved by discarding the cells which no active transaction could see
+     */
+    public long getPurgedBytes(){
+        return purgedBytes;
+    }
+
+    /**
+     * Log how much was purged, if anything.
+     *
+     * @param compacted what was compacted, for the log message
+     */
+    public void reportPurged(String compacted){
+        if(purgedCells>0)
+            SpliceLogUtils.info(LOG,"Purged %d cells (%d bytes) of versions older than %d while compacting %s",
+                    purgedCells,purgedBytes,purgeWatermark,compacted);
+    }
+
     /**
      * Apply SI mutation logic to an individual key-value. Return the "new" key-value.
      */
@@ -104,22 +220,185 @@ public class SICompactionState {
         }
     }
 
-    private void ensureTransactionCached(long timestamp,Cell element) {
-        if(!transactionStore.transactionCached(timestamp)){
-            if(isFailedCommitTimestamp(element)){
-                transactionStore.cache(new RolledBackTxn(timestamp));
-            }else if (element.getValueLength()>0){ //shouldn't happen, but you never know
-                long commitTs = Bytes.toLong(element.getValueArray(),element.getValueOffset(),element.getValueLength());
-                transactionStore.cache(new CommittedTxn(timestamp,commitTs));
+    /*
+     * Discard the versions of the row in dataToReturn which no active transaction can see anymore. Rolled back
+     * versions have already been discarded at this point.
+     */
+    private void purge() throws IOException{
+        userData.clear();
+        markers.clear();
+        Cell first = dataToReturn.isEmpty()? null: dataToReturn.get(0);
+        for(Cell cell : dataToReturn){
+            assert CellUtil.matchingRow(first,cell): "Programmer error: SICompactionScanner hands over one whole row at a time";
+            switch(getKeyValueType(cell)){
+                case USER_DATA:
+                    userData.add(cell);
+                    break;
+                case TOMBSTONE:
+                case ANTI_TOMBSTONE:
+                    markers.add(cell);
+                    break;
+                default:
+                    //commit timestamps are dealt with below, and the rest isn't versioned by SI
+            }
+        }
+        if(markers.isEmpty() && userData.size()<=1) return; //the common case: a single version of the row
+
+        /*
+         * The horizon is the newest version which every active transaction can see. Every version after it is
+         * left alone, and every version before it has to be committed before the watermark as well; otherwise
+         * (which only happens with writes which skip conflict detection) we leave the row as it is.
+         */
+        long horizon = -1l;
+        for(Cell cell : userData){
+            if(isPurgeable(cell.getTimestamp())){
+                horizon = cell.getTimestamp();
+                break;
+            }
+        }
+        for(Cell cell : markers){
+            if(cell.getTimestamp()<=horizon) break;
+            if(isPurgeable(cell.getTimestamp())){
+                horizon = cell.getTimestamp();
+                break;
+            }
+        }
+        if(horizon<0) return;
+        for(Cell cell : userData){
+            if(cell.getTimestamp()<horizon && !isPurgeable(cell.getTimestamp())) return;
+        }
+        for(Cell cell : markers){
+            if(cell.getTimestamp()<horizon && !isPurgeable(cell.getTimestamp())) return;
+        }
+
+        /*
+         * The newest tombstone (or anti-tombstone) at or before the horizon ends the row: a tombstone hides the
+         * versions written up to and including its own, and an anti-tombstone hides the versions written before
+         * it. Older tombstones don't hide anything more. The marker itself is only needed to hide the versions in
+         * the other files of the store.
+         */
+        Cell marker = null;
+        for(Cell cell : markers){
+            long ts = cell.getTimestamp();
+            if(ts>horizon) continue;
+            if(marker==null){
+                marker = cell;
+                if(dropDeletes) discard(cell);
+            }else
+                discard(cell);
+        }
+        long hiddenAt = -1l;
+        if(marker!=null)
+            hiddenAt = getKeyValueType(marker)==CellType.TOMBSTONE? marker.getTimestamp(): marker.getTimestamp()-1;
+
+        /*
+         * Merge the columns of the versions between the marker and the horizon into the newest of them, and
+         * discard the versions hidden by the marker.
+         */
+        Cell newest = null;
+        ByteEntryAccumulator accumulator = null;
+        boolean merged = false;
+        for(Cell cell : userData){
+            long ts = cell.getTimestamp();
+            if(ts>horizon) continue;
+            if(ts<=hiddenAt){
+                discard(cell);
+            }else if(newest==null){
+                newest = cell;
+            }else{
+                if(decoder==null)
+                    decoder = new EntryDecoder();
+                if(accumulator==null){
+                    accumulator = new ByteEntryAccumulator(EntryPredicateFilter.emptyPredicate(),true);
+                    decoder.set(newest.getValueArray(),newest.getValueOffset(),newest.getValueLength());
+                    EntryPredicateFilter.emptyPredicate().match(decoder,accumulator);
+                }
+                decoder.set(cell.getValueArray(),cell.getValueOffset(),cell.getValueLength());
+                if(accumulator.isInteresting(decoder.getCurrentIndex())){
+                    //this version still has columns which no newer version changed
+                    EntryPredicateFilter.emptyPredicate().match(decoder,accumulator);
+                    merged = true;
+                }
+                discard(cell);
             }
         }
+        if(merged){
+            byte[] value = accumulator.finish();
+            dataToReturn.set(dataToReturn.indexOf(newest),new KeyValue(newest.getRowArray(),newest.getRowOffset(),newest.getRowLength(),
+                    newest.getFamilyArray(),newest.getFamilyOffset(),newest.getFamilyLength(),
+                    newest.getQualifierArray(),newest.getQualifierOffset(),newest.getQualifierLength(),
+                    newest.getTimestamp(),KeyValue.Type.Put,
+                    value,0,value.length));
+            purgedBytes -= value.length-newest.getValueLength();
+        }
+
+        /*
+         * The commit timestamps of the discarded versions are of no use anymore either.
+         */
+        long keptMarker = marker==null||dropDeletes? -1l: marker.getTimestamp();
+        long keptData = newest==null? -1l: newest.getTimestamp();
+        Iterator<Cell> cells = dataToReturn.iterator();
+        while(cells.hasNext()){
+            Cell cell = cells.next();
+            long ts = cell.getTimestamp();
+            if(ts<=horizon && ts!=keptMarker && ts!=keptData
+                    && getKeyValueType(cell)==CellType.COMMIT_TIMESTAMP){
+                cells.remove();
+                countPurged(cell);
+            }
+        }
+    }
+
+    private boolean isPurgeable(long timestamp) throws IOException{
+        TxnView txn = getTransaction(timestamp);
+        if(txn.getEffectiveState()!=Txn.State.COMMITTED) return false;
+        long commitTs = txn.getEffectiveCommitTimestamp();
+        return commitTs>=0 && commitTs<purgeWatermark;
+    }
+
+    private void discard(Cell cell){
+        if(dataToReturn.remove(cell))
+            countPurged(cell);
+    }
+
+    private void countPurged(Cell cell){
+        purgedCells++;
+        purgedBytes += KeyValue.getKeyValueDataStructureSize(cell.getRowLength(),cell.getFamilyLength(),
+                cell.getQualifierLength(),cell.getValueLength());
+    }
+
+    private TxnView getTransaction(long timestamp) throws IOException{
+        TxnView txn = resolved.get(timestamp);
+        if(txn!=null) return txn;
+        return transactionStore.getTransaction(timestamp);
+    }
+
+    private void ensureTransactionCached(long timestamp,Cell element) {
+        if(!resolved.containsKey(timestamp) && !transactionStore.transactionCached(timestamp)){
+            TxnView txn = knownTransaction(timestamp,element);
+            if(txn!=null)
+                transactionStore.cache(txn);
+        }
+    }
+
+    /*
+     * The transaction as recorded by a commit timestamp key-value, or null if it doesn't say.
+     */
+    private TxnView knownTransaction(long timestamp,Cell element){
+        if(isFailedCommitTimestamp(element)){
+            return new RolledBackTxn(timestamp);
+        }else if (element.getValueLength()>0){ //shouldn't happen, but you never know
+            long commitTs = Bytes.toLong(element.getValueArray(),element.getValueOffset(),element.getValueLength());
+            return new CommittedTxn(timestamp,commitTs);
+        }
+        return null;
     }
 
     /**
      * Replace unknown commit timestamps with actual commit times.
      */
     private boolean mutateCommitTimestamp(long timestamp,Cell element) throws IOException {
-        TxnView transaction = transactionStore.getTransaction(timestamp);
+        TxnView transaction = getTransaction(timestamp);
         if(transaction.getEffectiveState()== Txn.State.ROLLEDBACK){
             /*
              * This transaction has been rolled back, so just remove the data
@@ -138,12 +417,22 @@ public class SICompactionState {
              * commit timestamp can be placed on it.
              */
             long globalCommitTimestamp = transaction.getEffectiveCommitTimestamp();
-            dataToReturn.add(newTransactionTimeStampKeyValue(element, Bytes.toBytes(globalCommitTimestamp)));
+            addCommitTimestamp(newTransactionTimeStampKeyValue(element, Bytes.toBytes(globalCommitTimestamp)));
             recordResolved(element, transaction);
         }
         return true;
     }
 
+    /*
+     * Commit timestamps sort before the key-value they are for, so this goes in the middle of what we have
+     * returned so far, unless the row already has it.
+     */
+    private void addCommitTimestamp(Cell commitTimestamp) {
+        int position = Collections.binarySearch(dataToReturn,commitTimestamp,KeyValue.COMPARATOR);
+        if(position<0)
+            dataToReturn.add(-position-1,commitTimestamp);
+    }
+
     private void recordResolved(Cell element, TxnView transaction) {
         rowSlice.set(element.getRowArray(),element.getRowOffset(),element.getRowLength());
         rollForward.recordResolved(rowSlice,transaction.getTxnId());
@@ -17,6 +17,7 @@ package com.splicemachine.storage;
 
 import com.splicemachine.derby.hbase.AllocatedFilter;
 import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.RandomRowFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 
 /**
@@ -39,4 +40,9 @@ public class HFilterFactory implements DataFilterFactory{
     public DataFilter allocatedFilter(byte[] localAddress){
         return new HFilterWrapper(new AllocatedFilter(localAddress));
     }
+
+    @Override
+    public DataFilter samplingFilter(double fraction){
+        return new HFilterWrapper(new RandomRowFilter((float)fraction));
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.data.HExceptionFactory;
+import com.splicemachine.si.impl.HOperationFactory;
+import com.splicemachine.si.impl.HSnapshotTooOld;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PurgeWatermarkFileInfoTest{
+    private static final HRegionInfo REGION=new HRegionInfo(TableName.valueOf("1184"));
+    @SuppressWarnings("unchecked")
+    private final SimpleTxnOperationFactory txnOperationFactory=
+            new SimpleTxnOperationFactory(HExceptionFactory.INSTANCE,HOperationFactory.INSTANCE);
+
+    @Test
+    public void snapshotOfAChildIsTheBeginTimestampOfItsOldestParent() throws Exception{
+        TxnView parent=new ActiveWriteTxn(0x100,0x100,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+        TxnView child=new ActiveWriteTxn(0x200,0x200,parent,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+
+        Assert.assertEquals(0x100,PurgeWatermarkFileInfo.snapshotOf(scan(child)));
+    }
+
+    @Test
+    public void readsWithoutASnapshotHaveNone() throws Exception{
+        TxnView readCommitted=new ActiveWriteTxn(0x100,0x100,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.READ_COMMITTED);
+
+        Assert.assertEquals(-1l,PurgeWatermarkFileInfo.snapshotOf(scan(readCommitted)));
+        Assert.assertEquals(-1l,PurgeWatermarkFileInfo.snapshotOf(new Scan()));
+    }
+
+    @Test
+    public void snapshotsOlderThanTheWatermarkFail() throws Exception{
+        PurgeWatermarkFileInfo.checkSnapshot(0x200,0x200,REGION);
+        PurgeWatermarkFileInfo.checkSnapshot(-1l,0x200,REGION);
+        try{
+            PurgeWatermarkFileInfo.checkSnapshot(0x100,0x200,REGION);
+            Assert.fail("Read with a snapshot older than the watermark!");
+        }catch(HSnapshotTooOld tooOld){
+            //the exception is rebuilt from its message on the other side of an RPC
+            IOException remote=HExceptionFactory.INSTANCE.processRemoteException(new HSnapshotTooOld(tooOld.getMessage()));
+            Assert.assertTrue("Incorrect exception "+remote,remote instanceof HSnapshotTooOld);
+            Assert.assertEquals(0x100,((HSnapshotTooOld)remote).getBeginTimestamp());
+            Assert.assertEquals(0x200,((HSnapshotTooOld)remote).getPurgeWatermark());
+        }
+    }
+
+    @Test
+    public void compactedFilesPassTheirWatermarkOn() throws Exception{
+        StoreFile.Writer writer=mock(StoreFile.Writer.class);
+        PurgeWatermarkFileInfo.appendTo(writer,null,Arrays.asList(file(0x300),file(null),file(0x200)));
+
+        verify(writer).appendFileInfo(aryEq(PurgeWatermarkFileInfo.FILE_INFO_KEY),aryEq(Bytes.toBytes(0x300l)));
+    }
+
+    @Test
+    public void filesWithNothingPurgedHaveNoWatermark() throws Exception{
+        StoreFile.Writer writer=mock(StoreFile.Writer.class);
+        PurgeWatermarkFileInfo.appendTo(writer,null,Collections.singletonList(file(null)));
+
+        verify(writer,never()).appendFileInfo(any(byte[].class),any(byte[].class));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private Scan scan(TxnView txn){
+        Scan scan=new Scan();
+        scan.setAttribute(SIConstants.SI_TRANSACTION_ID_KEY,txnOperationFactory.encode(txn));
+        return scan;
+    }
+
+    private static StoreFile file(Integer watermark){
+        StoreFile file=mock(StoreFile.class);
+        when(file.getMetadataValue(PurgeWatermarkFileInfo.FILE_INFO_KEY))
+                .thenReturn(watermark==null? null: Bytes.toBytes(watermark.longValue()));
+        return file;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.data.hbase.coprocessor;
+
+import com.google.protobuf.RpcCallback;
+import com.google.protobuf.RpcController;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.lifecycle.TxnLifecycleStore;
+import com.splicemachine.si.coprocessor.TxnMessage;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.TableName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class TxnLifecycleEndpointTest{
+
+    @Test
+    public void getTransactionsLeavesOutUnknownIds() throws Exception{
+        TxnMessage.Txn known=TxnMessage.Txn.newBuilder()
+                .setInfo(TxnMessage.TxnInfo.newBuilder()
+                        .setTxnId(0x100)
+                        .setBeginTs(0x100)
+                        .setIsolationLevel(Txn.IsolationLevel.SNAPSHOT_ISOLATION.getLevel()))
+                .setState(Txn.State.ACTIVE.getId())
+                .build();
+        TxnLifecycleStore store=mock(TxnLifecycleStore.class);
+        when(store.getTransaction(0x100)).thenReturn(known);
+        //the store has no row for 0x200, so it returns null
+        TxnLifecycleEndpoint endpoint=new TxnLifecycleEndpoint(store,new HRegionInfo(TableName.valueOf("SPLICE_TXN")));
+
+        RpcController controller=mock(RpcController.class);
+        CapturingCallback<TxnMessage.TxnBatchResponse> done=new CapturingCallback<>();
+        endpoint.getTransactions(controller,TxnMessage.TxnBatchRequest.newBuilder().addTxnIds(0x100).addTxnIds(0x200).build(),done);
+
+        verifyZeroInteractions(controller);
+        Assert.assertNotNull("No response was sent!",done.response);
+        Assert.assertEquals("Incorrect number of transactions!",1,done.response.getTxnsCount());
+        Assert.assertEquals("Incorrect transaction!",known,done.response.getTxns(0));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    private static class CapturingCallback<T> implements RpcCallback<T>{
+        private T response;
+
+        @Override
+        public void run(T parameter){
+            this.response=parameter;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SICompactionStateTest{
+    private static final byte[] ROW = Bytes.toBytes("row");
+    private static final KryoPool kryoPool = new KryoPool(1);
+
+    /*transactions 1, 3 and 5 are committed at 2, 4 and 6; transaction 7 is still active*/
+    private final MapTxnSupplier txnSupplier = new MapTxnSupplier(
+            new CommittedTxn(1,2),
+            new CommittedTxn(3,4),
+            new CommittedTxn(5,6),
+            new ActiveWriteTxn(7,7,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+
+    @Test
+    public void testShadowedVersionsAreMergedIntoTheNewest() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10,false);
+        List<Cell> results = compact(state,data(3,1),data(1,0,1));
+
+        List<Cell> data = cells(results,SIConstants.PACKED_COLUMN_BYTES);
+        Assert.assertEquals("Shadowed version was not discarded!",1,data.size());
+        Assert.assertEquals(3,data.get(0).getTimestamp());
+        assertColumns(data.get(0),"0@1","1@3");
+        Assert.assertEquals("Commit timestamp of the discarded version was kept!",
+                1,cells(results,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES).size());
+        Assert.assertEquals("Incorrect number of purged cells (the version, and its commit timestamp)!",
+                2,state.getPurgedCells());
+        Assert.assertTrue(state.getPurgedBytes()>0);
+    }
+
+    @Test
+    public void testVersionsAfterTheWatermarkAreKept() throws Exception{
+        //5 is committed at 6, after the watermark, so transactions older than that still need version 3
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,5,false);
+        List<Cell> results = compact(state,data(7,1),data(5,0),data(3,1),data(1,0,1));
+
+        List<Cell> data = cells(results,SIConstants.PACKED_COLUMN_BYTES);
+        Assert.assertEquals(3,data.size());
+        Assert.assertEquals(7,data.get(0).getTimestamp());
+        Assert.assertEquals(5,data.get(1).getTimestamp());
+        Assert.assertEquals(3,data.get(2).getTimestamp());
+        assertColumns(data.get(1),"0@5");
+        assertColumns(data.get(2),"0@1","1@3");
+    }
+
+    @Test
+    public void testNothingIsPurgedWithoutAWatermark() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16);
+        List<Cell> results = compact(state,data(3,1),data(1,0,1));
+
+        Assert.assertEquals(2,cells(results,SIConstants.PACKED_COLUMN_BYTES).size());
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void testDeletedRowsAreRemovedWhenCompactingAllFiles() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10,true);
+        List<Cell> results = compact(state,tombstone(3),data(1,0,1));
+        Assert.assertTrue("Deleted row was not removed: "+results,results.isEmpty());
+    }
+
+    @Test
+    public void testTombstonesAreKeptForOtherFiles() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10,false);
+        List<Cell> results = compact(state,tombstone(3),data(1,0,1));
+
+        Assert.assertTrue(cells(results,SIConstants.PACKED_COLUMN_BYTES).isEmpty());
+        List<Cell> tombstones = cells(results,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES);
+        Assert.assertEquals(1,tombstones.size());
+        Assert.assertEquals(3,tombstones.get(0).getTimestamp());
+    }
+
+    @Test
+    public void testDeletedColumnsAreNotMerged() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10,false);
+        List<Cell> results = compact(state,antiTombstone(5),data(5,0),tombstone(3),data(1,0,1));
+
+        List<Cell> data = cells(results,SIConstants.PACKED_COLUMN_BYTES);
+        Assert.assertEquals(1,data.size());
+        assertColumns(data.get(0),"0@5");
+        List<Cell> tombstones = cells(results,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES);
+        Assert.assertEquals("Only the anti-tombstone should be left!",1,tombstones.size());
+        Assert.assertEquals(5,tombstones.get(0).getTimestamp());
+    }
+
+    @Test
+    public void testActiveVersionsAreKept() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10,true);
+        List<Cell> results = compact(state,tombstone(7),data(1,0,1));
+
+        Assert.assertEquals(1,cells(results,SIConstants.PACKED_COLUMN_BYTES).size());
+        Assert.assertEquals(1,cells(results,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES).size());
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void testTransactionsOfABlockAreFetchedAtOnce() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16);
+        List<List<Cell>> block = new ArrayList<>();
+        block.add(row(data(3,1),data(1,0,1)));
+        block.add(row(data(5,0),data(1,0)));
+        state.resolve(block);
+        Assert.assertEquals("Transactions were not fetched at once!",1,txnSupplier.batches);
+        Assert.assertEquals("Transactions were fetched more than once!",3,txnSupplier.fetched);
+
+        List<Cell> results = new ArrayList<>();
+        for(List<Cell> row : block){
+            state.mutate(row,results);
+        }
+        Assert.assertEquals("Transactions were looked up one at a time!",3,txnSupplier.fetched);
+        Assert.assertEquals(8,results.size());
+        //every version gets its commit timestamp, in front of the versions of its row
+        Assert.assertEquals(3,commitTimestamp(results.get(0)));
+        Assert.assertEquals(1,commitTimestamp(results.get(1)));
+        Assert.assertEquals(5,commitTimestamp(results.get(4)));
+        Assert.assertEquals(1,commitTimestamp(results.get(5)));
+    }
+
+    @Test
+    public void testRecordedCommitTimestampsAreNotFetched() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16);
+        List<List<Cell>> block = new ArrayList<>();
+        block.add(row(cell(SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,1,Bytes.toBytes(2l)),
+                data(3,1),data(1,0,1)));
+        state.resolve(block);
+        Assert.assertEquals(1,txnSupplier.fetched);
+
+        List<Cell> results = compact(state,block.get(0).toArray(new Cell[0]));
+        Assert.assertEquals("Recorded commit timestamp was duplicated!",
+                2,cells(results,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES).size());
+        Assert.assertEquals(1,txnSupplier.fetched);
+    }
+
+    @Test
+    public void testRolledBackVersionsAreRemoved() throws Exception{
+        SICompactionState state = new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16);
+        List<List<Cell>> block = new ArrayList<>();
+        block.add(row(cell(SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,3,
+                SIConstants.SNAPSHOT_ISOLATION_FAILED_TIMESTAMP),data(3,1),data(1,0,1)));
+        state.resolve(block);
+
+        List<Cell> results = compact(state,block.get(0).toArray(new Cell[0]));
+        List<Cell> data = cells(results,SIConstants.PACKED_COLUMN_BYTES);
+        Assert.assertEquals(1,data.size());
+        Assert.assertEquals(1,data.get(0).getTimestamp());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static List<Cell> row(Cell... cells){
+        List<Cell> row = new ArrayList<>();
+        for(Cell cell : cells){
+            row.add(cell);
+        }
+        return row;
+    }
+
+    private static long commitTimestamp(Cell cell){
+        Assert.assertEquals(1,cells(row(cell),SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES).size());
+        return cell.getTimestamp();
+    }
+
+    private static List<Cell> compact(SICompactionState state,Cell... cells) throws IOException{
+        List<Cell> rawList = new ArrayList<>();
+        for(Cell cell : cells){
+            rawList.add(cell);
+        }
+        List<Cell> results = new ArrayList<>();
+        state.mutate(rawList,results);
+        return results;
+    }
+
+    private static List<Cell> cells(List<Cell> results,byte[] qualifier){
+        List<Cell> cells = new ArrayList<>();
+        for(Cell cell : results){
+            if(cell.getQualifierLength()==1 && cell.getQualifierArray()[cell.getQualifierOffset()]==qualifier[0])
+                cells.add(cell);
+        }
+        return cells;
+    }
+
+    /*
+     * A version which sets each of the columns to "<column>@<timestamp>".
+     */
+    private static Cell data(long timestamp,int... columns) throws IOException{
+        BitSet setCols = new BitSet();
+        for(int column : columns){
+            setCols.set(column);
+        }
+        EntryEncoder encoder = EntryEncoder.create(kryoPool,columns[columns.length-1]+1,setCols,null,null,null);
+        try{
+            for(int column : columns){
+                encoder.getEntryEncoder().encodeNext(column+"@"+timestamp);
+            }
+            return cell(SIConstants.PACKED_COLUMN_BYTES,timestamp,encoder.encode());
+        }finally{
+            encoder.close();
+        }
+    }
+
+    private static Cell tombstone(long timestamp){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,timestamp,SIConstants.EMPTY_BYTE_ARRAY);
+    }
+
+    private static Cell antiTombstone(long timestamp){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,timestamp,
+                SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES);
+    }
+
+    private static Cell cell(byte[] qualifier,long timestamp,byte[] value){
+        return new KeyValue(ROW,0,ROW.length,
+                SIConstants.DEFAULT_FAMILY_BYTES,0,1,
+                qualifier,0,1,
+                timestamp,KeyValue.Type.Put,
+                value,0,value.length);
+    }
+
+    private static void assertColumns(Cell cell,String... values) throws IOException{
+        EntryDecoder decoder = new EntryDecoder(CellUtil.cloneValue(cell));
+        Assert.assertEquals("Incorrect number of columns!",values.length,decoder.getCurrentIndex().cardinality());
+        for(String value : values){
+            int column = Integer.parseInt(value.substring(0,value.indexOf('@')));
+            Assert.assertTrue("Column "+column+" is missing!",decoder.isSet(column));
+            byte[] data = decoder.getData(column);
+            Assert.assertEquals(value,Encoding.decodeString(data,0,data.length,false));
+        }
+    }
+
+    private static class MapTxnSupplier implements TxnSupplier{
+        private final Map<Long,TxnView> txns = new HashMap<>();
+        private int batches;
+        private int fetched;
+
+        MapTxnSupplier(TxnView... txns){
+            for(TxnView txn : txns){
+                this.txns.put(txn.getTxnId(),txn);
+            }
+        }
+
+        @Override public TxnView getTransaction(long txnId) throws IOException{ fetched++; return txns.get(txnId); }
+        @Override public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{ return getTransaction(txnId); }
+
+        @Override
+        public TxnView[] getTransactions(long[] txnIds) throws IOException{
+            batches++;
+            TxnView[] views = new TxnView[txnIds.length];
+            for(int i=0;i<txnIds.length;i++){
+                views[i] = getTransaction(txnIds[i]);
+            }
+            return views;
+        }
+
+        @Override public boolean transactionCached(long txnId){ return false; }
+        @Override public void cache(TxnView toCache){ }
+        @Override public TxnView getTransactionFromCache(long txnId){ return txns.get(txnId); }
+    }
+}
@@ -16,6 +16,7 @@
 package com.splicemachine.storage;
 
 import java.io.IOException;
+import java.util.Random;
 
 /**
  * @author Scott Fines
@@ -51,4 +52,30 @@ public class MFilterFactory implements DataFilterFactory{
             }
         };
     }
+
+    @Override
+    public DataFilter samplingFilter(final double fraction){
+        return new DataFilter(){
+            private final Random random = new Random();
+            private ReturnCode rowCode;
+
+            @Override
+            public ReturnCode filterCell(DataCell keyValue) throws IOException{
+                //decide once per row, so that a row is kept or dropped with all of its cells
+                if(rowCode==null)
+                    rowCode = random.nextDouble()<fraction? ReturnCode.INCLUDE: ReturnCode.NEXT_ROW;
+                return rowCode;
+            }
+
+            @Override
+            public boolean filterRow() throws IOException{
+                return false;
+            }
+
+            @Override
+            public void reset() throws IOException{
+                rowCode = null;
+            }
+        };
+    }
 }
@@ -16,6 +16,7 @@
 package com.splicemachine.pipeline.api;
 
 import javax.management.MXBean;
+import java.util.Map;
 
 /**
  * @author Scott Fines
@@ -45,4 +46,22 @@ public interface WriteCoordinatorStatus {
     void setMaxFlushesPerRegion(int newMaxFlushesPerRegion);
 
     long getSynchronousFlushCount();
+
+    int getMaxWriteWindow();
+
+    void setMaxWriteWindow(int newMaxWriteWindow);
+
+    long getWriteLatencyTarget();
+
+    void setWriteLatencyTarget(long newWriteLatencyTargetMs);
+
+    /**
+     * @return the current number of concurrent writes allowed to each region server, keyed by host and port
+     */
+    Map<String,Double> getServerWriteWindows();
+
+    /**
+     * @return the recent fraction of writes rejected by each region server, keyed by host and port
+     */
+    Map<String,Double> getServerRejectRates();
 }
@@ -15,6 +15,9 @@
 
 package com.splicemachine.pipeline.callbuffer;
 
+import com.splicemachine.pipeline.writer.ServerWriteWindow;
+import com.splicemachine.storage.PartitionServer;
+
 /**
  * @author Scott Fines
  * Created on: 8/28/13
@@ -40,4 +43,11 @@ public interface BufferConfiguration {
     int getMaxFlushesPerRegion();
 
     void writeRejected();
+
+    /**
+     * @param server the destination of the writes
+     * @return the window which limits the writes which are in flight to {@code server}, shared by all
+     * buffers which write to it.
+     */
+    ServerWriteWindow getWriteWindow(PartitionServer server);
 }
@@ -25,6 +25,7 @@ import com.splicemachine.pipeline.client.MergingWriteStats;
 import com.splicemachine.pipeline.config.UpdatingWriteConfiguration;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.writer.RegulatedWriter;
+import com.splicemachine.pipeline.writer.ServerWriteWindow;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.storage.Partition;
@@ -52,9 +53,10 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
     private static final Logger LOG = Logger.getLogger(PipingCallBuffer.class);
 
     /**
-     * Map from the region's starting row key to a pair consisting of the region's call buffer and server name.
+     * Map from the region's starting row key to a pair consisting of the region's call buffer and the call buffer
+     * of the region server it resides on.
      */
-    private NavigableMap<byte[],Pair<PartitionBuffer,PartitionServer>> startKeyToRegionCBMap;
+    private NavigableMap<byte[],Pair<PartitionBuffer,ServerCallBuffer>> startKeyToRegionCBMap;
 
     /**
      * Map from a server name to the region server's call buffer.
@@ -108,10 +110,11 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
         assert element!=null: "Cannot add a non-null element!";
         lastKvPair = element;
         rebuildIfNecessary();
-        Map.Entry<byte[],Pair<PartitionBuffer,PartitionServer>> entry = startKeyToRegionCBMap.floorEntry(element.getRowKey());
+        Map.Entry<byte[],Pair<PartitionBuffer,ServerCallBuffer>> entry = startKeyToRegionCBMap.floorEntry(element.getRowKey());
         if(entry==null) entry = startKeyToRegionCBMap.firstEntry();
         assert entry!=null;
         PartitionBuffer regionCB = entry.getValue().getFirst();
+        ServerCallBuffer serverCB = entry.getValue().getSecond();
         if (LOG.isTraceEnabled())
         	SpliceLogUtils.trace(LOG, "Adding KVPair object (Splice mutation) %s to the call buffer for the region %s",
         			element, regionCB.partition().getName());
@@ -123,12 +126,28 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
             totalElementsAdded++;
             totalBytesAdded +=size;
         }
-        if(writer!=null && (currentHeapSize>=bufferConfiguration.getMaxHeapSize()
-                || currentKVPairSize >= bufferConfiguration.getMaxEntries())) {
+        if(writer==null) return;
+        if(serverCB.entryAdded(bufferConfiguration.getMaxEntries())){
+            /*
+             * The server has a full batch, as sized by its write window. Send it now, rather than waiting for
+             * the buffer as a whole to fill up, so that a busy server is sent smaller writes.
+             */
+            flushServerBuffer(serverCB);
+        }else if(currentHeapSize>=bufferConfiguration.getMaxHeapSize()
+                || currentKVPairSize >= bufferConfiguration.getMaxEntries()) {
             flushLargestBuffer();
         }
     }
 
+    private void flushServerBuffer(ServerCallBuffer buffer) throws Exception {
+        currentHeapSize-=buffer.getHeapSize();
+        currentKVPairSize-=buffer.getKVPairSize();
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG, "flushServerBuffer {table=%s, server=%s, size=%d, rows=%d}",table.getTableName(),buffer.getServer(),buffer.getHeapSize(),buffer.getKVPairSize());
+        buffer.flushBuffer();
+        totalFlushes++;
+    }
+
     private void flushLargestBuffer() throws Exception {
         int maxSize = 0;
         ServerCallBuffer bufferToFlush = null;
@@ -170,7 +189,7 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
 
         // The following block of code flushes the region and region server call buffers.
         if(startKeyToRegionCBMap!=null) {
-            for (Pair<PartitionBuffer, PartitionServer> buffer : startKeyToRegionCBMap.values())
+            for (Pair<PartitionBuffer, ServerCallBuffer> buffer : startKeyToRegionCBMap.values())
                 buffer.getFirst().clear();
             for (ServerCallBuffer buffer : serverNameToRegionServerCBMap.values()) {
                 assert buffer.getBulkWrites()==null || (buffer.getBulkWrites().numEntries() == 0);  // This asserts that there are not any outstanding RegionCallBuffers for the region server that need to be flushed still.
@@ -200,17 +219,19 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
             // Do we have this RS call buffer already?
             if (regionServerCB == null) {
                 SpliceLogUtils.debug(LOG, "adding ServerCallBuffer for server %s and table %s", server, table.getTableName());
+                ServerWriteWindow window = writer != null ? bufferConfiguration.getWriteWindow(server) : null;
                 regionServerCB = new ServerCallBuffer(Bytes.toBytes(table.getName()),
                         txn,
                         writeConfiguration,
                         server,
-                        (writer != null ? new RegulatedWriter(writer) : null),
+                        (writer != null ? new RegulatedWriter(writer,window) : null),
+                        window,
                         writeStats);
                 serverNameToRegionServerCBMap.put(server, regionServerCB);
             }
 
             // Attempt to get the call buffer for the correct region that contains this row key.
-            Map.Entry<byte[], Pair<PartitionBuffer, PartitionServer>> startKeyToRegionCBEntry = this.startKeyToRegionCBMap.floorEntry(startKey);
+            Map.Entry<byte[], Pair<PartitionBuffer, ServerCallBuffer>> startKeyToRegionCBEntry = this.startKeyToRegionCBMap.floorEntry(startKey);
             PartitionBuffer regionCB = null;
             if (startKeyToRegionCBEntry != null)
                 regionCB = startKeyToRegionCBEntry.getValue().getFirst();
@@ -235,7 +256,7 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
 
             	// Create a new PartitionBuffer, add it to the map, and add it to the ServerCallBuffer.
                 PartitionBuffer newBuffer = new PartitionBuffer(region, preFlushHook, skipIndexWrites);
-                startKeyToRegionCBMap.put(startKey, Pair.newPair(newBuffer,server));
+                startKeyToRegionCBMap.put(startKey, Pair.newPair(newBuffer,regionServerCB));
                 regionServerCB.add(Pair.newPair(startKey, newBuffer));
             } else {
                 throw new RuntimeException("Not Functional Path");
@@ -309,7 +330,7 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
             buffer.close();
         }
         // Region
-        for (Pair<PartitionBuffer, PartitionServer> buffer : startKeyToRegionCBMap.values()) {
+        for (Pair<PartitionBuffer, ServerCallBuffer> buffer : startKeyToRegionCBMap.values()) {
             PartitionBuffer regionBuffer = buffer.getFirst();
             regionBuffer.close();
         }
@@ -347,7 +368,7 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
     public Collection<KVPair> getKVPairs() throws Exception {
         SpliceLogUtils.trace(LOG, "getKVPairs");
         Collection<KVPair> kvPairs = new ArrayList<>();
-        for(Pair<PartitionBuffer,PartitionServer> buffer:startKeyToRegionCBMap.values()) {
+        for(Pair<PartitionBuffer,ServerCallBuffer> buffer:startKeyToRegionCBMap.values()) {
             kvPairs.addAll(buffer.getFirst().getBuffer());
         }
         return kvPairs;
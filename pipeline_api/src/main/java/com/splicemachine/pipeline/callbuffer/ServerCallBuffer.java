@@ -21,6 +21,7 @@ import com.splicemachine.pipeline.client.BulkWrite;
 import com.splicemachine.pipeline.client.BulkWrites;
 import com.splicemachine.pipeline.client.MergingWriteStats;
 import com.splicemachine.pipeline.config.WriteConfiguration;
+import com.splicemachine.pipeline.writer.ServerWriteWindow;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.storage.Partition;
@@ -47,6 +48,7 @@ class ServerCallBuffer implements CallBuffer<Pair<byte[], PartitionBuffer>> {
 
     private final PartitionServer server;
     private final Writer writer;
+    private final ServerWriteWindow window;
 
     /**
      * Map of all the call buffers for each region on this region server.
@@ -63,12 +65,14 @@ class ServerCallBuffer implements CallBuffer<Pair<byte[], PartitionBuffer>> {
     private final byte[] tableName;
     private final TxnView txn;
     private Pair<byte[], PartitionBuffer> lastElement;
+    private int bufferedEntries;
 
     public ServerCallBuffer(byte[] tableName,
                             TxnView txn,
                             WriteConfiguration writeConfiguration,
                             PartitionServer server,
                             Writer writer,
+                            ServerWriteWindow window,
                             final MergingWriteStats writeStats) {
         this.txn = txn;
         this.writeConfiguration = writeConfiguration;
@@ -76,9 +80,21 @@ class ServerCallBuffer implements CallBuffer<Pair<byte[], PartitionBuffer>> {
         this.writeStats = writeStats;
         this.server= server;
         this.writer = writer;
+        this.window = window;
         this.buffers = new TreeMap<>(ByteComparisons.comparator());
     }
 
+    /**
+     * Record that an entry was added to one of the region buffers on this server.
+     *
+     * @param maxEntries the configured maximum number of entries to buffer
+     * @return true if this server's buffers now hold a full batch for the server, and should be flushed
+     */
+    public boolean entryAdded(int maxEntries) {
+        bufferedEntries++;
+        return window != null && bufferedEntries >= window.batchSize(maxEntries);
+    }
+
     /**
      * Add a buffer of region calls to this region server's call buffers.
      *
@@ -160,6 +176,7 @@ class ServerCallBuffer implements CallBuffer<Pair<byte[], PartitionBuffer>> {
             bws.add(value.getBulkWrite());
             value.clear(); // zero out
         }
+        bufferedEntries = 0;
         if(bws.size()==0) return null;
         else
             return new BulkWrites(bws, this.txn, this.buffers.lastKey());
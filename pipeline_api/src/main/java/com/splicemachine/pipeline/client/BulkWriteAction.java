@@ -367,6 +367,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
                     SpliceLogUtils.debug(RETRY_LOG,"Retrying write after receiving RegionTooBusyException: id=%d",id);
 
                 regionTooBusy.increment();
+                writeConfiguration.writeRejected();
                 ctx.sleep = true;
                 ctx.directRetry();
                 return;
@@ -15,11 +15,18 @@
 
 package com.splicemachine.pipeline.client;
 
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import com.splicemachine.access.configuration.PipelineConfiguration;
 import com.splicemachine.pipeline.callbuffer.BufferConfiguration;
 import com.splicemachine.pipeline.api.WriteCoordinatorStatus;
+import com.splicemachine.pipeline.writer.ServerWriteWindow;
+import com.splicemachine.storage.PartitionServer;
 
 public class Monitor implements WriteCoordinatorStatus,BufferConfiguration{
     public volatile long maxHeapSize;
@@ -29,13 +36,24 @@ public class Monitor implements WriteCoordinatorStatus,BufferConfiguration{
     public AtomicInteger outstandingBuffers = new AtomicInteger(0);
     public volatile long pauseTime;
     public AtomicLong writesRejected = new AtomicLong(0l);
+    public volatile int maxWriteWindow;
+    public volatile long writeLatencyTarget;
+    private final ConcurrentMap<String,ServerWriteWindow> writeWindows = new ConcurrentHashMap<>();
 
     public Monitor(long maxHeapSize, int maxEntries, int maxRetries,long pauseTime,int maxFlushesPerRegion) {
+        this(maxHeapSize,maxEntries,maxRetries,pauseTime,maxFlushesPerRegion,
+                PipelineConfiguration.DEFAULT_WRITE_MAX_WINDOW,PipelineConfiguration.DEFAULT_WRITE_LATENCY_TARGET);
+    }
+
+    public Monitor(long maxHeapSize, int maxEntries, int maxRetries,long pauseTime,int maxFlushesPerRegion,
+                   int maxWriteWindow,long writeLatencyTarget) {
         this.maxHeapSize = maxHeapSize;
         this.maxEntries = maxEntries;
         this.maxRetries = maxRetries;
         this.pauseTime = pauseTime;
         this.maxFlushesPerRegion = maxFlushesPerRegion;
+        this.maxWriteWindow = maxWriteWindow;
+        this.writeLatencyTarget = writeLatencyTarget;
     }
 
     @Override public long getMaxBufferHeapSize() { return maxHeapSize; }
@@ -61,5 +79,57 @@ public class Monitor implements WriteCoordinatorStatus,BufferConfiguration{
     public void writeRejected() {
         this.writesRejected.incrementAndGet();
     }
+
+    @Override public int getMaxWriteWindow() { return maxWriteWindow; }
+    @Override public long getWriteLatencyTarget() { return writeLatencyTarget; }
+
+    @Override
+    public void setMaxWriteWindow(int newMaxWriteWindow) {
+        this.maxWriteWindow = newMaxWriteWindow;
+        updateWriteWindows();
+    }
+
+    @Override
+    public void setWriteLatencyTarget(long newWriteLatencyTargetMs) {
+        this.writeLatencyTarget = newWriteLatencyTargetMs;
+        updateWriteWindows();
+    }
+
+    @Override
+    public ServerWriteWindow getWriteWindow(PartitionServer server) {
+        String hostAndPort = server.getHostAndPort();
+        ServerWriteWindow window = writeWindows.get(hostAndPort);
+        if (window == null) {
+            window = new ServerWriteWindow(hostAndPort, maxWriteWindow, writeLatencyTarget);
+            ServerWriteWindow old = writeWindows.putIfAbsent(hostAndPort, window);
+            if (old != null)
+                window = old;
+        }
+        return window;
+    }
+
+    @Override
+    public Map<String, Double> getServerWriteWindows() {
+        Map<String, Double> windows = new TreeMap<>();
+        for (ServerWriteWindow window : writeWindows.values()) {
+            windows.put(window.getServer(), window.getWindow());
+        }
+        return windows;
+    }
+
+    @Override
+    public Map<String, Double> getServerRejectRates() {
+        Map<String, Double> rates = new TreeMap<>();
+        for (ServerWriteWindow window : writeWindows.values()) {
+            rates.put(window.getServer(), window.getRejectRate());
+        }
+        return rates;
+    }
+
+    private void updateWriteWindows() {
+        for (ServerWriteWindow window : writeWindows.values()) {
+            window.setLimits(maxWriteWindow, writeLatencyTarget);
+        }
+    }
 }
 
@@ -43,10 +43,12 @@ import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.threadpool.MonitoredThreadPool;
 import com.splicemachine.pipeline.utils.PipelineUtils;
 import com.splicemachine.pipeline.writer.AsyncBucketingWriter;
+import com.splicemachine.pipeline.writer.ServerWriteWindow;
 import com.splicemachine.pipeline.writer.SynchronousBucketingWriter;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.Partition;
+import com.splicemachine.storage.PartitionServer;
 
 /**
  * Entry point for classes that want to write. Use this class to get CallBuffer<KVPair> for a given table.
@@ -80,7 +82,9 @@ public class WriteCoordinator {
         int numRetries = config.getMaxRetries();
         long pause = config.getClientPause();
         int maxFlushesPerRegion = config.getWriteMaxFlushesPerRegion();
-        Monitor monitor = new Monitor(maxBufferHeapSize, maxEntries, numRetries, pause, maxFlushesPerRegion);
+        int maxWriteWindow = config.getWriteMaxWindow();
+        long writeLatencyTarget = config.getWriteLatencyTarget();
+        Monitor monitor = new Monitor(maxBufferHeapSize, maxEntries, numRetries, pause, maxFlushesPerRegion, maxWriteWindow, writeLatencyTarget);
 
         return new WriteCoordinator(writer, syncWriter, monitor,partitionFactory,exceptionFactory,writerPool);
     }
@@ -196,6 +200,7 @@ public class WriteCoordinator {
             @Override public int getMaxEntries() { return maxEntries; }
             @Override public int getMaxFlushesPerRegion() { return monitor.getMaxFlushesPerRegion(); }
             @Override public void writeRejected() { monitor.writeRejected(); }
+            @Override public ServerWriteWindow getWriteWindow(PartitionServer server) { return monitor.getWriteWindow(server); }
         };
         monitor.outstandingBuffers.incrementAndGet();
         return new MonitoredPipingCallBuffer(partition, txn, asynchronousWriter, PipelineUtils.noOpFlushHook, defaultWriteConfiguration, config, false);
@@ -218,6 +223,7 @@ public class WriteCoordinator {
             @Override public int getMaxEntries() { return maxEntries; }
             @Override public int getMaxFlushesPerRegion() { return monitor.getMaxFlushesPerRegion(); }
             @Override public void writeRejected() { monitor.writeRejected(); }
+            @Override public ServerWriteWindow getWriteWindow(PartitionServer server) { return monitor.getWriteWindow(server); }
         };
         monitor.outstandingBuffers.incrementAndGet();
         return new MonitoredPipingCallBuffer(partition, txn, synchronousWriter, flushHook, writeConfiguration, config, false);
@@ -193,6 +193,11 @@ public abstract class BaseWriteConfiguration implements WriteConfiguration {
             return WriteResponse.RETRY;
     }
 
+    @Override
+    public void writeRejected() {
+        //no-op
+    }
+
     @Override
     public void registerContext(WriteContext context, ObjectObjectOpenHashMap<KVPair, KVPair> indexToMainMutationMap) {
         SpliceLogUtils.warn(LOG, "registering Context with a base class");
@@ -73,6 +73,11 @@ public class ForwardingWriteConfiguration implements WriteConfiguration {
         delegate.writeComplete(timeTakenMs, numRecordsWritten);
     }
 
+    @Override
+    public void writeRejected() {
+        delegate.writeRejected();
+    }
+
     @Override
     public MetricFactory getMetricFactory() {
         return delegate.getMetricFactory();
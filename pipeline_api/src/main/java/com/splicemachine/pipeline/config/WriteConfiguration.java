@@ -44,6 +44,12 @@ public interface WriteConfiguration {
 
     void writeComplete(long timeTakenMs, long numRecordsWritten);
 
+    /**
+     * Called whenever the destination rejects an attempt at a write because it is too busy. The write
+     * will be retried.
+     */
+    void writeRejected();
+
     MetricFactory getMetricFactory();
 
     void registerContext(WriteContext context, ObjectObjectOpenHashMap<KVPair, KVPair> indexToMainMutationMap);
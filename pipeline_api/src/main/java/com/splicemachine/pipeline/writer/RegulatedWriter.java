@@ -15,34 +15,66 @@
 
 package com.splicemachine.pipeline.writer;
 
+import com.splicemachine.pipeline.api.Code;
+import com.splicemachine.pipeline.config.ForwardingWriteConfiguration;
 import com.splicemachine.pipeline.config.WriteConfiguration;
+import com.splicemachine.pipeline.api.WriteResponse;
 import com.splicemachine.pipeline.api.WriteStats;
 import com.splicemachine.pipeline.api.Writer;
+import com.splicemachine.pipeline.client.BulkWriteResult;
 import com.splicemachine.pipeline.client.BulkWrites;
 
 import javax.management.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Writer which regulates how many concurrent writes are allowed, gating flushes as necessary (forcing flushes
- * onto the calling thread if the maximum is exceeded.
+ * Writer which regulates how many concurrent writes are allowed to a single region server, gating flushes
+ * as necessary (blocking the calling thread until the server's {@link ServerWriteWindow} has room for the write).
+ *
+ * The outcome of each write (whether it was rejected because the server was too busy, and how long it took) is
+ * reported back to the window, so that the window can adapt to the load on the server.
  *
  * @author Scott Fines
  *         Created on: 9/6/13
  */
 public class RegulatedWriter implements Writer {
+    /*
+     * The longest we will hold up a flush waiting for the window to open. Past this point we send the write
+     * anyway, rather than risk a deadlock with writes which are themselves waiting on us.
+     */
+    private static final long MAX_WAIT_MS = 10000L;
+
     private final Writer delegate;
+    private final ServerWriteWindow window;
 
-    public RegulatedWriter(Writer delegate) {
+    public RegulatedWriter(Writer delegate,ServerWriteWindow window) {
         this.delegate = delegate;
+        this.window = window;
     }
 
     @Override
     public Future<WriteStats> write(byte[] tableName,
                                     BulkWrites action,
                                     WriteConfiguration writeConfiguration) throws ExecutionException {
-        return delegate.write(tableName, action, writeConfiguration);
+        long generation;
+        try {
+            generation = window.acquire(MAX_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        }
+        RegulatedWriteConfiguration config = new RegulatedWriteConfiguration(writeConfiguration,generation);
+        boolean submitted = false;
+        try {
+            Future<WriteStats> future = delegate.write(tableName, action, config);
+            submitted = true;
+            return future;
+        } finally {
+            if (!submitted)
+                config.release(0L);
+        }
     }
 
     @Override
@@ -55,4 +87,43 @@ public class RegulatedWriter implements Writer {
         throw new UnsupportedOperationException("register underlying writer instance instead");
     }
 
-}
\ No newline at end of file
+    private class RegulatedWriteConfiguration extends ForwardingWriteConfiguration {
+        private final long generation;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        RegulatedWriteConfiguration(WriteConfiguration delegate, long generation) {
+            super(delegate);
+            this.generation = generation;
+        }
+
+        @Override
+        public WriteResponse processGlobalResult(BulkWriteResult bulkWriteResult) throws Throwable {
+            Code code = bulkWriteResult.getGlobalResult().getCode();
+            if (code == Code.PIPELINE_TOO_BUSY || code == Code.REGION_TOO_BUSY)
+                window.rejected(generation);
+            return super.processGlobalResult(bulkWriteResult);
+        }
+
+        @Override
+        public void writeRejected() {
+            window.rejected(generation);
+            super.writeRejected();
+        }
+
+        @Override
+        public void writeComplete(long timeTakenMs, long numRecordsWritten) {
+            release(timeTakenMs);
+            super.writeComplete(timeTakenMs, numRecordsWritten);
+        }
+
+        void release(long timeTakenMs) {
+            if (released.compareAndSet(false, true))
+                window.complete(generation, timeTakenMs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RegulatedWriteConfiguration{window=%s, delegate=%s}", window, delegate);
+        }
+    }
+}
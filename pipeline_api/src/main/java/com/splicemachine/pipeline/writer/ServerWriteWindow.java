@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.writer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit on the writes which are sent to a single region server.
+ * <p>
+ * The window is the number of BulkWrites which may be in flight to the server at the same time. It is adjusted
+ * in an additive-increase/multiplicative-decrease fashion: every write which completes within the latency target
+ * grows the window by {@code 1/window} (so by one write for each full window of fast writes), while a rejection
+ * from the server (it is too busy), or a write which takes longer than the latency target, halves it. Only writes
+ * which were admitted after the most recent decrease can shrink the window again, so a burst of rejections from
+ * the same window of writes only counts once.
+ * <p>
+ * The size of the batches which are sent to the server follows the window: each decrease halves the batch size
+ * (down to {@code 1/16th} of the configured buffer size), and each full window of fast writes doubles it again.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ServerWriteWindow{
+    private static final double MIN_WINDOW=1d;
+    private static final int MAX_BATCH_SHIFT=4;
+    /*The weight given to each new observation of the reject rate*/
+    private static final double REJECT_RATE_WEIGHT=0.05d;
+
+    private final String server;
+    private int maxWindow;
+    private long latencyTargetMs;
+
+    private double window;
+    private int inFlight;
+    /*read without the lock, once for every entry which is buffered*/
+    private volatile int batchShift;
+    private int fastWrites;
+    private long generation;
+    private double rejectRate;
+
+    public ServerWriteWindow(String server,int maxWindow,long latencyTargetMs){
+        this.server=server;
+        this.maxWindow=Math.max(1,maxWindow);
+        this.latencyTargetMs=latencyTargetMs;
+        this.window=this.maxWindow;
+    }
+
+    /**
+     * Wait until a write may be sent to the server.
+     * <p>
+     * If the window does not open up within {@code maxWaitMs}, the write is admitted anyway; we would rather
+     * exceed the window than risk waiting forever on writes which are themselves waiting on us.
+     *
+     * @param maxWaitMs the maximum time to wait for the window to open
+     * @return the generation of the window at admission, which must be handed back to {@link #rejected(long)} and
+     * {@link #complete(long, long)}.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized long acquire(long maxWaitMs) throws InterruptedException{
+        long remaining=TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        long end=System.nanoTime()+remaining;
+        while(inFlight>=(int)window && remaining>0){
+            TimeUnit.NANOSECONDS.timedWait(this,remaining);
+            remaining=end-System.nanoTime();
+        }
+        inFlight++;
+        return generation;
+    }
+
+    /**
+     * Record that the server rejected (an attempt at) a write, because it was too busy.
+     *
+     * @param admittedGeneration the generation returned by {@link #acquire(long)} for the write
+     */
+    public synchronized void rejected(long admittedGeneration){
+        rejectRate+=REJECT_RATE_WEIGHT*(1d-rejectRate);
+        decrease(admittedGeneration);
+    }
+
+    /**
+     * Record that a write has finished (successfully or not), and release its place in the window.
+     *
+     * @param admittedGeneration the generation returned by {@link #acquire(long)} for the write
+     * @param timeTakenMs the time taken by the write, including any retries
+     */
+    public synchronized void complete(long admittedGeneration,long timeTakenMs){
+        inFlight--;
+        rejectRate-=REJECT_RATE_WEIGHT*rejectRate;
+        if(timeTakenMs>latencyTargetMs)
+            decrease(admittedGeneration);
+        else
+            increase();
+        notifyAll();
+    }
+
+    /**
+     * @param maxEntries the configured maximum number of entries to buffer
+     * @return the number of entries which should be sent to this server in a single write
+     */
+    public int batchSize(int maxEntries){
+        return Math.max(1,maxEntries>>batchShift);
+    }
+
+    public synchronized void setLimits(int maxWindow,long latencyTargetMs){
+        this.maxWindow=Math.max(1,maxWindow);
+        this.latencyTargetMs=latencyTargetMs;
+        if(window>this.maxWindow)
+            window=this.maxWindow;
+        notifyAll();
+    }
+
+    public String getServer(){ return server; }
+
+    public synchronized double getWindow(){ return window; }
+
+    public synchronized int getInFlight(){ return inFlight; }
+
+    /**
+     * @return the (exponentially weighted) fraction of write attempts against this server which were rejected
+     */
+    public synchronized double getRejectRate(){ return rejectRate; }
+
+    @Override
+    public synchronized String toString(){
+        return String.format("ServerWriteWindow{server=%s, window=%.2f, inFlight=%d, batchShift=%d, rejectRate=%.3f}",
+                server,window,inFlight,batchShift,rejectRate);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void decrease(long admittedGeneration){
+        if(admittedGeneration!=generation) return; //we've already backed off from this window
+        generation++;
+        window=Math.max(MIN_WINDOW,window/2);
+        batchShift=Math.min(MAX_BATCH_SHIFT,batchShift+1);
+        fastWrites=0;
+    }
+
+    private void increase(){
+        window=Math.min(maxWindow,window+1d/window);
+        fastWrites++;
+        if(batchShift>0 && fastWrites>=(int)window){
+            batchShift--;
+            fastWrites=0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.writer;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ArchitectureIndependent.class)
+public class ServerWriteWindowTest {
+
+    @Test
+    public void rejectionHalvesWindowOncePerGeneration() throws Exception {
+        ServerWriteWindow window = new ServerWriteWindow("server:1", 16, 1000L);
+        long[] generations = new long[4];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = window.acquire(0L);
+        }
+        for (long generation : generations) {
+            window.rejected(generation);
+        }
+        assertEquals("Only the first rejection from a generation should shrink the window", 8d, window.getWindow(), 0d);
+        assertEquals("Batch size should shrink with the window", 500, window.batchSize(1000));
+        assertTrue("Reject rate should be recorded", window.getRejectRate() > 0d);
+
+        long generation = window.acquire(0L);
+        window.rejected(generation);
+        assertEquals(4d, window.getWindow(), 0d);
+        assertEquals(250, window.batchSize(1000));
+    }
+
+    @Test
+    public void slowWritesShrinkAndFastWritesGrowWindow() throws Exception {
+        ServerWriteWindow window = new ServerWriteWindow("server:1", 4, 1000L);
+        window.complete(window.acquire(0L), 5000L);
+        assertEquals(2d, window.getWindow(), 0d);
+        assertEquals(500, window.batchSize(1000));
+
+        for (int i = 0; i < 10; i++) {
+            window.complete(window.acquire(0L), 10L);
+        }
+        assertEquals("Window should grow back to the maximum", 4d, window.getWindow(), 0d);
+        assertEquals("Batch size should grow back to the maximum", 1000, window.batchSize(1000));
+        assertEquals(0, window.getInFlight());
+    }
+
+    @Test
+    public void windowNeverShrinksBelowOne() throws Exception {
+        ServerWriteWindow window = new ServerWriteWindow("server:1", 4, 1000L);
+        for (int i = 0; i < 10; i++) {
+            window.complete(window.acquire(0L), 5000L);
+        }
+        assertEquals(1d, window.getWindow(), 0d);
+        assertEquals(1000 >> 4, window.batchSize(1000));
+    }
+
+    @Test
+    public void acquireBlocksUntilWriteCompletes() throws Exception {
+        final ServerWriteWindow window = new ServerWriteWindow("server:1", 1, 1000L);
+        long generation = window.acquire(0L);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean acquired = new AtomicBoolean(false);
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    window.acquire(TimeUnit.MINUTES.toMillis(1));
+                    acquired.set(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waiter.start();
+        started.await();
+        Thread.sleep(100L);
+        assertFalse("Second write should wait for the first", acquired.get());
+
+        window.complete(generation, 10L);
+        waiter.join(TimeUnit.SECONDS.toMillis(10));
+        assertTrue("Second write should proceed once the first completes", acquired.get());
+        assertEquals(1, window.getInFlight());
+    }
+
+    @Test
+    public void acquireGivesUpWaitingAfterTimeout() throws Exception {
+        ServerWriteWindow window = new ServerWriteWindow("server:1", 1, 1000L);
+        window.acquire(0L);
+        window.acquire(50L);
+        assertEquals("Write should be admitted once the wait times out", 2, window.getInFlight());
+    }
+}
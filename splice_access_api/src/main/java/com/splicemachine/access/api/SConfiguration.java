@@ -101,6 +101,14 @@ public interface SConfiguration {
     // OperationConfiguration
     int getSequenceBlockSize();
 
+    long getControlSpillMemory();
+
+    int getControlSpillPartitions();
+
+    String getControlSpillDirectory();
+
+    int getAggregationBatchSize();
+
     // PipelineConfiguration
     int getCoreWriterThreads();
 
@@ -120,6 +128,12 @@ public interface SConfiguration {
 
     int getWriteMaxFlushesPerRegion();
 
+    int getWriteMaxWindow();
+
+    long getWriteLatencyTarget();
+
+    int getForeignKeyParentCacheSize();
+
     long getClientPause();
 
     long getMaxBufferHeapSize();
@@ -132,11 +146,12 @@ public interface SConfiguration {
 
     int getSparkResultStreamingBatches();
     int getSparkResultStreamingBatchSize();
+    int getSparkResultStreamingBufferedBatches();
 
     // SIConfigurations
     int getActiveTransactionCacheSize();
 
-    int getCompletedTxnCacheSize();
+    long getCompletedTxnCacheMemory();
 
     int getCompletedTxnConcurrency();
 
@@ -152,6 +167,18 @@ public interface SConfiguration {
 
     int getOlapServerThreads();
 
+    int getOlapServerMaxConcurrentQueries();
+
+    int getOlapServerMaxConcurrentCompactions();
+
+    int getOlapServerMaxConcurrentMaintenanceJobs();
+
+    int getOlapServerQueryWeight();
+
+    int getOlapServerCompactionWeight();
+
+    int getOlapServerMaintenanceWeight();
+
     int getTimestampClientWaitTime();
 
     int getTimestampServerBindPort();
@@ -164,6 +191,14 @@ public interface SConfiguration {
 
     long getTransactionTimeout();
 
+    boolean getCompactionPurgeVersions();
+
+    long getCompactionPurgeRetention();
+
+    long getCompactionPurgeRefreshInterval();
+
+    int getCompactionResolveBlockSize();
+
     // SQLConfiguration
     boolean debugDumpBindTree();
 
@@ -197,6 +232,14 @@ public interface SConfiguration {
 
     long getBroadcastRegionRowThreshold();
 
+    boolean isBroadcastOffHeapJoinTable();
+
+    long getBroadcastCacheSize();
+
+    long getBroadcastCacheExpiration();
+
+    long getJoinKeyFilterMaxRows();
+
     long getOptimizerPlanMaximumTimeout();
 
     long getOptimizerPlanMinimumTimeout();
@@ -222,6 +265,12 @@ public interface SConfiguration {
 
     int getTopkSize();
 
+    int getHistogramBuckets();
+
+    double getStatsSampleFraction();
+
+    double getStatsStaleRegionThreshold();
+
     long getFallbackLocalLatency();
 
     long getFallbackMinimumRowCount();
@@ -241,6 +290,8 @@ public interface SConfiguration {
 
     long getTableSplitSleepInterval();
 
+    boolean getZoneMapsEnabled();
+
     /**
      * Dump splice configuration, including hadoop config, to the log.
      */
@@ -27,7 +27,7 @@ import com.splicemachine.access.api.SConfiguration;
 public class ConfigurationBuilder {
     // SIConfigurations
     public int activeTransactionCacheSize;
-    public int completedTxnCacheSize;
+    public long completedTxnCacheMemory;
     public int completedTxnConcurrency;
     public int readResolverQueueSize;
     public int readResolverThreads;
@@ -37,9 +37,17 @@ public class ConfigurationBuilder {
     public int transactionLockStripes;
     public long transactionKeepAliveInterval;
     public long transactionTimeout;
+    public boolean compactionPurgeVersions;
+    public long compactionPurgeRetention;
+    public long compactionPurgeRefreshInterval;
+    public int compactionResolveBlockSize;
 
     // OperationConfiguration
     public int sequenceBlockSize;
+    public long controlSpillMemory;
+    public int controlSpillPartitions;
+    public String controlSpillDirectory;
+    public int aggregationBatchSize;
 
     // DDLConfiguration
     public long ddlDrainingInitialWait;
@@ -61,10 +69,13 @@ public class ConfigurationBuilder {
     // StatsConfiguration
     public double fallbackNullFraction;
     public double optimizerExtraQualifierMultiplier;
+    public double statsSampleFraction;
+    public double statsStaleRegionThreshold;
     public int cardinalityPrecision;
     public int fallbackRowWidth;
     public int indexFetchSampleSize;
     public int topkSize;
+    public int histogramBuckets;
     public long fallbackLocalLatency;
     public long fallbackMinimumRowCount;
     public long fallbackOpencloseLatency;
@@ -76,6 +87,7 @@ public class ConfigurationBuilder {
     public int splitBlockSize;
     public long regionMaxFileSize;
     public long tableSplitSleepInterval;
+    public boolean zoneMapsEnabled;
 
     // HConfiguration
     public int regionServerHandlerCount;
@@ -106,11 +118,21 @@ public class ConfigurationBuilder {
     public int olapClientTickTime;
     public int olapServerBindPort;
     public int olapServerThreads;
+    public int olapServerMaxConcurrentQueries;
+    public int olapServerMaxConcurrentCompactions;
+    public int olapServerMaxConcurrentMaintenanceJobs;
+    public int olapServerQueryWeight;
+    public int olapServerCompactionWeight;
+    public int olapServerMaintenanceWeight;
     public int olapServerTickLimit;
     public int partitionserverJmxPort;
     public int partitionserverPort;
     public long broadcastRegionMbThreshold;
     public long broadcastRegionRowThreshold;
+    public boolean broadcastOffHeapJoinTable;
+    public long broadcastCacheSize;
+    public long broadcastCacheExpiration;
+    public long joinKeyFilterMaxRows;
     public long optimizerPlanMaximumTimeout;
     public long optimizerPlanMinimumTimeout;
     public String networkBindAddress;
@@ -128,6 +150,9 @@ public class ConfigurationBuilder {
     public int maxWriterThreads;
     public int pipelineKryoPoolSize;
     public int writeMaxFlushesPerRegion;
+    public int writeMaxWindow;
+    public long writeLatencyTarget;
+    public int foreignKeyParentCacheSize;
     public long clientPause;
     public long maxBufferHeapSize;
     public long startupLockWaitPeriod;
@@ -135,6 +160,7 @@ public class ConfigurationBuilder {
     public String sparkIoCompressionCodec;
     public int sparkResultStreamingBatchSize;
     public int sparkResultStreamingBatches;
+    public int sparkResultStreamingBufferedBatches;
     public int compactionReservedSlots;
     public int reservedSlotsTimeout;
 
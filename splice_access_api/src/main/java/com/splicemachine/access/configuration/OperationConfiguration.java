@@ -48,8 +48,55 @@ public class OperationConfiguration implements ConfigurationDefault {
     public static final String SEQUENCE_BLOCK_SIZE = "splice.sequence.allocationBlockSize";
     private static final int DEFAULT_SEQUENCE_BLOCK_SIZE = 1000;
 
+    /**
+     * The amount of heap (in bytes) that a single control-side grouping or reduce operation is allowed
+     * to hold before it starts spilling partitions of its state to local disk.
+     *
+     * Control-side (i.e. non-Spark) execution is performed within the region server, so this
+     * should be kept well below the available heap. Turning it up will allow larger GROUP BY queries
+     * to complete entirely in memory, at the cost of a greater risk of long GC pauses.
+     *
+     * Defaults to 64 MB
+     */
+    public static final String CONTROL_SPILL_MEMORY = "splice.control.spillMemory";
+    private static final long DEFAULT_CONTROL_SPILL_MEMORY = 64*1024*1024L;
+
+    /**
+     * The number of partitions that control-side state is split into when it is spilled to disk. Each
+     * partition is merged back independently, so more partitions means smaller merge passes but more
+     * open files while spilling.
+     *
+     * Defaults to 16
+     */
+    public static final String CONTROL_SPILL_PARTITIONS = "splice.control.spillPartitions";
+    private static final int DEFAULT_CONTROL_SPILL_PARTITIONS = 16;
+
+    /**
+     * The local directory in which control-side spill files are written. Files are removed once they
+     * have been merged back.
+     *
+     * Defaults to the value of the java.io.tmpdir system property
+     */
+    public static final String CONTROL_SPILL_DIRECTORY = "splice.control.spillDirectory";
+
+    /**
+     * The number of rows which scalar aggregations buffer into primitive column vectors before
+     * evaluating SUM, COUNT, MIN, MAX and AVG over them in a single pass. Aggregates over types which
+     * cannot be held in a primitive vector are always evaluated a row at a time.
+     *
+     * Set to 0 to disable batched aggregation.
+     *
+     * Defaults to 1024
+     */
+    public static final String AGGREGATION_BATCH_SIZE = "splice.execution.aggregationBatchSize";
+    private static final int DEFAULT_AGGREGATION_BATCH_SIZE = 1024;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.sequenceBlockSize = configurationSource.getInt(SEQUENCE_BLOCK_SIZE, DEFAULT_SEQUENCE_BLOCK_SIZE);
+        builder.controlSpillMemory = configurationSource.getLong(CONTROL_SPILL_MEMORY, DEFAULT_CONTROL_SPILL_MEMORY);
+        builder.controlSpillPartitions = configurationSource.getInt(CONTROL_SPILL_PARTITIONS, DEFAULT_CONTROL_SPILL_PARTITIONS);
+        builder.controlSpillDirectory = configurationSource.getString(CONTROL_SPILL_DIRECTORY, System.getProperty("java.io.tmpdir"));
+        builder.aggregationBatchSize = configurationSource.getInt(AGGREGATION_BATCH_SIZE, DEFAULT_AGGREGATION_BATCH_SIZE);
     }
 }
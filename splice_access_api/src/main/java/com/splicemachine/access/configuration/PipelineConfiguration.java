@@ -39,6 +39,15 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String SPARK_RESULT_STREAMING_BATCH_SIZE = "spark.result.streaming.batch.size";
     public static final int DEFAULT_SPARK_RESULT_STREAMING_BATCH_SIZE = 1024;
 
+    /**
+     * The number of batches the query client may buffer, across all partitions, for partitions which are
+     * streamed ahead of the one being read. Each buffered batch lets the Spark task streaming that partition send
+     * one more batch instead of waiting for the client to get to it.
+     * Defaults to 20
+     */
+    public static final String SPARK_RESULT_STREAMING_BUFFERED_BATCHES = "spark.result.streaming.buffered.batches";
+    public static final int DEFAULT_SPARK_RESULT_STREAMING_BUFFERED_BATCHES = 20;
+
     public static final String SPARK_COMPACTION_RESERVED_SLOTS = "spark.compaction.reserved.slots";
     public static final int DEFAULT_SPARK_COMPACTION_RESERVED_SLOTS = 1;
 
@@ -90,6 +99,44 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String WRITE_MAX_FLUSHES_PER_REGION = "splice.writer.maxFlushesPerRegion";
     public static final int WRITE_DEFAULT_MAX_FLUSHES_PER_REGION = 5;
 
+    /**
+     * The maximum number of concurrent buffer flushes that are allowed to be directed to a single
+     * region server by this JVM. The actual limit for each server is adjusted in response to the latency
+     * and rejection rate of the writes sent to it: it grows by one flush for every window of fast,
+     * accepted writes, and is halved whenever the server rejects a write (because it is too busy) or a write
+     * takes longer than splice.client.write.window.latencyTarget. This setting is the ceiling that the
+     * limit may grow to.
+     *
+     * This parameter may be adjusted in real time using JMX.
+     *
+     * Defaults to 32
+     */
+    public static final String WRITE_MAX_WINDOW = "splice.client.write.window.max";
+    public static final int DEFAULT_WRITE_MAX_WINDOW = 32;
+
+    /**
+     * The amount of time (in milliseconds) that a single buffer flush (including any retries) may take
+     * before it is considered a sign that the destination region server is overloaded. Slower flushes shrink
+     * the number of concurrent flushes and the size of the buffers sent to that server.
+     *
+     * This parameter may be adjusted in real time using JMX.
+     *
+     * Defaults to 2000 ms (2 s)
+     */
+    public static final String WRITE_LATENCY_TARGET = "splice.client.write.window.latencyTarget";
+    public static final long DEFAULT_WRITE_LATENCY_TARGET = 2000;
+
+    /**
+     * The maximum number of foreign key parent rows that each region server remembers as having been
+     * confirmed to exist by a transaction. Rows written to a foreign key backing index under the same
+     * transaction which reference one of these parent rows are not checked against the parent table
+     * again. Set to 0 to disable the cache.
+     *
+     * Defaults to 65536
+     */
+    public static final String FOREIGN_KEY_PARENT_CACHE_SIZE = "splice.fk.parentKeyCache.size";
+    public static final int DEFAULT_FOREIGN_KEY_PARENT_CACHE_SIZE = 65536;
+
     /**
      * The amount of time (in milliseconds) to wait during index initialization before
      * forcing a write to return. This setting prevents deadlocks during startup in small clusters,
@@ -161,6 +208,9 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.coreWriterThreads = configurationSource.getInt(CORE_WRITER_THREADS, DEFAULT_WRITE_THREADS_CORE);
         builder.maxWriterThreads = configurationSource.getInt(MAX_WRITER_THREADS, DEFAULT_MAX_WRITER_THREADS);
         builder.writeMaxFlushesPerRegion = configurationSource.getInt(WRITE_MAX_FLUSHES_PER_REGION, WRITE_DEFAULT_MAX_FLUSHES_PER_REGION);
+        builder.writeMaxWindow = configurationSource.getInt(WRITE_MAX_WINDOW, DEFAULT_WRITE_MAX_WINDOW);
+        builder.writeLatencyTarget = configurationSource.getLong(WRITE_LATENCY_TARGET, DEFAULT_WRITE_LATENCY_TARGET);
+        builder.foreignKeyParentCacheSize = configurationSource.getInt(FOREIGN_KEY_PARENT_CACHE_SIZE, DEFAULT_FOREIGN_KEY_PARENT_CACHE_SIZE);
         builder.maxRetries = configurationSource.getInt(MAX_RETRIES, DEFAULT_HBASE_CLIENT_RETRIES_NUMBER);
         builder.maxBufferEntries = configurationSource.getInt(MAX_BUFFER_ENTRIES, DEFAULT_MAX_BUFFER_ENTRIES);
         builder.pipelineKryoPoolSize = configurationSource.getInt(PIPELINE_KRYO_POOL_SIZE, DEFAULT_PIPELINE_KRYO_POOL_SIZE);
@@ -173,6 +223,7 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.sparkIoCompressionCodec = configurationSource.getString(SPARK_IO_COMPRESSION_CODEC, DEFAULT_SPARK_IO_COMPRESSION_CODEC);
         builder.sparkResultStreamingBatches = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCHES, DEFAULT_SPARK_RESULT_STREAMING_BATCHES);
         builder.sparkResultStreamingBatchSize = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCH_SIZE, DEFAULT_SPARK_RESULT_STREAMING_BATCH_SIZE);
+        builder.sparkResultStreamingBufferedBatches = configurationSource.getInt(SPARK_RESULT_STREAMING_BUFFERED_BATCHES, DEFAULT_SPARK_RESULT_STREAMING_BUFFERED_BATCHES);
         builder.compactionReservedSlots = configurationSource.getInt(SPARK_COMPACTION_RESERVED_SLOTS, DEFAULT_SPARK_COMPACTION_RESERVED_SLOTS);
         builder.reservedSlotsTimeout = configurationSource.getInt(SPARK_RESERVED_SLOTS_TIMEOUT, DEFAULT_SPARK_RESERVED_SLOTS_TIMEOUT);
     }
@@ -78,6 +78,10 @@ public final class SConfigurationImpl implements SConfiguration {
 
     // OperationConfiguration
     private final  int sequenceBlockSize;
+    private final long controlSpillMemory;
+    private final int controlSpillPartitions;
+    private final String controlSpillDirectory;
+    private final int aggregationBatchSize;
 
     // PipelineConfiguration
     private final  int coreWriterThreads;
@@ -89,6 +93,9 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int maxWriterThreads;
     private final  int pipelineKryoPoolSize;
     private final  int writeMaxFlushesPerRegion;
+    private final  int writeMaxWindow;
+    private final  long writeLatencyTarget;
+    private final int foreignKeyParentCacheSize;
     private final  long clientPause;
     private final  long maxBufferHeapSize;
     private final  long startupLockWaitPeriod;
@@ -96,17 +103,24 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  String sparkIoCompressionCodec;
     private final int sparkResultStreamingBatches;
     private final int sparkResultStreamingBatchSize;
+    private final int sparkResultStreamingBufferedBatches;
     private final int compactionReservedSlots;
     private final int reservedSlotsTimeout;
 
     // SIConfigurations
     private final  int activeTransactionCacheSize;
-    private final  int completedTxnCacheSize;
+    private final  long completedTxnCacheMemory;
     private final  int completedTxnConcurrency;
     private final int olapClientWaitTime;
     private final int olapClientTickTime;
     private final int olapServerBindPort;
     private final int olapServerThreads;
+    private final int olapServerMaxConcurrentQueries;
+    private final int olapServerMaxConcurrentCompactions;
+    private final int olapServerMaxConcurrentMaintenanceJobs;
+    private final int olapServerQueryWeight;
+    private final int olapServerCompactionWeight;
+    private final int olapServerMaintenanceWeight;
     private final int olapServerTickLimit;
     private final  int readResolverQueueSize;
     private final  int readResolverThreads;
@@ -116,6 +130,10 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int transactionLockStripes;
     private final  long transactionKeepAliveInterval;
     private final  long transactionTimeout;
+    private final boolean compactionPurgeVersions;
+    private final long compactionPurgeRetention;
+    private final long compactionPurgeRefreshInterval;
+    private final int compactionResolveBlockSize;
 
     // SQLConfiguration
     private final  boolean debugDumpBindTree;
@@ -134,6 +152,10 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int partitionserverPort;
     private final  long broadcastRegionMbThreshold;
     private final  long broadcastRegionRowThreshold;
+    private final  boolean broadcastOffHeapJoinTable;
+    private final  long broadcastCacheSize;
+    private final  long broadcastCacheExpiration;
+    private final  long joinKeyFilterMaxRows;
     private final  long optimizerPlanMaximumTimeout;
     private final  long optimizerPlanMinimumTimeout;
     private final  String networkBindAddress;
@@ -144,10 +166,13 @@ public final class SConfigurationImpl implements SConfiguration {
     // StatsConfiguration
     private final  double fallbackNullFraction;
     private final  double optimizerExtraQualifierMultiplier;
+    private final  double statsSampleFraction;
+    private final  double statsStaleRegionThreshold;
     private final  int cardinalityPrecision;
     private final  int fallbackRowWidth;
     private final  int indexFetchSampleSize;
     private final  int topkSize;
+    private final  int histogramBuckets;
     private final  long fallbackLocalLatency;
     private final  long fallbackMinimumRowCount;
     private final  long fallbackOpencloseLatency;
@@ -159,6 +184,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int splitBlockSize;
     private final  long regionMaxFileSize;
     private final  long tableSplitSleepInterval;
+    private final  boolean zoneMapsEnabled;
 
     // Gateway to hadoop config
     private final ConfigurationSource configSource;
@@ -282,6 +308,22 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getSequenceBlockSize() {
         return sequenceBlockSize;
     }
+    @Override
+    public long getControlSpillMemory() {
+        return controlSpillMemory;
+    }
+    @Override
+    public int getControlSpillPartitions() {
+        return controlSpillPartitions;
+    }
+    @Override
+    public String getControlSpillDirectory() {
+        return controlSpillDirectory;
+    }
+    @Override
+    public int getAggregationBatchSize() {
+        return aggregationBatchSize;
+    }
 
     // PipelineConfiguration
     @Override
@@ -321,6 +363,18 @@ public final class SConfigurationImpl implements SConfiguration {
         return writeMaxFlushesPerRegion;
     }
     @Override
+    public int getWriteMaxWindow() {
+        return writeMaxWindow;
+    }
+    @Override
+    public long getWriteLatencyTarget() {
+        return writeLatencyTarget;
+    }
+    @Override
+    public int getForeignKeyParentCacheSize() {
+        return foreignKeyParentCacheSize;
+    }
+    @Override
     public long getClientPause() {
         return clientPause;
     }
@@ -351,14 +405,19 @@ public final class SConfigurationImpl implements SConfiguration {
         return sparkResultStreamingBatchSize;
     }
 
+    @Override
+    public int getSparkResultStreamingBufferedBatches() {
+        return sparkResultStreamingBufferedBatches;
+    }
+
     // SIConfigurations
     @Override
     public int getActiveTransactionCacheSize() {
         return activeTransactionCacheSize;
     }
     @Override
-    public int getCompletedTxnCacheSize() {
-        return completedTxnCacheSize;
+    public long getCompletedTxnCacheMemory() {
+        return completedTxnCacheMemory;
     }
     @Override
     public int getCompletedTxnConcurrency() {
@@ -389,6 +448,30 @@ public final class SConfigurationImpl implements SConfiguration {
         return olapServerThreads;
     }
     @Override
+    public int getOlapServerMaxConcurrentQueries() {
+        return olapServerMaxConcurrentQueries;
+    }
+    @Override
+    public int getOlapServerMaxConcurrentCompactions() {
+        return olapServerMaxConcurrentCompactions;
+    }
+    @Override
+    public int getOlapServerMaxConcurrentMaintenanceJobs() {
+        return olapServerMaxConcurrentMaintenanceJobs;
+    }
+    @Override
+    public int getOlapServerQueryWeight() {
+        return olapServerQueryWeight;
+    }
+    @Override
+    public int getOlapServerCompactionWeight() {
+        return olapServerCompactionWeight;
+    }
+    @Override
+    public int getOlapServerMaintenanceWeight() {
+        return olapServerMaintenanceWeight;
+    }
+    @Override
     public int getTimestampClientWaitTime() {
         return timestampClientWaitTime;
     }
@@ -412,6 +495,22 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTransactionTimeout() {
         return transactionTimeout;
     }
+    @Override
+    public boolean getCompactionPurgeVersions() {
+        return compactionPurgeVersions;
+    }
+    @Override
+    public long getCompactionPurgeRetention() {
+        return compactionPurgeRetention;
+    }
+    @Override
+    public long getCompactionPurgeRefreshInterval() {
+        return compactionPurgeRefreshInterval;
+    }
+    @Override
+    public int getCompactionResolveBlockSize() {
+        return compactionResolveBlockSize;
+    }
 
     // SQLConfiguration
     @Override
@@ -479,6 +578,22 @@ public final class SConfigurationImpl implements SConfiguration {
         return broadcastRegionRowThreshold;
     }
     @Override
+    public boolean isBroadcastOffHeapJoinTable() {
+        return broadcastOffHeapJoinTable;
+    }
+    @Override
+    public long getBroadcastCacheSize() {
+        return broadcastCacheSize;
+    }
+    @Override
+    public long getBroadcastCacheExpiration() {
+        return broadcastCacheExpiration;
+    }
+    @Override
+    public long getJoinKeyFilterMaxRows() {
+        return joinKeyFilterMaxRows;
+    }
+    @Override
     public long getOptimizerPlanMaximumTimeout() {
         return optimizerPlanMaximumTimeout;
     }
@@ -525,6 +640,18 @@ public final class SConfigurationImpl implements SConfiguration {
         return topkSize;
     }
     @Override
+    public int getHistogramBuckets() {
+        return histogramBuckets;
+    }
+    @Override
+    public double getStatsSampleFraction() {
+        return statsSampleFraction;
+    }
+    @Override
+    public double getStatsStaleRegionThreshold() {
+        return statsStaleRegionThreshold;
+    }
+    @Override
     public long getFallbackLocalLatency() {
         return fallbackLocalLatency;
     }
@@ -564,6 +691,10 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTableSplitSleepInterval() {
         return tableSplitSleepInterval;
     }
+    @Override
+    public boolean getZoneMapsEnabled() {
+        return zoneMapsEnabled;
+    }
 
     // ===========
 
@@ -582,7 +713,7 @@ public final class SConfigurationImpl implements SConfiguration {
     SConfigurationImpl(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         configSource = configurationSource;
         activeTransactionCacheSize = builder.activeTransactionCacheSize;
-        completedTxnCacheSize = builder.completedTxnCacheSize;
+        completedTxnCacheMemory = builder.completedTxnCacheMemory;
         completedTxnConcurrency = builder.completedTxnConcurrency;
         readResolverQueueSize = builder.readResolverQueueSize;
         readResolverThreads = builder.readResolverThreads;
@@ -592,7 +723,15 @@ public final class SConfigurationImpl implements SConfiguration {
         transactionLockStripes = builder.transactionLockStripes;
         transactionKeepAliveInterval = builder.transactionKeepAliveInterval;
         transactionTimeout = builder.transactionTimeout;
+        compactionPurgeVersions = builder.compactionPurgeVersions;
+        compactionPurgeRetention = builder.compactionPurgeRetention;
+        compactionPurgeRefreshInterval = builder.compactionPurgeRefreshInterval;
+        compactionResolveBlockSize = builder.compactionResolveBlockSize;
         sequenceBlockSize = builder.sequenceBlockSize;
+        controlSpillMemory = builder.controlSpillMemory;
+        controlSpillPartitions = builder.controlSpillPartitions;
+        controlSpillDirectory = builder.controlSpillDirectory;
+        aggregationBatchSize = builder.aggregationBatchSize;
         ddlDrainingInitialWait = builder.ddlDrainingInitialWait;
         ddlDrainingMaximumWait = builder.ddlDrainingMaximumWait;
         ddlRefreshInterval = builder.ddlRefreshInterval;
@@ -608,9 +747,12 @@ public final class SConfigurationImpl implements SConfiguration {
         authenticationNativeAlgorithm = builder.authenticationNativeAlgorithm;
         fallbackNullFraction = builder.fallbackNullFraction;
         optimizerExtraQualifierMultiplier = builder.optimizerExtraQualifierMultiplier;
+        statsSampleFraction = builder.statsSampleFraction;
+        statsStaleRegionThreshold = builder.statsStaleRegionThreshold;
         cardinalityPrecision = builder.cardinalityPrecision;
         fallbackRowWidth = builder.fallbackRowWidth;
         topkSize = builder.topkSize;
+        histogramBuckets = builder.histogramBuckets;
         fallbackLocalLatency = builder.fallbackLocalLatency;
         fallbackMinimumRowCount = builder.fallbackMinimumRowCount;
         fallbackOpencloseLatency = builder.fallbackOpencloseLatency;
@@ -620,6 +762,7 @@ public final class SConfigurationImpl implements SConfiguration {
         splitBlockSize = builder.splitBlockSize;
         regionMaxFileSize = builder.regionMaxFileSize;
         tableSplitSleepInterval = builder.tableSplitSleepInterval;
+        zoneMapsEnabled = builder.zoneMapsEnabled;
         regionServerHandlerCount = builder.regionServerHandlerCount;
         timestampBlockSize = builder.timestampBlockSize;
         regionLoadUpdateInterval = builder.regionLoadUpdateInterval;
@@ -645,6 +788,10 @@ public final class SConfigurationImpl implements SConfiguration {
         partitionserverPort = builder.partitionserverPort;
         broadcastRegionMbThreshold = builder.broadcastRegionMbThreshold;
         broadcastRegionRowThreshold = builder.broadcastRegionRowThreshold;
+        broadcastOffHeapJoinTable = builder.broadcastOffHeapJoinTable;
+        broadcastCacheSize = builder.broadcastCacheSize;
+        broadcastCacheExpiration = builder.broadcastCacheExpiration;
+        joinKeyFilterMaxRows = builder.joinKeyFilterMaxRows;
         optimizerPlanMaximumTimeout = builder.optimizerPlanMaximumTimeout;
         optimizerPlanMinimumTimeout = builder.optimizerPlanMinimumTimeout;
         networkBindAddress = builder.networkBindAddress;
@@ -658,6 +805,9 @@ public final class SConfigurationImpl implements SConfiguration {
         maxWriterThreads = builder.maxWriterThreads;
         pipelineKryoPoolSize = builder.pipelineKryoPoolSize;
         writeMaxFlushesPerRegion = builder.writeMaxFlushesPerRegion;
+        writeMaxWindow = builder.writeMaxWindow;
+        writeLatencyTarget = builder.writeLatencyTarget;
+        foreignKeyParentCacheSize = builder.foreignKeyParentCacheSize;
         clientPause = builder.clientPause;
         maxBufferHeapSize = builder.maxBufferHeapSize;
         startupLockWaitPeriod = builder.startupLockWaitPeriod;
@@ -669,9 +819,16 @@ public final class SConfigurationImpl implements SConfiguration {
         olapClientTickTime = builder.olapClientTickTime;
         olapServerBindPort = builder.olapServerBindPort;
         olapServerThreads = builder.olapServerThreads;
+        olapServerMaxConcurrentQueries = builder.olapServerMaxConcurrentQueries;
+        olapServerMaxConcurrentCompactions = builder.olapServerMaxConcurrentCompactions;
+        olapServerMaxConcurrentMaintenanceJobs = builder.olapServerMaxConcurrentMaintenanceJobs;
+        olapServerQueryWeight = builder.olapServerQueryWeight;
+        olapServerCompactionWeight = builder.olapServerCompactionWeight;
+        olapServerMaintenanceWeight = builder.olapServerMaintenanceWeight;
         olapServerTickLimit = builder.olapServerTickLimit;
         sparkResultStreamingBatches = builder.sparkResultStreamingBatches;
         sparkResultStreamingBatchSize = builder.sparkResultStreamingBatchSize;
+        sparkResultStreamingBufferedBatches = builder.sparkResultStreamingBufferedBatches;
         compactionReservedSlots = builder.compactionReservedSlots;
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
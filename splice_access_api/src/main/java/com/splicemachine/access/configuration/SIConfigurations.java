@@ -16,6 +16,7 @@
 package com.splicemachine.access.configuration;
 
 import com.splicemachine.primitives.Bytes;
+import org.apache.log4j.Logger;
 
 /**
  * Repository for holding configuration keys for SI.
@@ -27,11 +28,29 @@ import com.splicemachine.primitives.Bytes;
  *         Date: 12/15/15
  */
 public class SIConfigurations implements ConfigurationDefault {
+    private static final Logger LOG = Logger.getLogger(SIConfigurations.class);
+
     public static final String CONGLOMERATE_TABLE_NAME = "SPLICE_CONGLOMERATE";
     public static final byte[] CONGLOMERATE_TABLE_NAME_BYTES = Bytes.toBytes(CONGLOMERATE_TABLE_NAME);
 
+    /*
+     * The amount of heap (in bytes) which the region server may use to cache completed (committed or rolled back)
+     * transactions. The cache is shared by every scan on the server, so that each transaction only needs to be
+     * looked up once.
+     *
+     * Defaults to 64 MB
+     */
+    public static final String completedTxnCacheMemory="splice.txn.completedTxns.cacheMemory";
+    private static final long DEFAULT_COMPLETED_TRANSACTION_CACHE_MEMORY=64*1024*1024L; // want to hold lots of completed transactions
+
+    /*
+     * Deprecated: the number of completed transactions to cache. Use completedTxnCacheMemory instead. When only
+     * this key is set, it is converted to memory at the cache's estimate of the heap held per transaction
+     * (CompletedTxnCacheSupplier.ESTIMATED_ENTRY_SIZE).
+     */
+    @Deprecated
     public static final String completedTxnCacheSize="splice.txn.completedTxns.cacheSize";
-    private static final int DEFAULT_COMPLETED_TRANSACTION_CACHE_SIZE=1<<17; // want to hold lots of completed transactions
+    private static final int COMPLETED_TRANSACTION_CACHE_ENTRY_SIZE=80;
 
     public static final String completedTxnConcurrency="splice.txn.completedTxns.concurrency";
     private static final int DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY=64;
@@ -136,12 +155,52 @@ public class SIConfigurations implements ConfigurationDefault {
 
     /**
      * Number of threads used by the Olap server, determines the maximum number of concurrent
-     * Olap jobs
+     * Olap jobs. Jobs submitted beyond that are queued until a running job finishes.
      *
-     * Defaults to 16
+     * Defaults to 64
      */
     public static final String OLAP_SERVER_THREADS = "splice.olap_server.threads";
-    private static final int DEFAULT_OLAP_SERVER_THREADS = 16;
+    private static final int DEFAULT_OLAP_SERVER_THREADS = 64;
+
+    /**
+     * The maximum number of queries the Olap server runs at once. Keeping this below the number of
+     * Olap server threads guarantees that compactions and maintenance jobs (index creation, statistics
+     * collection...) are never starved by a burst of queries.
+     *
+     * Defaults to 48
+     */
+    public static final String OLAP_SERVER_MAX_CONCURRENT_QUERIES = "splice.olap_server.maxConcurrentQueries";
+    private static final int DEFAULT_OLAP_SERVER_MAX_CONCURRENT_QUERIES = 48;
+
+    /**
+     * The maximum number of compactions the Olap server runs at once.
+     *
+     * Defaults to 32
+     */
+    public static final String OLAP_SERVER_MAX_CONCURRENT_COMPACTIONS = "splice.olap_server.maxConcurrentCompactions";
+    private static final int DEFAULT_OLAP_SERVER_MAX_CONCURRENT_COMPACTIONS = 32;
+
+    /**
+     * The maximum number of maintenance jobs (index creation, table alterations, statistics collection)
+     * the Olap server runs at once.
+     *
+     * Defaults to 16
+     */
+    public static final String OLAP_SERVER_MAX_CONCURRENT_MAINTENANCE_JOBS = "splice.olap_server.maxConcurrentMaintenanceJobs";
+    private static final int DEFAULT_OLAP_SERVER_MAX_CONCURRENT_MAINTENANCE_JOBS = 16;
+
+    /**
+     * The share of the Olap server each type of job gets when jobs are queued: whenever a job finishes,
+     * the next job is taken from the type with the fewest running jobs relative to its weight.
+     *
+     * Defaults to 2 for queries, and 1 for compactions and maintenance jobs
+     */
+    public static final String OLAP_SERVER_QUERY_WEIGHT = "splice.olap_server.queryWeight";
+    private static final int DEFAULT_OLAP_SERVER_QUERY_WEIGHT = 2;
+    public static final String OLAP_SERVER_COMPACTION_WEIGHT = "splice.olap_server.compactionWeight";
+    private static final int DEFAULT_OLAP_SERVER_COMPACTION_WEIGHT = 1;
+    public static final String OLAP_SERVER_MAINTENANCE_WEIGHT = "splice.olap_server.maintenanceWeight";
+    private static final int DEFAULT_OLAP_SERVER_MAINTENANCE_WEIGHT = 1;
 
     public static final String OLAP_SERVER_TICK_LIMIT = "splice.olap_server.tickLimit";
     private static final int DEFAULT_OLAP_SERVER_TICK_LIMIT = 120;
@@ -149,10 +208,56 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
+    /**
+     * Whether compactions discard the versions of a row which no transaction can see anymore: versions
+     * shadowed by a newer version committed before the oldest active transaction began, and rows deleted
+     * before that.
+     *
+     * Read-only transactions are not recorded in the transaction table, so the oldest active transaction
+     * leaves them out. Each compacted file records the watermark it was purged with, and a read-only query
+     * running for longer than {@link #COMPACTION_PURGE_RETENTION} fails with a retryable error (SE023) when it
+     * reads a region purged after it began, rather than miss versions it should see. Only switch this on where
+     * few queries run for that long.
+     *
+     * Defaults to false
+     */
+    public static final String COMPACTION_PURGE_VERSIONS = "splice.txn.compaction.purgeVersions";
+    private static final boolean DEFAULT_COMPACTION_PURGE_VERSIONS = false;
+
+    /**
+     * How long a version stays visible to transactions after it has been superseded, in milliseconds.
+     *
+     * Only transactions which write are recorded, so compactions cannot tell which read-only transactions
+     * are still running; instead, they only purge versions which were superseded before the oldest active
+     * transaction began this long ago. Read-only transactions running for longer than this fail when they
+     * read a region which was purged after they began.
+     *
+     * Defaults to 1 hour
+     */
+    public static final String COMPACTION_PURGE_RETENTION = "splice.txn.compaction.purgeRetentionMs";
+    private static final long DEFAULT_COMPACTION_PURGE_RETENTION = 60*60*1000L;
+
+    /**
+     * How often, in milliseconds, each server looks up the oldest active transaction for compactions.
+     *
+     * Defaults to 1 minute
+     */
+    public static final String COMPACTION_PURGE_REFRESH_INTERVAL = "splice.txn.compaction.purgeRefreshIntervalMs";
+    private static final long DEFAULT_COMPACTION_PURGE_REFRESH_INTERVAL = 60*1000L;
+
+    /**
+     * The number of rows compactions read ahead, so that the transactions those rows were written by can be
+     * looked up all at once rather than one at a time.
+     *
+     * Defaults to 1024
+     */
+    public static final String COMPACTION_RESOLVE_BLOCK_SIZE = "splice.txn.compaction.resolveBlockSize";
+    private static final int DEFAULT_COMPACTION_RESOLVE_BLOCK_SIZE = 1024;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
-        builder.completedTxnCacheSize  = configurationSource.getInt(completedTxnCacheSize, DEFAULT_COMPLETED_TRANSACTION_CACHE_SIZE);
+        builder.completedTxnCacheMemory  = getCompletedTxnCacheMemory(configurationSource);
         builder.transactionKeepAliveThreads  = configurationSource.getInt(TRANSACTION_KEEP_ALIVE_THREADS, DEFAULT_KEEP_ALIVE_THREADS);
         builder.readResolverThreads  = configurationSource.getInt(READ_RESOLVER_THREADS, DEFAULT_READ_RESOLVER_THREADS);
         builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, -1); //TODO -sf- reset to DEFAULT once ReadResolution works
@@ -164,10 +269,36 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.olapClientWaitTime  = configurationSource.getInt(OLAP_CLIENT_WAIT_TIME, DEFAULT_OLAP_CLIENT_WAIT_TIME);
         builder.olapClientTickTime  = configurationSource.getInt(OLAP_CLIENT_TICK_TIME, DEFAULT_OLAP_CLIENT_TICK_TIME);
         builder.olapServerThreads = configurationSource.getInt(OLAP_SERVER_THREADS, DEFAULT_OLAP_SERVER_THREADS);
+        builder.olapServerMaxConcurrentQueries = configurationSource.getInt(OLAP_SERVER_MAX_CONCURRENT_QUERIES, DEFAULT_OLAP_SERVER_MAX_CONCURRENT_QUERIES);
+        builder.olapServerMaxConcurrentCompactions = configurationSource.getInt(OLAP_SERVER_MAX_CONCURRENT_COMPACTIONS, DEFAULT_OLAP_SERVER_MAX_CONCURRENT_COMPACTIONS);
+        builder.olapServerMaxConcurrentMaintenanceJobs = configurationSource.getInt(OLAP_SERVER_MAX_CONCURRENT_MAINTENANCE_JOBS, DEFAULT_OLAP_SERVER_MAX_CONCURRENT_MAINTENANCE_JOBS);
+        builder.olapServerQueryWeight = configurationSource.getInt(OLAP_SERVER_QUERY_WEIGHT, DEFAULT_OLAP_SERVER_QUERY_WEIGHT);
+        builder.olapServerCompactionWeight = configurationSource.getInt(OLAP_SERVER_COMPACTION_WEIGHT, DEFAULT_OLAP_SERVER_COMPACTION_WEIGHT);
+        builder.olapServerMaintenanceWeight = configurationSource.getInt(OLAP_SERVER_MAINTENANCE_WEIGHT, DEFAULT_OLAP_SERVER_MAINTENANCE_WEIGHT);
         builder.olapServerTickLimit = configurationSource.getInt(OLAP_SERVER_TICK_LIMIT,DEFAULT_OLAP_SERVER_TICK_LIMIT);
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
         builder.transactionKeepAliveInterval = configurationSource.getLong(TRANSACTION_KEEP_ALIVE_INTERVAL, DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL);
+        builder.compactionPurgeVersions = configurationSource.getBoolean(COMPACTION_PURGE_VERSIONS, DEFAULT_COMPACTION_PURGE_VERSIONS);
+        builder.compactionPurgeRetention = configurationSource.getLong(COMPACTION_PURGE_RETENTION, DEFAULT_COMPACTION_PURGE_RETENTION);
+        builder.compactionPurgeRefreshInterval = configurationSource.getLong(COMPACTION_PURGE_REFRESH_INTERVAL, DEFAULT_COMPACTION_PURGE_REFRESH_INTERVAL);
+        builder.compactionResolveBlockSize = configurationSource.getInt(COMPACTION_RESOLVE_BLOCK_SIZE, DEFAULT_COMPACTION_RESOLVE_BLOCK_SIZE);
+
+    }
 
+    @SuppressWarnings("deprecation")
+    private static long getCompletedTxnCacheMemory(ConfigurationSource configurationSource) {
+        long memory = configurationSource.getLong(completedTxnCacheMemory, -1L);
+        long legacySize = configurationSource.getLong(completedTxnCacheSize, -1L);
+        if (legacySize >= 0) {
+            if (memory >= 0) {
+                LOG.warn(String.format("%s is deprecated and is ignored in favor of %s", completedTxnCacheSize, completedTxnCacheMemory));
+            } else {
+                memory = legacySize * COMPLETED_TRANSACTION_CACHE_ENTRY_SIZE;
+                LOG.warn(String.format("%s is deprecated, use %s instead. Sizing the cache at %d bytes for %d transactions",
+                        completedTxnCacheSize, completedTxnCacheMemory, memory, legacySize));
+            }
+        }
+        return memory >= 0 ? memory : DEFAULT_COMPLETED_TRANSACTION_CACHE_MEMORY;
     }
 }
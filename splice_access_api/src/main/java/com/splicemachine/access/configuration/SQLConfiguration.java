@@ -110,6 +110,39 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String BROADCAST_REGION_ROW_THRESHOLD = "splice.optimizer.broadcastRegionRowThreshold";
     private static final int DEFAULT_BROADCAST_REGION_ROW_THRESHOLD = 1000000;
 
+    /**
+     * Whether the inner side of a broadcast join is held in an off-heap hash table of encoded rows,
+     * rather than as a map of fully materialized rows on the heap. Default is false.
+     *
+     */
+    public static final String BROADCAST_OFF_HEAP_JOIN_TABLE = "splice.execution.broadcastOffHeapJoinTable";
+    private static final boolean DEFAULT_BROADCAST_OFF_HEAP_JOIN_TABLE = false;
+
+    /**
+     * Total size (in bytes) of the broadcast join tables which may be cached on a single node. Once
+     * exceeded, the least recently used tables are evicted. Default is 1 GB.
+     *
+     */
+    public static final String BROADCAST_CACHE_SIZE = "splice.execution.broadcastCacheSize";
+    public static final long DEFAULT_BROADCAST_CACHE_SIZE = 1024L * 1024L * 1024L;
+
+    /**
+     * Time (in milliseconds) after which an unused broadcast join table is dropped from the cache,
+     * even if there is room for it. Default is 30 seconds.
+     *
+     */
+    public static final String BROADCAST_CACHE_EXPIRATION = "splice.execution.broadcastCacheExpiration";
+    public static final long DEFAULT_BROADCAST_CACHE_EXPIRATION = 30000L;
+
+    /**
+     * The largest (estimated) number of rows on the right side of a merge sort join for which
+     * the right side's join keys are summarized, and used to discard left rows before they are
+     * shuffled. A value of 0 disables the filter. Default is 10 Million rows.
+     *
+     */
+    public static final String JOIN_KEY_FILTER_MAX_ROWS = "splice.execution.joinKeyFilterMaxRows";
+    private static final long DEFAULT_JOIN_KEY_FILTER_MAX_ROWS = 10000000L;
+
     /**
      * Minimum fixed duration (in millisecomds) that should be allowed to lapse
      * before the optimizer can determine that it should stop trying to find
@@ -228,6 +261,10 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.optimizerPlanMinimumTimeout = configurationSource.getLong(OPTIMIZER_PLAN_MINIMUM_TIMEOUT, DEFAULT_OPTIMIZER_PLAN_MINIMUM_TIMEOUT);
         builder.broadcastRegionMbThreshold = configurationSource.getLong(BROADCAST_REGION_MB_THRESHOLD, DEFAULT_BROADCAST_REGION_MB_THRESHOLD);
         builder.broadcastRegionRowThreshold = configurationSource.getLong(BROADCAST_REGION_ROW_THRESHOLD, DEFAULT_BROADCAST_REGION_ROW_THRESHOLD);
+        builder.broadcastOffHeapJoinTable = configurationSource.getBoolean(BROADCAST_OFF_HEAP_JOIN_TABLE, DEFAULT_BROADCAST_OFF_HEAP_JOIN_TABLE);
+        builder.broadcastCacheSize = configurationSource.getLong(BROADCAST_CACHE_SIZE, DEFAULT_BROADCAST_CACHE_SIZE);
+        builder.broadcastCacheExpiration = configurationSource.getLong(BROADCAST_CACHE_EXPIRATION, DEFAULT_BROADCAST_CACHE_EXPIRATION);
+        builder.joinKeyFilterMaxRows = configurationSource.getLong(JOIN_KEY_FILTER_MAX_ROWS, DEFAULT_JOIN_KEY_FILTER_MAX_ROWS);
 
         //always disable debug statements by default
         builder.debugLogStatementContext = configurationSource.getBoolean(DEBUG_LOG_STATEMENT_CONTEXT, DEFAULT_LOG_STATEMENT_CONTEXT);
@@ -36,6 +36,31 @@ public class StatsConfiguration implements ConfigurationDefault {
     public static final String TOPK_SIZE = "splice.statistics.topKSize";
     public static final int DEFAULT_TOPK_PRECISION = 10;
 
+    /*
+     * The number of buckets of the equi-depth histogram to keep for each integral column in a partition. The
+     * histogram is built from a fixed-size sample of the partition (a few dozen values per bucket), and is used
+     * for range estimates in place of assuming that values are spread evenly between the min and the max. Set
+     * to 0 to stop collecting histograms.
+     */
+    public static final String HISTOGRAM_BUCKETS = "splice.statistics.histogramBuckets";
+    public static final int DEFAULT_HISTOGRAM_BUCKETS = 32;
+
+    /*
+     * The fraction of the rows of each partition to read when collecting statistics. Rows are sampled by the
+     * region scanner, before they are resolved and decoded, and each sampled row is counted as 1/fraction rows,
+     * so the fraction is rounded to the nearest 1/n. Set to 1 to read every row.
+     */
+    public static final String SAMPLE_FRACTION = "splice.statistics.sampleFraction";
+    public static final double DEFAULT_SAMPLE_FRACTION = 1d;
+
+    /*
+     * When only collecting stale statistics, the statistics of a partition are considered stale when the
+     * number of rows estimated from the current size of the partition differs from the number of rows counted
+     * at the last collection by more than this fraction. Partitions without statistics are always stale.
+     */
+    public static final String STALE_REGION_THRESHOLD = "splice.statistics.staleRegionThreshold";
+    public static final double DEFAULT_STALE_REGION_THRESHOLD = .2d;
+
     /*
      * The size of the partition statistics cache. Partitions will be evicted when the total size
      * exceeds this threshold
@@ -133,6 +158,7 @@ public class StatsConfiguration implements ConfigurationDefault {
 //        builder.indexFetchRepititionCount = configurationSource.getInt(INDEX_FETCH_REPETITION_COUNT, DEFAULT_INDEX_FETCH_REPETITION_COUNT);
         builder.indexFetchSampleSize = configurationSource.getInt(INDEX_FETCH_SAMPLE_SIZE, DEFAULT_INDEX_FETCH_SAMPLE_SIZE);
         builder.topkSize = configurationSource.getInt(TOPK_SIZE, DEFAULT_TOPK_PRECISION);
+        builder.histogramBuckets = configurationSource.getInt(HISTOGRAM_BUCKETS, DEFAULT_HISTOGRAM_BUCKETS);
         builder.cardinalityPrecision = configurationSource.getInt(CARDINALITY_PRECISION, DEFAULT_CARDINALITY_PRECISION);
 
         builder.fallbackMinimumRowCount = configurationSource.getLong(FALLBACK_MINIMUM_ROW_COUNT, DEFAULT_FALLBACK_MINIMUM_ROW_COUNT);
@@ -147,5 +173,7 @@ public class StatsConfiguration implements ConfigurationDefault {
 //        builder.fallbackCardinalityFraction = configurationSource.getDouble(FALLBACK_CARDINALITY_FRACTION, DEFAULT_FALLBACK_CARDINALITY_FRACTION);
 //        builder.fallbackIndexSelectivityFraction = configurationSource.getDouble(FALLBACK_INDEX_SELECTIVITY_FRACTION, DEFAULT_FALLBACK_INDEX_SELECTIVITY_FRACTION);
         builder.optimizerExtraQualifierMultiplier = configurationSource.getDouble(OPTIMIZER_EXTRA_QUALIFIER_MULTIPLIER, DEFAULT_OPTIMIZER_EXTRA_QUALIFIER_MULTIPLIER);
+        builder.statsSampleFraction = configurationSource.getDouble(SAMPLE_FRACTION, DEFAULT_SAMPLE_FRACTION);
+        builder.statsStaleRegionThreshold = configurationSource.getDouble(STALE_REGION_THRESHOLD, DEFAULT_STALE_REGION_THRESHOLD);
     }
 }
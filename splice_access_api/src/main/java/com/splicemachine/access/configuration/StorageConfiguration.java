@@ -37,10 +37,20 @@ public class StorageConfiguration implements ConfigurationDefault {
     public static final String SPLIT_BLOCK_SIZE = "splice.splitBlockSize";
     public static final int DEFAULT_SPLIT_BLOCK_SIZE=32*1024*1024;
 
+    /**
+     * Whether compactions record the minimum and maximum value of each scalar column in the store files they
+     * write, and scans use them to skip reading a store when none of its rows can satisfy the scan's predicates.
+     *
+     * Defaults to true.
+     */
+    public static final String ZONE_MAPS_ENABLED = "splice.storage.zoneMaps.enabled";
+    public static final boolean DEFAULT_ZONE_MAPS_ENABLED = true;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.splitBlockSize = configurationSource.getInt(SPLIT_BLOCK_SIZE, DEFAULT_SPLIT_BLOCK_SIZE);
 
         builder.tableSplitSleepInterval = configurationSource.getLong(TABLE_SPLIT_SLEEP_INTERVAL, DEFAULT_SPLIT_WAIT_INTERVAL);
+        builder.zoneMapsEnabled = configurationSource.getBoolean(ZONE_MAPS_ENABLED, DEFAULT_ZONE_MAPS_ENABLED);
     }
 }
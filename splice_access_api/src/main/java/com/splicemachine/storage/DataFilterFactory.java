@@ -35,4 +35,13 @@ public interface DataFilterFactory{
     DataFilter singleColumnEqualsValueFilter(byte[] family,byte[] qualifier,byte[] value);
 
     DataFilter allocatedFilter(byte[] localAddress);
+
+    /**
+     * Filter out a random sample of rows, keeping each row (with all of its cells) with probability
+     * {@code fraction}.
+     *
+     * @param fraction the probability of keeping a row
+     * @return a DataFilter which samples rows.
+     */
+    DataFilter samplingFilter(double fraction);
 }
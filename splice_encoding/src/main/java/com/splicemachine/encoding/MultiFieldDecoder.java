@@ -277,6 +277,49 @@ public class MultiFieldDecoder {
         return retData;
     }
 
+    /**
+     * Point {@code slice} at the encoded bytes of the next untyped field, without copying or decoding them.
+     * The slice is only valid for as long as the underlying buffer is. A null field is returned as an
+     * empty slice.
+     *
+     * This is the allocation-free counterpart to {@link #getNextRaw()}, for when the field only needs to
+     * be compared against (or copied into) something else which is encoded in the same way.
+     *
+     * @param slice the slice to point at the field
+     */
+    public void nextSlice(ByteSlice slice){
+        int start = currentOffset;
+        skip();
+        setSlice(slice,start);
+    }
+
+    /**
+     * Like {@link #nextSlice(ByteSlice)}, but for a field holding a scalar (i.e. an encoded integer type).
+     */
+    public void nextScalarSlice(ByteSlice slice){
+        int start = currentOffset;
+        skipLong();
+        setSlice(slice,start);
+    }
+
+    /**
+     * Like {@link #nextSlice(ByteSlice)}, but for a field holding a float.
+     */
+    public void nextFloatSlice(ByteSlice slice){
+        int start = currentOffset;
+        skipFloat();
+        setSlice(slice,start);
+    }
+
+    /**
+     * Like {@link #nextSlice(ByteSlice)}, but for a field holding a double.
+     */
+    public void nextDoubleSlice(ByteSlice slice){
+        int start = currentOffset;
+        skipDouble();
+        setSlice(slice,start);
+    }
+
     public boolean decodeNextBoolean() {
         return decodeNextBoolean(false);
     }
@@ -424,6 +467,22 @@ public class MultiFieldDecoder {
         currentOffset += expectedLength + 1; //not found before the end of the expectedLength
     }
     
+    /*
+     * Points the slice at the bytes between start and the terminator preceding currentOffset.
+     */
+    private void setSlice(ByteSlice slice,int start){
+        if(start<offset)
+            start = offset;
+        else if(start>data.length)
+            start = data.length;
+        int fieldLength = currentOffset-start-1;
+        if(fieldLength<0)
+            fieldLength = 0;
+        else if(start+fieldLength>data.length)
+            fieldLength = data.length-start;
+        slice.set(data,start,fieldLength);
+    }
+
     private boolean check2ByteNull(byte[] nullValue) {
         return nullValue[0] == data[currentOffset] && nullValue[1] == data[currentOffset+1];
     }
@@ -19,6 +19,9 @@ import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.utils.Pair;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import com.carrotsearch.hppc.BitSet;
 import org.spark_project.guava.base.Supplier;
 
@@ -30,6 +33,8 @@ public class EntryPredicateFilter {
     public static final EntryPredicateFilter EMPTY_PREDICATE = new EntryPredicateFilter(new BitSet());
     private BitSet fieldsToReturn;
     private boolean returnIndex;
+    private final List<ValuePredicate> predicates;
+    private final BitSet predicateColumns;
     public static EntryPredicateFilter emptyPredicate(){ return EMPTY_PREDICATE; }
 
     public EntryPredicateFilter(BitSet fieldsToReturn){
@@ -37,8 +42,22 @@ public class EntryPredicateFilter {
     }
 
     public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex){
+        this(fieldsToReturn, returnIndex, Collections.<ValuePredicate>emptyList());
+    }
+
+    /**
+     * @param predicates comparisons which are evaluated against the encoded bytes of the row, before any of its
+     *                   columns are accumulated. Only columns which are also in {@code fieldsToReturn} are
+     *                   checked, since those are the only ones for which we know which version is visible.
+     */
+    public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex, List<ValuePredicate> predicates){
         this.fieldsToReturn = fieldsToReturn;
         this.returnIndex=returnIndex;
+        this.predicates = predicates;
+        this.predicateColumns = new BitSet();
+        for(ValuePredicate predicate:predicates){
+            predicateColumns.set(predicate.getColumn());
+        }
     }
 
 		public boolean match(Indexed index,
@@ -47,6 +66,12 @@ public class EntryPredicateFilter {
 				BitSet remainingFields = accumulator.getRemainingFields();
 
 				MultiFieldDecoder decoder = decoderProvider.get();
+				/*
+				 * Check the predicates before accumulating anything, so that rows which are filtered out never
+				 * have any of their columns decoded by the accumulator.
+				 */
+				if(!predicateColumns.isEmpty() && !matchesPredicates(index,decoder,remainingFields))
+						return false;
 				for(int encodedPos =index.nextSetBit(0);
 						remainingFields.cardinality()>0 && encodedPos>=0&&encodedPos<=remainingFields.length();
 						encodedPos=index.nextSetBit(encodedPos + 1)){
@@ -105,20 +130,40 @@ public class EntryPredicateFilter {
         return new ByteEntryAccumulator(this,returnIndex,fieldsToReturn);
     }
 
+    public List<ValuePredicate> getPredicates() {
+        return predicates;
+    }
+
     public byte[] toBytes() {
         //if we dont have any distinguishing information, just send over an empty byte array
-        if(fieldsToReturn.length()==0 && !returnIndex)
+        if(fieldsToReturn.length()==0 && !returnIndex && predicates.isEmpty())
             return new byte[]{};
 
         /*
          * Format is as follows:
          * BitSet bytes
          * 1-byte returnIndex
+         * 4-byte predicate count, followed by the predicates (omitted if there are none)
          */
         byte[] bitSetBytes = Bytes.toByteArray(fieldsToReturn);
-        byte[] finalData = new byte[bitSetBytes.length+1];
+        int size = bitSetBytes.length+1;
+        if(!predicates.isEmpty()){
+            size+=4;
+            for(ValuePredicate predicate:predicates){
+                size+=predicate.encodedLength();
+            }
+        }
+        byte[] finalData = new byte[size];
         System.arraycopy(bitSetBytes,0,finalData,0,bitSetBytes.length);
         finalData[bitSetBytes.length] = returnIndex? (byte)0x01: 0x00;
+        if(!predicates.isEmpty()){
+            int offset = bitSetBytes.length+1;
+            System.arraycopy(Bytes.toBytes(predicates.size()),0,finalData,offset,4);
+            offset+=4;
+            for(ValuePredicate predicate:predicates){
+                offset = predicate.write(finalData,offset);
+            }
+        }
         return finalData;
     }
 
@@ -126,8 +171,57 @@ public class EntryPredicateFilter {
         if(data==null||data.length==0) return EMPTY_PREDICATE;
 
         Pair<BitSet,Integer> fieldsToReturn = Bytes.fromByteArray(data, 0);
-        boolean returnIndex = data[fieldsToReturn.getSecond()] > 0;
-        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex);
+        int offset = fieldsToReturn.getSecond();
+        boolean returnIndex = data[offset] > 0;
+        offset++;
+        if(offset>=data.length)
+            return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex);
+
+        int numPredicates = Bytes.toInt(data,offset);
+        offset+=4;
+        List<ValuePredicate> predicates = new ArrayList<>(numPredicates);
+        for(int i=0;i<numPredicates;i++){
+            ValuePredicate predicate = ValuePredicate.read(data,offset);
+            predicates.add(predicate);
+            offset+=predicate.encodedLength();
+        }
+        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex,predicates);
+    }
+
+    /*
+     * Walks the fields of the row up to the last column with a predicate, comparing the encoded bytes of those
+     * columns without copying or decoding them. The decoder is left where it started.
+     */
+    private boolean matchesPredicates(Indexed index,MultiFieldDecoder decoder,BitSet remainingFields){
+        int start = decoder.offset();
+        byte[] array = decoder.array();
+        long lastColumn = predicateColumns.length()-1;
+        try{
+            for(int encodedPos=index.nextSetBit(0);
+                encodedPos>=0 && encodedPos<=lastColumn;
+                encodedPos=index.nextSetBit(encodedPos+1)){
+                int offset = decoder.offset();
+                if(offset>array.length)
+                    break;
+                skipField(decoder,encodedPos,index);
+                if(!predicateColumns.get(encodedPos) || !remainingFields.get(encodedPos))
+                    continue;
+
+                int length = decoder.offset()-1-offset;
+                if(length<0)
+                    length=0;
+                else if(offset+length>array.length)
+                    length = array.length-offset;
+                for(int i=0;i<predicates.size();i++){
+                    ValuePredicate predicate = predicates.get(i);
+                    if(predicate.getColumn()==encodedPos && !predicate.match(array,offset,length))
+                        return false;
+                }
+            }
+            return true;
+        }finally{
+            decoder.seek(start);
+        }
     }
 
     private void skipField(MultiFieldDecoder decoder, int position, Indexed index) {
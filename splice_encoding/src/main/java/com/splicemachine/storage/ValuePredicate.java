@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.primitives.Bytes;
+
+/**
+ * A comparison of a column against a constant, which is evaluated on the encoded bytes of the column
+ * without decoding it.
+ * <p>
+ * This is only correct when the encoding of the column preserves the order of its values, and when equal values
+ * always have the same encoding (as is the case for the scalar encoding of integer types). Deciding that is up to
+ * whoever creates the predicate.
+ * <p>
+ * The operator and the negation have the same meaning as for a Derby
+ * {@link com.splicemachine.db.iapi.store.access.Qualifier}: the column is on the left hand side of the
+ * comparison, and the result of the comparison is flipped if {@code negate} is set. Null values are never
+ * rejected, since their treatment depends on the qualifier; they are left to the evaluation of the qualifier
+ * on the decoded row.
+ */
+public class ValuePredicate {
+    private final int column;
+    private final int operator;
+    private final boolean negate;
+    private final byte[] encodedValue;
+
+    /**
+     * @param column       the position of the column in the row
+     * @param operator     one of the {@link Orderable} {@code ORDER_OP_*} constants
+     * @param negate       whether to negate the result of the comparison
+     * @param encodedValue the constant to compare against, encoded in the same way as the column
+     */
+    public ValuePredicate(int column, int operator, boolean negate, byte[] encodedValue) {
+        this.column = column;
+        this.operator = operator;
+        this.negate = negate;
+        this.encodedValue = encodedValue;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getOperator() {
+        return operator;
+    }
+
+    public boolean isNegate() {
+        return negate;
+    }
+
+    /**
+     * @param data   the buffer holding the encoded column
+     * @param offset the start of the column
+     * @param length the length of the column, or 0 if the column is null
+     * @return false if the column does not satisfy the predicate
+     */
+    public boolean match(byte[] data, int offset, int length) {
+        if (length <= 0)
+            return true; //null, so let the qualifier decide
+        int compare = Bytes.BASE_COMPARATOR.compare(data, offset, length, encodedValue, 0, encodedValue.length);
+        boolean result;
+        switch (operator) {
+            case Orderable.ORDER_OP_LESSTHAN:
+                result = compare < 0;
+                break;
+            case Orderable.ORDER_OP_EQUALS:
+                result = compare == 0;
+                break;
+            case Orderable.ORDER_OP_LESSOREQUALS:
+                result = compare <= 0;
+                break;
+            case Orderable.ORDER_OP_GREATERTHAN:
+                result = compare > 0;
+                break;
+            case Orderable.ORDER_OP_GREATEROREQUALS:
+                result = compare >= 0;
+                break;
+            default:
+                return true; //not something we know how to evaluate
+        }
+        return negate != result;
+    }
+
+    /**
+     * @param min the smallest encoded value of the column
+     * @param max the largest encoded value of the column
+     * @return false if no value between {@code min} and {@code max} (inclusive) can satisfy the predicate
+     */
+    public boolean mayMatch(byte[] min, byte[] max) {
+        if (operator == Orderable.ORDER_OP_EQUALS && !negate) {
+            return Bytes.BASE_COMPARATOR.compare(min, encodedValue) <= 0
+                    && Bytes.BASE_COMPARATOR.compare(max, encodedValue) >= 0;
+        }
+        /*
+         * The values satisfying any other comparison (or its negation) are everything on one side of
+         * the constant, or everything but the constant itself. Either way, if any value in [min,max]
+         * satisfies it then so does one of the bounds.
+         */
+        return match(min, 0, min.length) || match(max, 0, max.length);
+    }
+
+    /**
+     * @return the size of this predicate when written by {@link #write(byte[], int)}
+     */
+    int encodedLength() {
+        return 4 + 1 + 1 + 4 + encodedValue.length;
+    }
+
+    /**
+     * Format is as follows:
+     * 4-byte column
+     * 1-byte operator
+     * 1-byte negate
+     * 4-byte value length
+     * value bytes
+     *
+     * @return the position just past the written predicate
+     */
+    int write(byte[] dest, int offset) {
+        System.arraycopy(Bytes.toBytes(column), 0, dest, offset, 4);
+        offset += 4;
+        dest[offset++] = (byte) operator;
+        dest[offset++] = negate ? (byte) 0x01 : 0x00;
+        System.arraycopy(Bytes.toBytes(encodedValue.length), 0, dest, offset, 4);
+        offset += 4;
+        System.arraycopy(encodedValue, 0, dest, offset, encodedValue.length);
+        return offset + encodedValue.length;
+    }
+
+    static ValuePredicate read(byte[] data, int offset) {
+        int column = Bytes.toInt(data, offset);
+        offset += 4;
+        int operator = data[offset++];
+        boolean negate = data[offset++] != 0x00;
+        int length = Bytes.toInt(data, offset);
+        offset += 4;
+        byte[] value = new byte[length];
+        System.arraycopy(data, offset, value, 0, length);
+        return new ValuePredicate(column, operator, negate, value);
+    }
+
+    @Override
+    public String toString() {
+        return "ValuePredicate{column=" + column + ", operator=" + operator + ", negate=" + negate +
+                ", value=" + Bytes.toHex(encodedValue) + "}";
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A summary of a set of packed rows (as written by {@link EntryEncoder}): the number of rows, and for each
+ * scalar column the smallest and largest encoded value and the number of rows in which the column has a value.
+ * <p>
+ * Because scalars are encoded in an order-preserving way, the summary can tell that none of the rows can satisfy
+ * a {@link ValuePredicate}, so that whoever holds the rows can skip reading them. Columns which are null
+ * (or missing) in any of the rows never rule anything out, since {@link ValuePredicate} leaves nulls to be
+ * decided by the qualifier.
+ * <p>
+ * Only scalar columns are summarized, as those are the only ones which {@link ValuePredicate}s are
+ * created for.
+ */
+public class ZoneMap {
+    private static final byte VERSION = 1;
+
+    private long rowCount;
+    private byte[][] min = new byte[0][];
+    private byte[][] max = new byte[0][];
+    private long[] valueCount = new long[0];
+
+    private final EntryDecoder entryDecoder = new EntryDecoder();
+    private final ByteSlice slice = new ByteSlice();
+
+    /**
+     * Add a row to the summary.
+     *
+     * @param data   the buffer holding the packed row
+     * @param offset the start of the row
+     * @param length the length of the row
+     */
+    public void update(byte[] data, int offset, int length) {
+        rowCount++;
+        if (length <= 0) return; //every column is null
+        entryDecoder.set(data, offset, length);
+        BitIndex index = entryDecoder.getCurrentIndex();
+        MultiFieldDecoder decoder = entryDecoder.get();
+        for (int pos = index.nextSetBit(0); pos >= 0; pos = index.nextSetBit(pos + 1)) {
+            if (!decoder.available())
+                break; //the remaining fields are null
+            if (!index.isScalarType(pos)) {
+                entryDecoder.seekForward(decoder, pos);
+                continue;
+            }
+            decoder.nextScalarSlice(slice);
+            if (slice.length() <= 0)
+                continue;
+            ensureCapacity(pos + 1);
+            if (min[pos] == null || Bytes.BASE_COMPARATOR.compare(slice.array(), slice.offset(), slice.length(),
+                    min[pos], 0, min[pos].length) < 0)
+                min[pos] = slice.getByteCopy();
+            if (max[pos] == null || Bytes.BASE_COMPARATOR.compare(slice.array(), slice.offset(), slice.length(),
+                    max[pos], 0, max[pos].length) > 0)
+                max[pos] = slice.getByteCopy();
+            valueCount[pos]++;
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of rows in which the column is null, or is not a scalar
+     */
+    public long getNullCount(int column) {
+        return column < valueCount.length ? rowCount - valueCount[column] : rowCount;
+    }
+
+    /**
+     * @return the smallest encoded value of the column, or null if the column has no scalar values
+     */
+    public byte[] getMin(int column) {
+        return column < min.length ? min[column] : null;
+    }
+
+    /**
+     * @return the largest encoded value of the column, or null if the column has no scalar values
+     */
+    public byte[] getMax(int column) {
+        return column < max.length ? max[column] : null;
+    }
+
+    /**
+     * @param predicates predicates which a row has to satisfy all of
+     * @return false if none of the summarized rows can satisfy all of the predicates
+     */
+    public boolean mayMatch(List<ValuePredicate> predicates) {
+        if (rowCount == 0)
+            return false;
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < predicates.size(); i++) {
+            ValuePredicate predicate = predicates.get(i);
+            int column = predicate.getColumn();
+            if (getNullCount(column) > 0)
+                continue; //a null might satisfy the qualifier, so we can't rule the rows out
+            if (!predicate.mayMatch(min[column], max[column]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Format is as follows:
+     * 1-byte version
+     * 8-byte row count
+     * 4-byte number of columns
+     * for each column:
+     *  8-byte count of values
+     *  4-byte length of the minimum, followed by the minimum (if the count is not 0)
+     *  4-byte length of the maximum, followed by the maximum (if the count is not 0)
+     */
+    public byte[] toBytes() {
+        int size = 1 + 8 + 4;
+        for (int i = 0; i < valueCount.length; i++) {
+            size += 8;
+            if (valueCount[i] > 0)
+                size += 4 + min[i].length + 4 + max[i].length;
+        }
+        byte[] data = new byte[size];
+        data[0] = VERSION;
+        Bytes.toBytes(rowCount, data, 1);
+        Bytes.toBytes(valueCount.length, data, 9);
+        int offset = 13;
+        for (int i = 0; i < valueCount.length; i++) {
+            Bytes.toBytes(valueCount[i], data, offset);
+            offset += 8;
+            if (valueCount[i] > 0) {
+                offset = writeValue(min[i], data, offset);
+                offset = writeValue(max[i], data, offset);
+            }
+        }
+        return data;
+    }
+
+    public static ZoneMap fromBytes(byte[] data) {
+        if (data[0] != VERSION)
+            throw new IllegalArgumentException("Unknown zone map version " + data[0]);
+        ZoneMap zoneMap = new ZoneMap();
+        zoneMap.rowCount = Bytes.toLong(data, 1);
+        int numColumns = Bytes.toInt(data, 9);
+        zoneMap.ensureCapacity(numColumns);
+        int offset = 13;
+        for (int i = 0; i < numColumns; i++) {
+            zoneMap.valueCount[i] = Bytes.toLong(data, offset);
+            offset += 8;
+            if (zoneMap.valueCount[i] > 0) {
+                zoneMap.min[i] = readValue(data, offset);
+                offset += 4 + zoneMap.min[i].length;
+                zoneMap.max[i] = readValue(data, offset);
+                offset += 4 + zoneMap.max[i].length;
+            }
+        }
+        return zoneMap;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ZoneMap{rowCount=").append(rowCount);
+        for (int i = 0; i < valueCount.length; i++) {
+            if (valueCount[i] == 0) continue;
+            sb.append(", ").append(i).append("=[").append(Bytes.toHex(min[i])).append(",")
+                    .append(Bytes.toHex(max[i])).append("] nulls=").append(rowCount - valueCount[i]);
+        }
+        return sb.append("}").toString();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void ensureCapacity(int numColumns) {
+        if (valueCount.length >= numColumns) return;
+        min = Arrays.copyOf(min, numColumns);
+        max = Arrays.copyOf(max, numColumns);
+        valueCount = Arrays.copyOf(valueCount, numColumns);
+    }
+
+    private static int writeValue(byte[] value, byte[] dest, int offset) {
+        Bytes.toBytes(value.length, dest, offset);
+        offset += 4;
+        System.arraycopy(value, 0, dest, offset, value.length);
+        return offset + value.length;
+    }
+
+    private static byte[] readValue(byte[] data, int offset) {
+        int length = Bytes.toInt(data, offset);
+        return Arrays.copyOfRange(data, offset + 4, offset + 4 + length);
+    }
+}
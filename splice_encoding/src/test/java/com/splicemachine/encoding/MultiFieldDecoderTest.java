@@ -16,6 +16,7 @@
 package com.splicemachine.encoding;
 
 import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.ByteSlice;
 import org.junit.Test;
 import java.math.BigDecimal;
 import static org.junit.Assert.*;
@@ -263,4 +264,32 @@ public class MultiFieldDecoderTest {
         assertEquals("E", d.decodeNextString());
         assertEquals("E", d.decodeNextString());
     }
+
+    @Test
+    public void slicesAreViewsOfTheEncodedFields() {
+        MultiFieldEncoder encoder = MultiFieldEncoder.create(5);
+        encoder.encodeNext("hello");
+        encoder.encodeNext(-12345L);
+        encoder.encodeEmpty();
+        encoder.encodeNext(2.5f);
+        encoder.encodeNext(new BigDecimal("3.14"));
+        byte[] bytes = encoder.build();
+
+        MultiFieldDecoder decoder = MultiFieldDecoder.wrap(bytes);
+        ByteSlice slice = new ByteSlice();
+
+        decoder.nextSlice(slice);
+        assertSame(bytes, slice.array());
+        assertEquals("hello", Encoding.decodeString(slice.array(), slice.offset(), slice.length(), false));
+        decoder.nextScalarSlice(slice);
+        assertEquals(-12345L, Encoding.decodeLong(slice.array(), slice.offset(), false));
+        assertArrayEquals(Encoding.encode(-12345L), slice.getByteCopy());
+        decoder.nextSlice(slice);
+        assertEquals(0, slice.length());
+        decoder.nextFloatSlice(slice);
+        assertEquals(2.5f, Encoding.decodeFloat(slice.array(), slice.offset(), false), 0f);
+        decoder.nextSlice(slice);
+        assertEquals(new BigDecimal("3.14"), Encoding.decodeBigDecimal(slice.array(), slice.offset(), slice.length(), false));
+        assertFalse(decoder.available());
+    }
 }
@@ -16,6 +16,8 @@
 package com.splicemachine.storage;
 
 import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.storage.index.BitIndex;
 import com.splicemachine.storage.index.BitIndexing;
@@ -23,6 +25,8 @@ import com.splicemachine.utils.kryo.KryoPool;
 import org.junit.Assert;
 import org.junit.Test;
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * @author Scott Fines
@@ -140,4 +144,95 @@ public class EntryPredicateFilterTest {
         Assert.assertEquals("Incorrect string returned!",testType1,decodedField);
         Assert.assertTrue("more than one field available in field decoder!",fieldDecoder.nextIsNull());
     }
+
+    @Test
+    public void testValuePredicatesAreEvaluatedOnEncodedColumns() throws Exception {
+        BitSet fieldsToReturn = new BitSet(2);
+        fieldsToReturn.set(0);
+        fieldsToReturn.set(1);
+        byte[] data = encodeScalarAndString(42L, "test");
+
+        Assert.assertTrue("= 42 did not match!",
+                matches(fieldsToReturn, new ValuePredicate(0, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(42L)), data));
+        Assert.assertFalse("= 41 matched!",
+                matches(fieldsToReturn, new ValuePredicate(0, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(41L)), data));
+        Assert.assertTrue("< 1000 did not match!",
+                matches(fieldsToReturn, new ValuePredicate(0, Orderable.ORDER_OP_LESSTHAN, false, Encoding.encode(1000L)), data));
+        Assert.assertFalse("> -5 negated matched!",
+                matches(fieldsToReturn, new ValuePredicate(0, Orderable.ORDER_OP_GREATERTHAN, true, Encoding.encode(-5L)), data));
+        //predicates on columns which are not returned are ignored
+        fieldsToReturn.clear(0);
+        Assert.assertTrue("predicate on a column which is not returned was applied!",
+                matches(fieldsToReturn, new ValuePredicate(0, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(41L)), data));
+    }
+
+    @Test
+    public void testRejectedRowsAccumulateNothing() throws Exception {
+        BitSet fieldsToReturn = new BitSet(2);
+        fieldsToReturn.set(0);
+        fieldsToReturn.set(1);
+        EntryPredicateFilter predicateFilter = new EntryPredicateFilter(fieldsToReturn, true,
+                Collections.singletonList(new ValuePredicate(1, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(7L))));
+
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(encodeScalarAndScalar(3L, 8L));
+        ByteEntryAccumulator accumulator = (ByteEntryAccumulator) predicateFilter.newAccumulator();
+        Assert.assertFalse("did not reject!", predicateFilter.match(decoder, accumulator));
+        Assert.assertNull("accumulated a column of a rejected row!", accumulator.getField(0, false));
+    }
+
+    @Test
+    public void testValuePredicatesAreSerialized() throws Exception {
+        BitSet fieldsToReturn = new BitSet(3);
+        fieldsToReturn.set(0);
+        fieldsToReturn.set(2);
+        EntryPredicateFilter predicateFilter = new EntryPredicateFilter(fieldsToReturn, false, Arrays.asList(
+                new ValuePredicate(0, Orderable.ORDER_OP_LESSOREQUALS, true, Encoding.encode(10L)),
+                new ValuePredicate(2, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(-3L))));
+
+        EntryPredicateFilter copy = EntryPredicateFilter.fromBytes(predicateFilter.toBytes());
+        Assert.assertFalse(copy.indexReturned());
+        Assert.assertEquals(2, copy.getPredicates().size());
+        for (int i = 0; i < 2; i++) {
+            ValuePredicate expected = predicateFilter.getPredicates().get(i);
+            ValuePredicate actual = copy.getPredicates().get(i);
+            Assert.assertEquals(expected.toString(), actual.toString());
+        }
+        //the old format without predicates still reads
+        Assert.assertTrue(EntryPredicateFilter.fromBytes(new EntryPredicateFilter(fieldsToReturn, true).toBytes())
+                .getPredicates().isEmpty());
+    }
+
+    private static boolean matches(BitSet fieldsToReturn, ValuePredicate predicate, byte[] data) throws Exception {
+        EntryPredicateFilter predicateFilter = new EntryPredicateFilter(fieldsToReturn, true,
+                Collections.singletonList(predicate));
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(data);
+        return predicateFilter.match(decoder, predicateFilter.newAccumulator());
+    }
+
+    private static byte[] encodeScalarAndString(long scalar, String string) throws Exception {
+        BitIndex index = scalarIndex(false);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool, index);
+        encoder.getEntryEncoder().encodeNext(scalar).encodeNext(string);
+        return encoder.encode();
+    }
+
+    private static byte[] encodeScalarAndScalar(long first, long second) throws Exception {
+        BitIndex index = scalarIndex(true);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool, index);
+        encoder.getEntryEncoder().encodeNext(first).encodeNext(second);
+        return encoder.encode();
+    }
+
+    private static BitIndex scalarIndex(boolean bothScalar) {
+        BitSet setCols = new BitSet(2);
+        setCols.set(0);
+        setCols.set(1);
+        BitSet scalarFields = new BitSet(2);
+        scalarFields.set(0);
+        if (bothScalar)
+            scalarFields.set(1);
+        return BitIndexing.getBestIndex(setCols, scalarFields, new BitSet(2), new BitSet(2));
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.storage.index.BitIndexing;
+import com.splicemachine.utils.kryo.KryoPool;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Compares the throughput of decoding a wide (50 column) row into DataValueDescriptors eagerly, and then
+ * evaluating a predicate on the decoded row, with evaluating the predicate on the encoded row through an
+ * {@link EntryPredicateFilter} and decoding only the projected columns of the rows which qualify.
+ *
+ * The table has 10 BIGINT, 20 VARCHAR and 20 DECIMAL columns; the predicate is an equality on the first BIGINT
+ * column which selects 10% of the rows, and 3 columns are projected.
+ *
+ * Run the main method, optionally with the number of rows and the number of iterations as arguments.
+ */
+public class WideRowDecodingMicroBenchmark {
+    private static final int NUM_COLUMNS = 50;
+    private static final int NUM_SCALARS = 10;
+    private static final int NUM_STRINGS = 20;
+    private static final int[] PROJECTION = new int[]{0, NUM_SCALARS, NUM_SCALARS + NUM_STRINGS};
+    private static final long SELECTED = 3L;
+
+    public static void main(String... args) throws Exception {
+        int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        byte[][] rows = buildRows(numRows, new Random(0L));
+        DataValueDescriptor[] template = newTemplate();
+
+        //warm up both paths before timing either
+        for (int i = 0; i < 5; i++) {
+            eager(rows, template);
+            late(rows, template);
+        }
+
+        long eagerNanos = 0L, lateNanos = 0L;
+        long eagerCount = 0L, lateCount = 0L;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            eagerCount += eager(rows, template);
+            eagerNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            lateCount += late(rows, template);
+            lateNanos += System.nanoTime() - start;
+        }
+        if (eagerCount != lateCount)
+            throw new IllegalStateException("Paths disagree: " + eagerCount + " != " + lateCount);
+
+        double eagerRate = (double) numRows * iterations / (eagerNanos / 1e9d);
+        double lateRate = (double) numRows * iterations / (lateNanos / 1e9d);
+        System.out.printf("rows=%d, iterations=%d, qualified=%d%n", numRows, iterations, eagerCount / iterations);
+        System.out.printf("eager decode: %.0f rows/s%n", eagerRate);
+        System.out.printf("encoded predicate + late decode: %.0f rows/s%n", lateRate);
+        System.out.printf("speedup: %.2fx%n", lateRate / eagerRate);
+    }
+
+    /*
+     * Decode every column of every row, then apply the predicate to the decoded value.
+     */
+    private static long eager(byte[][] rows, DataValueDescriptor[] template) throws Exception {
+        EntryDecoder entryDecoder = new EntryDecoder();
+        long qualified = 0L;
+        for (byte[] row : rows) {
+            entryDecoder.set(row);
+            MultiFieldDecoder decoder = entryDecoder.getEntryDecoder();
+            for (int col = 0; col < NUM_COLUMNS; col++) {
+                if (col < NUM_SCALARS)
+                    template[col].setValue(decoder.decodeNextLong());
+                else if (col < NUM_SCALARS + NUM_STRINGS)
+                    template[col].setValue(decoder.decodeNextString());
+                else
+                    template[col].setBigDecimal(decoder.decodeNextBigDecimal());
+            }
+            if (template[0].getLong() == SELECTED)
+                qualified++;
+        }
+        return qualified;
+    }
+
+    /*
+     * Let the predicate filter reject rows on their encoded bytes, and materialize only the projected
+     * columns of the rows which it lets through.
+     */
+    private static long late(byte[][] rows, DataValueDescriptor[] template) throws Exception {
+        BitSet fieldsToReturn = new BitSet(NUM_COLUMNS);
+        for (int col : PROJECTION) {
+            fieldsToReturn.set(col);
+        }
+        EntryPredicateFilter filter = new EntryPredicateFilter(fieldsToReturn, false, Collections.singletonList(
+                new ValuePredicate(0, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(SELECTED))));
+        MaterializingAccumulator accumulator = new MaterializingAccumulator(filter, fieldsToReturn, template);
+        EntryDecoder entryDecoder = new EntryDecoder();
+        long qualified = 0L;
+        for (byte[] row : rows) {
+            entryDecoder.set(row);
+            accumulator.reset();
+            if (filter.match(entryDecoder, accumulator))
+                qualified++;
+        }
+        return qualified;
+    }
+
+    private static byte[][] buildRows(int numRows, Random random) throws Exception {
+        BitSet setCols = new BitSet(NUM_COLUMNS);
+        BitSet scalarFields = new BitSet(NUM_COLUMNS);
+        for (int col = 0; col < NUM_COLUMNS; col++) {
+            setCols.set(col);
+            if (col < NUM_SCALARS)
+                scalarFields.set(col);
+        }
+        BitIndex index = BitIndexing.getBestIndex(setCols, scalarFields, new BitSet(), new BitSet());
+        EntryEncoder encoder = EntryEncoder.create(new KryoPool(100), index);
+
+        byte[][] rows = new byte[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            MultiFieldEncoder fields = encoder.getEntryEncoder();
+            fields.reset();
+            for (int col = 0; col < NUM_COLUMNS; col++) {
+                if (col == 0)
+                    fields.encodeNext((long) (i % 10));
+                else if (col < NUM_SCALARS)
+                    fields.encodeNext(random.nextLong());
+                else if (col < NUM_SCALARS + NUM_STRINGS)
+                    fields.encodeNext("value-" + random.nextInt() + "-" + col);
+                else
+                    fields.encodeNext(BigDecimal.valueOf(random.nextInt(), 2));
+            }
+            rows[i] = encoder.encode();
+        }
+        return rows;
+    }
+
+    private static DataValueDescriptor[] newTemplate() {
+        DataValueDescriptor[] template = new DataValueDescriptor[NUM_COLUMNS];
+        for (int col = 0; col < NUM_COLUMNS; col++) {
+            if (col < NUM_SCALARS)
+                template[col] = new SQLLongint();
+            else if (col < NUM_SCALARS + NUM_STRINGS)
+                template[col] = new SQLVarchar();
+            else
+                template[col] = new SQLDecimal();
+        }
+        return template;
+    }
+
+    /*
+     * Decodes the accumulated columns into the template row, as the ExecRowAccumulator does during a scan.
+     */
+    private static class MaterializingAccumulator extends ByteEntryAccumulator {
+        private final DataValueDescriptor[] template;
+
+        MaterializingAccumulator(EntryPredicateFilter filter, BitSet fieldsToCollect, DataValueDescriptor[] template) {
+            super(filter, false, fieldsToCollect);
+            this.template = template;
+        }
+
+        @Override
+        protected void occupy(int position, byte[] data, int offset, int length) {
+            try {
+                if (position < NUM_SCALARS + NUM_STRINGS)
+                    template[position].setValue(Encoding.decodeString(data, offset, length, false));
+                else
+                    template[position].setBigDecimal(Encoding.decodeBigDecimal(data, offset, length, false));
+            } catch (StandardException e) {
+                throw new RuntimeException(e);
+            }
+            super.occupy(position, data, offset, length);
+        }
+
+        @Override
+        protected void occupyScalar(int position, byte[] data, int offset, int length) {
+            try {
+                template[position].setValue(Encoding.decodeLong(data, offset, false));
+            } catch (StandardException e) {
+                throw new RuntimeException(e);
+            }
+            super.occupyScalar(position, data, offset, length);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.storage.index.BitIndexing;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ZoneMapTest {
+    private static final KryoPool defaultPool = new KryoPool(100);
+
+    @Test
+    public void testTracksMinAndMaxOfScalarColumns() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        for (long i = -5; i <= 20; i++) {
+            byte[] row = row(i, "value" + i, i * 1000);
+            zoneMap.update(row, 0, row.length);
+        }
+        Assert.assertEquals(26, zoneMap.getRowCount());
+        Assert.assertArrayEquals(Encoding.encode(-5L), zoneMap.getMin(0));
+        Assert.assertArrayEquals(Encoding.encode(20L), zoneMap.getMax(0));
+        Assert.assertArrayEquals(Encoding.encode(-5000L), zoneMap.getMin(2));
+        Assert.assertArrayEquals(Encoding.encode(20000L), zoneMap.getMax(2));
+        Assert.assertNull("Summarized an untyped column!", zoneMap.getMin(1));
+        Assert.assertEquals(0, zoneMap.getNullCount(0));
+        Assert.assertEquals(26, zoneMap.getNullCount(1));
+    }
+
+    @Test
+    public void testRulesOutRowsOutsideOfRange() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        for (long i = 10; i <= 20; i++) {
+            byte[] row = row(i, "value", i);
+            zoneMap.update(row, 0, row.length);
+        }
+        Assert.assertFalse(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_EQUALS, false, 9L)));
+        Assert.assertTrue(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_EQUALS, false, 15L)));
+        Assert.assertFalse(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_LESSTHAN, false, 10L)));
+        Assert.assertTrue(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_LESSOREQUALS, false, 10L)));
+        Assert.assertFalse(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_GREATERTHAN, false, 20L)));
+        Assert.assertTrue(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_GREATEROREQUALS, false, 20L)));
+        //negated LESSTHAN is >=
+        Assert.assertFalse(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_LESSTHAN, true, 21L)));
+        Assert.assertTrue(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_EQUALS, true, 15L)));
+
+        //all predicates have to be satisfiable
+        List<ValuePredicate> both = Arrays.asList(
+                new ValuePredicate(0, Orderable.ORDER_OP_GREATEROREQUALS, false, Encoding.encode(15L)),
+                new ValuePredicate(2, Orderable.ORDER_OP_LESSTHAN, false, Encoding.encode(0L)));
+        Assert.assertFalse(zoneMap.mayMatch(both));
+    }
+
+    @Test
+    public void testNegatedEqualityOnConstantColumn() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        for (int i = 0; i < 5; i++) {
+            byte[] row = row(7L, "value", 1L);
+            zoneMap.update(row, 0, row.length);
+        }
+        Assert.assertFalse(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_EQUALS, true, 7L)));
+        Assert.assertTrue(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_EQUALS, true, 8L)));
+    }
+
+    @Test
+    public void testNullsNeverRuleOutRows() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        byte[] row = row(10L, "value", 10L);
+        zoneMap.update(row, 0, row.length);
+        //a row which doesn't have column 0
+        BitSet setCols = new BitSet(3);
+        setCols.set(1);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,
+                BitIndexing.getBestIndex(setCols, new BitSet(), new BitSet(), new BitSet()));
+        encoder.getEntryEncoder().encodeNext("value");
+        row = encoder.encode();
+        zoneMap.update(row, 0, row.length);
+
+        Assert.assertEquals(1, zoneMap.getNullCount(0));
+        Assert.assertTrue(zoneMap.mayMatch(predicates(Orderable.ORDER_OP_EQUALS, false, 5L)));
+        Assert.assertTrue("Ruled out a column which is not in the map!", zoneMap.mayMatch(
+                Collections.singletonList(new ValuePredicate(5, Orderable.ORDER_OP_EQUALS, false, Encoding.encode(5L)))));
+    }
+
+    @Test
+    public void testEmptyMapMatchesNothing() throws Exception {
+        Assert.assertFalse(new ZoneMap().mayMatch(predicates(Orderable.ORDER_OP_EQUALS, true, 1L)));
+    }
+
+    @Test
+    public void testSerializesAndDeserializes() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        Random random = new Random(0L);
+        for (int i = 0; i < 100; i++) {
+            byte[] row = row(random.nextLong(), "value" + i, random.nextInt());
+            zoneMap.update(row, 0, row.length);
+        }
+        ZoneMap copy = ZoneMap.fromBytes(zoneMap.toBytes());
+        Assert.assertEquals(zoneMap.getRowCount(), copy.getRowCount());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertArrayEquals(zoneMap.getMin(i), copy.getMin(i));
+            Assert.assertArrayEquals(zoneMap.getMax(i), copy.getMax(i));
+            Assert.assertEquals(zoneMap.getNullCount(i), copy.getNullCount(i));
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static List<ValuePredicate> predicates(int operator, boolean negate, long value) {
+        return Collections.singletonList(new ValuePredicate(0, operator, negate, Encoding.encode(value)));
+    }
+
+    private static byte[] row(long first, String second, long third) throws Exception {
+        BitSet setCols = new BitSet(3);
+        setCols.set(0);
+        setCols.set(1);
+        setCols.set(2);
+        BitSet scalarFields = new BitSet(3);
+        scalarFields.set(0);
+        scalarFields.set(2);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,
+                BitIndexing.getBestIndex(setCols, scalarFields, new BitSet(), new BitSet()));
+        encoder.getEntryEncoder().encodeNext(first).encodeNext(second).encodeNext(third);
+        return encoder.encode();
+    }
+}
@@ -33,6 +33,7 @@ import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.SqlExceptionFactory;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.concurrent.Clock;
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.store.access.conglomerate.TransactionManager;
 import com.splicemachine.ddl.DDLMessage.DDLChange;
 import com.splicemachine.si.api.filter.TransactionReadController;
@@ -167,6 +168,11 @@ public class AsynchronousDDLWatcher implements DDLWatcher,CommunicationListener{
         return refresher.canUseCache(xact_mgr);
     }
 
+    @Override
+    public boolean canUseCache(TransactionManager xact_mgr,UUID tableId){
+        return refresher.canUseCache(xact_mgr,tableId);
+    }
+
     @Override
     public boolean canUseSPSCache(TransactionManager txnMgr){
         return refresher.canUseSPSCache(txnMgr);
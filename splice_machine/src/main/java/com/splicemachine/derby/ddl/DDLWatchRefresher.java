@@ -17,10 +17,13 @@ package com.splicemachine.derby.ddl;
 
 import com.splicemachine.SqlExceptionFactory;
 import com.splicemachine.concurrent.Clock;
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.store.access.conglomerate.TransactionManager;
 import com.splicemachine.ddl.DDLMessage.*;
+import com.splicemachine.derby.DerbyMessage;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
+import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.si.api.filter.TransactionReadController;
 import com.splicemachine.si.api.txn.TxnSupplier;
@@ -44,6 +47,11 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class DDLWatchRefresher{
     private static final Logger LOG=Logger.getLogger(DDLWatchRefresher.class);
+    /*
+     * The number of tables with their own demarcation point. Beyond it they are folded into the global one,
+     * which is safe but makes older transactions bypass the caches of every table.
+     */
+    private static final int MAX_TABLE_DEMARCATION_POINTS=1024;
     private final Set<String> seenDDLChanges;
     private final Map<String, Long> changeTimeouts;
     private final Map<String, DDLChange> currentDDLChanges;
@@ -54,6 +62,13 @@ public class DDLWatchRefresher{
     private final TransactionReadController txController;
     private final long maxDdlWaitMs;
     private final AtomicInteger currChangeCount= new AtomicInteger(0);
+    /*
+     * DDL which only affects known tables doesn't count towards currChangeCount and the global demarcation
+     * point, so that it only makes the caches of those tables unusable
+     */
+    private final Map<UUID, Integer> tablesInFlight;
+    private final Map<UUID, DDLFilter> tableDemarcationPoints;
+    private final AtomicReference<DDLFilter> latestTableDemarcationPoint;
     private final SqlExceptionFactory exceptionFactory;
     private final TxnSupplier txnSupplier;
 
@@ -76,6 +91,9 @@ public class DDLWatchRefresher{
         this.exceptionFactory =exceptionFactory;
         this.txnSupplier = txnSupplier;
         ddlDemarcationPoint = new AtomicReference<>();
+        this.tablesInFlight=new ConcurrentHashMap<>();
+        this.tableDemarcationPoints=new ConcurrentHashMap<>();
+        this.latestTableDemarcationPoint=new AtomicReference<>();
     }
 
     public Collection<DDLChange> tentativeDDLChanges(){
@@ -165,7 +183,15 @@ public class DDLWatchRefresher{
     }
 
     public boolean canUseCache(TransactionManager xact_mgr) {
-        return cacheIsValid() && canSeeDDLDemarcationPoint(xact_mgr);
+        return cacheIsValid() && canSeeDDLDemarcationPoint(ddlDemarcationPoint.get(),xact_mgr);
+    }
+
+    public boolean canUseCache(TransactionManager xact_mgr,UUID tableId) {
+        if(!canUseCache(xact_mgr))
+            return false;
+        if(tableId==null)
+            return tablesInFlight.isEmpty() && canSeeDDLDemarcationPoint(latestTableDemarcationPoint.get(),xact_mgr);
+        return !tablesInFlight.containsKey(tableId) && canSeeDDLDemarcationPoint(tableDemarcationPoints.get(tableId),xact_mgr);
     }
 
     /* ****************************************************************************************************************/
@@ -173,7 +199,11 @@ public class DDLWatchRefresher{
 
     private void processPreCommitChange(DDLChange ddlChange,
                                         Collection<DDLWatcher.DDLListener> ddlListeners) throws StandardException {
-        currChangeCount.incrementAndGet();
+        List<UUID> tables=changedTables(ddlChange);
+        if(tables==null)
+            currChangeCount.incrementAndGet();
+        else
+            tablesStarted(tables);
         tentativeDDLS.put(ddlChange.getChangeId(),ddlChange);
         for(DDLWatcher.DDLListener listener:ddlListeners){
             listener.startChange(ddlChange);
@@ -193,15 +223,19 @@ public class DDLWatchRefresher{
                 LOG.debug("Removing change with id " + entry);
                 changeTimeouts.remove(entry);
                 currentDDLChanges.remove(entry);
-                currChangeCount.decrementAndGet();
                 DDLChange ddlChange = tentativeDDLS.remove(entry);
+                List<UUID> tables=ddlChange==null?null:changedTables(ddlChange);
+                if(tables==null)
+                    currChangeCount.decrementAndGet();
+                else
+                    tablesFinished(tables);
                 iterator.remove();
                 if(ddlChange!=null){
                     /*
                      * If the change isn't in tentativeDDLs, then it's already been processed, and we don't
                      * have to worry about it here.
                      */
-                    assignDDLDemarcationPoint(ddlChange);
+                    assignDDLDemarcationPoint(ddlChange,tables);
                     // notify access manager
                     for(DDLWatcher.DDLListener listener : ddlListeners){
                         listener.changeSuccessful(entry,ddlChange);
@@ -212,13 +246,25 @@ public class DDLWatchRefresher{
     }
 
 
-    private void assignDDLDemarcationPoint(DDLChange ddlChange) {
+    private void assignDDLDemarcationPoint(DDLChange ddlChange,List<UUID> tables) {
         try {
             TxnView txn = new LazyTxnView(ddlChange.getTxnId(),txnSupplier,exceptionFactory);
             assert txn.allowsWrites(): "DDLChange "+ddlChange+" does not have a writable transaction";
             DDLFilter ddlFilter = txController.newDDLFilter(txn);
-            if (ddlFilter.compareTo(ddlDemarcationPoint.get()) > 0) {
-                ddlDemarcationPoint.set(ddlFilter);
+            if(tables==null){
+                advance(ddlDemarcationPoint,ddlFilter);
+                return;
+            }
+            for(UUID table : tables){
+                DDLFilter current=tableDemarcationPoints.get(table);
+                if(current==null || ddlFilter.compareTo(current)>0)
+                    tableDemarcationPoints.put(table,ddlFilter);
+            }
+            advance(latestTableDemarcationPoint,ddlFilter);
+            if(tableDemarcationPoints.size()>MAX_TABLE_DEMARCATION_POINTS){
+                // advance the global point first, so that no table is ever left without one
+                advance(ddlDemarcationPoint,latestTableDemarcationPoint.get());
+                tableDemarcationPoints.clear();
             }
         } catch (IOException e) {
             LOG.error("Couldn't create ddlFilter", e);
@@ -226,6 +272,82 @@ public class DDLWatchRefresher{
 
     }
 
+    private static void advance(AtomicReference<DDLFilter> demarcationPoint,DDLFilter ddlFilter){
+        if (ddlFilter.compareTo(demarcationPoint.get()) > 0) {
+            demarcationPoint.set(ddlFilter);
+        }
+    }
+
+    private void tablesStarted(List<UUID> tables){
+        synchronized(tablesInFlight){
+            for(UUID table : tables){
+                Integer count=tablesInFlight.get(table);
+                tablesInFlight.put(table,count==null?1:count+1);
+            }
+        }
+    }
+
+    private void tablesFinished(List<UUID> tables){
+        synchronized(tablesInFlight){
+            for(UUID table : tables){
+                Integer count=tablesInFlight.get(table);
+                if(count==null || count<=1)
+                    tablesInFlight.remove(table);
+                else
+                    tablesInFlight.put(table,count-1);
+            }
+        }
+    }
+
+    /**
+     * @return the tables which are the only ones affected by the change, or null if the change may affect
+     * other parts of the dictionary (or it is not known which tables it affects)
+     */
+    static List<UUID> changedTables(DDLChange change){
+        List<DerbyMessage.UUID> ids;
+        switch(change.getDdlChangeType()){
+            case ALTER_TABLE:
+                ids=change.hasAlterTable()?change.getAlterTable().getTableIdList():null;
+                break;
+            case ALTER_STATS:
+                ids=change.hasAlterStats()?change.getAlterStats().getTableIdList():null;
+                break;
+            case DROP_TABLE:
+                ids=change.hasDropTable() && change.getDropTable().hasTableId()?
+                        Collections.singletonList(change.getDropTable().getTableId()):null;
+                break;
+            case TRUNCATE_TABLE:
+                ids=change.hasTruncateTable() && change.getTruncateTable().hasTableId()?
+                        Collections.singletonList(change.getTruncateTable().getTableId()):null;
+                break;
+            case RENAME_TABLE:
+                ids=change.hasRenameTable()?Collections.singletonList(change.getRenameTable().getTableId()):null;
+                break;
+            case RENAME_COLUMN:
+                ids=change.hasRenameColumn()?Collections.singletonList(change.getRenameColumn().getTableId()):null;
+                break;
+            case RENAME_INDEX:
+                ids=change.hasRenameIndex()?Collections.singletonList(change.getRenameIndex().getTableId()):null;
+                break;
+            case CREATE_INDEX:
+                ids=change.hasTentativeIndex() && change.getTentativeIndex().getTable().hasTableUuid()?
+                        Collections.singletonList(change.getTentativeIndex().getTable().getTableUuid()):null;
+                break;
+            case DROP_INDEX:
+                ids=change.hasDropIndex()?Collections.singletonList(change.getDropIndex().getTableUUID()):null;
+                break;
+            default:
+                ids=null;
+        }
+        if(ids==null || ids.isEmpty())
+            return null;
+        List<UUID> tables=new ArrayList<>(ids.size());
+        for(DerbyMessage.UUID id : ids){
+            tables.add(ProtoUtil.getDerbyUUID(id));
+        }
+        return tables;
+    }
+
     private int killTimeouts(Set<DDLWatcher.DDLListener> listeners) {
         /*
          * Kill transactions which have been timed out.
@@ -255,10 +377,9 @@ public class DDLWatchRefresher{
         return currChangeCount.get() ==0;
     }
 
-    private boolean canSeeDDLDemarcationPoint(TransactionManager xact_mgr) {
+    private boolean canSeeDDLDemarcationPoint(DDLFilter filter,TransactionManager xact_mgr) {
         try {
             // If the transaction is older than the latest DDL operation (can't see it), bypass the cache
-            DDLFilter filter = ddlDemarcationPoint.get();
             return filter == null || filter.isVisibleBy(((SpliceTransactionManager)xact_mgr).getActiveStateTxn());
         } catch (IOException e) {
             // Stay on the safe side, assume it's not visible
@@ -16,6 +16,7 @@
 package com.splicemachine.derby.ddl;
 
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.store.access.conglomerate.TransactionManager;
 import com.splicemachine.ddl.DDLMessage;
 
@@ -74,5 +75,12 @@ public interface DDLWatcher {
 
     boolean canUseCache(TransactionManager xact_mgr);
 
+    /**
+     * @param tableId the table whose cached descriptors are about to be used, or null if it is not known
+     * @return true if no DDL is in progress on the table (or on no table at all, when it is not known), and the
+     * transaction can see the last DDL which was performed on it
+     */
+    boolean canUseCache(TransactionManager xact_mgr,UUID tableId);
+
     boolean canUseSPSCache(TransactionManager txnMgr);
 }
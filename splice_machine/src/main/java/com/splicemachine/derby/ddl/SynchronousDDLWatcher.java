@@ -25,6 +25,7 @@ import org.apache.log4j.Logger;
 import com.splicemachine.SqlExceptionFactory;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.concurrent.Clock;
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.store.access.conglomerate.TransactionManager;
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.si.api.filter.TransactionReadController;
@@ -91,6 +92,11 @@ public class SynchronousDDLWatcher implements DDLWatcher, CommunicationListener{
         return refresher.canUseCache(xact_mgr);
     }
 
+    @Override
+    public boolean canUseCache(TransactionManager xact_mgr,UUID tableId){
+        return refresher.canUseCache(xact_mgr,tableId);
+    }
+
     @Override
     public boolean canUseSPSCache(TransactionManager txnMgr){
         return refresher.canUseSPSCache(txnMgr);
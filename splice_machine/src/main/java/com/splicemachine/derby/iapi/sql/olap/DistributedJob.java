@@ -29,6 +29,16 @@ import java.util.concurrent.Callable;
  */
 public abstract class DistributedJob implements Serializable{
 
+    /**
+     * The kinds of work which the OLAP server limits and shares out separately.
+     */
+    public enum Type{
+        QUERY,
+        COMPACTION,
+        /*index creation, table alterations, statistics collection*/
+        MAINTENANCE
+    }
+
     private UUID uuid;
     private boolean submitted = false;
 
@@ -42,6 +52,20 @@ public abstract class DistributedJob implements Serializable{
 
     public abstract String getName();
 
+    /**
+     * @return the kind of work this job does
+     */
+    public Type getType(){
+        return Type.QUERY;
+    }
+
+    /**
+     * @return the user the job runs for, or {@code null} if the job is not run on behalf of a particular user.
+     */
+    public String getUserId(){
+        return null;
+    }
+
     public final String getUniqueName() {
         return getName() + "-" + uuid.toString();
     }
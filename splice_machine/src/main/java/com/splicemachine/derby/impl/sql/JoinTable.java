@@ -29,6 +29,11 @@ public interface JoinTable extends AutoCloseable{
 
     interface Factory{
         JoinTable newTable();
+
+        /**
+         * @return an estimate of the number of bytes held by this factory (and shared by the tables it creates)
+         */
+        long getMemoryUsage();
     }
 
     Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException;
@@ -644,6 +644,16 @@ public class SpliceDataDictionary extends DataDictionaryImpl{
         return ddlWatcher.canUseCache((TransactionManager)xactMgr);
     }
 
+    @Override
+    public boolean canUseCache(TransactionController xactMgr,UUID tableId) throws StandardException {
+        DDLDriver driver=DDLDriver.driver();
+        if(driver==null) return false;
+        DDLWatcher ddlWatcher=driver.ddlWatcher();
+        if(xactMgr==null)
+            xactMgr = getTransactionCompile();
+        return ddlWatcher.canUseCache((TransactionManager)xactMgr,tableId);
+    }
+
     @Override
     public boolean canUseSPSCache() throws StandardException {
         DDLDriver driver=DDLDriver.driver();
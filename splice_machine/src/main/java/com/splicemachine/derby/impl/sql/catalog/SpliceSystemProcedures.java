@@ -609,6 +609,17 @@ public class SpliceSystemProcedures extends DefaultSystemProcedureGenerator {
                     		.sqlControl(RoutineAliasInfo.NO_SQL).returnType(null).isDeterministic(false)
                     		.build());
 
+                    /*
+                     * Procedure to get the size, hit rate and load time of the data dictionary caches
+                     * on this server.
+                     */
+                    procedures.add(Procedure.newBuilder().name("SYSCS_GET_DATA_DICTIONARY_CACHE_STATISTICS")
+                            .numOutputParams(0)
+                            .numResultSets(1)
+                            .ownerClass(SpliceAdmin.class.getCanonicalName())
+                            .sqlControl(RoutineAliasInfo.NO_SQL).returnType(null).isDeterministic(false)
+                            .build());
+
                     procedures.add(Procedure.newBuilder().name("GET_ACTIVATION")
                             .numOutputParams(0)
                             .numResultSets(1)
@@ -52,6 +52,11 @@ public class DistributedAlterTableTransformJob extends DistributedJob implements
         return null;
     }
 
+    @Override
+    public Type getType() {
+        return Type.MAINTENANCE;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeLong(destConglom);
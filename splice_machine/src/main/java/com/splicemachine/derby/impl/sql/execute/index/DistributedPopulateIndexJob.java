@@ -64,6 +64,11 @@ public class DistributedPopulateIndexJob extends DistributedJob implements Exter
         return null;
     }
 
+    @Override
+    public Type getType() {
+        return Type.MAINTENANCE;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject(scanSetBuilder);
@@ -15,31 +15,63 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.access.configuration.SQLConfiguration;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.output.WriteReadUtils;
+import com.splicemachine.hbase.jmx.JMXUtils;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScan;
 import org.spark_project.guava.cache.Cache;
 import org.spark_project.guava.cache.CacheBuilder;
+import org.spark_project.guava.cache.CacheStats;
+import org.spark_project.guava.cache.RemovalCause;
+import org.spark_project.guava.cache.RemovalListener;
+import org.spark_project.guava.cache.RemovalNotification;
+import org.spark_project.guava.cache.Weigher;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
 import com.splicemachine.pipeline.Exceptions;
-import com.splicemachine.primitives.Bytes;
 import com.splicemachine.stream.Stream;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a Cache of records for use in a Broadcast Join.
  *
+ * The cache is bounded by the estimated memory used by its join tables, rather than by the number
+ * of tables, and evicts the least recently used tables first. Tables are normally private to
+ * the operation which built them, and are dropped as soon as that operation is finished with them. However,
+ * when the inner side of the join is a plain scan of a table under a read-only transaction, the
+ * join table is keyed by what was read (the conglomerate, columns, key range and transaction) instead,
+ * so that any other operation reading the same data in the same snapshot can reuse it.
+ *
  * @author Scott Fines
  *         Date: 10/27/15
  */
-public class BroadcastJoinCache{
-    private final Cache<Long,ReferenceCountingFactory> cache;
+public class BroadcastJoinCache implements BroadcastJoinCacheManagement{
+    private static volatile BroadcastJoinCache INSTANCE;
+
+    private final Cache<Object,ReferenceCountingFactory> cache;
     private final JoinTableLoader tableLoader;
+    private final long memoryBudget;
+    private final AtomicLong memoryUsage = new AtomicLong(0L);
 
     interface JoinTableLoader{
         JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,
@@ -49,26 +81,110 @@ public class BroadcastJoinCache{
     }
 
     public BroadcastJoinCache(){
-       this(ByteBufferMapTableLoader.INSTANCE);
+       this(defaultLoader());
     }
 
     public BroadcastJoinCache(JoinTableLoader tableLoader){
+        this(tableLoader,configuredBudget(),configuredExpiration());
+    }
+
+    public BroadcastJoinCache(JoinTableLoader tableLoader,long memoryBudget,long expirationMillis){
         this.tableLoader = tableLoader;
+        this.memoryBudget = memoryBudget;
+        /*
+         * Guava splits the maximum weight evenly between its segments, so with more than one segment a
+         * single table larger than budget/concurrencyLevel would be evicted as soon as it was loaded
+         */
         this.cache =CacheBuilder.newBuilder()
-                .maximumSize(1000)
-                .expireAfterAccess(2,TimeUnit.SECONDS)
-                .softValues()
+                .concurrencyLevel(1)
+                .maximumWeight(toWeight(memoryBudget))
+                .weigher(new Weigher<Object, ReferenceCountingFactory>(){
+                    @Override
+                    public int weigh(Object key,ReferenceCountingFactory value){
+                        return toWeight(value.memoryUsage);
+                    }
+                })
+                .removalListener(new RemovalListener<Object, ReferenceCountingFactory>(){
+                    @Override
+                    public void onRemoval(RemovalNotification<Object, ReferenceCountingFactory> notification){
+                        if(notification.getCause()==RemovalCause.REPLACED) return;
+                        ReferenceCountingFactory value=notification.getValue();
+                        if(value!=null)
+                            memoryUsage.addAndGet(-value.memoryUsage);
+                    }
+                })
+                .expireAfterAccess(expirationMillis,TimeUnit.MILLISECONDS)
+                .recordStats()
                 .build();
     }
 
-    public JoinTable.Factory get(Long operationId,
+    /**
+     * @return the cache shared by all broadcast joins running in this JVM
+     */
+    public static BroadcastJoinCache getInstance(){
+        BroadcastJoinCache instance=INSTANCE;
+        if(instance==null){
+            synchronized(BroadcastJoinCache.class){
+                instance=INSTANCE;
+                if(instance==null){
+                    instance=INSTANCE=new BroadcastJoinCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static void registerJMX(MBeanServer mbs) throws MalformedObjectNameException,
+            NotCompliantMBeanException,
+            InstanceAlreadyExistsException,
+            MBeanRegistrationException{
+        mbs.registerMBean(getInstance(),new ObjectName(JMXUtils.BROADCAST_JOIN_CACHE));
+    }
+
+    /**
+     * Determine the key under which the join table for {@code operation} should be cached.
+     *
+     * @return a key which identifies the rows read by the inner side, if those rows can be shared
+     * with other operations, otherwise the operation's own id.
+     */
+    public static Object cacheKey(JoinOperation operation,ExecRow outerTemplateRow) throws StandardException{
+        SpliceOperation right=operation.getRightOperation();
+        if(right.getClass()!=TableScanOperation.class)
+            return operation.getSequenceId();
+
+        TableScanOperation scan=(TableScanOperation)right;
+        TxnView txn=scan.getCurrentTransaction();
+        /*
+         * A transaction which may write could change what it sees between uses of the table, and
+         * qualifiers may depend on parameters we cannot compare, so neither can be shared
+         */
+        if(txn.allowsWrites())
+            return operation.getSequenceId();
+        Qualifier[][] qualifiers=scan.getScanInformation().getScanQualifiers();
+        if(qualifiers!=null && qualifiers.length>0)
+            return operation.getSequenceId();
+
+        DataScan dataScan=scan.getNonSIScan();
+        return new SharedTableKey(scan.getScanInformation().getConglomerateId(),
+                txn.getTxnId(),
+                dataScan.getStartKey(),
+                dataScan.getStopKey(),
+                scan.getKeyDecodingMap(),
+                scan.getRowDecodingMap(),
+                WriteReadUtils.getExecRowTypeFormatIds(scan.getExecRowDefinition()),
+                operation.getRightHashKeys(),
+                operation.getLeftHashKeys(),
+                WriteReadUtils.getExecRowTypeFormatIds(outerTemplateRow));
+    }
+
+    public JoinTable.Factory get(Object cacheKey,
                          Callable<Stream<ExecRow>> loader,
                          int[] rightHashKeys,
                          int[] leftHashKeys,
                          ExecRow leftTemplateRow) throws IOException, StandardException{
         try{
-            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
-            ReferenceCountingFactory joinTable=cache.get(operationId,callable);
+            Loader callable=new Loader(cacheKey,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
+            ReferenceCountingFactory joinTable=cache.get(cacheKey,callable);
             joinTable.refCount.incrementAndGet();
             return joinTable;
         }catch(ExecutionException e){
@@ -81,6 +197,87 @@ public class BroadcastJoinCache{
         }
     }
 
+    @Override
+    public long getHitCount(){
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount(){
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRate(){
+        return cache.stats().hitRate();
+    }
+
+    @Override
+    public long getTotalBuildTime(){
+        return TimeUnit.NANOSECONDS.toMillis(cache.stats().totalLoadTime());
+    }
+
+    @Override
+    public double getAverageBuildTime(){
+        CacheStats stats=cache.stats();
+        long loads=stats.loadCount();
+        if(loads==0) return 0d;
+        return stats.totalLoadTime()/(1000d*1000d*loads);
+    }
+
+    @Override
+    public long getEvictionCount(){
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getCachedTableCount(){
+        return cache.size();
+    }
+
+    @Override
+    public long getMemoryUsage(){
+        return memoryUsage.get();
+    }
+
+    @Override
+    public long getMemoryBudget(){
+        return memoryBudget;
+    }
+
+    @Override
+    public void invalidateAll(){
+        cache.invalidateAll();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static JoinTableLoader defaultLoader(){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver!=null && driver.getConfiguration().isBroadcastOffHeapJoinTable())
+            return OffHeapTableLoader.INSTANCE;
+        return ByteBufferMapTableLoader.INSTANCE;
+    }
+
+    private static long configuredBudget(){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver==null) return SQLConfiguration.DEFAULT_BROADCAST_CACHE_SIZE;
+        return driver.getConfiguration().getBroadcastCacheSize();
+    }
+
+    private static long configuredExpiration(){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver==null) return SQLConfiguration.DEFAULT_BROADCAST_CACHE_EXPIRATION;
+        return driver.getConfiguration().getBroadcastCacheExpiration();
+    }
+
+    /*
+     * Guava weights are ints, so we weigh in kilobytes
+     */
+    private static int toWeight(long bytes){
+        return (int)Math.min(Integer.MAX_VALUE,(bytes+1023)>>>10);
+    }
+
     private class Loader implements Callable<ReferenceCountingFactory>{
         private final JoinTableLoader loader;
         private final int[] innerHashKeys;
@@ -88,16 +285,16 @@ public class BroadcastJoinCache{
         private final ExecRow outerTemplateRow;
         private final Callable<Stream<ExecRow>> streamLoader;
 
-        private final Long operationId;
+        private final Object cacheKey;
 
-        public Loader(Long operationId,
+        public Loader(Object cacheKey,
                       JoinTableLoader loader,
                       int[] innerHashKeys,
                       int[] outerHashKeys,
                       ExecRow outerTemplateRow,
                       Callable<Stream<ExecRow>> streamLoader){
             this.loader=loader;
-            this.operationId=operationId;
+            this.cacheKey=cacheKey;
             this.innerHashKeys=innerHashKeys;
             this.outerHashKeys=outerHashKeys;
             this.outerTemplateRow=outerTemplateRow;
@@ -107,11 +304,12 @@ public class BroadcastJoinCache{
         @Override
         public ReferenceCountingFactory call() throws Exception{
             JoinTable.Factory load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
-            return new ReferenceCountingFactory(load,operationId);
+            ReferenceCountingFactory factory=new ReferenceCountingFactory(load,cacheKey);
+            memoryUsage.addAndGet(factory.memoryUsage);
+            return factory;
         }
     }
 
-
     private static class ReferenceCountedJoinTable implements JoinTable{
         private final JoinTable delegate;
         private ReferenceCountingFactory refFactory;
@@ -135,12 +333,14 @@ public class BroadcastJoinCache{
 
     private class ReferenceCountingFactory implements JoinTable.Factory{
         private final JoinTable.Factory delegate;
-        private final Long id;
+        private final Object id;
+        private final long memoryUsage;
         private AtomicInteger refCount = new AtomicInteger(0);
 
-        public ReferenceCountingFactory(JoinTable.Factory delegate,Long id){
+        public ReferenceCountingFactory(JoinTable.Factory delegate,Object id){
             this.delegate=delegate;
             this.id=id;
+            this.memoryUsage=delegate.getMemoryUsage();
         }
 
         @Override
@@ -148,10 +348,86 @@ public class BroadcastJoinCache{
             return new ReferenceCountedJoinTable(delegate.newTable(),this);
         }
 
+        @Override
+        public long getMemoryUsage(){
+            return memoryUsage;
+        }
+
         public void markClosed(){
             int refC=refCount.decrementAndGet();
-            if(refC<=0)
+            /*
+             * Shared tables stay around for the next reader, until they are evicted or expire
+             */
+            if(refC<=0 && !(id instanceof SharedTableKey))
                 cache.invalidate(id);
         }
     }
+
+    private static final class SharedTableKey{
+        private final long conglomerateId;
+        private final long txnId;
+        private final byte[] startKey;
+        private final byte[] stopKey;
+        private final int[] keyDecodingMap;
+        private final int[] rowDecodingMap;
+        private final int[] innerFormatIds;
+        private final int[] innerHashKeys;
+        private final int[] outerHashKeys;
+        private final int[] outerFormatIds;
+        private final int hashCode;
+
+        SharedTableKey(long conglomerateId,
+                       long txnId,
+                       byte[] startKey,
+                       byte[] stopKey,
+                       int[] keyDecodingMap,
+                       int[] rowDecodingMap,
+                       int[] innerFormatIds,
+                       int[] innerHashKeys,
+                       int[] outerHashKeys,
+                       int[] outerFormatIds){
+            this.conglomerateId=conglomerateId;
+            this.txnId=txnId;
+            this.startKey=startKey;
+            this.stopKey=stopKey;
+            this.keyDecodingMap=keyDecodingMap;
+            this.rowDecodingMap=rowDecodingMap;
+            this.innerFormatIds=innerFormatIds;
+            this.innerHashKeys=innerHashKeys;
+            this.outerHashKeys=outerHashKeys;
+            this.outerFormatIds=outerFormatIds;
+
+            int h=Long.hashCode(conglomerateId);
+            h=31*h+Long.hashCode(txnId);
+            h=31*h+Arrays.hashCode(startKey);
+            h=31*h+Arrays.hashCode(stopKey);
+            h=31*h+Arrays.hashCode(rowDecodingMap);
+            h=31*h+Arrays.hashCode(innerHashKeys);
+            h=31*h+Arrays.hashCode(outerHashKeys);
+            this.hashCode=h;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof SharedTableKey)) return false;
+            SharedTableKey that=(SharedTableKey)o;
+            return hashCode==that.hashCode
+                    && conglomerateId==that.conglomerateId
+                    && txnId==that.txnId
+                    && Arrays.equals(startKey,that.startKey)
+                    && Arrays.equals(stopKey,that.stopKey)
+                    && Arrays.equals(keyDecodingMap,that.keyDecodingMap)
+                    && Arrays.equals(rowDecodingMap,that.rowDecodingMap)
+                    && Arrays.equals(innerFormatIds,that.innerFormatIds)
+                    && Arrays.equals(innerHashKeys,that.innerHashKeys)
+                    && Arrays.equals(outerHashKeys,that.outerHashKeys)
+                    && Arrays.equals(outerFormatIds,that.outerFormatIds);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring the behavior of the Broadcast Join Cache.
+ */
+@MXBean
+public interface BroadcastJoinCacheManagement{
+
+    /**
+     * @return the number of times a join table was found in the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of times a join table had to be built (or waited on while another thread built it)
+     */
+    long getMissCount();
+
+    double getHitRate();
+
+    /**
+     * @return the total time spent building join tables, in milliseconds
+     */
+    long getTotalBuildTime();
+
+    /**
+     * @return the average time taken to build a join table, in milliseconds
+     */
+    double getAverageBuildTime();
+
+    /**
+     * @return the number of join tables which were evicted to stay within the memory budget
+     */
+    long getEvictionCount();
+
+    long getCachedTableCount();
+
+    /**
+     * @return the estimated number of bytes held by the cached join tables
+     */
+    long getMemoryUsage();
+
+    long getMemoryBudget();
+
+    /**
+     * Drop all cached join tables. Tables which are currently in use remain valid for
+     * their current users.
+     */
+    void invalidateAll();
+}
@@ -17,6 +17,7 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.stream.control.ControlUtils;
 import com.splicemachine.derby.utils.marshall.BareKeyHash;
 import com.splicemachine.derby.utils.marshall.KeyEncoder;
 import com.splicemachine.derby.utils.marshall.NoOpPostfix;
@@ -41,6 +42,11 @@ import java.util.concurrent.ExecutionException;
 @ThreadSafe
 class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
     public static BroadcastJoinCache.JoinTableLoader INSTANCE = new ByteBufferMapTableLoader();
+    /*
+     * Rough cost of a map entry: the entry itself, the ByteBuffer wrapping the key, and
+     * the (initially single-element) list of rows
+     */
+    private static final long ENTRY_OVERHEAD=32L+48L+64L;
 
     private ByteBufferMapTableLoader(){} //singleton class
 
@@ -50,6 +56,7 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
 
         DescriptorSerializer[] innerSerializers=null;
         KeyEncoder innerKeyEncoder=null;
+        long memoryUsage=0L;
 
         try(Stream<ExecRow> innerRows=streamLoader.call()){
             ExecRow right;
@@ -65,8 +72,11 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
                 if(rows==null){
                     rows=new ArrayList<>(1);
                     table.put(key,rows);
+                    memoryUsage+=ENTRY_OVERHEAD+key.capacity();
                 }
-                rows.add(right.getClone());
+                ExecRow clone=right.getClone();
+                rows.add(clone);
+                memoryUsage+=8L+ControlUtils.estimateSize(clone);
             }
         }catch(StreamException e){
            throw new ExecutionException(e.getCause());
@@ -75,6 +85,6 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
             else throw new ExecutionException(e);
         }
 
-        return new ByteBufferMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow);
+        return new ByteBufferMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow,memoryUsage);
     }
 }
@@ -65,16 +65,23 @@ class ByteBufferMappedJoinTable implements JoinTable{
         private final Map<ByteBuffer,List<ExecRow>> table;
         private final int[] outerHashKeys;
         private final ExecRow outerTemplateRow;
+        private final long memoryUsage;
 
-        public Factory(Map<ByteBuffer, List<ExecRow>> table,int[] outerHashKeys,ExecRow outerTemplateRow){
+        public Factory(Map<ByteBuffer, List<ExecRow>> table,int[] outerHashKeys,ExecRow outerTemplateRow,long memoryUsage){
             this.table=table;
             this.outerHashKeys=outerHashKeys;
             this.outerTemplateRow=outerTemplateRow;
+            this.memoryUsage=memoryUsage;
         }
 
         @Override
         public JoinTable newTable(){
             return new ByteBufferMappedJoinTable(table,outerHashKeys,outerTemplateRow);
         }
+
+        @Override
+        public long getMemoryUsage(){
+            return memoryUsage;
+        }
     }
 }
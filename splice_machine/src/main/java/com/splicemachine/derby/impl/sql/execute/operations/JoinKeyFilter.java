@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.ArrayUtil;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.hash.Hash64;
+import com.splicemachine.hash.HashFunctions;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A compact summary of the join keys on one side of an inner join, used to discard rows
+ * on the other side which cannot possibly match before they are shuffled into the join.
+ *
+ * The summary consists of the range of each key column, and a Bloom filter over the full
+ * key. It has no false negatives, so a row which fails {@link #mightContain(ExecRow,int[])} is
+ * guaranteed not to join.
+ *
+ * Only integral key columns are supported, because two values of those types are equal
+ * exactly when their {@code long} values are; see {@link #isApplicable(ExecRow,int[],ExecRow,int[])}.
+ * Filters built separately over the same number of bits can be combined with {@link #merge(JoinKeyFilter)}.
+ */
+public class JoinKeyFilter implements Externalizable{
+    private static final long serialVersionUID=1l;
+    /*
+     * 10 bits per key and 7 hash functions gives a false positive rate of about 1%
+     */
+    public static final int BITS_PER_KEY=10;
+    private static final int NUM_HASHES=7;
+    private static final int MIN_BITS=1<<13;
+    private static final int MAX_BITS=1<<27;
+    private static final Hash64 HASH=HashFunctions.murmur2_64(0);
+
+    private long[] bits;
+    private long[] min;
+    private long[] max;
+    private boolean empty=true;
+
+    public JoinKeyFilter(){ }
+
+    public JoinKeyFilter(int numKeyColumns,long expectedKeys){
+        long numBits=Math.min(MAX_BITS,Math.max(MIN_BITS,expectedKeys*BITS_PER_KEY));
+        this.bits=new long[(int)((numBits+63)>>>6)];
+        this.min=new long[numKeyColumns];
+        this.max=new long[numKeyColumns];
+    }
+
+    /**
+     * @return true if the key columns on both sides are of types which the filter can summarize.
+     */
+    public static boolean isApplicable(ExecRow leftTemplate,int[] leftHashKeys,
+                                       ExecRow rightTemplate,int[] rightHashKeys) throws StandardException{
+        if(leftHashKeys==null || rightHashKeys==null || leftHashKeys.length!=rightHashKeys.length)
+            return false;
+        for(int i=0;i<leftHashKeys.length;i++){
+            if(!isIntegral(leftTemplate.getColumn(leftHashKeys[i]+1))
+                    || !isIntegral(rightTemplate.getColumn(rightHashKeys[i]+1)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add the key of {@code row}. Rows with a null key column are ignored, since they cannot
+     * take part in an inner join.
+     */
+    public void add(ExecRow row,int[] hashKeys) throws StandardException{
+        DataValueDescriptor[] dvds=row.getRowArray();
+        for(int hashKey : hashKeys){
+            if(dvds[hashKey].isNull()) return;
+        }
+        long h=0L;
+        for(int i=0;i<hashKeys.length;i++){
+            long value=dvds[hashKeys[i]].getLong();
+            if(empty || value<min[i]) min[i]=value;
+            if(empty || value>max[i]) max[i]=value;
+            h=mix(h,value);
+        }
+        empty=false;
+        int h1=(int)h;
+        int h2=(int)(h>>>32);
+        long numBits=(long)bits.length<<6;
+        for(int i=0;i<NUM_HASHES;i++){
+            long bit=((h1+i*h2)&0x7fffffffL)%numBits;
+            bits[(int)(bit>>>6)]|=1L<<bit;
+        }
+    }
+
+    public boolean mightContain(ExecRow row,int[] hashKeys) throws StandardException{
+        if(empty) return false;
+        DataValueDescriptor[] dvds=row.getRowArray();
+        long h=0L;
+        for(int i=0;i<hashKeys.length;i++){
+            DataValueDescriptor dvd=dvds[hashKeys[i]];
+            if(dvd.isNull()) return false;
+            long value=dvd.getLong();
+            if(value<min[i] || value>max[i]) return false;
+            h=mix(h,value);
+        }
+        int h1=(int)h;
+        int h2=(int)(h>>>32);
+        long numBits=(long)bits.length<<6;
+        for(int i=0;i<NUM_HASHES;i++){
+            long bit=((h1+i*h2)&0x7fffffffL)%numBits;
+            if((bits[(int)(bit>>>6)]&(1L<<bit))==0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Combine {@code other} into this filter, so that this filter contains the keys of both.
+     *
+     * @return this filter
+     */
+    public JoinKeyFilter merge(JoinKeyFilter other){
+        assert other.bits.length==bits.length && other.min.length==min.length: "Cannot merge filters of different shapes";
+        if(other.empty) return this;
+        for(int i=0;i<bits.length;i++){
+            bits[i]|=other.bits[i];
+        }
+        for(int i=0;i<min.length;i++){
+            if(empty || other.min[i]<min[i]) min[i]=other.min[i];
+            if(empty || other.max[i]>max[i]) max[i]=other.max[i];
+        }
+        empty=false;
+        return this;
+    }
+
+    public boolean isEmpty(){
+        return empty;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeBoolean(empty);
+        ArrayUtil.writeLongArray(out,min);
+        ArrayUtil.writeLongArray(out,max);
+        ArrayUtil.writeLongArray(out,bits);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        empty=in.readBoolean();
+        min=ArrayUtil.readLongArray(in);
+        max=ArrayUtil.readLongArray(in);
+        bits=ArrayUtil.readLongArray(in);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static boolean isIntegral(DataValueDescriptor dvd){
+        if(dvd==null) return false;
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static long mix(long h,long value){
+        return HASH.hash(h*31+value);
+    }
+}
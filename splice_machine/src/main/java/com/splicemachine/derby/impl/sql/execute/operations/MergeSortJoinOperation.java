@@ -15,9 +15,11 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.derby.iapi.sql.execute.*;
 import com.splicemachine.derby.impl.SpliceMethod;
 import com.splicemachine.derby.stream.function.*;
+import com.splicemachine.derby.stream.iapi.Broadcasted;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -196,6 +198,21 @@ public class MergeSortJoinOperation extends JoinOperation {
 //        if (!isOuterJoin) Remove all nulls from the right side...
             rightDataSet2 = rightDataSet2.filter(new InnerJoinNullFilterFunction(operationContext,rightHashKeys));
 
+        if (dsp.getType().equals(DataSetProcessor.Type.SPARK) && useJoinKeyFilter()) {
+            // Drop left rows which cannot join before they are shuffled
+            final DataSet<LocatedRow> persistedRight = rightDataSet2;
+            persistedRight.persist();
+            final Broadcasted<JoinKeyFilter> joinKeyFilter = dsp.broadcast(buildJoinKeyFilter(operationContext, persistedRight));
+            registerCloseable(new AutoCloseable() {
+                @Override
+                public void close() throws Exception {
+                    joinKeyFilter.release();
+                    persistedRight.unpersist();
+                }
+            });
+            leftDataSet2 = leftDataSet2.filter(new JoinKeyFilterFunction(operationContext, leftHashKeys, joinKeyFilter));
+        }
+
         if (LOG.isDebugEnabled())
             SpliceLogUtils.debug(LOG, "getDataSet Performing MergeSortJoin type=%s, antiJoin=%s, hasRestriction=%s",
                     isOuterJoin ? "outer" : "inner", notExistsRightSide, restriction != null);
@@ -223,6 +240,31 @@ public class MergeSortJoinOperation extends JoinOperation {
             return joined.map(new CountProducedFunction(operationContext), true);
     }
 
+    /**
+     * A filter over the right side's keys only pays for the extra pass over the right side when the
+     * right side is small (relative to the left), and only preserves correctness for inner joins.
+     */
+    private boolean useJoinKeyFilter() throws StandardException {
+        if (isOuterJoin || notExistsRightSide || isOneRowRightSide())
+            return false;
+        EngineDriver driver = EngineDriver.driver();
+        long maxRows = driver == null ? 0L : driver.getConfiguration().getJoinKeyFilterMaxRows();
+        double rightRows = rightResultSet.getEstimatedRowCount();
+        if (maxRows <= 0 || rightRows > maxRows || rightRows >= leftResultSet.getEstimatedRowCount())
+            return false;
+        return JoinKeyFilter.isApplicable(leftResultSet.getExecRowDefinition(), leftHashKeys,
+                rightResultSet.getExecRowDefinition(), rightHashKeys);
+    }
+
+    private JoinKeyFilter buildJoinKeyFilter(OperationContext<JoinOperation> operationContext,
+                                             DataSet<LocatedRow> rightDataSet) {
+        long expectedKeys = (long) Math.ceil(rightResultSet.getEstimatedRowCount());
+        JoinKeyFilter filter = rightDataSet.mapPartitions(
+                new BuildJoinKeyFilterFunction(operationContext, rightHashKeys, expectedKeys))
+                .reduce(new MergeJoinKeyFilterFunction(operationContext));
+        return filter == null ? new JoinKeyFilter(rightHashKeys.length, expectedKeys) : filter;
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     private DataSet<LocatedRow> getJoinedDataset(
         OperationContext operationContext,
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.hash.Hash64;
+import com.splicemachine.hash.HashFunctions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * A JoinTable which keeps the inner rows in their encoded form, in direct memory.
+ *
+ * Encoded rows are appended to large off-heap slabs, and are located through an open-addressing
+ * index keyed by a 64-bit hash of the encoded join key. Each distinct join key is stored once, along
+ * with the head and tail of the chain of rows which share it. Rows are only decoded when an outer
+ * row probes them out, so the heap cost of the table is the index alone (two longs per slot), no
+ * matter how many rows are broadcast.
+ *
+ * Slab layout:
+ * <pre>
+ *     key entry: [first row address (8)][last row address (8)][key length (4)][key bytes]
+ *     row entry: [next row address (8)][row length (4)][row bytes]
+ * </pre>
+ * where an address is the slab index in the upper 32 bits and the offset within that slab in the lower.
+ *
+ * The slabs are released when the Factory which owns them is garbage collected.
+ */
+class OffHeapJoinTable implements JoinTable{
+    private static final int KEY_HEADER=8+8+4;
+    private static final int ROW_HEADER=8+4;
+    private static final long EMPTY=-1L;
+    private static final Hash64 HASH=HashFunctions.murmur2_64(0);
+
+    private final Factory table;
+    private final KeyEncoder outerKeyEncoder;
+    private final KeyHashDecoder innerRowDecoder;
+    private final ByteBuffer[] slabs;
+    private byte[] rowBuffer=new byte[128];
+    private boolean closed;
+
+    private OffHeapJoinTable(Factory table){
+        this.table=table;
+        DescriptorSerializer[] outerSerializers=VersionedSerializers.latestVersion(false).getSerializers(table.outerTemplateRow);
+        this.outerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                BareKeyHash.encoder(table.outerHashKeys,null,outerSerializers),NoOpPostfix.INSTANCE);
+        if(table.innerTemplateRow!=null){
+            DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(table.innerTemplateRow);
+            this.innerRowDecoder=BareKeyHash.decoder(null,null,innerSerializers);
+        }else{
+            //there were no inner rows, so we will never decode anything
+            this.innerRowDecoder=null;
+        }
+        /*
+         * Each table gets its own view of the slabs, so that concurrent probes do not fight over
+         * buffer positions.
+         */
+        this.slabs=new ByteBuffer[table.slabs.length];
+        for(int i=0;i<slabs.length;i++){
+            slabs[i]=table.slabs[i].duplicate();
+        }
+    }
+
+    @Override
+    public Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException{
+        byte[] outerKey=outerKeyEncoder.getKey(outer);
+        assert outerKey!=null: "Programmer error: outer row does not have row key";
+        long keyAddress=find(table.hashes,table.keys,slabs,HASH.hash(outerKey,0,outerKey.length),outerKey);
+        if(keyAddress==EMPTY)
+            return Collections.emptyIterator();
+
+        List<ExecRow> rows=new ArrayList<>(1);
+        long rowAddress=slab(slabs,keyAddress).getLong(offset(keyAddress));
+        while(rowAddress!=EMPTY){
+            ByteBuffer slab=slab(slabs,rowAddress);
+            int off=offset(rowAddress);
+            int length=slab.getInt(off+8);
+            if(rowBuffer.length<length)
+                rowBuffer=new byte[Math.max(length,2*rowBuffer.length)];
+            slab.position(off+ROW_HEADER);
+            slab.get(rowBuffer,0,length);
+            ExecRow row=table.innerTemplateRow.getNewNullRow();
+            innerRowDecoder.set(rowBuffer,0,length);
+            innerRowDecoder.decode(row);
+            rows.add(row);
+            rowAddress=slab.getLong(off);
+        }
+        return rows.iterator();
+    }
+
+    @Override
+    public void close(){
+        if(closed || innerRowDecoder==null) return;
+        closed=true;
+        try{
+            innerRowDecoder.close();
+        }catch(IOException ignored){ }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ByteBuffer slab(ByteBuffer[] slabs,long address){
+        return slabs[(int)(address>>>32)];
+    }
+
+    private static int offset(long address){
+        return (int)address;
+    }
+
+    private static int slot(long hash,int mask){
+        return (int)(hash^(hash>>>32))&mask;
+    }
+
+    /**
+     * @return the address of the key entry for {@code key}, or {@link #EMPTY} if the key is not present.
+     */
+    private static long find(long[] hashes,long[] keys,ByteBuffer[] slabs,long hash,byte[] key){
+        int mask=keys.length-1;
+        for(int pos=slot(hash,mask);;pos=(pos+1)&mask){
+            long keyAddress=keys[pos];
+            if(keyAddress==EMPTY) return EMPTY;
+            if(hashes[pos]==hash && keyEquals(slabs,keyAddress,key)) return keyAddress;
+        }
+    }
+
+    private static boolean keyEquals(ByteBuffer[] slabs,long keyAddress,byte[] key){
+        ByteBuffer slab=slab(slabs,keyAddress);
+        int off=offset(keyAddress);
+        if(slab.getInt(off+16)!=key.length) return false;
+        off+=KEY_HEADER;
+        for(int i=0;i<key.length;i++){
+            if(slab.get(off+i)!=key[i]) return false;
+        }
+        return true;
+    }
+
+    static class Factory implements JoinTable.Factory{
+        private final ByteBuffer[] slabs;
+        private final long[] hashes;
+        private final long[] keys;
+        private final ExecRow innerTemplateRow;
+        private final int[] outerHashKeys;
+        private final ExecRow outerTemplateRow;
+
+        private Factory(ByteBuffer[] slabs,long[] hashes,long[] keys,ExecRow innerTemplateRow,int[] outerHashKeys,ExecRow outerTemplateRow){
+            this.slabs=slabs;
+            this.hashes=hashes;
+            this.keys=keys;
+            this.innerTemplateRow=innerTemplateRow;
+            this.outerHashKeys=outerHashKeys;
+            this.outerTemplateRow=outerTemplateRow;
+        }
+
+        @Override
+        public JoinTable newTable(){
+            return new OffHeapJoinTable(this);
+        }
+
+        @Override
+        public long getMemoryUsage(){
+            long size=16L*keys.length;
+            for(ByteBuffer slab : slabs){
+                size+=slab.capacity();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Accumulates encoded inner rows. This is not thread safe, and the Builder cannot be used
+     * once {@link #build(ExecRow,int[],ExecRow)} has been called.
+     */
+    static class Builder{
+        private static final int DEFAULT_SLAB_SIZE=4*1024*1024;
+        private static final int MAX_CAPACITY=1<<30;
+
+        private final int slabSize;
+        private final List<ByteBuffer> slabs=new ArrayList<>();
+        private ByteBuffer current;
+        private ByteBuffer[] slabArray=new ByteBuffer[0];
+        private long[] hashes;
+        private long[] keys;
+        private int size;
+
+        Builder(){
+            this(DEFAULT_SLAB_SIZE,1024);
+        }
+
+        Builder(int slabSize,int initialCapacity){
+            this.slabSize=slabSize;
+            int capacity=Integer.highestOneBit(Math.max(2,initialCapacity)-1)<<1;
+            this.hashes=new long[capacity];
+            this.keys=new long[capacity];
+            Arrays.fill(keys,EMPTY);
+        }
+
+        void add(byte[] key,byte[] row){
+            long hash=HASH.hash(key,0,key.length);
+            int mask=keys.length-1;
+            int pos=slot(hash,mask);
+            long keyAddress;
+            while((keyAddress=keys[pos])!=EMPTY){
+                if(hashes[pos]==hash && keyEquals(slabArray,keyAddress,key)) break;
+                pos=(pos+1)&mask;
+            }
+
+            long rowAddress=allocate(ROW_HEADER+row.length);
+            current.putLong(EMPTY);
+            current.putInt(row.length);
+            current.put(row);
+
+            if(keyAddress==EMPTY){
+                keyAddress=allocate(KEY_HEADER+key.length);
+                current.putLong(rowAddress);
+                current.putLong(rowAddress);
+                current.putInt(key.length);
+                current.put(key);
+                hashes[pos]=hash;
+                keys[pos]=keyAddress;
+                size++;
+                if(size*4L>=keys.length*3L)
+                    resize();
+            }else{
+                //append to the end of the chain, so that rows come back out in the order in which they arrived
+                ByteBuffer keySlab=slab(slabArray,keyAddress);
+                int keyOffset=offset(keyAddress);
+                long last=keySlab.getLong(keyOffset+8);
+                slab(slabArray,last).putLong(offset(last),rowAddress);
+                keySlab.putLong(keyOffset+8,rowAddress);
+            }
+        }
+
+        int size(){
+            return size;
+        }
+
+        Factory build(ExecRow innerTemplateRow,int[] outerHashKeys,ExecRow outerTemplateRow){
+            Factory factory=new Factory(slabArray,hashes,keys,innerTemplateRow,outerHashKeys,outerTemplateRow);
+            current=null;
+            hashes=null;
+            keys=null;
+            return factory;
+        }
+
+        /* ************************************************************************************************************/
+        /*private helper methods*/
+        private long allocate(int length){
+            if(current==null || current.remaining()<length){
+                current=ByteBuffer.allocateDirect(Math.max(slabSize,length));
+                slabs.add(current);
+                slabArray=slabs.toArray(new ByteBuffer[slabs.size()]);
+            }
+            return ((long)(slabs.size()-1)<<32)|current.position();
+        }
+
+        private void resize(){
+            if(keys.length>=MAX_CAPACITY)
+                throw new IllegalStateException("Too many distinct keys to broadcast: "+size);
+            long[] oldHashes=hashes;
+            long[] oldKeys=keys;
+            hashes=new long[oldKeys.length<<1];
+            keys=new long[oldKeys.length<<1];
+            Arrays.fill(keys,EMPTY);
+            int mask=keys.length-1;
+            for(int i=0;i<oldKeys.length;i++){
+                if(oldKeys[i]==EMPTY) continue;
+                int pos=slot(oldHashes[i],mask);
+                while(keys[pos]!=EMPTY){
+                    pos=(pos+1)&mask;
+                }
+                hashes[pos]=oldHashes[i];
+                keys[pos]=oldKeys[i];
+            }
+        }
+    }
+}
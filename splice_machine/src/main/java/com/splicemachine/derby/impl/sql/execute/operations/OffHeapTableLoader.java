@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.StreamException;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads the inner side of a broadcast join into an {@link OffHeapJoinTable}.
+ *
+ * Each inner row is encoded twice: once for the join key, and once in full so that it can be
+ * decoded back out when probed. Neither the row nor its key is retained on the heap.
+ */
+@ThreadSafe
+class OffHeapTableLoader implements BroadcastJoinCache.JoinTableLoader{
+    public static BroadcastJoinCache.JoinTableLoader INSTANCE = new OffHeapTableLoader();
+
+    private OffHeapTableLoader(){} //singleton class
+
+    @Override
+    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys, ExecRow outerTemplateRow) throws ExecutionException{
+        OffHeapJoinTable.Builder builder=new OffHeapJoinTable.Builder();
+
+        ExecRow innerTemplateRow=null;
+        KeyEncoder innerKeyEncoder=null;
+        DataHash<ExecRow> innerRowEncoder=null;
+
+        try(Stream<ExecRow> innerRows=streamLoader.call()){
+            ExecRow right;
+            while((right=innerRows.next())!=null){
+                if(innerTemplateRow==null){
+                    innerTemplateRow=right.getNewNullRow();
+                    DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(right);
+                    innerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                            BareKeyHash.encoder(innerHashKeys,null,innerSerializers),NoOpPostfix.INSTANCE);
+                    innerRowEncoder=BareKeyHash.encoder(null,null,innerSerializers);
+                }
+
+                innerRowEncoder.setRow(right);
+                builder.add(innerKeyEncoder.getKey(right),innerRowEncoder.encode());
+            }
+        }catch(StreamException e){
+           throw new ExecutionException(e.getCause());
+        }catch(Exception e){
+            if(e instanceof ExecutionException) throw (ExecutionException)e;
+            else throw new ExecutionException(e);
+        }
+
+        return builder.build(innerTemplateRow,outerHashKeys,outerTemplateRow);
+    }
+}
@@ -194,6 +194,10 @@ public class RowCountOperation extends SpliceBaseOperation {
         final long fetchLimit = getFetchLimit();
         long offset = getTotalOffset();
         OperationContext operationContext = dsp.createOperationContext(this);
+        if (source instanceof SortOperation) {
+            // ORDER BY ... FETCH FIRST N: the sort only has to produce the first offset + N rows
+            ((SortOperation) source).setSortLimit(fetchLimit > 0 ? offset + fetchLimit : 0);
+        }
         DataSet<LocatedRow> sourceSet = source.getDataSet(dsp);
         return sourceSet.zipWithIndex().mapPartitions(new OffsetFunction<SpliceOperation, LocatedRow>(operationContext, offset, fetchLimit));
     }
@@ -55,6 +55,11 @@ public class SortOperation extends SpliceBaseOperation{
     private int numColumns;
     private ExecRow execRowDefinition=null;
     private Properties sortProperties=new Properties();
+    /*
+     * The number of sorted rows which will actually be consumed (when this sort feeds a
+     * FETCH FIRST/LIMIT), or 0 if all rows are needed. Only set on the control side.
+     */
+    private long sortLimit;
     protected static final String NAME=SortOperation.class.getSimpleName().replaceAll("Operation","");
 
     @Override
@@ -220,7 +225,7 @@ public class SortOperation extends SpliceBaseOperation{
 
         //operationContext.pushScopeForOp(OperationContext.Scope.SHUFFLE);
         PairDataSet sortedByKey=pair.sortByKey(new RowComparator(descColumns,nullsOrderedLow),
-            OperationContext.Scope.SORT.displayName());
+            OperationContext.Scope.SORT.displayName(),operationContext,sortLimit);
         //operationContext.popScope();
 
         //operationContext.pushScopeForOp(OperationContext.Scope.READ_SORTED);
@@ -235,6 +240,14 @@ public class SortOperation extends SpliceBaseOperation{
         }
     }
 
+    /**
+     * Tell this sort that only the first {@code sortLimit} rows of its output will be read, so
+     * that it can avoid sorting everything.
+     */
+    public void setSortLimit(long sortLimit){
+        this.sortLimit=sortLimit;
+    }
+
     public String getScopeName(){
         return (distinct ? "Sort Distinct" : "Sort");
     }
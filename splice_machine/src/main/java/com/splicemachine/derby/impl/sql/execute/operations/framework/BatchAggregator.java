@@ -0,0 +1,326 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.framework;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.impl.sql.execute.AvgAggregator;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates the system aggregates (COUNT, SUM, MIN, MAX and AVG) of a scalar aggregation a batch
+ * of rows at a time.
+ *
+ * Instead of accumulating each row as it arrives, the input column of each aggregate is copied into a
+ * primitive vector along with a null mask. Once the batch is full, each aggregate is evaluated over its
+ * vector in a single loop, and the result is folded into the accumulator row with a single call. This avoids
+ * the per-row virtual calls, value clones and DataValueDescriptor arithmetic of the row-at-a-time path.
+ *
+ * Only integral and DOUBLE inputs are copied into vectors (COUNT only needs the null mask, so it works
+ * for any input type). When any of the aggregates cannot be evaluated this way,
+ * {@link #newBatchAggregator} returns null and the caller should aggregate row by row.
+ */
+public class BatchAggregator{
+    private enum Kind{ COUNT_STAR, COUNT, SUM, MIN, MAX, AVG }
+
+    private final SpliceGenericAggregator[] aggregates;
+    private final Kind[] kinds;
+    private final ColumnVector[] inputs;
+    private final ColumnVector[] vectors;
+    private final int batchSize;
+    private int size;
+
+    private BatchAggregator(SpliceGenericAggregator[] aggregates,Kind[] kinds,ColumnVector[] inputs,ColumnVector[] vectors,int batchSize){
+        this.aggregates=aggregates;
+        this.kinds=kinds;
+        this.inputs=inputs;
+        this.vectors=vectors;
+        this.batchSize=batchSize;
+    }
+
+    /**
+     * @param aggregates the aggregates to evaluate
+     * @param accumulatorRow an accumulator row whose aggregators have already been initialized
+     * @param inputRow a row from the source, used to determine the input types
+     * @param batchSize the number of rows to buffer before evaluating
+     * @return a BatchAggregator, or {@code null} if batching is disabled or any of the aggregates
+     * cannot be batched.
+     */
+    public static BatchAggregator newBatchAggregator(SpliceGenericAggregator[] aggregates,
+                                                     ExecRow accumulatorRow,
+                                                     ExecRow inputRow,
+                                                     int batchSize) throws StandardException{
+        if(batchSize<=0 || aggregates==null || aggregates.length==0) return null;
+        Kind[] kinds=new Kind[aggregates.length];
+        ColumnVector[] inputs=new ColumnVector[aggregates.length];
+        ColumnVector[] vectors=new ColumnVector[aggregates.length];
+        int numVectors=0;
+        for(int i=0;i<aggregates.length;i++){
+            SpliceGenericAggregator aggregate=aggregates[i];
+            if(aggregate.getAggregatorInfo()!=null && aggregate.isDistinct()) return null;
+            Object ua=accumulatorRow.getColumn(aggregate.getAggregatorColumnId()).getObject();
+            Kind kind=kindOf(ua);
+            if(kind==null) return null;
+            kinds[i]=kind;
+            if(kind==Kind.COUNT_STAR) continue;
+
+            int columnId=aggregate.getInputColumnId();
+            ColumnVector vector=null;
+            for(int j=0;j<numVectors;j++){
+                if(vectors[j].columnId==columnId){
+                    vector=vectors[j];
+                    break;
+                }
+            }
+            if(vector==null){
+                vector=new ColumnVector(columnId,inputRow.getColumn(columnId),batchSize);
+                vectors[numVectors++]=vector;
+            }
+            if(kind!=Kind.COUNT && vector.type==ColumnVector.NULLS_ONLY) return null;
+            inputs[i]=vector;
+        }
+        ColumnVector[] distinctVectors=new ColumnVector[numVectors];
+        System.arraycopy(vectors,0,distinctVectors,0,numVectors);
+        return new BatchAggregator(aggregates,kinds,inputs,distinctVectors,batchSize);
+    }
+
+    /**
+     * Copy the inputs of {@code row} into the batch. The row itself is not retained.
+     *
+     * @return true if the batch is now full, and should be flushed.
+     */
+    public boolean add(ExecRow row) throws StandardException{
+        for(ColumnVector vector : vectors){
+            vector.set(size,row.getColumn(vector.columnId));
+        }
+        size++;
+        return size>=batchSize;
+    }
+
+    /**
+     * Evaluate the aggregates over the buffered rows, fold the results into {@code accumulatorRow},
+     * and empty the batch.
+     */
+    public void flush(ExecRow accumulatorRow) throws StandardException{
+        if(size==0) return;
+        for(int i=0;i<aggregates.length;i++){
+            ExecAggregator ua=(ExecAggregator)accumulatorRow.getColumn(aggregates[i].getAggregatorColumnId()).getObject();
+            ColumnVector input=inputs[i];
+            switch(kinds[i]){
+                case COUNT_STAR:
+                    ua.add(new SQLLongint(size));
+                    break;
+                case COUNT:
+                    ua.add(new SQLLongint(size-input.nullCount));
+                    break;
+                case SUM:
+                case AVG:
+                    if(input.type==ColumnVector.LONG)
+                        sumLongs(ua,input);
+                    else
+                        sumDoubles(ua,input);
+                    break;
+                case MIN:
+                case MAX:
+                    if(input.type==ColumnVector.LONG)
+                        minMaxLongs(ua,input,kinds[i]==Kind.MAX);
+                    else
+                        minMaxDoubles(ua,input,kinds[i]==Kind.MAX);
+                    break;
+            }
+            if(kinds[i]!=Kind.COUNT_STAR && input.nullCount>0){
+                //let the aggregator know that nulls were eliminated, for the warning
+                ua.accumulate(null,aggregates[i]);
+            }
+        }
+        for(ColumnVector vector : vectors){
+            vector.clear();
+        }
+        size=0;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static Kind kindOf(Object ua){
+        if(ua instanceof CountAggregator)
+            return ((CountAggregator)ua).isCountStar()?Kind.COUNT_STAR:Kind.COUNT;
+        if(ua instanceof MaxMinAggregator)
+            return ((MaxMinAggregator)ua).isMax()?Kind.MAX:Kind.MIN;
+        if(ua instanceof AvgAggregator)
+            return Kind.AVG;
+        if(ua instanceof SumAggregator)
+            return Kind.SUM;
+        return null;
+    }
+
+    private void sumLongs(ExecAggregator ua,ColumnVector input) throws StandardException{
+        long count=size-input.nullCount;
+        if(count==0) return;
+        long[] values=input.longs;
+        /*
+         * Nulls are stored as 0, so they can be summed along with everything else. When the running sum
+         * is about to overflow, the partial sum is handed to the aggregator, which either promotes itself
+         * to a wider type or reports the overflow exactly as it would have done row by row.
+         */
+        long sum=0L;
+        for(int i=0;i<size;i++){
+            long v=values[i];
+            long r=sum+v;
+            if(((sum^r)&(v^r))<0){
+                fold(ua,new SQLLongint(sum),count);
+                count=0L;
+                r=v;
+            }
+            sum=r;
+        }
+        fold(ua,new SQLLongint(sum),count);
+    }
+
+    private void sumDoubles(ExecAggregator ua,ColumnVector input) throws StandardException{
+        long count=size-input.nullCount;
+        if(count==0) return;
+        double[] values=input.doubles;
+        double sum=0d;
+        for(int i=0;i<size;i++){
+            sum+=values[i];
+        }
+        fold(ua,new SQLDouble(sum),count);
+    }
+
+    /*
+     * Hand a partial sum to the aggregator. All of the values of the batch are counted with the first
+     * partial sum, so count is 0 for any which follow it.
+     */
+    private static void fold(ExecAggregator ua,DataValueDescriptor sum,long count) throws StandardException{
+        if(ua instanceof AvgAggregator)
+            ((AvgAggregator)ua).add(sum,count);
+        else
+            ua.add(sum);
+    }
+
+    private void minMaxLongs(ExecAggregator ua,ColumnVector input,boolean isMax) throws StandardException{
+        if(input.nullCount==size) return;
+        long[] values=input.longs;
+        long best=isMax?Long.MIN_VALUE:Long.MAX_VALUE;
+        if(input.nullCount==0){
+            if(isMax){
+                for(int i=0;i<size;i++){
+                    best=Math.max(best,values[i]);
+                }
+            }else{
+                for(int i=0;i<size;i++){
+                    best=Math.min(best,values[i]);
+                }
+            }
+        }else{
+            for(int i=0;i<size;i++){
+                if(input.isNull(i)) continue;
+                best=isMax?Math.max(best,values[i]):Math.min(best,values[i]);
+            }
+        }
+        DataValueDescriptor result=input.template.getNewNull();
+        result.setValue(best);
+        ua.add(result);
+    }
+
+    private void minMaxDoubles(ExecAggregator ua,ColumnVector input,boolean isMax) throws StandardException{
+        if(input.nullCount==size) return;
+        double[] values=input.doubles;
+        double best=isMax?Double.NEGATIVE_INFINITY:Double.POSITIVE_INFINITY;
+        for(int i=0;i<size;i++){
+            if(input.nullCount>0 && input.isNull(i)) continue;
+            double v=values[i];
+            if(isMax?v>best:v<best) best=v;
+        }
+        DataValueDescriptor result=input.template.getNewNull();
+        result.setValue(best);
+        ua.add(result);
+    }
+
+    /**
+     * The values of a single input column over the rows of a batch.
+     */
+    private static final class ColumnVector{
+        static final int NULLS_ONLY=0;
+        static final int LONG=1;
+        static final int DOUBLE=2;
+
+        final int columnId;
+        final int type;
+        final DataValueDescriptor template;
+        final long[] longs;
+        final double[] doubles;
+        final long[] nulls;
+        int nullCount;
+
+        ColumnVector(int columnId,DataValueDescriptor template,int batchSize){
+            this.columnId=columnId;
+            this.template=template;
+            this.type=typeOf(template);
+            this.longs=type==LONG?new long[batchSize]:null;
+            this.doubles=type==DOUBLE?new double[batchSize]:null;
+            this.nulls=new long[(batchSize+63)>>>6];
+        }
+
+        void set(int position,DataValueDescriptor dvd) throws StandardException{
+            if(dvd==null || dvd.isNull()){
+                nulls[position>>>6]|=1L<<position;
+                nullCount++;
+                if(type==LONG) longs[position]=0L;
+                else if(type==DOUBLE) doubles[position]=0d;
+            }else if(type==LONG){
+                longs[position]=dvd.getLong();
+            }else if(type==DOUBLE){
+                doubles[position]=dvd.getDouble();
+            }
+        }
+
+        boolean isNull(int position){
+            return (nulls[position>>>6]&(1L<<position))!=0;
+        }
+
+        void clear(){
+            if(nullCount>0){
+                Arrays.fill(nulls,0L);
+                nullCount=0;
+            }
+        }
+
+        private static int typeOf(DataValueDescriptor dvd){
+            if(dvd==null) return NULLS_ONLY;
+            switch(dvd.getTypeFormatId()){
+                case StoredFormatIds.SQL_TINYINT_ID:
+                case StoredFormatIds.SQL_SMALLINT_ID:
+                case StoredFormatIds.SQL_INTEGER_ID:
+                case StoredFormatIds.SQL_LONGINT_ID:
+                    return LONG;
+                case StoredFormatIds.SQL_DOUBLE_ID:
+                    return DOUBLE;
+                default:
+                    return NULLS_ONLY;
+            }
+        }
+    }
+}
@@ -15,25 +15,62 @@
 
 package com.splicemachine.derby.impl.sql.execute.sequence;
 
+import com.splicemachine.concurrent.MoreExecutors;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
 
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * A Sequence which reserves values from the backing store a block at a time.
+ *
+ * Values are handed out of the current block with a single atomic increment, so callers never block unless
+ * the block is exhausted. When the block is batched (it holds more than one value), the next block is
+ * reserved in the background once the current block drops below its low-water mark, so that the remote
+ * round trip is (usually) off of the insert path. The size of each block adapts to how quickly the previous
+ * one was consumed: blocks which are used up in under a second double in size (up to 64 times the configured
+ * size), and blocks which last longer than 30 seconds halve (down to the configured size).
+ */
 public abstract class AbstractSequence implements Sequence, Externalizable{
-    protected final AtomicLong remaining=new AtomicLong(0l);
-    protected final AtomicLong currPosition=new AtomicLong(0l);
+    private static final Logger LOG=Logger.getLogger(AbstractSequence.class);
+    private static final int MAX_BLOCK_GROWTH=64;
+    private static final long FAST_BLOCK_NANOS=TimeUnit.SECONDS.toNanos(1);
+    private static final long SLOW_BLOCK_NANOS=TimeUnit.SECONDS.toNanos(30);
+    private static final Block EMPTY_BLOCK=new Block(0l,0l,0l,-1l);
+    private static final ThreadPoolExecutor PREFETCH_POOL;
+
+    static{
+        PREFETCH_POOL=MoreExecutors.namedThreadPool(4,4,"splice-sequence-prefetch-%d",60,true);
+        PREFETCH_POOL.allowCoreThreadTimeOut(true);
+    }
+
     protected long blockAllocationSize;
     protected long incrementSteps;
-    protected final Lock updateLock=new ReentrantLock();
     protected long startingValue;
 
+    private volatile Block current=EMPTY_BLOCK;
+    private final AtomicReference<Future<Block>> prefetched=new AtomicReference<>();
+    /*guards replacing the current block*/
+    private final Lock updateLock=new ReentrantLock();
+    /*serializes the round trips to the backing store*/
+    private final Lock allocationLock=new ReentrantLock();
+
     public AbstractSequence(){
 
     }
@@ -47,44 +84,134 @@ public abstract class AbstractSequence implements Sequence, Externalizable{
     }
 
     public long getNext() throws StandardException{
-        if(remaining.getAndDecrement()<=0)
-            allocateBlock(false);
-        return currPosition.getAndAdd(incrementSteps);
+        while(true){
+            Block block=current;
+            long position=block.position.getAndIncrement();
+            if(position<block.count){
+                if(position==block.lowWaterMark)
+                    prefetch(block);
+                return block.first+position*incrementSteps;
+            }
+            nextBlock(block);
+        }
     }
 
     public long peekAtCurrentValue() throws StandardException {
-        if(remaining.get()<= 0)
-            allocateBlock(true);
-        return currPosition.get();
+        while(true){
+            Block block=current;
+            long position=block.position.get();
+            if(position<block.count)
+                return block.first+position*incrementSteps;
+            nextBlock(block);
+        }
     }
 
     protected abstract long getCurrentValue() throws IOException;
 
-    protected abstract boolean atomicIncrement(long nextValue) throws IOException;
+    /**
+     * Atomically advance the value stored for this sequence.
+     *
+     * @param currentValue the value which was returned by {@link #getCurrentValue()}
+     * @param nextValue the value to store
+     * @return true if the value was advanced, false if someone else changed it first
+     */
+    protected abstract boolean atomicIncrement(long currentValue,long nextValue) throws IOException;
 
     public abstract void close() throws IOException;
 
-    private void allocateBlock(boolean peek) throws StandardException{
-        boolean success=false;
-        while(!success){
-            updateLock.lock();
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void nextBlock(Block exhausted) throws StandardException{
+        updateLock.lock();
+        try{
+            if(current!=exhausted) return; //someone else already replaced it
+            Block next=null;
+            Future<Block> pending=prefetched.getAndSet(null);
+            if(pending!=null){
+                try{
+                    next=pending.get();
+                }catch(ExecutionException ee){
+                    SpliceLogUtils.warn(LOG,"Unable to prefetch the next sequence block, allocating directly: %s",ee.getCause());
+                }
+            }
+            if(next==null)
+                next=allocate(nextBlockSize(exhausted));
+            current=next;
+        }catch(InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw Exceptions.parseException(ie);
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }finally{
+            updateLock.unlock();
+        }
+    }
+
+    private void prefetch(Block block){
+        final long size=nextBlockSize(block);
+        FutureTask<Block> task=new FutureTask<>(new Callable<Block>(){
+            @Override
+            public Block call() throws Exception{
+                return allocate(size);
+            }
+        });
+        if(prefetched.compareAndSet(null,task)){
             try{
-                if(remaining.getAndDecrement()>0)
-                    return;
-                currPosition.set(getCurrentValue());
-                success=atomicIncrement(currPosition.get()+(incrementSteps>blockAllocationSize?incrementSteps:blockAllocationSize));
-                if(success){
-                    long v = blockAllocationSize/incrementSteps;
-                    remaining.set(peek?v:v-1);
+                PREFETCH_POOL.execute(task);
+            }catch(RejectedExecutionException ree){
+                //we'll allocate the next block on the calling thread instead
+                prefetched.compareAndSet(task,null);
+            }
+        }
+    }
+
+    private Block allocate(long size) throws IOException{
+        allocationLock.lock();
+        try{
+            while(true){
+                long currentValue=getCurrentValue();
+                if(atomicIncrement(currentValue,currentValue+size)){
+                    long count=Math.max(1l,size/incrementSteps);
+                    /*
+                     * Only batched blocks are prefetched, since a block of a single value means that the
+                     * caller doesn't want any values reserved ahead of time
+                     */
+                    long lowWaterMark=count>1?count-Math.max(1l,count/4):-1l;
+                    return new Block(currentValue,count,size,lowWaterMark);
                 }
-            }catch(IOException e){
-                throw Exceptions.parseException(e);
-            }finally{
-                updateLock.unlock();
             }
+        }finally{
+            allocationLock.unlock();
         }
     }
 
+    private long nextBlockSize(Block block){
+        long baseSize=Math.max(incrementSteps,blockAllocationSize);
+        if(block==EMPTY_BLOCK || baseSize/incrementSteps<=1)
+            return baseSize;
+        long elapsed=System.nanoTime()-block.allocatedAt;
+        if(elapsed<FAST_BLOCK_NANOS)
+            return Math.min(block.size*2,baseSize*MAX_BLOCK_GROWTH);
+        else if(elapsed>SLOW_BLOCK_NANOS)
+            return Math.max(block.size/2,baseSize);
+        return block.size;
+    }
+
+    private static final class Block{
+        final long first;
+        final long count;
+        final long size;
+        final long lowWaterMark;
+        final long allocatedAt=System.nanoTime();
+        final AtomicLong position=new AtomicLong(0l);
+
+        Block(long first,long count,long size,long lowWaterMark){
+            this.first=first;
+            this.count=count;
+            this.size=size;
+            this.lowWaterMark=lowWaterMark;
+        }
+    }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
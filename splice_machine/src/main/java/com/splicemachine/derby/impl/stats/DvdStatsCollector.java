@@ -80,7 +80,8 @@ public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValu
                                                                          int typeFormatId,
                                                                          int columnLen,
                                                                          int topKSize,
-                                                                         int cardPrecision){
+                                                                         int cardPrecision,
+                                                                         int histogramBuckets){
         switch(typeFormatId){
             case StoredFormatIds.SQL_BOOLEAN_ID:
                 return new BooleanDvdStatsCollector(ColumnStatsCollectors.booleanCollector(columnId));
@@ -100,9 +101,9 @@ public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValu
                     topKS =(short)EngineDriver.driver().getConfiguration().getTopkSize();
                 return new SmallintStatsCollector(ColumnStatsCollectors.shortCollector(columnId,cP,topKS));
             case StoredFormatIds.SQL_INTEGER_ID:
-                return new IntDvdStatsCollector(ColumnStatsCollectors.intCollector(columnId,cardPrecision,topKSize));
+                return new IntDvdStatsCollector(ColumnStatsCollectors.intCollector(columnId,cardPrecision,topKSize,histogramBuckets));
             case StoredFormatIds.SQL_LONGINT_ID:
-                return new BigintStatsCollector(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize));
+                return new BigintStatsCollector(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize,histogramBuckets));
             case StoredFormatIds.SQL_REAL_ID:
                 return new RealStatsCollector(ColumnStatsCollectors.floatCollector(columnId,cardPrecision, topKSize));
             case StoredFormatIds.SQL_DOUBLE_ID:
@@ -115,11 +116,11 @@ public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValu
                         topKSize,
                         stringDistributionFactory(columnLen)),columnLen);
             case StoredFormatIds.SQL_DATE_ID:
-                return TimeCollector.date(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize));
+                return TimeCollector.date(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize,histogramBuckets));
             case StoredFormatIds.SQL_TIME_ID:
-                return TimeCollector.time(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize));
+                return TimeCollector.time(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize,histogramBuckets));
             case StoredFormatIds.SQL_TIMESTAMP_ID:
-                return TimeCollector.timestamp(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize));
+                return TimeCollector.timestamp(ColumnStatsCollectors.longCollector(columnId,cardPrecision,topKSize,histogramBuckets));
             case StoredFormatIds.SQL_VARCHAR_ID:
             case StoredFormatIds.SQL_LONGVARCHAR_ID:
                 return StringStatsCollector.varcharCollector(ColumnStatsCollectors.collector(columnId,
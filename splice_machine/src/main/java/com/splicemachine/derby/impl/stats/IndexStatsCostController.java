@@ -31,6 +31,7 @@ import com.splicemachine.uuid.Snowflake;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.BitSet;
+import java.util.Map;
 
 /**
  * @author Scott Fines
@@ -124,6 +125,11 @@ public class IndexStatsCostController extends StatsStoreCostController {
         return 0;
     }
 
+    @Override
+    public Map<DataValueDescriptor,Double> frequentValueSelectivity(int columnNumber){
+        return frequentValueFractions(baseTableStatistics,columnNumber);
+    }
+
     @Override
     public long getBaseTableAvgRowWidth() {
         return baseTableStatistics.avgRowWidth();
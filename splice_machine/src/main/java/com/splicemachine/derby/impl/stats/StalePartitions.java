@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which partitions of a table have statistics which no longer describe them, so that only those
+ * partitions need to be scanned again.
+ * <p>
+ * Neither the storage layer nor the statistics keep a count of the rows written since the statistics
+ * were collected, so the number of rows of a partition is estimated from its current size on disk, using
+ * the typical number of bytes per row of the partitions of the table. A partition is stale when it has no
+ * statistics, or when this estimate differs from the number of rows counted by the last collection by more
+ * than a given fraction of that count.
+ * <p>
+ * The typical row size is the median over the partitions, so that the few partitions which did change much
+ * do not skew it. As a consequence, a table which grows evenly over all of its partitions is not
+ * detected as stale; collecting the statistics of the whole table again takes care of that.
+ */
+public class StalePartitions{
+
+    private StalePartitions(){}
+
+    /**
+     * @param partitions the names of the partitions of the table
+     * @param collectedRows the number of rows counted by the last collection, for each partition
+     *                      which has statistics
+     * @param partitionBytes the current size of each partition, for each partition whose size is known
+     * @param threshold the fraction by which the estimated rows of a partition may differ from the collected
+     *                  rows before the partition is stale
+     * @return for each of {@code partitions}, whether its statistics have to be collected again
+     */
+    public static boolean[] findStale(List<String> partitions,
+                                      Map<String,Long> collectedRows,
+                                      Map<String,Long> partitionBytes,
+                                      double threshold){
+        boolean[] stale = new boolean[partitions.size()];
+        double[] bytesPerRow = new double[partitions.size()];
+        int sized = 0;
+        for(int i=0;i<stale.length;i++){
+            String partition = partitions.get(i);
+            Long rows = collectedRows.get(partition);
+            if(rows==null){
+                stale[i] = true;
+                continue;
+            }
+            Long bytes = partitionBytes.get(partition);
+            if(rows>0 && bytes!=null && bytes>0)
+                bytesPerRow[sized++] = ((double)bytes)/rows;
+        }
+        if(sized==0){
+            /*
+             * Without the size of any partition, we cannot tell whether it changed. This is the case for
+             * small tables (whose size rounds down to nothing), which are cheap to collect anyway.
+             */
+            Arrays.fill(stale,true);
+            return stale;
+        }
+        Arrays.sort(bytesPerRow,0,sized);
+        double typicalBytesPerRow = bytesPerRow[sized/2];
+
+        for(int i=0;i<stale.length;i++){
+            if(stale[i]) continue;
+            String partition = partitions.get(i);
+            Long bytes = partitionBytes.get(partition);
+            if(bytes==null) continue; //no load information yet, so keep what we have
+            long rows = collectedRows.get(partition);
+            double estimatedRows = bytes/typicalBytesPerRow;
+            stale[i] = Math.abs(estimatedRows-rows) > threshold*Math.max(rows,1l);
+        }
+        return stale;
+    }
+}
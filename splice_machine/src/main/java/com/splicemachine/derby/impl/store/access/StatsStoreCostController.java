@@ -16,7 +16,11 @@
 package com.splicemachine.derby.impl.store.access;
 
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.splicemachine.derby.impl.stats.PartitionAverage;
 import org.apache.log4j.Logger;
@@ -35,6 +39,7 @@ import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
 import com.splicemachine.stats.ColumnStatistics;
 import com.splicemachine.stats.PartitionStatistics;
 import com.splicemachine.stats.TableStatistics;
+import com.splicemachine.stats.frequency.FrequencyEstimate;
 import com.splicemachine.utils.SpliceLogUtils;
 
 /**
@@ -169,6 +174,11 @@ public class StatsStoreCostController implements StoreCostController {
         return 0;
     }
 
+    @Override
+    public Map<DataValueDescriptor,Double> frequentValueSelectivity(int columnNumber){
+        return frequentValueFractions(conglomerateStatistics,columnNumber);
+    }
+
     @Override
     public DataValueDescriptor minValue(int columnNumber) {
         ColumnStatistics<DataValueDescriptor> colStats=getColumnStats(conglomerateStatistics,columnNumber);
@@ -189,6 +199,25 @@ public class StatsStoreCostController implements StoreCostController {
         return stats.columnStatistics(columnNumber);
     }
 
+    protected Map<DataValueDescriptor,Double> frequentValueFractions(OverheadManagedTableStatistics stats,int columnNumber){
+        ColumnStatistics<DataValueDescriptor> colStats=getColumnStats(stats,columnNumber);
+        double rowCount = stats.rowCount();
+        if(colStats==null || rowCount<=0)
+            return Collections.emptyMap();
+        Set<? extends FrequencyEstimate<DataValueDescriptor>> frequentElements=colStats.topK().allFrequentElements();
+        Map<DataValueDescriptor,Double> fractions = new HashMap<>(frequentElements.size());
+        for(FrequencyEstimate<DataValueDescriptor> est:frequentElements){
+            /*
+             * Only count the rows we are sure of, otherwise the top-k of a column with many
+             * distinct values would make each of them look far more frequent than it is
+             */
+            long count = est.count()-est.error();
+            if(count>0)
+                fractions.put(est.getValue(),Math.min(1.0d,count/rowCount));
+        }
+        return fractions;
+    }
+
     protected double nullSelectivityFraction(TableStatistics stats,int columnNumber){
         List<? extends PartitionStatistics> partStats = stats.partitionStatistics();
         long nullCount = 0l;
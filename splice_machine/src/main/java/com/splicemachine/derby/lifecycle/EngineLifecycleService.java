@@ -30,10 +30,14 @@ import com.splicemachine.access.api.DatabaseVersion;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.reference.Property;
 import com.splicemachine.db.impl.jdbc.EmbedConnection;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLEnvironmentLoader;
 import com.splicemachine.derby.impl.db.SpliceDatabase;
+import com.splicemachine.derby.impl.sql.execute.operations.BroadcastJoinCache;
 import com.splicemachine.derby.impl.store.access.SpliceAccessManager;
+import com.splicemachine.derby.stream.ResultStreamingStatistics;
+import com.splicemachine.hbase.jmx.JMXUtils;
 import com.splicemachine.lifecycle.DatabaseLifecycleService;
 import com.splicemachine.pipeline.ContextFactoryDriverService;
 import com.splicemachine.pipeline.DerbyContextFactoryLoader;
@@ -41,6 +45,9 @@ import com.splicemachine.pipeline.PipelineDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
 import com.splicemachine.pipeline.contextfactory.ReferenceCountingFactoryDriver;
+import com.splicemachine.pipeline.foreignkey.ForeignKeyParentCache;
+import com.splicemachine.si.api.txn.TransactionCacheManagement;
+import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.tools.EmbedConnectionMaker;
 import com.splicemachine.tools.version.ManifestReader;
@@ -138,6 +145,41 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
              * this exception and don't worry about it too much.
              */
         }
+
+        try{
+            BroadcastJoinCache.registerJMX(mbs);
+        }catch(InstanceAlreadyExistsException ignored){
+            //same as above
+        }
+
+        try{
+            ForeignKeyParentCache.registerJMX(mbs);
+        }catch(InstanceAlreadyExistsException ignored){
+            //same as above
+        }
+
+        try{
+            ResultStreamingStatistics.registerJMX(mbs);
+        }catch(InstanceAlreadyExistsException ignored){
+            //same as above
+        }
+
+        try{
+            DataDictionaryCache ddCache=((EmbedConnection)internalConnection).getLanguageConnection()
+                    .getDataDictionary().getDataDictionaryCache();
+            mbs.registerMBean(ddCache,new ObjectName(JMXUtils.DATA_DICTIONARY_CACHE));
+        }catch(InstanceAlreadyExistsException ignored){
+            //same as above
+        }
+
+        TxnSupplier txnSupplier=SIDriver.driver().getTxnSupplier();
+        if(txnSupplier instanceof TransactionCacheManagement){
+            try{
+                mbs.registerMBean(txnSupplier,new ObjectName(JMXUtils.TRANSACTION_CACHE_MANAGEMENT));
+            }catch(InstanceAlreadyExistsException ignored){
+                //same as above
+            }
+        }
     }
 
     @Override
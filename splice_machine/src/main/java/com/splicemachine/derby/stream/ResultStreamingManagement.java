@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream;
+
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring how fast Spark tasks stream the partitions of query results back to the query client.
+ */
+@MXBean
+public interface ResultStreamingManagement{
+
+    /**
+     * @return the number of partitions which finished streaming
+     */
+    long getStreamedPartitionCount();
+
+    long getStreamedRowCount();
+
+    long getStreamedBatchCount();
+
+    /**
+     * @return the total time the tasks spent streaming their partitions, in milliseconds
+     */
+    long getTotalStreamingTime();
+
+    /**
+     * @return the total time the tasks spent waiting for credits to send more batches, in milliseconds
+     */
+    long getTotalStallTime();
+
+    /**
+     * @return the longest time a single task spent waiting for credits, in milliseconds
+     */
+    long getMaxPartitionStallTime();
+
+    /**
+     * @return the average number of rows a task streamed per second
+     */
+    double getAverageThroughput();
+
+    /**
+     * @return the fraction of the streaming time the tasks spent waiting for credits
+     */
+    double getStallRatio();
+}
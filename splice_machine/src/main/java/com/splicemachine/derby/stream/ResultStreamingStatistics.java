@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream;
+
+import com.splicemachine.hbase.jmx.JMXUtils;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the throughput and stall time reported by each Spark task when it finishes streaming its partition
+ * of a query result, for all the queries whose results were streamed to this JVM.
+ */
+public class ResultStreamingStatistics implements ResultStreamingManagement{
+    private static final ResultStreamingStatistics INSTANCE=new ResultStreamingStatistics();
+
+    private final AtomicLong partitions=new AtomicLong(0L);
+    private final AtomicLong rows=new AtomicLong(0L);
+    private final AtomicLong batches=new AtomicLong(0L);
+    private final AtomicLong elapsedNanos=new AtomicLong(0L);
+    private final AtomicLong stallNanos=new AtomicLong(0L);
+    private final AtomicLong maxStallNanos=new AtomicLong(0L);
+
+    ResultStreamingStatistics(){}
+
+    public static ResultStreamingStatistics getInstance(){
+        return INSTANCE;
+    }
+
+    public static void registerJMX(MBeanServer mbs) throws MalformedObjectNameException,
+            NotCompliantMBeanException,
+            InstanceAlreadyExistsException,
+            MBeanRegistrationException{
+        mbs.registerMBean(INSTANCE,new ObjectName(JMXUtils.RESULT_STREAMING));
+    }
+
+    /**
+     * Record the statistics of a partition which finished streaming.
+     */
+    public void partitionStreamed(long partitionRows,long partitionBatches,long partitionElapsedNanos,long partitionStallNanos){
+        partitions.incrementAndGet();
+        rows.addAndGet(partitionRows);
+        batches.addAndGet(partitionBatches);
+        elapsedNanos.addAndGet(partitionElapsedNanos);
+        stallNanos.addAndGet(partitionStallNanos);
+        long max;
+        do{
+            max=maxStallNanos.get();
+            if(max>=partitionStallNanos) break;
+        }while(!maxStallNanos.compareAndSet(max,partitionStallNanos));
+    }
+
+    @Override
+    public long getStreamedPartitionCount(){
+        return partitions.get();
+    }
+
+    @Override
+    public long getStreamedRowCount(){
+        return rows.get();
+    }
+
+    @Override
+    public long getStreamedBatchCount(){
+        return batches.get();
+    }
+
+    @Override
+    public long getTotalStreamingTime(){
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos.get());
+    }
+
+    @Override
+    public long getTotalStallTime(){
+        return TimeUnit.NANOSECONDS.toMillis(stallNanos.get());
+    }
+
+    @Override
+    public long getMaxPartitionStallTime(){
+        return TimeUnit.NANOSECONDS.toMillis(maxStallNanos.get());
+    }
+
+    @Override
+    public double getAverageThroughput(){
+        long elapsed=elapsedNanos.get();
+        return elapsed>0? rows.get()*1e9d/elapsed: 0d;
+    }
+
+    @Override
+    public double getStallRatio(){
+        long elapsed=elapsedNanos.get();
+        return elapsed>0? (double)stallNanos.get()/elapsed: 0d;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.derby.stream.iapi.Broadcasted;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Control side tasks all run in this JVM, so the value is simply held on to.
+ */
+public class ControlBroadcasted<T> implements Broadcasted<T>{
+    private T value;
+
+    public ControlBroadcasted(){ }
+
+    public ControlBroadcasted(T value){
+        this.value=value;
+    }
+
+    @Override
+    public T getValue(){
+        return value;
+    }
+
+    @Override
+    public void release(){
+        // nothing to release
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeObject(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        value=(T)in.readObject();
+    }
+}
@@ -169,6 +169,20 @@ public class ControlDataSet<V> implements DataSet<V> {
         return Iterators.size(iterator);
     }
 
+    @Override
+    public <Op extends SpliceOperation> V reduce(SpliceFunction2<Op,V,V,V> function) {
+        try {
+            V result = null;
+            while (iterator.hasNext()) {
+                V next = iterator.next();
+                result = result == null ? next : function.call(result, next);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public DataSet<V> union(DataSet< V> dataSet) {
         return new ControlDataSet<>(Iterators.concat(iterator, ((ControlDataSet<V>) dataSet).iterator));
@@ -323,6 +337,11 @@ public class ControlDataSet<V> implements DataSet<V> {
         // no op
     }
 
+    @Override
+    public void unpersist() {
+        // no op
+    }
+
     @Override
     public Iterator<V> iterator() {
         return this.toLocalIterator();
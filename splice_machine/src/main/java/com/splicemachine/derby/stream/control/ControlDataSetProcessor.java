@@ -19,13 +19,20 @@ import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.zip.GZIPInputStream;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -41,6 +48,7 @@ import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.function.Partitioner;
+import com.splicemachine.derby.stream.iapi.Broadcasted;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -206,6 +214,31 @@ public class ControlDataSetProcessor implements DataSetProcessor{
         return readTextFile(s);
     }
 
+    @Override
+    public DataSet<ByteBuffer> readTextFileChunks(String s,SpliceOperation op){
+        try{
+            DistributedFileSystem dfs=SIDriver.driver().fileSystem();
+            List<Path> files=new ArrayList<>();
+            if(dfs.getInfo(s).isDirectory()){
+                try(DirectoryStream<Path> stream=Files.newDirectoryStream(dfs.getPath(s))){
+                    for(Path p:stream){
+                        files.add(p);
+                    }
+                }
+            }else{
+                files.add(dfs.getPath(s));
+            }
+            return new ControlDataSet<>(new LineChunkIterator(dfs,files));
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public <T> Broadcasted<T> broadcast(T value){
+        return new ControlBroadcasted<>(value);
+    }
+
     @Override
     public <K,V> PairDataSet<K, V> getEmptyPair(){
         return new ControlPairDataSet<>(Collections.<Tuple2<K, V>>emptyList().iterator());
@@ -226,6 +259,134 @@ public class ControlDataSetProcessor implements DataSetProcessor{
         // no op
     }
 
+    /**
+     * Reads files as chunks of whole lines. Files which are not compressed and are in a file system which supports it
+     * are memory-mapped, the rest are read into heap buffers.
+     */
+    private class LineChunkIterator implements Iterator<ByteBuffer>{
+        private static final int MAPPED_CHUNK_SIZE=64*1024*1024;
+        private static final int STREAM_CHUNK_SIZE=1024*1024;
+
+        private final DistributedFileSystem dfs;
+        private final Iterator<Path> files;
+        private ByteBuffer next;
+
+        /*the file being mapped*/
+        private FileChannel channel;
+        private long position;
+        /*the file being read, with the start of its next line*/
+        private InputStream stream;
+        private byte[] carry=new byte[0];
+
+        LineChunkIterator(DistributedFileSystem dfs,List<Path> files){
+            this.dfs=dfs;
+            this.files=files.iterator();
+        }
+
+        @Override
+        public boolean hasNext(){
+            try{
+                while(next==null){
+                    if(channel!=null)
+                        next=nextMappedChunk();
+                    else if(stream!=null)
+                        next=nextStreamChunk();
+                    else if(files.hasNext())
+                        open(files.next());
+                    else
+                        return false;
+                }
+                return true;
+            }catch(IOException e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public ByteBuffer next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            ByteBuffer chunk=next;
+            next=null;
+            return chunk;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+        private void open(Path p) throws IOException{
+            String s=p.getFileName().toString();
+            if(!s.endsWith("gz")){
+                try{
+                    channel=FileChannel.open(p,StandardOpenOption.READ);
+                    position=0;
+                    return;
+                }catch(UnsupportedOperationException uoe){
+                    //the file system can't map files, read it instead
+                }
+            }
+            stream=newInputStream(dfs,p,StandardOpenOption.READ);
+        }
+
+        private ByteBuffer nextMappedChunk() throws IOException{
+            long size=channel.size();
+            if(position>=size){
+                channel.close();
+                channel=null;
+                return null;
+            }
+            long length=Math.min(MAPPED_CHUNK_SIZE,size-position);
+            while(true){
+                MappedByteBuffer chunk=channel.map(FileChannel.MapMode.READ_ONLY,position,length);
+                int end=(int)length;
+                if(position+length<size){
+                    end=lastLineEnd(chunk,(int)length);
+                    if(end<0){
+                        // no line ends in this chunk, map a larger one
+                        length=Math.min(Math.min(length*2,Integer.MAX_VALUE),size-position);
+                        continue;
+                    }
+                }
+                chunk.limit(end);
+                position+=end;
+                return chunk;
+            }
+        }
+
+        private ByteBuffer nextStreamChunk() throws IOException{
+            byte[] data=Arrays.copyOf(carry,Math.max(STREAM_CHUNK_SIZE,carry.length*2));
+            int length=carry.length;
+            int end=-1;
+            boolean eof=false;
+            while(end<0 && !eof){
+                int read;
+                while(length<data.length && (read=stream.read(data,length,data.length-length))>=0){
+                    length+=read;
+                }
+                eof=length<data.length;
+                end=eof?length:lastLineEnd(ByteBuffer.wrap(data),length);
+                if(end<0)
+                    data=Arrays.copyOf(data,data.length*2);
+            }
+            carry=Arrays.copyOfRange(data,end,length);
+            if(eof){
+                stream.close();
+                stream=null;
+            }
+            return end>0?ByteBuffer.wrap(data,0,end):null;
+        }
+
+        private int lastLineEnd(ByteBuffer buffer,int length){
+            for(int i=length-1;i>=0;i--){
+                byte b=buffer.get(i);
+                if(b=='\n' || b=='\r')
+                    return i+1;
+            }
+            return -1;
+        }
+    }
+
     private static class TextFileIterator implements Iterator<String>{
 
         Scanner scanner;
@@ -49,6 +49,8 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         long rowsJoinedLeft;
         long rowsJoinedRight;
         long rowsProduced;
+        long spilledBytes;
+        long spillPasses;
         List<String> badRecords;
         public ActivationHolder activationHolder;
         public SpliceTransactionResourceImpl impl;
@@ -270,6 +272,26 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         return tooBusy;
     }
 
+    @Override
+    public void recordSpill(long bytes) {
+        spilledBytes+=bytes;
+    }
+
+    @Override
+    public void recordSpillPass() {
+        spillPasses++;
+    }
+
+    @Override
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    @Override
+    public long getSpillPasses() {
+        return spillPasses;
+    }
+
     @Override
     public void pushScope(String displayName) {
         // no op
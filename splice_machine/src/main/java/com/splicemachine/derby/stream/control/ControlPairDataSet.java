@@ -45,7 +45,6 @@ import scala.Tuple2;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Stream;
-import static com.splicemachine.derby.stream.control.ControlUtils.entryToTuple;
 import static com.splicemachine.derby.stream.control.ControlUtils.multimapFromIterator;
 import static org.spark_project.guava.collect.Maps.*;
 
@@ -100,22 +99,23 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
-        Multimap<K,V> newMap = multimapFromIterator(source);
-        return new ControlPairDataSet<>(entryToTuple(Multimaps.<K,V>forMap(transformValues(newMap.asMap(),
-                new Function<Collection<V>, V>() {
+        SpillingHashAggregator<K,V,V> aggregator = SpillingHashAggregator.newAggregator(new SpillingHashAggregator.Combiner<V, V>() {
             @Override
-            public V apply(@Nullable Collection<V> vs) {
-                try {
-                    V returnValue = null;
-                    for (V v : vs) {
-                        returnValue = function2.call(returnValue, v);
-                    }
-                    return returnValue;
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+            public V createCombiner(V value) throws Exception {
+                return function2.call(null, value);
+            }
+
+            @Override
+            public V mergeValue(V combiner, V value) throws Exception {
+                return function2.call(combiner, value);
             }
-        })).entries()));
+
+            @Override
+            public V mergeCombiners(V first, V second) throws Exception {
+                return function2.call(first, second);
+            }
+        }, function2.operationContext);
+        return new ControlPairDataSet<>(aggregator.aggregate(source));
     }
 
     @Override
@@ -130,18 +130,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, V> sortByKey(final Comparator<K> comparator) {
-        /*
-         * -sf- this is done a bit goofily, so that we can support multiple versions of guava.
-         *
-         * This is essentially copying out FluentIterable.from(source).toSortedList(comparator) logic
-         * directly into the method, so that we can support the same code line from 12.0.1 on.
-         */
-        return new ControlPairDataSet<>(Ordering.from(new Comparator<Tuple2<K, V>>() {
-            @Override
-            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
-                return comparator.compare(o1._1(), o2._1());
-            }
-        }).immutableSortedCopy(() -> source).iterator());
+        return sortByKey(comparator, null, null, 0L);
     }
 
     @Override
@@ -150,6 +139,12 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
         return sortByKey(comparator);
     }
 
+    @Override
+    public PairDataSet<K, V> sortByKey(Comparator<K> comparator, String name, OperationContext context, long limit) {
+        ExternalSorter<K,V> sorter = ExternalSorter.newSorter(comparator, context, limit);
+        return new ControlPairDataSet<>(sorter.sort(source));
+    }
+
     @Override
     public PairDataSet<K, V> partitionBy(Partitioner<K> partitioner, Comparator<K> comparator) {
         // we don't need to partition
@@ -158,22 +153,52 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, Iterable<V>> groupByKey() {
-        Multimap<K,V> newMap = multimapFromIterator(source);
-        return new ControlPairDataSet<>(FluentIterable.from(newMap.asMap().entrySet()).transform(new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
-            @Nullable
-            @Override
-            public Tuple2<K, Iterable<V>> apply(@Nullable Map.Entry<K, Collection<V>> e) {
-                assert e!=null: "E cannot be null";
-                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
-            }
-        }).iterator());
+        return groupByKey(null, null);
     }
 
     @Override
     public PairDataSet<K, Iterable<V>> groupByKey(String name) {
+        // 'name' is not used on control side
         return groupByKey();
     }
 
+    @Override
+    public PairDataSet<K, Iterable<V>> groupByKey(String name, OperationContext context) {
+        SpillingHashAggregator<K,V,List<V>> aggregator = SpillingHashAggregator.newAggregator(new SpillingHashAggregator.Combiner<V, List<V>>() {
+            @Override
+            public List<V> createCombiner(V value) {
+                List<V> values = new ArrayList<>();
+                values.add(value);
+                return values;
+            }
+
+            @Override
+            public List<V> mergeValue(List<V> combiner, V value) {
+                combiner.add(value);
+                return combiner;
+            }
+
+            @Override
+            public List<V> mergeCombiners(List<V> first, List<V> second) {
+                first.addAll(second);
+                return first;
+            }
+
+            @Override
+            public boolean retainsValues() {
+                return true;
+            }
+        }, context);
+        return new ControlPairDataSet<>(Iterators.transform(aggregator.aggregate(source), new Function<Tuple2<K, List<V>>, Tuple2<K, Iterable<V>>>() {
+            @Nullable
+            @Override
+            public Tuple2<K, Iterable<V>> apply(@Nullable Tuple2<K, List<V>> t) {
+                assert t!=null: "T cannot be null";
+                return new Tuple2<K, Iterable<V>>(t._1(), t._2());
+            }
+        }));
+    }
+
     @Override
     public <W> PairDataSet< K, Tuple2<V, Optional<W>>> hashLeftOuterJoin(final PairDataSet< K, W> rightDataSet) {
         // Materializes the right side
@@ -15,6 +15,9 @@
 
 package com.splicemachine.derby.stream.control;
 
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import org.spark_project.guava.base.Function;
 import org.spark_project.guava.collect.*;
 import scala.Tuple2;
@@ -48,4 +51,37 @@ public class ControlUtils {
         }
         return newMap;
     }
+
+    /**
+     * Rough estimate of the heap held by a row (or collection of rows), used by control-side
+     * operations to decide when to spill to disk.
+     */
+    public static long estimateSize(Object o) {
+        if (o == null)
+            return 8L;
+        if (o instanceof LocatedRow) {
+            return 32L + estimateSize(((LocatedRow) o).getRow());
+        } else if (o instanceof ExecRow) {
+            long size = 24L;
+            DataValueDescriptor[] dvds = ((ExecRow) o).getRowArray();
+            if (dvds != null) {
+                size += 8L * dvds.length;
+                for (DataValueDescriptor dvd : dvds) {
+                    if (dvd != null)
+                        size += dvd.estimateMemoryUsage();
+                }
+            }
+            return size;
+        } else if (o instanceof Collection) {
+            long size = 48L;
+            for (Object e : (Collection) o) {
+                size += 8L + estimateSize(e);
+            }
+            return size;
+        } else if (o instanceof Tuple2) {
+            Tuple2 t = (Tuple2) o;
+            return 24L + estimateSize(t._1()) + estimateSize(t._2());
+        }
+        return 64L;
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import org.spark_project.guava.collect.Iterators;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Bounded-memory sort for the control side.
+ *
+ * Input is buffered until the memory budget is reached, at which point the buffer is sorted
+ * and written out to a local spill file as a sorted run. Once the input is exhausted, the runs
+ * (plus whatever is still buffered) are merged with a {@link LoserTree}. If there are more runs than
+ * can be merged at once, runs are merged in intermediate passes first.
+ *
+ * When only the first {@code limit} records are needed (i.e. for FETCH FIRST N ROWS), the sort
+ * keeps a bounded heap of the best {@code limit} records instead, and only falls back to
+ * generating runs (each truncated to {@code limit} records) if those records do not fit within the
+ * memory budget.
+ *
+ * The sort is stable: records with equal keys are returned in the order in which they were read.
+ */
+public class ExternalSorter<K,V>{
+    /*
+     * The maximum number of runs which are merged at once. Each run being merged holds
+     * an open file and a read buffer.
+     */
+    static final int MAX_MERGE_WIDTH=64;
+
+    private final Comparator<Tuple2<K,V>> comparator;
+    private final long memoryBudget;
+    private final int mergeWidth;
+    private final File spillDirectory;
+    private final OperationContext operationContext;
+    private final long limit;
+
+    public ExternalSorter(final Comparator<? super K> keyComparator,
+                          long memoryBudget,
+                          int mergeWidth,
+                          File spillDirectory,
+                          @Nullable OperationContext operationContext,
+                          long limit){
+        assert mergeWidth>1: "Cannot merge fewer than 2 runs at a time";
+        this.comparator=new Comparator<Tuple2<K, V>>(){
+            @Override
+            public int compare(Tuple2<K, V> o1,Tuple2<K, V> o2){
+                return keyComparator.compare(o1._1(),o2._1());
+            }
+        };
+        this.memoryBudget=memoryBudget;
+        this.mergeWidth=mergeWidth;
+        this.spillDirectory=spillDirectory;
+        this.operationContext=operationContext;
+        this.limit=limit;
+    }
+
+    /**
+     * Create a sorter using the configured control-side spill settings. When there is no
+     * engine running (i.e. in unit tests), the sorter never spills.
+     *
+     * @param limit the maximum number of records which will be consumed from the sorted output, or
+     *              a value {@code <=0} if all records are needed.
+     */
+    public static <K,V> ExternalSorter<K,V> newSorter(Comparator<? super K> keyComparator,
+                                                      @Nullable OperationContext operationContext,
+                                                      long limit){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver==null)
+            return new ExternalSorter<>(keyComparator,Long.MAX_VALUE,MAX_MERGE_WIDTH,null,operationContext,limit);
+        SConfiguration config=driver.getConfiguration();
+        return new ExternalSorter<>(keyComparator,
+                config.getControlSpillMemory(),
+                MAX_MERGE_WIDTH,
+                new File(config.getControlSpillDirectory()),
+                operationContext,
+                limit);
+    }
+
+    public Iterator<Tuple2<K,V>> sort(Iterator<Tuple2<K,V>> source){
+        try{
+            if(limit>0)
+                return topN(source);
+            return externalSort(source);
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private Iterator<Tuple2<K,V>> topN(Iterator<Tuple2<K,V>> source) throws IOException{
+        /*
+         * Buffer in input order until we have N records, so that we can still fall back to
+         * a stable external sort if the top N records do not fit within the memory budget.
+         */
+        List<Tuple2<K,V>> buffered=new ArrayList<>((int)Math.min(limit,1024));
+        long bufferUsed=0L;
+        while(buffered.size()<limit && source.hasNext()){
+            Tuple2<K,V> next=source.next();
+            buffered.add(next);
+            bufferUsed+=ControlUtils.estimateSize(next);
+            if(bufferUsed>memoryBudget)
+                return externalSort(Iterators.concat(buffered.iterator(),source));
+        }
+
+        /*
+         * Max-heap on the sort order (ties broken by arrival), so that the head of the heap is
+         * the record which is the first to be evicted when we see something better.
+         */
+        PriorityQueue<Ranked<Tuple2<K,V>>> heap=new PriorityQueue<>(buffered.size()+1,Collections.reverseOrder(new RankedComparator<>(comparator)));
+        long seq=0L;
+        for(Tuple2<K,V> record : buffered){
+            heap.add(new Ranked<>(record,seq++));
+        }
+        buffered=null;
+        while(source.hasNext()){
+            Tuple2<K,V> next=source.next();
+            if(comparator.compare(next,heap.peek().record)<0){
+                heap.poll();
+                heap.add(new Ranked<>(next,seq++));
+            }
+        }
+        List<Ranked<Tuple2<K,V>>> ranked=new ArrayList<>(heap);
+        Collections.sort(ranked,new RankedComparator<>(comparator));
+        List<Tuple2<K,V>> sorted=new ArrayList<>(ranked.size());
+        for(Ranked<Tuple2<K,V>> r : ranked){
+            sorted.add(r.record);
+        }
+        return sorted.iterator();
+    }
+
+    private Iterator<Tuple2<K,V>> externalSort(Iterator<Tuple2<K,V>> source) throws IOException{
+        List<Tuple2<K,V>> buffer=new ArrayList<>();
+        List<SpillFile> runs=new ArrayList<>();
+        long bufferUsed=0L;
+        try{
+            while(source.hasNext()){
+                Tuple2<K,V> next=source.next();
+                buffer.add(next);
+                bufferUsed+=ControlUtils.estimateSize(next);
+                if(bufferUsed>memoryBudget){
+                    Collections.sort(buffer,comparator);
+                    runs.add(writeRun(buffer.iterator()));
+                    buffer.clear();
+                    bufferUsed=0L;
+                }
+            }
+            Collections.sort(buffer,comparator);
+            if(runs.isEmpty())
+                return limit(buffer.iterator());
+
+            /*
+             * The buffered records came last, so they are merged as the last run to keep
+             * the sort stable.
+             */
+            while(runs.size()+1>mergeWidth){
+                runs=mergePass(runs);
+            }
+            if(operationContext!=null)
+                operationContext.recordSpillPass();
+            List<Iterator<Tuple2<K,V>>> inputs=open(runs);
+            inputs.add(buffer.iterator());
+            return discardWhenExhausted(limit(new LoserTree<>(inputs,comparator)),runs);
+        }catch(IOException|RuntimeException e){
+            for(SpillFile run : runs){
+                run.discard();
+            }
+            throw e;
+        }
+    }
+
+    private List<SpillFile> mergePass(List<SpillFile> runs) throws IOException{
+        if(operationContext!=null)
+            operationContext.recordSpillPass();
+        List<SpillFile> merged=new ArrayList<>(runs.size()/mergeWidth+1);
+        for(int start=0;start<runs.size();start+=mergeWidth){
+            List<SpillFile> group=runs.subList(start,Math.min(start+mergeWidth,runs.size()));
+            if(group.size()==1){
+                merged.add(group.get(0));
+            }else{
+                merged.add(writeRun(new LoserTree<>(open(group),comparator)));
+                // the merged run may have been truncated before the end of its inputs
+                for(SpillFile run : group){
+                    run.discard();
+                }
+            }
+        }
+        return merged;
+    }
+
+    private SpillFile writeRun(Iterator<Tuple2<K,V>> sorted) throws IOException{
+        SpillFile run=new SpillFile(spillDirectory);
+        try{
+            Iterator<Tuple2<K,V>> records=limit(sorted);
+            while(records.hasNext()){
+                Tuple2<K,V> next=records.next();
+                run.write(next._1(),next._2());
+            }
+            long written=run.finishWriting();
+            if(operationContext!=null)
+                operationContext.recordSpill(written);
+            return run;
+        }catch(IOException|RuntimeException e){
+            run.discard();
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Iterator<Tuple2<K,V>>> open(List<SpillFile> runs) throws IOException{
+        List<Iterator<Tuple2<K,V>>> iterators=new ArrayList<>(runs.size()+1);
+        for(SpillFile run : runs){
+            Iterator spilled=run.read();
+            iterators.add((Iterator<Tuple2<K,V>>)spilled);
+        }
+        return iterators;
+    }
+
+    /*
+     * A limited merge stops before reaching the end of its runs, so they must be removed explicitly.
+     */
+    private Iterator<Tuple2<K,V>> discardWhenExhausted(final Iterator<Tuple2<K,V>> merged,final List<SpillFile> runs){
+        return new Iterator<Tuple2<K, V>>(){
+            @Override
+            public boolean hasNext(){
+                if(merged.hasNext()) return true;
+                for(SpillFile run : runs){
+                    run.discard();
+                }
+                return false;
+            }
+
+            @Override
+            public Tuple2<K, V> next(){
+                return merged.next();
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private Iterator<Tuple2<K,V>> limit(Iterator<Tuple2<K,V>> sorted){
+        if(limit<=0 || limit>=Integer.MAX_VALUE)
+            return sorted;
+        return Iterators.limit(sorted,(int)limit);
+    }
+
+    private static class Ranked<T>{
+        private final T record;
+        private final long seq;
+
+        Ranked(T record,long seq){
+            this.record=record;
+            this.seq=seq;
+        }
+    }
+
+    private static class RankedComparator<T> implements Comparator<Ranked<T>>{
+        private final Comparator<? super T> comparator;
+
+        RankedComparator(Comparator<? super T> comparator){
+            this.comparator=comparator;
+        }
+
+        @Override
+        public int compare(Ranked<T> o1,Ranked<T> o2){
+            int c=comparator.compare(o1.record,o2.record);
+            return c!=0?c:Long.compare(o1.seq,o2.seq);
+        }
+    }
+}
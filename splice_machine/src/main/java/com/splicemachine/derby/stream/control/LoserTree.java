@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * K-way merge of sorted iterators using a tournament tree of losers.
+ *
+ * Each internal node of the tree remembers the loser of the match played there, and the
+ * overall winner is kept in slot 0. Producing the next element only requires replaying the
+ * matches on the path from the winner's leaf to the root, so each element costs
+ * {@code log2(k)} comparisons regardless of how the sources are distributed.
+ *
+ * Ties are broken in favor of the source with the lower index, so merging runs which were
+ * generated in input order yields a stable sort.
+ */
+public class LoserTree<T> implements Iterator<T>{
+    private final Comparator<? super T> comparator;
+    private final Iterator<? extends T>[] sources;
+    private final Object[] heads;
+    private final boolean[] exhausted;
+    /*
+     * tree[0] holds the index of the current winner, tree[1..k-1] the loser at each internal
+     * node. The leaves are implicit: source i sits at position k+i.
+     */
+    private final int[] tree;
+
+    @SuppressWarnings("unchecked")
+    public LoserTree(List<? extends Iterator<? extends T>> sources,Comparator<? super T> comparator){
+        int k=sources.size();
+        assert k>0: "Cannot merge zero sources";
+        this.comparator=comparator;
+        this.sources=sources.toArray(new Iterator[k]);
+        this.heads=new Object[k];
+        this.exhausted=new boolean[k];
+        this.tree=new int[k];
+        for(int i=0;i<k;i++){
+            advance(i);
+        }
+        initialize();
+    }
+
+    @Override
+    public boolean hasNext(){
+        return !exhausted[tree[0]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next(){
+        int winner=tree[0];
+        if(exhausted[winner]) throw new NoSuchElementException();
+        T next=(T)heads[winner];
+        advance(winner);
+        replay(winner);
+        return next;
+    }
+
+    @Override
+    public void remove(){
+        throw new UnsupportedOperationException();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void initialize(){
+        int k=tree.length;
+        int[] winners=new int[2*k];
+        for(int i=0;i<k;i++){
+            winners[k+i]=i;
+        }
+        for(int node=k-1;node>0;node--){
+            int left=winners[2*node];
+            int right=winners[2*node+1];
+            if(beats(left,right)){
+                winners[node]=left;
+                tree[node]=right;
+            }else{
+                winners[node]=right;
+                tree[node]=left;
+            }
+        }
+        tree[0]=k==1?0:winners[1];
+    }
+
+    private void replay(int source){
+        int k=tree.length;
+        int winner=source;
+        for(int node=(source+k)>>>1;node>0;node>>>=1){
+            if(beats(tree[node],winner)){
+                int loser=winner;
+                winner=tree[node];
+                tree[node]=loser;
+            }
+        }
+        tree[0]=winner;
+    }
+
+    private void advance(int source){
+        if(sources[source].hasNext()){
+            heads[source]=sources[source].next();
+        }else{
+            heads[source]=null;
+            exhausted[source]=true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean beats(int first,int second){
+        if(exhausted[first]) return false;
+        if(exhausted[second]) return true;
+        int c=comparator.compare((T)heads[first],(T)heads[second]);
+        return c<0 || (c==0 && first<second);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A local temp file holding a sequence of (key, value) pairs which have been spilled
+ * by a control-side operation. The file is created lazily on the first write, and is removed
+ * once it has been read back fully (or explicitly discarded).
+ *
+ * Pairs are written with Java serialization, so keys and values must be {@link Serializable}.
+ */
+class SpillFile{
+    private static final Logger LOG=Logger.getLogger(SpillFile.class);
+    /*
+     * ObjectOutputStream keeps a reference to everything written since the last reset(), so we
+     * reset it periodically to keep that table from growing without bound.
+     */
+    private static final int RESET_INTERVAL=1024;
+    private static final int BUFFER_SIZE=64*1024;
+
+    private final File spillDirectory;
+    private File file;
+    private ObjectOutputStream out;
+    private ObjectInputStream in;
+    private long count;
+    private long sinceReset;
+
+    SpillFile(File spillDirectory){
+        this.spillDirectory=spillDirectory;
+    }
+
+    /**
+     * Forget about any objects which were previously written. This must be called whenever
+     * objects which have already been written may have been mutated in place since, otherwise
+     * the stream will write back-references to the old state.
+     */
+    void resetReferences() throws IOException{
+        if(out!=null){
+            out.reset();
+            sinceReset=0;
+        }
+    }
+
+    void write(Object key,Object value) throws IOException{
+        if(out==null){
+            file=File.createTempFile("splice-spill-",".tmp",spillDirectory);
+            out=new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file),BUFFER_SIZE));
+        }
+        out.writeObject(key);
+        out.writeObject(value);
+        count++;
+        if(++sinceReset>=RESET_INTERVAL){
+            out.reset();
+            sinceReset=0;
+        }
+    }
+
+    /**
+     * @return the number of bytes written to disk
+     */
+    long finishWriting() throws IOException{
+        if(out==null) return 0L;
+        out.close();
+        out=null;
+        return file.length();
+    }
+
+    long size(){
+        return count;
+    }
+
+    Iterator<Tuple2<Object,Object>> read() throws IOException{
+        if(count<=0)
+            return Collections.emptyIterator();
+        in=new ObjectInputStream(new BufferedInputStream(new FileInputStream(file),BUFFER_SIZE));
+        final long total=count;
+        return new Iterator<Tuple2<Object,Object>>(){
+            private long read=0L;
+
+            @Override
+            public boolean hasNext(){
+                if(read<total) return true;
+                discard();
+                return false;
+            }
+
+            @Override
+            public Tuple2<Object,Object> next(){
+                if(!hasNext()) throw new NoSuchElementException();
+                try{
+                    Object key=in.readObject();
+                    Object value=in.readObject();
+                    read++;
+                    return new Tuple2<>(key,value);
+                }catch(IOException|ClassNotFoundException e){
+                    discard();
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Close any open streams and remove the file. This is safe to call more than once, and must
+     * be called by anyone who stops reading before the end of the file.
+     */
+    void discard(){
+        if(in!=null){
+            try{
+                in.close();
+            }catch(IOException e){
+                LOG.warn("Unable to close spill file "+file,e);
+            }
+            in=null;
+        }
+        if(out!=null){
+            try{
+                out.close();
+            }catch(IOException e){
+                LOG.warn("Unable to close spill file "+file,e);
+            }
+            out=null;
+        }
+        if(file!=null && file.exists() && !file.delete())
+            LOG.warn("Unable to delete spill file "+file);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.base.Function;
+import org.spark_project.guava.collect.Iterators;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Bounded-memory hash aggregation for the control side.
+ *
+ * Values are combined per key in an in-memory hash table. Whenever the estimated size of that table
+ * exceeds the memory budget, its contents are hash-partitioned and appended to local spill files, and
+ * the table is cleared. Once the input is exhausted, each spilled partition is read back and merged
+ * in its own pass (one partition in memory at a time). A partition which is still too large is
+ * re-partitioned with a different hash seed, up to {@link #MAX_DEPTH} levels deep, after which it is
+ * merged in memory regardless of the budget (this only happens when a handful of keys hold most of the
+ * data, in which case more partitioning cannot help).
+ *
+ * The combining logic follows the Spark {@code combineByKey} contract, so the same aggregator
+ * serves both {@code reduceByKey} (where the combined value has the same type as the input) and
+ * {@code groupByKey} (where the combined value is a list of all values for the key).
+ *
+ * Spilled keys and values are written with Java serialization, so they must be {@link Serializable};
+ * all rows which flow through the control side already are. Spill files are removed as their partitions
+ * are merged; when there is an operation to attach them to, they are also removed when it closes, so
+ * that an iterator which is abandoned part way through (e.g. under a LIMIT) doesn't leak them.
+ */
+public class SpillingHashAggregator<K,V,C>{
+    private static final Logger LOG=Logger.getLogger(SpillingHashAggregator.class);
+
+    /*
+     * The maximum number of times a single partition will be re-partitioned. With the default
+     * of 16 partitions, this gives us a 64K-fold reduction in size before we give up.
+     */
+    static final int MAX_DEPTH=4;
+
+    public static abstract class Combiner<V,C>{
+        public abstract C createCombiner(V value) throws Exception;
+
+        public abstract C mergeValue(C combiner,V value) throws Exception;
+
+        public abstract C mergeCombiners(C first,C second) throws Exception;
+
+        /**
+         * @return true if the combined value retains every value which is merged into it (as in a
+         * grouping), false if it stays roughly the same size (as in a reduction).
+         */
+        public boolean retainsValues(){
+            return false;
+        }
+    }
+
+    private final Combiner<V,C> combiner;
+    private final long memoryBudget;
+    private final int numPartitions;
+    private final File spillDirectory;
+    private final OperationContext operationContext;
+
+    public SpillingHashAggregator(Combiner<V,C> combiner,
+                                  long memoryBudget,
+                                  int numPartitions,
+                                  File spillDirectory,
+                                  @Nullable OperationContext operationContext){
+        assert numPartitions>1: "Cannot spill into fewer than 2 partitions";
+        this.combiner=combiner;
+        this.memoryBudget=memoryBudget;
+        this.numPartitions=numPartitions;
+        this.spillDirectory=spillDirectory;
+        this.operationContext=operationContext;
+    }
+
+    /**
+     * Create an aggregator using the configured control-side spill settings. When there is no
+     * engine running (i.e. in unit tests), the aggregator never spills.
+     */
+    public static <K,V,C> SpillingHashAggregator<K,V,C> newAggregator(Combiner<V,C> combiner,
+                                                                    @Nullable OperationContext operationContext){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver==null)
+            return new SpillingHashAggregator<>(combiner,Long.MAX_VALUE,2,null,operationContext);
+        SConfiguration config=driver.getConfiguration();
+        return new SpillingHashAggregator<>(combiner,
+                config.getControlSpillMemory(),
+                Math.max(2,config.getControlSpillPartitions()),
+                new File(config.getControlSpillDirectory()),
+                operationContext);
+    }
+
+    public Iterator<Tuple2<K,C>> aggregate(Iterator<Tuple2<K,V>> source){
+        try{
+            return aggregate(source,false,0);
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    @SuppressWarnings("unchecked")
+    private Iterator<Tuple2<K,C>> aggregate(Iterator<? extends Tuple2<K,?>> source,boolean combined,int depth) throws IOException{
+        Map<K,C> table=new HashMap<>();
+        long heapUsed=0L;
+        SpillFile[] partitions=null;
+        try{
+            while(source.hasNext()){
+                Tuple2<K,?> next=source.next();
+                K key=next._1();
+                C existing=table.get(key);
+                C updated;
+                if(existing==null){
+                    updated=combined?(C)next._2():combiner.createCombiner((V)next._2());
+                    heapUsed+=ControlUtils.estimateSize(key)+ControlUtils.estimateSize(updated);
+                }else{
+                    if(combined){
+                        updated=combiner.mergeCombiners(existing,(C)next._2());
+                        if(combiner.retainsValues())
+                            heapUsed+=ControlUtils.estimateSize(next._2());
+                    }else{
+                        updated=combiner.mergeValue(existing,(V)next._2());
+                        if(combiner.retainsValues())
+                            heapUsed+=ControlUtils.estimateSize(next._2());
+                    }
+                }
+                table.put(key,updated);
+
+                if(heapUsed>memoryBudget && depth<MAX_DEPTH){
+                    if(partitions==null)
+                        partitions=newPartitions();
+                    spill(table,partitions,depth);
+                    table.clear();
+                    heapUsed=0L;
+                }
+            }
+        }catch(IOException|RuntimeException e){
+            discard(partitions);
+            throw e;
+        }catch(Exception e){
+            discard(partitions);
+            throw new RuntimeException(e);
+        }
+
+        if(partitions==null){
+            if(depth>=MAX_DEPTH && heapUsed>memoryBudget)
+                LOG.warn("Unable to reduce partition below the memory budget of "+memoryBudget+
+                        " bytes after "+depth+" passes, merging "+heapUsed+" bytes in memory");
+            return ControlUtils.entryToTuple(table.entrySet());
+        }
+
+        /*
+         * Flush whatever is left, so that every key lives in exactly one partition. Then merge
+         * each partition lazily, so that only one is ever in memory at a time.
+         */
+        try{
+            spill(table,partitions,depth);
+            long spilled=0L;
+            for(SpillFile partition : partitions){
+                spilled+=partition.finishWriting();
+            }
+            if(operationContext!=null)
+                operationContext.recordSpill(spilled);
+        }catch(IOException e){
+            discard(partitions);
+            throw e;
+        }
+        final int nextDepth=depth+1;
+        return Iterators.concat(Iterators.transform(Iterators.forArray(partitions),new Function<SpillFile, Iterator<Tuple2<K,C>>>(){
+            @Override
+            @SuppressWarnings("unchecked")
+            public Iterator<Tuple2<K,C>> apply(@Nullable SpillFile partition){
+                assert partition!=null;
+                if(partition.size()<=0)
+                    return Collections.emptyIterator();
+                if(operationContext!=null)
+                    operationContext.recordSpillPass();
+                try{
+                    Iterator spilled=partition.read();
+                    return aggregate((Iterator<Tuple2<K,Object>>)spilled,true,nextDepth);
+                }catch(IOException e){
+                    throw new RuntimeException(e);
+                }
+            }
+        }));
+    }
+
+    private SpillFile[] newPartitions(){
+        SpillFile[] partitions=new SpillFile[numPartitions];
+        for(int i=0;i<partitions.length;i++){
+            partitions[i]=new SpillFile(spillDirectory);
+        }
+        discardOnClose(partitions);
+        return partitions;
+    }
+
+    private void spill(Map<K,C> table,SpillFile[] partitions,int depth) throws IOException{
+        /*
+         * The combined values may have been mutated in place since the last spill, so make sure
+         * that they are written out in full.
+         */
+        for(SpillFile partition : partitions){
+            partition.resetReferences();
+        }
+        for(Map.Entry<K,C> entry : table.entrySet()){
+            K key=entry.getKey();
+            partitions[partition(key,depth)].write(key,entry.getValue());
+        }
+    }
+
+    private int partition(K key,int depth){
+        /*
+         * Mix the hash code with a per-depth seed (murmur3 finalizer), so that a partition which
+         * is re-partitioned at the next level is actually split, rather than landing wholesale in
+         * the same bucket again.
+         */
+        int h=(key==null?0:key.hashCode())^(depth*0x9E3779B9);
+        h^=h>>>16;
+        h*=0x85ebca6b;
+        h^=h>>>13;
+        h*=0xc2b2ae35;
+        h^=h>>>16;
+        return (h&Integer.MAX_VALUE)%numPartitions;
+    }
+
+    private void discardOnClose(final SpillFile[] partitions){
+        SpliceOperation operation=operationContext==null?null:operationContext.getOperation();
+        if(operation==null) return;
+        try{
+            operation.registerCloseable(new AutoCloseable(){
+                @Override
+                public void close(){
+                    discard(partitions);
+                }
+            });
+        }catch(StandardException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void discard(SpillFile[] partitions){
+        if(partitions==null) return;
+        for(SpillFile partition : partitions){
+            partition.discard();
+        }
+    }
+}
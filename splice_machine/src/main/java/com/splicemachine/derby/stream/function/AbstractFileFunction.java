@@ -15,12 +15,15 @@
 
 package com.splicemachine.derby.stream.function;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import com.splicemachine.db.iapi.types.DateTimeDataValue;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -134,30 +137,7 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
                 String value = values.get(i - 1);
                 if (value != null && (value.equals("null") || value.equals("NULL") || value.isEmpty()))
                     value = null;
-                if (type == StoredFormatIds.SQL_TIME_ID) {
-                    if(calendar==null)
-                        calendar = new GregorianCalendar();
-                    if (timeFormat == null || value==null){
-                        ((DateTimeDataValue)dvd).setValue(value,calendar);
-                    }else
-                        dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
-                } else if (type == StoredFormatIds.SQL_TIMESTAMP_ID) {
-                    if(calendar==null)
-                        calendar = new GregorianCalendar();
-                    if (timestampFormat == null || value==null)
-                        ((DateTimeDataValue)dvd).setValue(value,calendar);
-                    else
-                        dvd.setValue(SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat),calendar);
-                } else if (type == StoredFormatIds.SQL_DATE_ID) {
-                    if(calendar==null)
-                        calendar = new GregorianCalendar();
-                    if (dateTimeFormat == null || value == null)
-                        ((DateTimeDataValue)dvd).setValue(value,calendar);
-                    else
-                        dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
-                } else {
-                    dvd.setValue(value);
-                }
+                setValue(dvd, type, value);
             }
             return new LocatedRow(returnRow);
         } catch (Exception e) {
@@ -169,6 +149,172 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
         }
     }
 
+    /**
+     * Same as {@link #call(List)}, for the current record of the tokenizer. Integer columns are parsed straight
+     * from the bytes of the field, the other columns from its String value.
+     */
+    @SuppressFBWarnings(value = "REC_CATCH_EXCEPTION",justification = "Intentional")
+    public LocatedRow call(ByteCsvTokenizer tokenizer) throws Exception {
+        operationContext.recordRead();
+        try {
+            ExecRow returnRow = execRow.getClone();
+            for (int i = 1; i <= returnRow.nColumns(); i++) {
+                DataValueDescriptor dvd = returnRow.getColumn(i);
+                int type = dvd.getTypeFormatId();
+                if (tokenizer.getFieldCount() <= i-1) {
+                    throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, execRow.nColumns(), tokenizer.getFieldCount());
+                }
+                int field = i - 1;
+                if (tokenizer.isNull(field))
+                    setValue(dvd, type, null);
+                else if (!setInteger(dvd, type, tokenizer, field))
+                    setValue(dvd, type, tokenizer.getString(field));
+            }
+            return new LocatedRow(returnRow);
+        } catch (Exception e) {
+            if (operationContext.isPermissive()) {
+               operationContext.recordBadRecord(e.getLocalizedMessage() + tokenizer.getColumns(), e);
+                return null;
+            }
+            throw e; // Not Permissive of errors
+        }
+    }
+
+    /**
+     * Iterates over the rows of the records read by the tokenizer. Malformed records are recorded as bad records
+     * when running permissively.
+     *
+     * @param source closed once all the records have been read, may be null
+     */
+    Iterator<LocatedRow> rows(final ByteCsvTokenizer tokenizer, final Closeable source) {
+        return new Iterator<LocatedRow>() {
+            private LocatedRow nextRow;
+            private boolean hasNext = true;
+            private boolean stale = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!hasNext || stale)
+                    return hasNext;
+                try {
+                    while (true) {
+                        try {
+                            if (!tokenizer.readRecord()) {
+                                if (source != null)
+                                    source.close();
+                                hasNext = false;
+                                return false;
+                            }
+                            nextRow = call(tokenizer);
+                            if (nextRow != null) {
+                                stale = true;
+                                return true;
+                            }
+                        } catch (Exception e) {
+                            if (operationContext.isPermissive()) {
+                                operationContext.recordBadRecord(e.getLocalizedMessage(), e);
+                            } else
+                                throw StandardException.plainWrapException(e);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException("Terminal, should have been caught", e);
+                }
+            }
+
+            @Override
+            public LocatedRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                stale = false;
+                return nextRow;
+            }
+
+            @Override
+            public void remove() {
+                throw new RuntimeException("not supported");
+            }
+        };
+    }
+
+    private void setValue(DataValueDescriptor dvd, int type, String value) throws StandardException {
+        if (type == StoredFormatIds.SQL_TIME_ID) {
+            if(calendar==null)
+                calendar = new GregorianCalendar();
+            if (timeFormat == null || value==null){
+                ((DateTimeDataValue)dvd).setValue(value,calendar);
+            }else
+                dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
+        } else if (type == StoredFormatIds.SQL_TIMESTAMP_ID) {
+            if(calendar==null)
+                calendar = new GregorianCalendar();
+            if (timestampFormat == null || value==null)
+                ((DateTimeDataValue)dvd).setValue(value,calendar);
+            else
+                dvd.setValue(SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat),calendar);
+        } else if (type == StoredFormatIds.SQL_DATE_ID) {
+            if(calendar==null)
+                calendar = new GregorianCalendar();
+            if (dateTimeFormat == null || value == null)
+                ((DateTimeDataValue)dvd).setValue(value,calendar);
+            else
+                dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
+        } else {
+            dvd.setValue(value);
+        }
+    }
+
+    /**
+     * Sets integer columns from the bytes of the field, if it holds a number in the range of the column.
+     *
+     * @return false if the column is not an integer or the field is anything else, in which case it is set from its
+     * String value, so errors are reported the same way
+     */
+    private static boolean setInteger(DataValueDescriptor dvd, int type, ByteCsvTokenizer tokenizer, int field) throws StandardException {
+        long min;
+        long max;
+        switch (type) {
+            case StoredFormatIds.SQL_LONGINT_ID:
+                min = Long.MIN_VALUE;
+                max = Long.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_INTEGER_ID:
+                min = Integer.MIN_VALUE;
+                max = Integer.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_SMALLINT_ID:
+                min = Short.MIN_VALUE;
+                max = Short.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_TINYINT_ID:
+                min = Byte.MIN_VALUE;
+                max = Byte.MAX_VALUE;
+                break;
+            default:
+                return false;
+        }
+        long value;
+        try {
+            value = tokenizer.getLong(field);
+        } catch (NumberFormatException nfe) {
+            return false;
+        }
+        if (value < min || value > max)
+            return false;
+        dvd.setValue(value);
+        return true;
+    }
+
+    /**
+     * @return a tokenizer reading the file from bytes, or null if the delimiters aren't supported by it
+     */
+    ByteCsvTokenizer newTokenizer() {
+        checkPreference();
+        char delimiter = (char) preference.getDelimiterChar();
+        if (!ByteCsvTokenizer.supports(preference.getQuoteChar(), delimiter))
+            return null;
+        return new ByteCsvTokenizer(preference.getQuoteChar(), delimiter, preference.getMaxLinesPerRow());
+    }
+
     void checkPreference() {
         if (preference==null){
             SConfiguration config =EngineDriver.driver().getConfiguration();
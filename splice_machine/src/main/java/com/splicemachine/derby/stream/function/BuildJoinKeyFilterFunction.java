@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.services.io.ArrayUtil;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinKeyFilter;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ *
+ * Summarizes the join keys of one partition of the right side into a {@link JoinKeyFilter}.
+ *
+ */
+public class BuildJoinKeyFilterFunction extends SpliceFlatMapFunction<JoinOperation,Iterator<LocatedRow>,JoinKeyFilter> {
+    private int[] hashKeys;
+    private long expectedKeys;
+
+    public BuildJoinKeyFilterFunction() {
+        super();
+    }
+
+    public BuildJoinKeyFilterFunction(OperationContext<JoinOperation> operationContext, int[] hashKeys, long expectedKeys) {
+        super(operationContext);
+        assert hashKeys!=null && hashKeys.length >0 : "Bad Hash Keys Passed into Join Key Filter Function";
+        this.hashKeys = hashKeys;
+        this.expectedKeys = expectedKeys;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        ArrayUtil.writeIntArray(out,hashKeys);
+        out.writeLong(expectedKeys);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        hashKeys = ArrayUtil.readIntArray(in);
+        expectedKeys = in.readLong();
+    }
+
+    @Override
+    public Iterator<JoinKeyFilter> call(Iterator<LocatedRow> locatedRows) throws Exception {
+        JoinKeyFilter filter = new JoinKeyFilter(hashKeys.length,expectedKeys);
+        while (locatedRows.hasNext()) {
+            filter.add(locatedRows.next().getRow(),hashKeys);
+        }
+        return Collections.singletonList(filter).iterator();
+    }
+
+}
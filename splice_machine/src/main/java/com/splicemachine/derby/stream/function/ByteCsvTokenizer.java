@@ -0,0 +1,439 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokenizes UTF-8 encoded CSV straight from bytes, either from a buffer holding whole lines (a chunk of a split
+ * file, possibly memory-mapped) or from a stream.
+ * <p>
+ * Fields are not materialized as Strings: each field is kept as a range of the buffer, and is only copied when it
+ * has to be unescaped (doubled quotes, a quote in the middle of the field, or a quoted line break). Callers convert
+ * each field to what they need, so numbers can be parsed without creating a String at all.
+ * <p>
+ * The parsing rules are the same as the supercsv {@code Tokenizer} with the preferences used by imports: empty lines
+ * are skipped, a quote starts a quoted section anywhere in a field, a doubled quote inside a quoted section is a
+ * literal quote, and empty fields are null. Line breaks within quoted sections are only allowed when reading a
+ * stream, as lines are parsed independently otherwise, and become a single {@code \n}.
+ * <p>
+ * The quote and delimiter characters must be ASCII (see {@link #supports(char, char)}), so they can never be
+ * mistaken for part of a multi-byte character.
+ */
+@NotThreadSafe
+public class ByteCsvTokenizer {
+    private static final int DEFAULT_STREAM_BUFFER_SIZE = 64*1024;
+
+    private final byte quote;
+    private final byte delimiter;
+    private final int maxLinesPerRow;
+
+    private ByteBuffer buffer;
+    private int recordStart;
+    private int lineNumber;
+    private boolean multiLine;
+
+    /*stream mode only*/
+    private InputStream in;
+    private byte[] streamData;
+    private boolean eof;
+
+    /*the fields of the current record. Copied fields are in the scratch array, the rest are in the buffer*/
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] lengths = new int[16];
+    private boolean[] copied = new boolean[16];
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+
+    public ByteCsvTokenizer(char quote, char delimiter, int maxLinesPerRow) {
+        assert supports(quote, delimiter) : "Unsupported quote or delimiter";
+        this.quote = (byte) quote;
+        this.delimiter = (byte) delimiter;
+        this.maxLinesPerRow = maxLinesPerRow;
+    }
+
+    /**
+     * @return true if files using these quote and delimiter characters can be tokenized from bytes
+     */
+    public static boolean supports(char quote, char delimiter) {
+        return isSingleByte(quote) && isSingleByte(delimiter) && quote != delimiter;
+    }
+
+    /**
+     * Tokenize the lines between the position and the limit of the buffer. Fields are read from the buffer, so it
+     * must not be modified until the records are consumed. Line breaks within quoted fields are not allowed.
+     */
+    public void reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.recordStart = buffer.position();
+        this.in = null;
+        this.eof = true;
+        this.multiLine = false;
+        this.lineNumber = 0;
+        this.fieldCount = 0;
+    }
+
+    /**
+     * Tokenize everything in the stream. Line breaks within quoted fields are allowed, up to the max lines per row.
+     */
+    public void reset(InputStream in) {
+        if (streamData == null)
+            streamData = new byte[DEFAULT_STREAM_BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(streamData);
+        this.buffer.limit(0);
+        this.recordStart = 0;
+        this.in = in;
+        this.eof = false;
+        this.multiLine = true;
+        this.lineNumber = 0;
+        this.fieldCount = 0;
+    }
+
+    /**
+     * Move to the next record, skipping empty lines. The fields of the previous record are no longer valid.
+     *
+     * @return false if there are no more records
+     * @throws IOException if the stream cannot be read, or the record is malformed. Malformed records are skipped,
+     * so it's safe to keep reading afterwards.
+     */
+    public boolean readRecord() throws IOException {
+        while (true) {
+            if (scan())
+                return true;
+            if (eof)
+                return false;
+            fill();
+        }
+    }
+
+    /**
+     * @return the number of fields of the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the number of lines read so far
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return true if the field is empty, or is {@code null} or {@code NULL}, which imports also read as null
+     */
+    public boolean isNull(int field) {
+        int length = lengths[field];
+        if (length == 0)
+            return true;
+        if (length != 4)
+            return false;
+        byte n = byteAt(field, 0);
+        if (n == 'n')
+            return byteAt(field, 1) == 'u' && byteAt(field, 2) == 'l' && byteAt(field, 3) == 'l';
+        if (n == 'N')
+            return byteAt(field, 1) == 'U' && byteAt(field, 2) == 'L' && byteAt(field, 3) == 'L';
+        return false;
+    }
+
+    /**
+     * @return the field decoded as a String, or null if it is empty
+     */
+    public String getString(int field) {
+        int length = lengths[field];
+        if (length == 0)
+            return null;
+        int start = starts[field];
+        if (copied[field])
+            return new String(scratch, start, length, StandardCharsets.UTF_8);
+        if (buffer.hasArray())
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the field as a decimal integer, without creating a String.
+     *
+     * @throws NumberFormatException if the field is anything other than an optional sign followed by digits, or
+     * doesn't fit in a long. Callers which need the exact error of the String conversion can fall back to it.
+     */
+    public long getLong(int field) {
+        int length = lengths[field];
+        int i = 0;
+        boolean negative = false;
+        if (length > 0) {
+            byte first = byteAt(field, 0);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                i++;
+            }
+        }
+        if (i == length)
+            throw new NumberFormatException();
+        // accumulate negatively, as the negative range is larger
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = byteAt(field, i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit)
+                throw new NumberFormatException();
+            result *= 10;
+            if (result < limit + digit)
+                throw new NumberFormatException();
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * @return the fields of the current record as Strings, for error messages
+     */
+    public List<String> getColumns() {
+        List<String> columns = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            columns.add(getString(i));
+        }
+        return columns;
+    }
+
+    /**
+     * @return the position just past the first line break at or after {@code from}, or the limit of the buffer if
+     * there is none. Used to split buffers at line boundaries.
+     */
+    public static int nextLineStart(ByteBuffer buffer, int from) {
+        int limit = buffer.limit();
+        for (int i = from; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n')
+                return i + 1;
+            if (b == '\r')
+                return i + 1 < limit && buffer.get(i + 1) == '\n' ? i + 2 : i + 1;
+        }
+        return limit;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static boolean isSingleByte(char c) {
+        return c < 0x80 && c != '\n' && c != '\r';
+    }
+
+    private byte byteAt(int field, int i) {
+        int index = starts[field] + i;
+        return copied[field] ? scratch[index] : buffer.get(index);
+    }
+
+    /*
+     * Parses the record at recordStart. Returns false if the buffer runs out before the end of the record and
+     * more data can be read, in which case the record is parsed again from the start once there is.
+     */
+    private boolean scan() throws IOException {
+        int limit = buffer.limit();
+        int pos = recordStart;
+        int line = lineNumber;
+        // skip empty lines
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b != '\n' && b != '\r')
+                break;
+            if (b == '\n' || pos + 1 == limit || buffer.get(pos + 1) != '\n')
+                line++;
+            pos++;
+        }
+        recordStart = pos;
+        lineNumber = line;
+        if (pos == limit)
+            return false;
+
+        line++;
+        fieldCount = 0;
+        scratchLength = 0;
+        int fieldStart = pos;
+        int runStart = pos;
+        int runEnd = -1; // the end of the run when a quoted section closed it, -1 while it's still open
+        int copyStart = -1; // where the field starts in the scratch array, -1 while it's not copied
+        boolean quoted = false;
+        int quoteLine = 0;
+        while (true) {
+            if (pos == limit) {
+                if (!eof)
+                    return false;
+                if (quoted) {
+                    recordStart = pos;
+                    lineNumber = line;
+                    throw new IOException(String.format("unexpected end of file while reading quoted column " +
+                            "beginning on line %d and ending on line %d", quoteLine, line));
+                }
+                addField(runStart, runEnd >= 0 ? runEnd : pos, copyStart);
+                recordStart = pos;
+                lineNumber = line;
+                return true;
+            }
+            byte b = buffer.get(pos);
+            if (!quoted) {
+                if (b == delimiter) {
+                    addField(runStart, runEnd >= 0 ? runEnd : pos, copyStart);
+                    pos++;
+                    fieldStart = runStart = pos;
+                    runEnd = copyStart = -1;
+                } else if (b == '\n' || b == '\r') {
+                    addField(runStart, runEnd >= 0 ? runEnd : pos, copyStart);
+                    recordStart = pos + 1;
+                    if (b == '\r' && recordStart < limit && buffer.get(recordStart) == '\n')
+                        recordStart++;
+                    lineNumber = line;
+                    return true;
+                } else if (b == quote) {
+                    if (pos != fieldStart)
+                        copyStart = copy(runStart, runEnd >= 0 ? runEnd : pos, copyStart);
+                    quoted = true;
+                    quoteLine = line;
+                    pos++;
+                    runStart = pos;
+                    runEnd = -1;
+                } else {
+                    if (runEnd >= 0) {
+                        // text after a quoted section
+                        copyStart = copy(runStart, runEnd, copyStart);
+                        runStart = pos;
+                        runEnd = -1;
+                    }
+                    pos++;
+                }
+            } else if (b == quote) {
+                if (pos + 1 == limit && !eof)
+                    return false;
+                if (pos + 1 < limit && buffer.get(pos + 1) == quote) {
+                    // escaped quote, keep the first one
+                    copyStart = copy(runStart, pos + 1, copyStart);
+                    pos += 2;
+                    runStart = pos;
+                } else {
+                    quoted = false;
+                    runEnd = pos;
+                    pos++;
+                }
+            } else if (b == '\n' || b == '\r') {
+                if (!multiLine || (maxLinesPerRow > 0 && line - quoteLine + 1 >= maxLinesPerRow)) {
+                    recordStart = pos + 1;
+                    lineNumber = line;
+                    if (!multiLine)
+                        throw new IOException(String.format("unexpected end of line while reading quoted column on line %d", line));
+                    throw new IOException(String.format("max number of lines to read exceeded while reading quoted column " +
+                            "beginning on line %d and ending on line %d", quoteLine, line));
+                }
+                if (b == '\r') {
+                    if (pos + 1 == limit && !eof)
+                        return false;
+                    // line breaks become a single '\n'
+                    copyStart = copy(runStart, pos, copyStart);
+                    appendScratch((byte) '\n');
+                    pos++;
+                    if (pos < limit && buffer.get(pos) == '\n')
+                        pos++;
+                    runStart = pos;
+                } else {
+                    pos++;
+                }
+                line++;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    /*
+     * Appends the given part of the buffer to the copy of the current field, starting the copy if needed.
+     * Returns where the copy starts in the scratch array.
+     */
+    private int copy(int from, int to, int copyStart) {
+        if (copyStart < 0)
+            copyStart = scratchLength;
+        int length = to - from;
+        ensureScratch(length);
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + from, scratch, scratchLength, length);
+        } else {
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(from);
+            slice.get(scratch, scratchLength, length);
+        }
+        scratchLength += length;
+        return copyStart;
+    }
+
+    private void appendScratch(byte b) {
+        ensureScratch(1);
+        scratch[scratchLength++] = b;
+    }
+
+    private void ensureScratch(int length) {
+        if (scratchLength + length > scratch.length)
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length*2, scratchLength + length));
+    }
+
+    private void addField(int runStart, int runEnd, int copyStart) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount*2);
+            lengths = Arrays.copyOf(lengths, fieldCount*2);
+            copied = Arrays.copyOf(copied, fieldCount*2);
+        }
+        if (copyStart < 0) {
+            starts[fieldCount] = runStart;
+            lengths[fieldCount] = runEnd - runStart;
+            copied[fieldCount] = false;
+        } else {
+            copy(runStart, runEnd, copyStart);
+            starts[fieldCount] = copyStart;
+            lengths[fieldCount] = scratchLength - copyStart;
+            copied[fieldCount] = true;
+        }
+        fieldCount++;
+    }
+
+    private void fill() throws IOException {
+        int remaining = buffer.limit() - recordStart;
+        if (recordStart > 0) {
+            System.arraycopy(streamData, recordStart, streamData, 0, remaining);
+            recordStart = 0;
+        } else if (remaining == streamData.length) {
+            // the record doesn't fit in the buffer
+            streamData = Arrays.copyOf(streamData, streamData.length*2);
+        }
+        int read = in.read(streamData, remaining, streamData.length - remaining);
+        if (read < 0) {
+            eof = true;
+            read = 0;
+        }
+        buffer = ByteBuffer.wrap(streamData);
+        buffer.limit(remaining + read);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Function for parsing chunks of whole lines of UTF-8 CSV files, as read by
+ * {@link com.splicemachine.derby.stream.iapi.DataSetProcessor#readTextFileChunks}. The lines are tokenized straight
+ * from the bytes of the chunk, one tokenizer is reused for every chunk.
+ *
+ * Only usable when {@link ByteCsvTokenizer#supports(char, char)} the delimiters, see {@link #supports}.
+ */
+@NotThreadSafe
+public class ChunkFileFunction extends AbstractFileFunction<ByteBuffer> {
+    private ByteCsvTokenizer tokenizer;
+
+    public ChunkFileFunction() {
+        super();
+    }
+
+    public ChunkFileFunction(String characterDelimiter, String columnDelimiter, ExecRow execRow, int[] columnIndex, String timeFormat,
+                             String dateTimeFormat, String timestampFormat, OperationContext operationContext) {
+        super(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat,
+                dateTimeFormat, timestampFormat, operationContext);
+    }
+
+    /**
+     * @return true if files with these delimiters can be parsed from bytes
+     */
+    public boolean supports() {
+        return newTokenizer() != null;
+    }
+
+    @Override
+    public Iterator<LocatedRow> call(final ByteBuffer chunk) throws Exception {
+        if (operationContext.isFailed())
+            return Collections.<LocatedRow>emptyList().iterator();
+        if (tokenizer == null)
+            tokenizer = newTokenizer();
+        tokenizer.reset(chunk);
+        return rows(tokenizer, null);
+    }
+}
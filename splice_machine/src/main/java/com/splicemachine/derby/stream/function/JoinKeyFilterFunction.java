@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.services.io.ArrayUtil;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinKeyFilter;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.Broadcasted;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ *
+ * This class filters out rows whose join keys cannot be present on the other side of an inner join.
+ * The filter is broadcast, so that every task of an executor shares one copy of it.
+ *
+ */
+public class JoinKeyFilterFunction extends SplicePredicateFunction<JoinOperation,LocatedRow> {
+    private int[] hashKeys;
+    private Broadcasted<JoinKeyFilter> broadcastFilter;
+    private transient JoinKeyFilter filter;
+
+    public JoinKeyFilterFunction() {
+        super();
+    }
+
+    public JoinKeyFilterFunction(OperationContext<JoinOperation> operationContext, int[] hashKeys, Broadcasted<JoinKeyFilter> broadcastFilter) {
+        super(operationContext);
+        assert hashKeys!=null && hashKeys.length >0 : "Bad Hash Keys Passed into Join Key Filter Function";
+        this.hashKeys = hashKeys;
+        this.broadcastFilter = broadcastFilter;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        ArrayUtil.writeIntArray(out,hashKeys);
+        out.writeObject(broadcastFilter);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        hashKeys = ArrayUtil.readIntArray(in);
+        broadcastFilter = (Broadcasted<JoinKeyFilter>) in.readObject();
+    }
+
+    @Override
+    public boolean apply(@Nullable LocatedRow locatedRow) {
+        try {
+            if (filter == null)
+                filter = broadcastFilter.getValue();
+            if (!filter.mightContain(locatedRow.getRow(),hashKeys)) {
+                operationContext.recordFilter();
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.impl.sql.execute.operations.JoinKeyFilter;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+
+/**
+ *
+ * Combines the {@link JoinKeyFilter}s built over the partitions of the right side.
+ *
+ */
+public class MergeJoinKeyFilterFunction extends SpliceFunction2<JoinOperation,JoinKeyFilter,JoinKeyFilter,JoinKeyFilter> {
+
+    public MergeJoinKeyFilterFunction() {
+        super();
+    }
+
+    public MergeJoinKeyFilterFunction(OperationContext<JoinOperation> operationContext) {
+        super(operationContext);
+    }
+
+    @Override
+    public JoinKeyFilter call(JoinKeyFilter filter1, JoinKeyFilter filter2) throws Exception {
+        return filter1.merge(filter2);
+    }
+
+}
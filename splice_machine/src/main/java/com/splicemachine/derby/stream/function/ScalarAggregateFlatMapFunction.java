@@ -15,10 +15,12 @@
 
 package com.splicemachine.derby.stream.function;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.impl.sql.execute.operations.ScalarAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.BatchAggregator;
 import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import org.apache.commons.collections.iterators.SingletonIterator;
@@ -77,6 +79,11 @@ public class ScalarAggregateFlatMapFunction
             aggregate.merge(next, agg);
     }
 
+    private static int batchSize() {
+        EngineDriver driver = EngineDriver.driver();
+        return driver == null ? 0 : driver.getConfiguration().getAggregationBatchSize();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public Iterator<LocatedRow> call(Iterator<LocatedRow> locatedRows) throws Exception {
@@ -96,14 +103,25 @@ public class ScalarAggregateFlatMapFunction
 //            }
             op.initializeVectorAggregation(r1);
         }
+        BatchAggregator batch = null;
+        boolean batchChecked = false;
         while (locatedRows.hasNext()) {
             ExecRow r2 = locatedRows.next().getRow();                                                                                                            
             if (!op.isInitialized(r2)) {
-                accumulate(r2, r1);                                                                                                                                                      
+                if (!batchChecked) {
+                    batch = BatchAggregator.newBatchAggregator(op.aggregates, r1, r2, batchSize());
+                    batchChecked = true;
+                }
+                if (batch == null)
+                    accumulate(r2, r1);
+                else if (batch.add(r2))
+                    batch.flush(r1);
             } else {
                 merge(r2, r1);                                                                                                                                                  
             }
         }
+        if (batch != null)
+            batch.flush(r1);
         op.finishAggregation(r1); // calls setCurrentRow
         return new SingletonIterator(new LocatedRow(r1));
     }
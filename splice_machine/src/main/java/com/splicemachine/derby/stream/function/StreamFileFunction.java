@@ -21,6 +21,8 @@ import com.splicemachine.derby.impl.load.SpliceCsvReader;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -60,6 +62,14 @@ import java.util.NoSuchElementException;
         if (operationContext.isFailed())
             return Collections.<LocatedRow>emptyList().iterator();
         checkPreference();
+        if (Charset.forName(charset).equals(StandardCharsets.UTF_8)) {
+            // parse straight from the bytes when we can
+            ByteCsvTokenizer tokenizer = newTokenizer();
+            if (tokenizer != null) {
+                tokenizer.reset(s);
+                return rows(tokenizer, s);
+            }
+        }
 
         return new Iterator<LocatedRow>() {
                     private LocatedRow nextRow;
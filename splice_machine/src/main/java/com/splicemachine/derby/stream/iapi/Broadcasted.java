@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.iapi;
+
+import java.io.Externalizable;
+
+/**
+ * A read-only value which is shipped once to each node running the tasks of a DataSet, rather than with
+ * every function which refers to it. Functions hold the handle in place of the value itself.
+ *
+ * @see DataSetProcessor#broadcast(Object)
+ */
+public interface Broadcasted<T> extends Externalizable{
+
+    T getValue();
+
+    /**
+     * Drop the copies of the value held by the nodes. The handle must not be used afterwards.
+     */
+    void release();
+}
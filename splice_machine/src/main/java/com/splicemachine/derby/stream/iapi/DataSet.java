@@ -187,6 +187,15 @@ public interface DataSet<V> extends Iterable<V>, Serializable {
      */
     long count();
 
+    /**
+     * Combine all values of the dataset with {@code function}, which must be associative and commutative
+     * and may modify its first argument. Partial results are combined in parallel where possible, so that only
+     * a few of them reach the caller.
+     *
+     * @return the combined value, or null if the dataset is empty
+     */
+    <Op extends SpliceOperation> V reduce(SpliceFunction2<Op,V,V,V> function);
+
     DataSet<V> union(DataSet<V> dataSet);
 
     DataSet<V> union(DataSet<V> dataSet, String name, boolean pushScope, String scopeDetail);
@@ -228,6 +237,11 @@ public interface DataSet<V> extends Iterable<V>, Serializable {
 
     void persist();
 
+    /**
+     * Drop anything kept by {@link #persist()}.
+     */
+    void unpersist();
+
     void setAttribute(String name, String value);
 
     String getAttribute(String name);
@@ -23,6 +23,7 @@ import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.stream.function.Partitioner;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -90,6 +91,19 @@ public interface DataSetProcessor {
     DataSet<String> readTextFile(String path);
 
     DataSet<String> readTextFile(String path, SpliceOperation op);
+
+    /**
+     * Reads a text file as chunks of whole lines, so they can be parsed straight from bytes. Like
+     * {@link #readTextFile(String)}, the file is split in blocks when it is not compressed, or is compressed with a
+     * splittable algorithm.
+     */
+    DataSet<ByteBuffer> readTextFileChunks(String path, SpliceOperation op);
+
+    /**
+     * Ship {@code value} once to each node which runs the tasks of this processor, instead of with every
+     * function which refers to it. The caller should release the handle once the tasks are finished with it.
+     */
+    <T> Broadcasted<T> broadcast(T value);
     
     /**
      * Gets an empty PairDataSet
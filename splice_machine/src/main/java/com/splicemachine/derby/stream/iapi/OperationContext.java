@@ -42,6 +42,11 @@ public interface OperationContext<Op extends SpliceOperation> extends Externaliz
     long getRetryAttempts();
     long getRegionTooBusyExceptions();
 
+    void recordSpill(long bytes);
+    void recordSpillPass();
+    long getSpilledBytes();
+    long getSpillPasses();
+
     BadRecordsRecorder getBadRecordsRecorder();
 
     boolean isPermissive();
@@ -141,6 +141,21 @@ public interface PairDataSet<K,V> {
      * @return
      */
     PairDataSet<K,V> sortByKey(Comparator<K> comparator,String name);
+    /**
+     *
+     * Sort by key utilizing the comparator provided, when only the first {@code limit}
+     * records of the sorted output will be consumed. Implementations may use the limit to
+     * avoid a full sort, but callers must still apply the limit themselves.
+     *
+     * @see Comparator
+     *
+     * @param comparator
+     * @param name
+     * @param context
+     * @param limit the number of records needed, or a value {@code <=0} for all records
+     * @return
+     */
+    PairDataSet<K,V> sortByKey(Comparator<K> comparator,String name,OperationContext context,long limit);
     /**
      *
      * Partition the pair DataSet via a custom partitioner and comparator.
@@ -155,6 +170,16 @@ public interface PairDataSet<K,V> {
     PairDataSet<K, V> partitionBy(Partitioner<K> partitioner, Comparator<K> comparator);
     PairDataSet<K, Iterable<V>> groupByKey();
     PairDataSet<K, Iterable<V>> groupByKey(String name);
+    /**
+     *
+     * Group the values of each key, recording any work done on behalf of the operation
+     * (such as spilling to disk) in the supplied context.
+     *
+     * @param name
+     * @param context
+     * @return
+     */
+    PairDataSet<K, Iterable<V>> groupByKey(String name,OperationContext context);
     <W> PairDataSet<K,Tuple2<V,Optional<W>>> hashLeftOuterJoin(PairDataSet<K, W> rightDataSet);
     <W> PairDataSet<K,Tuple2<Optional<V>,W>> hashRightOuterJoin(PairDataSet<K, W> rightDataSet);
     <W> PairDataSet<K,Tuple2<V,W>> hashJoin(PairDataSet<K, W> rightDataSet);
@@ -45,6 +45,12 @@ import com.splicemachine.storage.Partition;
 
 
 public class StatisticsCollector {
+    /*
+     * The scan attribute holding the number of rows which each row returned by the scan stands for, when
+     * the scan only returns a sample of the rows of the partition.
+     */
+    public static final String SAMPLE_WEIGHT_ATTRIBUTE = "statsSampleWeight";
+
     protected final TxnView txn;
     private final ExecRow template;
     /*
@@ -61,6 +67,7 @@ public class StatisticsCollector {
     private final long tableConglomerateId;
     private final SITableScanner scanner;
     private final String regionId;
+    private final long sampleWeight;
 
     protected transient long openScannerTimeMicros = -1l;
     protected transient long closeScannerTimeMicros = -1l;
@@ -72,8 +79,10 @@ public class StatisticsCollector {
                                ExecRow template,
                                int[] columnPositionMap,
                                int[] lengths,
-                               SITableScanner scanner) {
+                               SITableScanner scanner,
+                               long sampleWeight) {
         this.txn = txn;
+        this.sampleWeight = sampleWeight;
         this.template = template;
         this.columnPositionMap = columnPositionMap;
         this.lengths = lengths;
@@ -100,8 +109,8 @@ public class StatisticsCollector {
         List<ColumnStatistics> columnStats = getFinalColumnStats(dvdCollectors);
 
 //        TimeView readTime = scanner.getTime();
-        long byteCount = scanner.getBytesOutput();
-        long rowCount = scanner.getRowsVisited() - scanner.getRowsFiltered();
+        long byteCount = scanner.getBytesOutput()*sampleWeight;
+        long rowCount = (scanner.getRowsVisited() - scanner.getRowsFiltered())*sampleWeight;
 //        long localReadTimeMicros = readTime.getWallClockTime() / 1000; //scale to microseconds
 //        long remoteReadTimeMicros = getRemoteReadTime(rowCount);
 //        if (remoteReadTimeMicros > 0) {
@@ -134,8 +143,8 @@ public class StatisticsCollector {
         DataValueDescriptor[] dvds = row.getRowArray();
         for (int i = 0; i < dvds.length; i++) {
             DataValueDescriptor dvd = dvds[i];
-            dvdCollectors[i].update(dvd);
-            dvdCollectors[i].updateSize(fieldLengths[i]);
+            dvdCollectors[i].update(dvd,sampleWeight);
+            dvdCollectors[i].updateSize((int)Math.min(Integer.MAX_VALUE,(long)fieldLengths[i]*sampleWeight));
         }
     }
 
@@ -206,11 +215,12 @@ public class StatisticsCollector {
         SConfiguration configuration=EngineDriver.driver().getConfiguration();
         int cardinalityPrecision = configuration.getCardinalityPrecision();
         int topKSize = configuration.getTopkSize();
+        int histogramBuckets = configuration.getHistogramBuckets();
         for(int i=0;i<dvds.length;i++){
             DataValueDescriptor dvd = dvds[i];
             int columnId = columnPositionMap[i];
             int columnLength = lengths[i];
-            collectors[i] = DvdStatsCollector.newCollector(columnId, dvd.getTypeFormatId(), columnLength, topKSize, cardinalityPrecision);
+            collectors[i] = DvdStatsCollector.newCollector(columnId, dvd.getTypeFormatId(), columnLength, topKSize, cardinalityPrecision, histogramBuckets);
         }
     }
 
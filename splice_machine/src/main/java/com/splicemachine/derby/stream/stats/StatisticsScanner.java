@@ -24,6 +24,7 @@ import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanne
 import com.splicemachine.derby.impl.stats.SimpleOverheadManagedPartitionStatistics;
 import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
 import com.splicemachine.derby.utils.StatisticsAdmin;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.server.TransactionalRegion;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.stats.ColumnStatistics;
@@ -70,7 +71,9 @@ public class StatisticsScanner<Data> extends SITableScanner<Data>{
         this.columnPositionMap=columnPositionMap;
         this.conglomId = conglomId;
         regionId = region.getRegionName();
-        collector=new StatisticsCollector(txn,template,columnPositionMap,fieldLengths,this);
+        byte[] sampleWeight=scan.getAttribute(StatisticsCollector.SAMPLE_WEIGHT_ATTRIBUTE);
+        collector=new StatisticsCollector(txn,template,columnPositionMap,fieldLengths,this,
+                sampleWeight==null?1l:Bytes.toLong(sampleWeight));
     }
 
     @Override
@@ -23,6 +23,7 @@ import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.stream.function.Partitioner;
 import com.splicemachine.derby.stream.iapi.*;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -116,6 +117,16 @@ public abstract class ForwardingDataSetProcessor implements DataSetProcessor{
         return delegate.readTextFile(path,op);
     }
 
+    @Override
+    public DataSet<ByteBuffer> readTextFileChunks(String path,SpliceOperation op){
+        return delegate.readTextFileChunks(path,op);
+    }
+
+    @Override
+    public <T> Broadcasted<T> broadcast(T value){
+        return delegate.broadcast(value);
+    }
+
     @Override
     public <K,V> PairDataSet<K, V> getEmptyPair(){
         return delegate.getEmptyPair();
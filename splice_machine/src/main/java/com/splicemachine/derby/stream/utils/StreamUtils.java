@@ -36,6 +36,7 @@ public class StreamUtils {
             .put("AntiJoinFunction", "Execute Anti Join")
             .put("AntiJoinRestrictionFlatMapFunction", "Create Flat Map for Anti Join with Restriction")
             .put("BroadcastJoinFlatMapFunction", "Create Flat Map for Broadcast Join")
+            .put("BuildJoinKeyFilterFunction", "Summarize Right Side Join Keys")
             .put("CoGroupAntiJoinRestrictionFlatMapFunction","Cogroup Flat Map for Anti Join with Restriction")
             .put("CoGroupBroadcastJoinRestrictionFlatMapFunction", "Cogroup Flat Map for Broadcast Join with Restriction")
             .put("CoGroupInnerJoinRestrictionFlatMapFunction", "Cogroup Flat Map for Inner Join with Restriction")
@@ -56,6 +57,7 @@ public class StreamUtils {
             .put("InnerJoinRestrictionFlatMapFunction", "Create Flat Map for Inner Join with Restriction")
             .put("InnerJoinRestrictionFunction", "Execute Inner Join with Restriction")
             .put("InsertPairFunction", "Insert Rows")
+            .put("JoinKeyFilterFunction", "Filter Left Side by Right Side Join Keys")
             .put("JoinRestrictionPredicateFunction", "Execute Join with Restriction")
             .put("KeyerFunction", "Prepare Keys")
             .put("LocatedRowToRowLocationFunction", "Determine Row Location")
@@ -15,7 +15,9 @@
 
 package com.splicemachine.derby.utils;
 
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.types.DataType;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.derby.impl.sql.execute.operations.QualifierUtils;
 import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
 import com.splicemachine.primitives.Bytes;
@@ -31,6 +33,9 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.DataValueFactory;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import com.carrotsearch.hppc.BitSet;
 
 /**
@@ -112,7 +117,7 @@ public class Scans extends SpliceUtils {
                     sortOrder, formatIds, startScanKeys, keyTablePositionMap, keyDecodingMap, dataValueFactory, tableVersion, rowIdKey);
 
             if (!rowIdKey) {
-                buildPredicateFilter(qualifiers, scanColumnList, scan, keyDecodingMap);
+                buildPredicateFilter(qualifiers, scanColumnList, scan, keyDecodingMap, formatIds);
             }
 
 
@@ -146,21 +151,42 @@ public class Scans extends SpliceUtils {
                                             int[] columnTypes,
                                             DataScan scan,
                                             String tableVersion) throws StandardException, IOException {
-        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingMap);
+        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingMap, columnTypes);
     }
 
     public static void buildPredicateFilter(Qualifier[][] qualifiers,
                                             FormatableBitSet scanColumnList,
                                             DataScan scan,
                                             int[] keyColumnEncodingOrder) throws StandardException, IOException {
+        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingOrder, null);
+    }
+
+    public static void buildPredicateFilter(Qualifier[][] qualifiers,
+                                            FormatableBitSet scanColumnList,
+                                            DataScan scan,
+                                            int[] keyColumnEncodingOrder,
+                                            int[] columnTypes) throws StandardException, IOException {
         EntryPredicateFilter pqf = getEntryPredicateFilter(qualifiers,
-                scanColumnList, keyColumnEncodingOrder);
+                scanColumnList, keyColumnEncodingOrder, columnTypes);
         scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL, pqf.toBytes());
     }
 
     public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
                                                      FormatableBitSet scanColumnList,
                                                      int[] keyColumnEncodingOrder) throws StandardException {
+        return getEntryPredicateFilter(qualifiers, scanColumnList, keyColumnEncodingOrder, null);
+    }
+
+    /**
+     * @param columnTypes the types of the columns in the entire row, or {@code null} if they are not known. When
+     *                    they are known, the AND-ed qualifiers which can be evaluated against the encoded bytes
+     *                    of the row are added to the filter as {@link ValuePredicate}s, so that rows which don't
+     *                    qualify are dropped before any of their columns are decoded.
+     */
+    public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
+                                                     FormatableBitSet scanColumnList,
+                                                     int[] keyColumnEncodingOrder,
+                                                     int[] columnTypes) throws StandardException {
         BitSet colsToReturn = new BitSet();
         if (qualifiers != null) {
             for (Qualifier[] qualifierList : qualifiers) {
@@ -184,7 +210,52 @@ public class Scans extends SpliceUtils {
                     colsToReturn.clear(col);
             }
         }
-        return new EntryPredicateFilter(colsToReturn, true);
+        List<ValuePredicate> predicates = Collections.emptyList();
+        if (qualifiers != null && qualifiers.length > 0 && columnTypes != null) {
+            predicates = new ArrayList<>();
+            for (Qualifier qualifier : qualifiers[0]) {
+                ValuePredicate predicate = getValuePredicate(qualifier, colsToReturn, columnTypes);
+                if (predicate != null)
+                    predicates.add(predicate);
+            }
+        }
+        return new EntryPredicateFilter(colsToReturn, true, predicates);
+    }
+
+    /**
+     * @return a predicate which evaluates {@code qualifier} on the encoded row, or {@code null} if the
+     * comparison of the encoded bytes would not agree with the comparison of the values. That is only
+     * the case for integer columns compared to integer constants, since the scalar encoding of those is
+     * order-preserving and unique; the encodings of decimals, floating point numbers and strings are not
+     * (e.g. 1.0 and 1.00, 0.0 and -0.0, or 'a' and 'a ' compare as equal).
+     */
+    private static ValuePredicate getValuePredicate(Qualifier qualifier,
+                                                    BitSet colsToReturn,
+                                                    int[] columnTypes) throws StandardException {
+        int column = qualifier.getStoragePosition();
+        // the filter only sees the columns in the value of the row, and only knows the visible version of those
+        // it was asked to return
+        if (column < 0 || column >= columnTypes.length || !colsToReturn.get(column))
+            return null;
+        if (qualifier.getVariantType() == Qualifier.VARIANT || !isScalar(columnTypes[column]))
+            return null;
+        DataValueDescriptor orderable = qualifier.getOrderable();
+        if (orderable == null || orderable.isNull() || !isScalar(orderable.getTypeFormatId()))
+            return null;
+        return new ValuePredicate(column, qualifier.getOperator(), qualifier.negateCompareResult(),
+                Encoding.encode(orderable.getLong()));
+    }
+
+    private static boolean isScalar(int typeFormatId) {
+        switch (typeFormatId) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return true;
+            default:
+                return false;
+        }
     }
 
     private static void attachScanKeys(DataScan scan,
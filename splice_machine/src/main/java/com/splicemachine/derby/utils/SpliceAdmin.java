@@ -39,6 +39,7 @@ import com.splicemachine.db.iapi.sql.conn.ConnectionUtil;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.dictionary.*;
 import com.splicemachine.db.impl.sql.catalog.DataDictionaryImpl;
+import com.splicemachine.db.impl.sql.catalog.DictionaryCacheStatistics;
 import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.TransactionController;
@@ -809,6 +810,45 @@ public class SpliceAdmin extends BaseAdminProcedures{
         EngineDriver.driver().dbAdministrator().emptyGlobalStatementCache();
     }
 
+    /**
+     * The statistics of each of the data dictionary caches on this server, as also exposed through JMX.
+     */
+    public static void SYSCS_GET_DATA_DICTIONARY_CACHE_STATISTICS(final ResultSet[] resultSet) throws SQLException{
+        LanguageConnectionContext lcc=ConnectionUtil.getCurrentLCC();
+        List<DictionaryCacheStatistics> stats=lcc.getDataDictionary().getDataDictionaryCache().getCacheStatistics();
+
+        ResultSetBuilder rsBuilder=new ResultSetBuilder();
+        try{
+            rsBuilder.getColumnBuilder()
+                    .addColumn("CACHE_NAME",Types.VARCHAR,32)
+                    .addColumn("SIZE",Types.BIGINT)
+                    .addColumn("MEMORY_ESTIMATE",Types.BIGINT)
+                    .addColumn("HITS",Types.BIGINT)
+                    .addColumn("MISSES",Types.BIGINT)
+                    .addColumn("HIT_RATE",Types.DOUBLE)
+                    .addColumn("EVICTIONS",Types.BIGINT)
+                    .addColumn("LOADS",Types.BIGINT)
+                    .addColumn("LOAD_TIME_MS",Types.BIGINT);
+            RowBuilder rowBuilder=rsBuilder.getRowBuilder();
+            for(DictionaryCacheStatistics cacheStats : stats){
+                long lookups=cacheStats.getHits()+cacheStats.getMisses();
+                rowBuilder.getDvd(0).setValue(cacheStats.getCacheName());
+                rowBuilder.getDvd(1).setValue(cacheStats.getSize());
+                rowBuilder.getDvd(2).setValue(cacheStats.getMemoryEstimate());
+                rowBuilder.getDvd(3).setValue(cacheStats.getHits());
+                rowBuilder.getDvd(4).setValue(cacheStats.getMisses());
+                rowBuilder.getDvd(5).setValue(lookups==0?0d:((double)cacheStats.getHits())/lookups);
+                rowBuilder.getDvd(6).setValue(cacheStats.getEvictions());
+                rowBuilder.getDvd(7).setValue(cacheStats.getLoads());
+                rowBuilder.getDvd(8).setValue(cacheStats.getLoadTimeMillis());
+                rowBuilder.addRow();
+            }
+            resultSet[0]=rsBuilder.buildResultSet((EmbedConnection)getDefaultConn());
+        }catch(StandardException se){
+            throw PublicAPI.wrapStandardException(se);
+        }
+    }
+
     private static Collection<PartitionServer> getLoad() throws SQLException{
         try(PartitionAdmin admin=SIDriver.driver().getTableFactory().getAdmin()){
             return admin.allServers();
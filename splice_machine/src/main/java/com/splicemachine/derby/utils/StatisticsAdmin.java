@@ -23,6 +23,7 @@ import com.splicemachine.derby.utils.stats.StatsResult;
 import org.spark_project.guava.collect.FluentIterable;
 import org.spark_project.guava.collect.Lists;
 import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.PublicAPI;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
@@ -46,21 +47,27 @@ import com.splicemachine.db.shared.common.reference.SQLState;
 import com.splicemachine.ddl.DDLMessage.DDLChange;
 import com.splicemachine.derby.ddl.DDLUtils;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.stats.PartitionStatsStore;
 import com.splicemachine.derby.impl.stats.SimpleOverheadManagedPartitionStatistics;
+import com.splicemachine.derby.impl.stats.StalePartitions;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.stream.stats.StatisticsCollector;
 import com.splicemachine.metrics.Metrics;
 import com.splicemachine.pipeline.ErrorState;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.stats.ColumnStatistics;
 import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.storage.PartitionLoad;
 import com.splicemachine.utils.Pair;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -179,7 +186,10 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             authorize(tds);
             TransactionController transactionExecute = lcc.getTransactionExecute();
             transactionExecute.elevate("statistics");
-            dropTableStatistics(tds,dd,tc);
+            Map<TableDescriptor,List<Pair<byte[],byte[]>>> ranges = new HashMap<>(tds.size());
+            for (TableDescriptor td : tds) {
+                ranges.put(td,dropStatistics(td,staleOnly,dd,tc));
+            }
             ddlNotification(tc,tds);
 //            ExecRow templateOutputRow = buildOutputTemplateRow();
             TxnView txn = ((SpliceTransactionManager) transactionExecute).getRawTransaction().getActiveStateTxn();
@@ -191,7 +201,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             List<Future<StatsResult>> futures = new ArrayList(tds.size());
             for (TableDescriptor td : tds) {
                 display.put(td.getHeapConglomerateId(),Pair.newPair(schema,td.getName()));
-                futures.add(collectTableStatistics(td, txn, conn));
+                futures.addAll(collectTableStatistics(td, ranges.get(td), txn, conn));
             }
             IteratorNoPutResultSet resultsToWrap = wrapResults(conn,
             displayTableStatistics(futures,dd,transactionExecute,display));
@@ -259,17 +269,16 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             DataDictionary dd = conn.getLanguageConnection().getDataDictionary();
             dd.startWriting(conn.getLanguageConnection());
             TransactionController tc = conn.getLanguageConnection().getTransactionExecute();
-            dropTableStatistics(tds,dd,tc);
+            List<Pair<byte[],byte[]>> ranges = dropStatistics(tableDesc,staleOnly,dd,tc);
             ddlNotification(tc, tds);
             TxnView txn = ((SpliceTransactionManager) tc).getRawTransaction().getActiveStateTxn();
             HashMap<Long,Pair<String,String>> display = new HashMap<>();
             display.put(tableDesc.getHeapConglomerateId(),Pair.newPair(schema,table));
             IteratorNoPutResultSet resultsToWrap = wrapResults(
                 conn,
-                displayTableStatistics(Lists.newArrayList(
-                    collectTableStatistics(tableDesc, txn, conn)
-                ),
-                dd, tc, display));
+                displayTableStatistics(
+                    collectTableStatistics(tableDesc, ranges, txn, conn),
+                    dd, tc, display));
             outputResults[0] = new EmbedResultSet40(conn, resultsToWrap, false, null, true);
         } catch (StandardException se) {
             throw PublicAPI.wrapStandardException(se);
@@ -328,14 +337,20 @@ public class StatisticsAdmin extends BaseAdminProcedures {
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
-    private static Future<StatsResult> collectTableStatistics(TableDescriptor table,
-                                                             TxnView txn,
-                                                             EmbedConnection conn) throws StandardException, ExecutionException {
-
-       return collectBaseTableStatistics(table, txn, conn);
+    private static List<Future<StatsResult>> collectTableStatistics(TableDescriptor table,
+                                                                   List<Pair<byte[],byte[]>> ranges,
+                                                                   TxnView txn,
+                                                                   EmbedConnection conn) throws StandardException, ExecutionException {
+        List<Future<StatsResult>> futures = new ArrayList<>(ranges.size());
+        for (Pair<byte[],byte[]> range : ranges) {
+            futures.add(collectBaseTableStatistics(table, range.getFirst(), range.getSecond(), txn, conn));
+        }
+        return futures;
     }
 
     private static Future<StatsResult> collectBaseTableStatistics(TableDescriptor table,
+                                                                 byte[] startKey,
+                                                                 byte[] stopKey,
                                                                  TxnView txn,
                                                                  EmbedConnection conn) throws StandardException, ExecutionException {
         long heapConglomerateId = table.getHeapConglomerateId();
@@ -343,7 +358,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
         DistributedDataSetProcessor dsp = EngineDriver.driver().processorFactory().distributedProcessor();
 
         ScanSetBuilder ssb = dsp.newScanSet(null,Long.toString(heapConglomerateId)).activation(activation);
-        ScanSetBuilder scanSetBuilder = createTableScanner(ssb,conn,table,txn);
+        ScanSetBuilder scanSetBuilder = createTableScanner(ssb,conn,table,startKey,stopKey,txn);
         String scope = getScopeName(table);
 
         String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
@@ -360,10 +375,29 @@ public class StatisticsAdmin extends BaseAdminProcedures {
         return String.format(OperationContext.Scope.COLLECT_STATS.displayName(), td.getName());
     }
 
-    private static DataScan createScan (TxnView txn) {
+    private static DataScan createScan (TxnView txn, byte[] startKey, byte[] stopKey) {
         DataScan scan=SIDriver.driver().getOperationFactory().newDataScan(txn);
         scan.returnAllVersions(); //make sure that we read all versions of the data
-        return scan.startKey(new byte[0]).stopKey(new byte[0]);
+        long sampleWeight = sampleWeight(EngineDriver.driver().getConfiguration().getStatsSampleFraction());
+        if (sampleWeight > 1) {
+            /*
+             * Only return a sample of the rows from the region scanner, so that the rows which are left out
+             * are neither resolved nor decoded. Each sampled row then counts as sampleWeight rows.
+             */
+            scan.filter(SIDriver.driver().filterFactory().samplingFilter(1d/sampleWeight));
+            scan.addAttribute(StatisticsCollector.SAMPLE_WEIGHT_ATTRIBUTE, Bytes.toBytes(sampleWeight));
+        }
+        return scan.startKey(startKey).stopKey(stopKey);
+    }
+
+    /*
+     * The number of rows each sampled row stands for, when sampling the given fraction of the rows. The fraction
+     * is rounded to the nearest 1/n, so that the row and byte counts scale up by a whole number of rows.
+     */
+    static long sampleWeight(double sampleFraction) {
+        if (sampleFraction >= 1d || sampleFraction <= 0d)
+            return 1l;
+        return Math.max(1l, Math.round(1d/sampleFraction));
     }
 
     public static int[] getFormatIds(EmbedConnection conn, long columnStatsConglomId) throws StandardException{
@@ -376,6 +410,8 @@ public class StatisticsAdmin extends BaseAdminProcedures {
     private static ScanSetBuilder createTableScanner(ScanSetBuilder builder,
                                                      EmbedConnection conn,
                                                      TableDescriptor table,
+                                                     byte[] startKey,
+                                                     byte[] stopKey,
                                                      TxnView txn) throws StandardException{
 
         List<ColumnDescriptor> colsToCollect = getCollectedColumns(table);
@@ -428,7 +464,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
                 }
             }
         }
-        DataScan scan = createScan(txn);
+        DataScan scan = createScan(txn,startKey,stopKey);
         ExecRow rowTemplate = new ValueRow(execRowFormatIds.length);
         DataValueDescriptor[] dvds = rowTemplate.getRowArray();
         DataValueFactory dataValueFactory=conn.getLanguageConnection().getDataValueFactory();
@@ -648,6 +684,65 @@ public class StatisticsAdmin extends BaseAdminProcedures {
         });
     }
 
+    /*
+     * Drop the statistics of the table which are about to be collected again, and return the key ranges to
+     * collect them for. Unless only the stale partitions are wanted, that is the whole table.
+     */
+    private static List<Pair<byte[],byte[]>> dropStatistics(TableDescriptor td,
+                                                            boolean staleOnly,
+                                                            DataDictionary dd,
+                                                            TransactionController tc) throws StandardException {
+        List<Pair<byte[],byte[]>> ranges = new ArrayList<>();
+        if (!staleOnly) {
+            dropTableStatistics(td,dd,tc);
+            ranges.add(Pair.newPair(new byte[0],new byte[0]));
+            return ranges;
+        }
+        long conglomId = td.getHeapConglomerateId();
+        String table = Long.toString(conglomId);
+        List<Partition> partitions = new ArrayList<>();
+        PartitionStatsStore.getPartitions(table,partitions,true);
+        List<String> partitionNames = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            partitionNames.add(partition.getName());
+        }
+        Map<String,Long> collectedRows = new HashMap<>();
+        for (PartitionStatisticsDescriptor psd : dd.getPartitionStatistics(conglomId,tc)) {
+            collectedRows.put(psd.getPartitionId(),psd.getRowCount());
+        }
+        Map<String,Long> partitionBytes = new HashMap<>();
+        for (PartitionLoad load : EngineDriver.driver().partitionLoadWatcher().tableLoad(table,true)) {
+            partitionBytes.put(load.getPartitionName(),((long)(load.getStorefileSizeMB()+load.getMemStoreSizeMB()))*1024*1024);
+        }
+        SConfiguration config = EngineDriver.driver().getConfiguration();
+        boolean[] stale = StalePartitions.findStale(partitionNames,collectedRows,partitionBytes,config.getStatsStaleRegionThreshold());
+
+        //partitions which were split or merged away since the last collection
+        Set<String> current = new HashSet<>(partitionNames);
+        for (String partitionId : collectedRows.keySet()) {
+            if (!current.contains(partitionId))
+                dd.deletePartitionStatistics(conglomId,partitionId,tc);
+        }
+        //collect each run of adjacent stale partitions with a single scan
+        int i = 0;
+        while (i < stale.length) {
+            if (!stale[i]) {
+                i++;
+                continue;
+            }
+            byte[] startKey = partitions.get(i).getStartKey();
+            for (; i < stale.length && stale[i]; i++) {
+                String partitionId = partitionNames.get(i);
+                if (collectedRows.containsKey(partitionId))
+                    dd.deletePartitionStatistics(conglomId,partitionId,tc);
+            }
+            ranges.add(Pair.newPair(startKey,partitions.get(i-1).getEndKey()));
+        }
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Collecting statistics of %d key ranges of table %s",ranges.size(),td.getName());
+        return ranges;
+    }
+
     private static void dropTableStatistics(TableDescriptor td, DataDictionary dd, TransactionController tc) throws StandardException {
         for (ConglomerateDescriptor cd: td.getConglomerateDescriptorList()) {
             if (LOG.isDebugEnabled())
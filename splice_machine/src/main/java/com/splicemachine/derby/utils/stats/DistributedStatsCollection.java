@@ -47,4 +47,14 @@ public class DistributedStatsCollection extends DistributedJob {
     public String getName() {
         return null;
     }
+
+    @Override
+    public Type getType() {
+        return Type.MAINTENANCE;
+    }
+
+    @Override
+    public String getUserId() {
+        return jobGroup;
+    }
 }
@@ -23,6 +23,7 @@ import com.splicemachine.db.vti.VTIEnvironment;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.load.ImportUtils;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.function.ChunkFileFunction;
 import com.splicemachine.derby.stream.function.FileFunction;
 import com.splicemachine.derby.stream.function.StreamFileFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
@@ -34,6 +35,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -116,6 +118,13 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
         try {
             ImportUtils.validateReadable(fileName, false);
             if (oneLineRecords && (charset==null || charset.toLowerCase().equals("utf-8"))) {
+                ChunkFileFunction chunkFunction = new ChunkFileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, operationContext);
+                if (chunkFunction.supports()) {
+                    // parse the lines straight from the bytes of the file
+                    DataSet<ByteBuffer> chunkSet = dsp.readTextFileChunks(fileName, op);
+                    operationContext.pushScopeForOp("Parse File");
+                    return chunkSet.flatMap(chunkFunction, true);
+                }
                 DataSet<String> textSet = dsp.readTextFile(fileName, op);
                 operationContext.pushScopeForOp("Parse File");
                 return textSet.flatMap(new FileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, operationContext), true);
@@ -50,6 +50,11 @@ public class JMXUtils {
     public static final String TIMESTAMP_MASTER_MANAGEMENT = "com.splicemachine.si.client.timestamp.generator:type=TimestampMasterManagement";
     public static final String TIMESTAMP_REGION_MANAGEMENT = "com.splicemachine.si.client.timestamp.request:type=TimestampRegionManagement";
 	public static final String DATABASE_PROPERTY_MANAGEMENT = "com.splicemachine.derby.utils:type=DatabasePropertyManagement";
+    public static final String BROADCAST_JOIN_CACHE = "com.splicemachine.derby.broadcast:type=BroadcastJoinCacheManagement";
+    public static final String TRANSACTION_CACHE_MANAGEMENT = "com.splicemachine.txn:type=TransactionCacheManagement";
+    public static final String FOREIGN_KEY_PARENT_CACHE = "com.splicemachine.pipeline.foreignkey:type=ForeignKeyParentCacheManagement";
+    public static final String DATA_DICTIONARY_CACHE = "com.splicemachine.db.impl.sql.catalog:type=DataDictionaryCache";
+    public static final String RESULT_STREAMING = "com.splicemachine.derby.stream:type=ResultStreamingManagement";
 
     public static List<Pair<String,JMXConnector>> getMBeanServerConnections(Collection<Pair<String,String>> serverConnections) throws IOException {
         List<Pair<String,JMXConnector>> mbscArray =new ArrayList<>(serverConnections.size());
@@ -26,6 +26,7 @@ import com.splicemachine.pipeline.constraint.ConstraintContext;
 import com.splicemachine.pipeline.constraint.ForeignKeyViolation;
 import com.splicemachine.pipeline.constraint.UniqueConstraintViolation;
 import com.splicemachine.si.api.server.FailedServerException;
+import com.splicemachine.si.api.txn.SnapshotTooOld;
 import com.splicemachine.si.api.txn.WriteConflict;
 import com.splicemachine.si.api.txn.lifecycle.CannotCommitException;
 
@@ -1972,6 +1973,20 @@ public enum ErrorState{
     LANG_COLUMN_STATISTICS_NOT_POSSIBLE("SE020"),
     LANG_DISABLE_STATS_FOR_KEYED_COLUMN("SE021"),
     LANG_INVALID_DAY("SE022"),
+    SNAPSHOT_TOO_OLD("SE023"){
+        @Override
+        public boolean accepts(Throwable t){
+            return super.accepts(t) || t instanceof SnapshotTooOld;
+        }
+
+        @Override
+        public StandardException newException(Throwable rootCause){
+            if(!(rootCause instanceof SnapshotTooOld))
+                return super.newException(rootCause);
+            SnapshotTooOld tooOld=(SnapshotTooOld)rootCause;
+            return StandardException.newException(getSqlState(),tooOld.getBeginTimestamp(),tooOld.getPurgeWatermark());
+        }
+    },
     INCORRECT_COLUMN_COUNT_IN_IMPORT("XIE0A");
 
     private final String sqlState;
@@ -41,7 +41,8 @@ class ForeignKeyChildInterceptWriteFactory implements LocalWriteFactory{
 
     @Override
     public void addTo(PipelineWriteContext ctx, boolean keepState, int expectedWrites) throws IOException {
-        ctx.addLast(new ForeignKeyChildInterceptWriteHandler(referencedConglomerateNumber, fkConstraintInfo,exceptionFactory));
+        ctx.addLast(new ForeignKeyChildInterceptWriteHandler(referencedConglomerateNumber, fkConstraintInfo,exceptionFactory,
+                ForeignKeyParentCache.getInstance()));
     }
 
     @Override
@@ -42,19 +42,26 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.util.MapAttributes;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Intercepts insert/updates to a FK constraint backing index and sends the rowKey over to the referenced primary-key or
  * unique-index region for existence checking.
+ *
+ * Parent rows which the writing transaction has already confirmed are remembered in the shared
+ * {@link ForeignKeyParentCache}, and only the distinct parent rows which are not found there are looked up.
  */
 @NotThreadSafe
 public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     private final long referencedConglomerateNumber;
+    private final String referencedConglomerateName;
     private final ForeignKeyViolationProcessor violationProcessor;
+    private final ForeignKeyParentCache parentCache;
     private Partition table;
     private ObjectArrayList<KVPair> mutations = new ObjectArrayList<>();
     private final int formatIds[];
@@ -64,8 +71,11 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
 
     public ForeignKeyChildInterceptWriteHandler(long referencedConglomerateNumber,
                                                 FKConstraintInfo fkConstraintInfo,
-                                                PipelineExceptionFactory exceptionFactory) {
+                                                PipelineExceptionFactory exceptionFactory,
+                                                ForeignKeyParentCache parentCache) {
         this.referencedConglomerateNumber = referencedConglomerateNumber;
+        this.referencedConglomerateName = Long.toString(referencedConglomerateNumber);
+        this.parentCache = parentCache;
         this.violationProcessor = new ForeignKeyViolationProcessor(
                 new ForeignKeyViolationProcessor.ChildFkConstraintContextProvider(fkConstraintInfo),
                 exceptionFactory);
@@ -82,11 +92,16 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
         if (isForeignKeyInterceptNecessary(mutation.getType())) {
             mutations.add(mutation);
             ctx.success(mutation);
+        } else if (mutation.getType() == KVPair.Type.DELETE) {
+            /* Once its child rows are gone the parent row may be deleted, so we must check it again next time. */
+            byte[] checkRowKey = getCheckRowKey(mutation.getRowKey());
+            if (checkRowKey != null)
+                parentCache.invalidate(ctx.getTxn().getTxnId(), referencedConglomerateName, checkRowKey);
         }
         ctx.sendUpstream(mutation);
     }
 
-    /* This WriteHandler doesn't do anything when, for example, we delete from the FK backing index. */
+    /* This WriteHandler doesn't check anything when, for example, we delete from the FK backing index. */
     private boolean isForeignKeyInterceptNecessary(KVPair.Type type) {
         return type == KVPair.Type.INSERT || type == KVPair.Type.UPDATE || type == KVPair.Type.UPSERT;
     }
@@ -94,25 +109,33 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     @Override
     public void flush(WriteContext ctx) throws IOException {
         try {
-            initTable();
-            HashSet<byte[]> culledLookups = new HashSet(mutations.size());
+            long txnId = ctx.getTxn().getTxnId();
+            /*
+             * Collect the distinct parent rows that we have to look up. Child rows with a null FK column are not
+             * checked, and neither are child rows whose parent row this transaction has already confirmed.
+             */
+            Map<ByteBuffer,Integer> lookupPositions = new HashMap<>();
+            List<byte[]> rowKeysToFetch = new ArrayList<>();
             int[] locations = new int[mutations.size()];
-            int counter = 0;
             for (int i =0; i<mutations.size();i++) {
                 byte[] checkRowKey = getCheckRowKey(mutations.get(i).getRowKey());
-                if (culledLookups.contains(checkRowKey)) {
-                    locations[i] = counter-1;
-                } else {
-                    culledLookups.add(checkRowKey);
-                    locations[i] = counter;
-                    counter++;
+                if (checkRowKey == null || parentCache.contains(txnId, referencedConglomerateName, checkRowKey)) {
+                    locations[i] = -1;
+                    continue;
                 }
+                ByteBuffer lookupKey = ByteBuffer.wrap(checkRowKey);
+                Integer position = lookupPositions.get(lookupKey);
+                if (position == null) {
+                    position = rowKeysToFetch.size();
+                    lookupPositions.put(lookupKey, position);
+                    rowKeysToFetch.add(checkRowKey);
+                }
+                locations[i] = position;
             }
+            if (rowKeysToFetch.isEmpty())
+                return;
 
-            List<byte[]> rowKeysToFetch = new ArrayList<>(culledLookups.size());
-            for (byte[] item: culledLookups) {
-                rowKeysToFetch.add(item);
-            }
+            initTable();
             SimpleTxnFilter readUncommittedFilter;
             SimpleTxnFilter readCommittedFilter;
             if (ctx.getTxn() instanceof ActiveWriteTxn) {
@@ -137,15 +160,20 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
                 i++;
             }
 
-            // No Misses...
-            if (misses.isEmpty())
-                return;
-            // Assemble failures for the write pipeline with error codes.
-            i=0;
-            for (int location: locations) {
+            /*
+             * Assemble failures for the write pipeline with error codes, and remember the parent rows which were found.
+             * The child rows have already been written by the time we are flushed, and it's those rows which keep
+             * anyone else from deleting the parent row, so we only remember parent rows for child rows which made it.
+             */
+            for (i = 0; i < locations.length; i++) {
+                int location = locations[i];
+                if (location < 0)
+                    continue;
+                KVPair mutation = mutations.get(i);
                 if (misses.get(location))
-                    failWrite(mutations.get(i),ctx);
-                i++;
+                    failWrite(mutation, ctx);
+                else if (ctx.canRun(mutation))
+                    parentCache.confirmed(txnId, referencedConglomerateName, rowKeysToFetch.get(location));
             }
         } catch (Exception e) {
             violationProcessor.failWrite(e, ctx);
@@ -190,7 +218,7 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     /* Only need to create the CallBuffer once, but not until we have a WriteContext */
     private void initTable() throws IOException{
             if (table==null)
-                table = SIDriver.driver().getTableFactory().getTable(Long.toString((referencedConglomerateNumber)));
+                table = SIDriver.driver().getTableFactory().getTable(referencedConglomerateName);
     }
 
     @Override
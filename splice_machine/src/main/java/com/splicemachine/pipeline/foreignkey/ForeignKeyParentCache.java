@@ -0,0 +1,209 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.configuration.PipelineConfiguration;
+import com.splicemachine.hbase.jmx.JMXUtils;
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the foreign key parent rows (primary key or unique index rows) which a transaction has already
+ * confirmed to exist, so that further child rows written by the same transaction which refer to the same parent
+ * row do not need to look it up again.
+ * <p>
+ * An entry is only added once a child row which refers to the parent row has been written to the FK backing
+ * index. From then on the parent row cannot be deleted by any other transaction, since the delete would find that
+ * (uncommitted) child row when checking for references in {@link ForeignKeyParentInterceptWriteHandler}. The
+ * writing transaction itself could delete the parent row, but only after deleting all of its own child rows which
+ * refer to it; deletes of either the child or parent row therefore drop the entry for that transaction.
+ * <p>
+ * Entries are scoped to a single transaction, rather than shared between transactions, because the child rows which
+ * protect the parent row disappear if their transaction rolls back. Transactions which have finished simply stop
+ * looking their entries up, and they are evicted in least-recently-used order.
+ * <p>
+ * This class is thread-safe, and shared by all FK write handlers in the JVM.
+ */
+public class ForeignKeyParentCache implements ForeignKeyParentCacheManagement{
+    private static volatile ForeignKeyParentCache INSTANCE;
+
+    private final Cache<ParentKey,Boolean> cache;
+    private final long maxSize;
+    private final AtomicLong hits = new AtomicLong(0L);
+    private final AtomicLong misses = new AtomicLong(0L);
+    private final AtomicLong invalidations = new AtomicLong(0L);
+
+    public ForeignKeyParentCache(long maxSize){
+        this.maxSize = Math.max(0L,maxSize);
+        this.cache = this.maxSize>0?CacheBuilder.newBuilder()
+                .maximumSize(this.maxSize)
+                .recordStats()
+                .<ParentKey,Boolean>build():null;
+    }
+
+    /**
+     * @return the cache shared by all foreign key checks running in this JVM
+     */
+    public static ForeignKeyParentCache getInstance(){
+        ForeignKeyParentCache instance=INSTANCE;
+        if(instance==null){
+            synchronized(ForeignKeyParentCache.class){
+                instance=INSTANCE;
+                if(instance==null){
+                    instance=INSTANCE=new ForeignKeyParentCache(configuredSize());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static void registerJMX(MBeanServer mbs) throws MalformedObjectNameException,
+            NotCompliantMBeanException,
+            InstanceAlreadyExistsException,
+            MBeanRegistrationException{
+        mbs.registerMBean(getInstance(),new ObjectName(JMXUtils.FOREIGN_KEY_PARENT_CACHE));
+    }
+
+    /**
+     * @param txnId the transaction writing the child row
+     * @param parentConglomerate the conglomerate holding the parent row
+     * @param parentKey the row key of the parent row
+     * @return true if {@code txnId} has already confirmed that the parent row exists
+     */
+    public boolean contains(long txnId,String parentConglomerate,byte[] parentKey){
+        if(cache!=null && cache.getIfPresent(new ParentKey(txnId,parentConglomerate,parentKey))!=null){
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record that the parent row exists, and that a child row referring to it has been written by {@code txnId}.
+     */
+    public void confirmed(long txnId,String parentConglomerate,byte[] parentKey){
+        if(cache!=null)
+            cache.put(new ParentKey(txnId,parentConglomerate,parentKey),Boolean.TRUE);
+    }
+
+    /**
+     * Record that {@code txnId} has deleted either the parent row, or one of its own child rows which refers
+     * to the parent row.
+     */
+    public void invalidate(long txnId,String parentConglomerate,byte[] parentKey){
+        if(cache==null) return;
+        ParentKey key=new ParentKey(txnId,parentConglomerate,parentKey);
+        if(cache.getIfPresent(key)!=null){
+            cache.invalidate(key);
+            invalidations.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long getHitCount(){
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount(){
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRate(){
+        long h=hits.get();
+        long total=h+misses.get();
+        return total==0?0d:((double)h)/total;
+    }
+
+    @Override
+    public long getInvalidationCount(){
+        return invalidations.get();
+    }
+
+    @Override
+    public long getEvictionCount(){
+        return cache==null?0L:cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getSize(){
+        return cache==null?0L:cache.size();
+    }
+
+    @Override
+    public long getMaxSize(){
+        return maxSize;
+    }
+
+    @Override
+    public void invalidateAll(){
+        if(cache!=null)
+            cache.invalidateAll();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private static long configuredSize(){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver==null) return PipelineConfiguration.DEFAULT_FOREIGN_KEY_PARENT_CACHE_SIZE;
+        return driver.getConfiguration().getForeignKeyParentCacheSize();
+    }
+
+    private static final class ParentKey{
+        private final long txnId;
+        private final String conglomerate;
+        private final byte[] rowKey;
+        private final int hashCode;
+
+        ParentKey(long txnId,String conglomerate,byte[] rowKey){
+            this.txnId=txnId;
+            this.conglomerate=conglomerate;
+            this.rowKey=rowKey;
+            int h=Long.hashCode(txnId);
+            h=31*h+conglomerate.hashCode();
+            h=31*h+Arrays.hashCode(rowKey);
+            this.hashCode=h;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof ParentKey)) return false;
+            ParentKey other=(ParentKey)o;
+            return txnId==other.txnId
+                    && hashCode==other.hashCode
+                    && conglomerate.equals(other.conglomerate)
+                    && Arrays.equals(rowKey,other.rowKey);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring the behavior of the Foreign Key parent-key cache.
+ */
+@MXBean
+public interface ForeignKeyParentCacheManagement{
+
+    /**
+     * @return the number of child rows whose parent row was found in the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of child rows whose parent row had to be looked up in the parent table
+     */
+    long getMissCount();
+
+    double getHitRate();
+
+    /**
+     * @return the number of cached parent rows which were dropped because the parent row (or a child row
+     * referring to it) was deleted
+     */
+    long getInvalidationCount();
+
+    /**
+     * @return the number of cached parent rows which were evicted to stay within the maximum size
+     */
+    long getEvictionCount();
+
+    long getSize();
+
+    long getMaxSize();
+
+    /**
+     * Drop all cached parent rows.
+     */
+    void invalidateAll();
+}
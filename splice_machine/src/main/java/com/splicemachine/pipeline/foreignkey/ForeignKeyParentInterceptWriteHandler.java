@@ -47,6 +47,7 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     private final List<Long> referencingIndexConglomerateIds;
     private final List<DDLMessage.FKConstraintInfo> constraintInfos;
     private final ForeignKeyViolationProcessor violationProcessor;
+    private final ForeignKeyParentCache parentCache;
     private TxnOperationFactory txnOperationFactory;
     private HashMap<Long,Partition> childPartitions = new HashMap<>();
     private String parentTableName;
@@ -56,7 +57,8 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     public ForeignKeyParentInterceptWriteHandler(String parentTableName,
                                                  List<Long> referencingIndexConglomerateIds,
                                                  PipelineExceptionFactory exceptionFactory,
-                                                 List<DDLMessage.FKConstraintInfo> constraintInfos
+                                                 List<DDLMessage.FKConstraintInfo> constraintInfos,
+                                                 ForeignKeyParentCache parentCache
                                                  ) {
         this.referencingIndexConglomerateIds = referencingIndexConglomerateIds;
         this.violationProcessor = new ForeignKeyViolationProcessor(
@@ -64,6 +66,7 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
         this.constraintInfos = constraintInfos;
         this.txnOperationFactory = SIDriver.driver().getOperationFactory();
         this.parentTableName = parentTableName;
+        this.parentCache = parentCache;
     }
 
     @Override
@@ -87,8 +90,10 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     public void flush(WriteContext ctx) throws IOException {
         try {
             // TODO Buffer with skip scan
+            String parentConglomerate = ctx.getRegion().getTableName();
             for (int k = 0; k<mutations.size();k++) {
                 KVPair mutation = mutations.get(k);
+                parentCache.invalidate(ctx.getTxn().getTxnId(), parentConglomerate, mutation.getRowKey());
                 for (int i = 0; i < referencingIndexConglomerateIds.size(); i++) {
                     long indexConglomerateId = referencingIndexConglomerateIds.get(i);
                     Partition table = null;
@@ -153,13 +158,13 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
             SimpleTxnFilter readUncommittedFilter;
             SimpleTxnFilter readCommittedFilter;
             if (ctx.getTxn() instanceof ActiveWriteTxn) {
-                readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((ActiveWriteTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-                readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((ActiveWriteTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+                readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((ActiveWriteTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnSupplier());
+                readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((ActiveWriteTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnSupplier());
 
             }
             else if (ctx.getTxn() instanceof WritableTxn) {
-                readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((WritableTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-                readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((WritableTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+                readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((WritableTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnSupplier());
+                readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((WritableTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnSupplier());
             }
             else
                 throw new IOException("invalidTxn");
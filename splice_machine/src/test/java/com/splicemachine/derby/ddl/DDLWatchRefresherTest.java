@@ -18,7 +18,9 @@ package com.splicemachine.derby.ddl;
 import com.splicemachine.SqlExceptionFactory;
 import com.splicemachine.concurrent.Clock;
 import com.splicemachine.concurrent.TickingClock;
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.impl.services.uuid.BasicUUID;
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.ddl.DDLMessage.*;
 import com.splicemachine.protobuf.ProtoUtil;
@@ -36,6 +38,7 @@ import org.junit.experimental.categories.Category;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -274,6 +277,27 @@ public class DDLWatchRefresherTest{
 
 
 
+    @Test
+    public void tableChangeOnlyBypassesTheCacheOfItsTable() throws Exception{
+        TestChecker checker=getTestChecker();
+        Clock clock = new IncrementingClock(0);
+
+        TxnStore supplier = new TestingTxnStore(clock,new TestingTimestampSource(),null,100l);
+        supplier.recordNewTransaction(txn);
+        DDLWatchRefresher refresher = new DDLWatchRefresher(checker,null,clock,ef,10l,supplier);
+
+        BasicUUID table=new BasicUUID(1l,2l,3);
+        DDLChange dropTable=ProtoUtil.createDropTable(txn.getTxnId(),table).toBuilder().setChangeId("dropTable").build();
+        checker.addChange(dropTable);
+
+        boolean shouldCont=refresher.refreshDDL(Collections.<DDLWatcher.DDLListener>singleton(new CountingListener()));
+        Assert.assertTrue("Returned an error State!",shouldCont);
+        assertTrue("DDL on one table disabled the whole cache!",refresher.cacheIsValid());
+        assertFalse("Can use the cache of the table being dropped!",refresher.canUseCache(null,table));
+        assertTrue("Cannot use the cache of another table!",refresher.canUseCache(null,new BasicUUID(4l,5l,6)));
+        assertFalse("Can use the cache for an unknown table!",refresher.canUseCache(null,(UUID)null));
+    }
+
     private TestChecker getTestChecker() throws IOException{
         TestChecker checker = new TestChecker();
         CommunicationListener noop=new CommunicationListener(){
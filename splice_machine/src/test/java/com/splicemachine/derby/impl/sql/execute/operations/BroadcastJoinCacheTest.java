@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+@Category(ArchitectureIndependent.class)
+public class BroadcastJoinCacheTest{
+    private static final long BUDGET = 1024*1024;
+    private static final long EXPIRATION = TimeUnit.MINUTES.toMillis(10);
+    private static final int[] KEYS = {0};
+
+    @Test
+    public void keepsATableLargerThanASegmentOfTheBudget() throws Exception{
+        SizedLoader loader = new SizedLoader(BUDGET*3/4);
+        BroadcastJoinCache cache = new BroadcastJoinCache(loader,BUDGET,EXPIRATION);
+        cache.get(1L,null,KEYS,KEYS,null);
+        cache.get(1L,null,KEYS,KEYS,null);
+
+        Assert.assertEquals("The table was evicted and reloaded",1,loader.loads);
+        Assert.assertEquals("Incorrect number of cached tables",1,cache.getCachedTableCount());
+        Assert.assertEquals("Nothing should have been evicted",0,cache.getEvictionCount());
+        Assert.assertEquals("Incorrect memory usage",BUDGET*3/4,cache.getMemoryUsage());
+    }
+
+    @Test
+    public void evictsTablesOnceOverTheBudget() throws Exception{
+        SizedLoader loader = new SizedLoader(BUDGET*3/4);
+        BroadcastJoinCache cache = new BroadcastJoinCache(loader,BUDGET,EXPIRATION);
+        cache.get(1L,null,KEYS,KEYS,null);
+        cache.get(2L,null,KEYS,KEYS,null);
+
+        Assert.assertEquals("Incorrect number of cached tables",1,cache.getCachedTableCount());
+        Assert.assertEquals("Incorrect number of evictions",1,cache.getEvictionCount());
+        Assert.assertEquals("Evicted memory was not released",BUDGET*3/4,cache.getMemoryUsage());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    private static class SizedLoader implements BroadcastJoinCache.JoinTableLoader{
+        private final long tableSize;
+        private int loads;
+
+        SizedLoader(long tableSize){
+            this.tableSize=tableSize;
+        }
+
+        @Override
+        public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys,ExecRow outerTemplateRow){
+            loads++;
+            return new JoinTable.Factory(){
+                @Override
+                public JoinTable newTable(){
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public long getMemoryUsage(){
+                    return tableSize;
+                }
+            };
+        }
+    }
+}
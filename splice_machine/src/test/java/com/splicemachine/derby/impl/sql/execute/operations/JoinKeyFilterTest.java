@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.*;
+
+@Category(ArchitectureIndependent.class)
+public class JoinKeyFilterTest{
+    private static final int[] KEYS = new int[]{1};
+
+    @Test
+    public void neverRejectsAKeyWhichWasAdded() throws Exception{
+        JoinKeyFilter filter = new JoinKeyFilter(1,1000);
+        for(int i=0;i<1000;i++){
+            filter.add(row(i*7),KEYS);
+        }
+        for(int i=0;i<1000;i++){
+            Assert.assertTrue("False negative for "+(i*7),filter.mightContain(row(i*7),KEYS));
+        }
+    }
+
+    @Test
+    public void rejectsMostKeysWhichWereNotAdded() throws Exception{
+        JoinKeyFilter filter = new JoinKeyFilter(1,1000);
+        for(int i=0;i<1000;i++){
+            filter.add(row(i*7),KEYS);
+        }
+        int falsePositives = 0;
+        for(int i=0;i<7000;i++){
+            if(i%7!=0 && filter.mightContain(row(i),KEYS))
+                falsePositives++;
+        }
+        Assert.assertTrue("Too many false positives: "+falsePositives,falsePositives<6000*0.05);
+        Assert.assertFalse("Key below the range was not rejected",filter.mightContain(row(-1),KEYS));
+        Assert.assertFalse("Key above the range was not rejected",filter.mightContain(row(7000),KEYS));
+    }
+
+    @Test
+    public void mergedAndSerializedFiltersContainAllKeys() throws Exception{
+        JoinKeyFilter first = new JoinKeyFilter(1,100);
+        JoinKeyFilter second = new JoinKeyFilter(1,100);
+        for(int i=0;i<100;i++){
+            (i%2==0?first:second).add(row(i),KEYS);
+        }
+        first.merge(second);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(baos)){
+            out.writeObject(first);
+        }
+        JoinKeyFilter read;
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))){
+            read = (JoinKeyFilter)in.readObject();
+        }
+        for(int i=0;i<100;i++){
+            Assert.assertTrue("False negative for "+i,read.mightContain(row(i),KEYS));
+        }
+    }
+
+    @Test
+    public void onlyAppliesToIntegralKeys() throws Exception{
+        ExecRow ints = row(1);
+        ExecRow longs = new ValueRow(2);
+        longs.setColumn(1,new SQLVarchar("a"));
+        longs.setColumn(2,new SQLLongint(1L));
+        Assert.assertTrue(JoinKeyFilter.isApplicable(ints,KEYS,longs,KEYS));
+        Assert.assertFalse(JoinKeyFilter.isApplicable(ints,new int[]{0},longs,new int[]{0}));
+    }
+
+    private static ExecRow row(int key){
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1,new SQLVarchar("v"+key));
+        row.setColumn(2,new SQLInteger(key));
+        return row;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Category(ArchitectureIndependent.class)
+public class OffHeapJoinTableTest{
+    private static final int[] KEYS = {0};
+
+    @Test
+    public void lookupsReturnMatchingRows() throws Exception{
+        List<ExecRow> inner = new ArrayList<>();
+        for(int i=0;i<100;i++){
+            inner.add(row(i,"row"+i));
+        }
+        try(JoinTable table = load(OffHeapTableLoader.INSTANCE,inner).newTable()){
+            for(int i=0;i<100;i++){
+                Assert.assertEquals("Incorrect rows for key "+i,Collections.singletonList("row"+i),values(table.fetchInner(row(i,"outer"))));
+            }
+            Assert.assertFalse("Found a row for a missing key",table.fetchInner(row(100,"outer")).hasNext());
+        }
+    }
+
+    @Test
+    public void duplicateKeysComeBackInArrivalOrder() throws Exception{
+        List<ExecRow> inner = new ArrayList<>();
+        for(int i=0;i<1000;i++){
+            inner.add(row(i%10,"value"+i));
+        }
+        //tiny slabs and index, so that chains cross slabs and the index is resized along the way
+        OffHeapJoinTable.Builder builder = new OffHeapJoinTable.Builder(64,2);
+        try(JoinTable table = build(builder,inner).newTable()){
+            Assert.assertEquals("Incorrect number of distinct keys",10,builder.size());
+            for(int k=0;k<10;k++){
+                List<String> expected = new ArrayList<>();
+                for(int i=k;i<1000;i+=10){
+                    expected.add("value"+i);
+                }
+                Assert.assertEquals("Incorrect rows for key "+k,expected,values(table.fetchInner(row(k,"outer"))));
+            }
+        }
+    }
+
+    @Test
+    public void nullAndEmptyKeysMatchTheOnHeapTable() throws Exception{
+        List<ExecRow> inner = Arrays.asList(
+                row(null,"a"),
+                row("","b"),
+                row("x","c"),
+                row(null,"d"),
+                row("","e"));
+        List<ExecRow> outer = Arrays.asList(row(null,"o"),row("","o"),row("x","o"),row("y","o"));
+        try(JoinTable offHeap = load(OffHeapTableLoader.INSTANCE,inner).newTable();
+            JoinTable onHeap = load(ByteBufferMapTableLoader.INSTANCE,inner).newTable()){
+            for(ExecRow o : outer){
+                Assert.assertEquals("Incorrect rows for key "+o,values(onHeap.fetchInner(o)),values(offHeap.fetchInner(o)));
+            }
+        }
+    }
+
+    @Test
+    public void emptyInnerSide() throws Exception{
+        JoinTable.Factory factory = load(OffHeapTableLoader.INSTANCE,Collections.<ExecRow>emptyList());
+        try(JoinTable table = factory.newTable()){
+            Assert.assertFalse("Found a row in an empty table",table.fetchInner(row(1,"outer")).hasNext());
+        }
+    }
+
+    @Test
+    public void closingATableDoesNotReleaseTheFactory() throws Exception{
+        JoinTable.Factory factory = load(OffHeapTableLoader.INSTANCE,Arrays.asList(row(1,"a"),row(2,"b")));
+        JoinTable first = factory.newTable();
+        JoinTable second = factory.newTable();
+        Assert.assertEquals(Collections.singletonList("a"),values(first.fetchInner(row(1,"outer"))));
+        first.close();
+        first.close();
+
+        Assert.assertEquals("Closing one table affected another",Collections.singletonList("b"),values(second.fetchInner(row(2,"outer"))));
+        second.close();
+        try(JoinTable third = factory.newTable()){
+            Assert.assertEquals("Closing every table released the factory",Collections.singletonList("a"),values(third.fetchInner(row(1,"outer"))));
+        }
+        Assert.assertTrue("Memory usage should include the slabs",factory.getMemoryUsage()>0);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static ExecRow row(int key,String value){
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1,new SQLInteger(key));
+        row.setColumn(2,new SQLVarchar(value));
+        return row;
+    }
+
+    private static ExecRow row(String key,String value){
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1,key==null?new SQLVarchar():new SQLVarchar(key));
+        row.setColumn(2,new SQLVarchar(value));
+        return row;
+    }
+
+    private static List<String> values(Iterator<ExecRow> rows) throws Exception{
+        List<String> values = new ArrayList<>();
+        while(rows.hasNext()){
+            values.add(rows.next().getColumn(2).getString());
+        }
+        return values;
+    }
+
+    private static JoinTable.Factory load(BroadcastJoinCache.JoinTableLoader loader,final List<ExecRow> inner) throws Exception{
+        ExecRow outerTemplate = inner.isEmpty()?row(0,"outer"):inner.get(0).getNewNullRow();
+        return loader.load(new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call() throws Exception{
+                return Streams.wrap(inner);
+            }
+        },KEYS,KEYS,outerTemplate);
+    }
+
+    /*
+     * Encodes the rows the same way as OffHeapTableLoader, but into a Builder of our choosing
+     */
+    private static OffHeapJoinTable.Factory build(OffHeapJoinTable.Builder builder,List<ExecRow> inner) throws Exception{
+        DescriptorSerializer[] serializers = VersionedSerializers.latestVersion(false).getSerializers(inner.get(0));
+        KeyEncoder keyEncoder = new KeyEncoder(NoOpPrefix.INSTANCE,BareKeyHash.encoder(KEYS,null,serializers),NoOpPostfix.INSTANCE);
+        DataHash<ExecRow> rowEncoder = BareKeyHash.encoder(null,null,serializers);
+        for(ExecRow row : inner){
+            rowEncoder.setRow(row);
+            builder.add(keyEncoder.getKey(row),rowEncoder.encode());
+        }
+        ExecRow template = inner.get(0).getNewNullRow();
+        return builder.build(template,KEYS,template);
+    }
+}
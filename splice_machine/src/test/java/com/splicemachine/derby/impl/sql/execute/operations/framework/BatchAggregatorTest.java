@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.framework;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.impl.sql.execute.AvgAggregator;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class BatchAggregatorTest{
+    /*
+     * Row layout: the input column, followed by an (aggregator, result) pair of columns for each aggregate
+     */
+    private static final String[] NAMES = new String[]{"COUNT(*)","COUNT","SUM","MIN","MAX","AVG"};
+
+    @Test
+    public void matchesRowAtATimeForIntegers() throws Exception{
+        List<ExecRow> input = new ArrayList<>();
+        Random random = new Random(0L);
+        for(int i=0;i<1000;i++){
+            SQLInteger value = random.nextInt(10)==0?new SQLInteger():new SQLInteger(random.nextInt(2000)-1000);
+            input.add(row(value));
+        }
+        assertMatches(input,Types.INTEGER,7);
+    }
+
+    @Test
+    public void matchesRowAtATimeForDoubles() throws Exception{
+        List<ExecRow> input = new ArrayList<>();
+        Random random = new Random(1L);
+        for(int i=0;i<1000;i++){
+            SQLDouble value = random.nextInt(10)==0?new SQLDouble():new SQLDouble(random.nextInt(2000)/4d);
+            input.add(row(value));
+        }
+        assertMatches(input,Types.DOUBLE,64);
+    }
+
+    @Test
+    public void allNullInputsAggregateToNull() throws Exception{
+        List<ExecRow> input = new ArrayList<>();
+        for(int i=0;i<10;i++){
+            input.add(row(new SQLLongint()));
+        }
+        assertMatches(input,Types.BIGINT,4);
+    }
+
+    @Test
+    public void overflowIsReportedAsForRowAtATime() throws Exception{
+        List<ExecRow> input = new ArrayList<>();
+        for(int i=0;i<4;i++){
+            input.add(row(new SQLLongint(Long.MAX_VALUE/2)));
+        }
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[]{
+                new SpliceGenericAggregator(new SumAggregator().setup(null,"SUM",DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),2,1,3)
+        };
+        ExecRow accumulator = accumulator(aggregates);
+        BatchAggregator batch = BatchAggregator.newBatchAggregator(aggregates,accumulator,input.get(0),16);
+        Assert.assertNotNull(batch);
+        for(ExecRow row : input){
+            batch.add(row);
+        }
+        try{
+            batch.flush(accumulator);
+            aggregates[0].finish(accumulator);
+            Assert.fail("Expected an overflow");
+        }catch(StandardException se){
+            Assert.assertEquals("Incorrect error","22003",se.getSQLState());
+        }
+    }
+
+    @Test
+    public void doesNotBatchUnsupportedInputs() throws Exception{
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[]{
+                new SpliceGenericAggregator(new MaxMinAggregator().setup(null,"MAX",DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR)),2,1,3)
+        };
+        ExecRow accumulator = accumulator(aggregates);
+        Assert.assertNull(BatchAggregator.newBatchAggregator(aggregates,accumulator,row(new SQLVarchar("a")),16));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void assertMatches(List<ExecRow> input,int jdbcType,int batchSize) throws Exception{
+        SpliceGenericAggregator[] rowAggregates = aggregates(jdbcType);
+        SpliceGenericAggregator[] batchAggregates = aggregates(jdbcType);
+        ExecRow expected = accumulator(rowAggregates);
+        ExecRow actual = accumulator(batchAggregates);
+
+        BatchAggregator batch = BatchAggregator.newBatchAggregator(batchAggregates,actual,input.get(0),batchSize);
+        Assert.assertNotNull("Should be able to batch "+jdbcType,batch);
+        for(ExecRow row : input){
+            for(SpliceGenericAggregator aggregate : rowAggregates){
+                aggregate.accumulate(row,expected);
+            }
+            if(batch.add(row))
+                batch.flush(actual);
+        }
+        batch.flush(actual);
+
+        for(int i=0;i<NAMES.length;i++){
+            boolean expectedNulls = rowAggregates[i].finish(expected);
+            boolean actualNulls = batchAggregates[i].finish(actual);
+            int resultColumn = rowAggregates[i].getResultColumnId();
+            Assert.assertEquals("Incorrect result for "+NAMES[i],expected.getColumn(resultColumn).getString(),actual.getColumn(resultColumn).getString());
+            Assert.assertEquals("Incorrect null elimination for "+NAMES[i],expectedNulls,actualNulls);
+        }
+    }
+
+    private static SpliceGenericAggregator[] aggregates(int jdbcType){
+        DataTypeDescriptor inputType = DataTypeDescriptor.getBuiltInDataTypeDescriptor(jdbcType);
+        DataTypeDescriptor sumType = DataTypeDescriptor.getBuiltInDataTypeDescriptor(jdbcType==Types.DOUBLE?Types.DOUBLE:Types.BIGINT);
+        ExecAggregator[] aggregators = new ExecAggregator[]{
+                new CountAggregator().setup(null,"COUNT(*)",null),
+                new CountAggregator().setup(null,"COUNT",null),
+                new SumAggregator().setup(null,"SUM",sumType),
+                new MaxMinAggregator().setup(null,"MIN",inputType),
+                new MaxMinAggregator().setup(null,"MAX",inputType),
+                new AvgAggregator().setup(null,"AVG",inputType)
+        };
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[aggregators.length];
+        for(int i=0;i<aggregators.length;i++){
+            aggregates[i] = new SpliceGenericAggregator(aggregators[i],2*i+2,1,2*i+3);
+        }
+        return aggregates;
+    }
+
+    private static ExecRow accumulator(SpliceGenericAggregator[] aggregates) throws Exception{
+        ExecRow row = new ValueRow(1+2*NAMES.length);
+        row.setColumn(1,new SQLLongint());
+        for(int i=1;i<row.nColumns();i++){
+            row.setColumn(i+1,new UserType());
+        }
+        for(SpliceGenericAggregator aggregate : aggregates){
+            row.setColumn(aggregate.getResultColumnId(),new SQLDouble());
+            aggregate.initialize(row);
+        }
+        return row;
+    }
+
+    private static ExecRow row(DataValueDescriptor value){
+        ExecRow row = new ValueRow(1+2*NAMES.length);
+        row.setColumn(1,value);
+        for(int i=1;i<row.nColumns();i++){
+            row.setColumn(i+1,new UserType());
+        }
+        return row;
+    }
+}
@@ -16,6 +16,15 @@
 package com.splicemachine.derby.impl.sql.execute.sequence;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.splicemachine.si.testenv.ArchitectureIndependent;
 import org.junit.Assert;
@@ -60,8 +69,63 @@ public class AbstractSequenceTest {
 		}
 	}
 	
+	@Test
+	public void multiThreadedValuesAreUnique() throws Exception {
+		final Sequence sequence = new SpliceTestSequence(100,1,0);
+		final int numThreads = 8;
+		final int valuesPerThread = 10000;
+		final Set<Long> values = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Future<Void>> futures = new ArrayList<>(numThreads);
+			for (int t = 0; t < numThreads; t++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						long last = -1;
+						for (int i = 0; i < valuesPerThread; i++) {
+							long next = sequence.getNext();
+							Assert.assertTrue("Values should increase within a thread", next > last);
+							Assert.assertTrue("Duplicate value " + next, values.add(next));
+							last = next;
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertEquals(numThreads * valuesPerThread, values.size());
+	}
+
+	@Test
+	public void blockSizeGrowsWhenConsumedQuickly() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(10,1,0);
+		for (long i = 0; i < 1000; i++) {
+			Assert.assertEquals(i, sequence.getNext());
+		}
+		Assert.assertTrue("Should have allocated larger blocks, but made " + sequence.allocations + " allocations",
+				sequence.allocations < 20);
+	}
+
+	@Test
+	public void unbatchedSequenceDoesNotReserveAhead() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(1,1,0);
+		for (long i = 0; i < 10; i++) {
+			Assert.assertEquals(i, sequence.getNext());
+		}
+		Assert.assertEquals(10, sequence.allocations);
+		Assert.assertEquals(10, sequence.peekAtCurrentValue());
+		Assert.assertEquals(10, sequence.getNext());
+	}
+
 	private class SpliceTestSequence extends AbstractSequence {
 		long currentValue = -1;
+		int allocations = 0;
 		SpliceTestSequence(long blockAllocationSize, long incrementSteps, long startingValue) {
 			super(blockAllocationSize,incrementSteps,startingValue);
 		}
@@ -74,8 +138,9 @@ public class AbstractSequenceTest {
 			}
 
 			@Override
-			protected boolean atomicIncrement(long nextValue) throws IOException {
+			protected boolean atomicIncrement(long current, long nextValue) throws IOException {
 				currentValue = nextValue;
+				allocations++;
 				return true;
 			}
 
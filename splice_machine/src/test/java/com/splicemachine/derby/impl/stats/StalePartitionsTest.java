@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StalePartitionsTest{
+    private static final long MB = 1024*1024;
+
+    @Test
+    public void testOnlyChangedPartitionsAreStale() throws Exception{
+        List<String> partitions = Arrays.asList("a","b","c","d");
+        Map<String,Long> rows = new HashMap<>();
+        Map<String,Long> bytes = new HashMap<>();
+        for(String partition : partitions){
+            rows.put(partition,1000000l);
+            bytes.put(partition,100*MB);
+        }
+        bytes.put("b",150*MB); //grew by half
+        bytes.put("c",110*MB); //grew, but not enough to matter
+
+        boolean[] stale = StalePartitions.findStale(partitions,rows,bytes,.2d);
+        Assert.assertArrayEquals(new boolean[]{false,true,false,false},stale);
+    }
+
+    @Test
+    public void testPartitionsWithoutStatisticsAreStale() throws Exception{
+        List<String> partitions = Arrays.asList("a","b","c");
+        Map<String,Long> rows = new HashMap<>();
+        Map<String,Long> bytes = new HashMap<>();
+        rows.put("a",1000l);
+        rows.put("c",1000l);
+        bytes.put("a",MB);
+        bytes.put("b",MB);
+
+        //c has no load information, so it is left alone
+        boolean[] stale = StalePartitions.findStale(partitions,rows,bytes,.2d);
+        Assert.assertArrayEquals(new boolean[]{false,true,false},stale);
+    }
+
+    @Test
+    public void testEverythingIsStaleWithoutSizes() throws Exception{
+        List<String> partitions = Arrays.asList("a","b");
+        Map<String,Long> rows = new HashMap<>();
+        Map<String,Long> bytes = new HashMap<>();
+        rows.put("a",10l);
+        rows.put("b",10l);
+        bytes.put("a",0l);
+        bytes.put("b",0l);
+
+        boolean[] stale = StalePartitions.findStale(partitions,rows,bytes,.2d);
+        Assert.assertArrayEquals(new boolean[]{true,true},stale);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import scala.Tuple2;
+
+import java.io.File;
+import java.util.*;
+
+@Category(ArchitectureIndependent.class)
+public class ExternalSorterTest{
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final Comparator<Integer> ORDER = new Comparator<Integer>(){
+        @Override
+        public int compare(Integer o1,Integer o2){
+            return Integer.compare(o1,o2);
+        }
+    };
+
+    @Test
+    public void sortsInMemory() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Integer>> input = input(1000,100);
+        ExternalSorter<Integer,Integer> sorter = new ExternalSorter<>(ORDER,Long.MAX_VALUE,4,dir,null,0L);
+        assertSorted(expected(input,0),sorter.sort(input.iterator()));
+        Assert.assertEquals("Should not have spilled",0,dir.list().length);
+    }
+
+    @Test
+    public void sortsStablyWithSpilledRuns() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Integer>> input = input(20000,500);
+        ExternalSorter<Integer,Integer> sorter = new ExternalSorter<>(ORDER,8*1024,64,dir,null,0L);
+        assertSorted(expected(input,0),sorter.sort(input.iterator()));
+        Assert.assertEquals("Spill files were not cleaned up",0,dir.list().length);
+    }
+
+    @Test
+    public void sortsWithIntermediateMergePasses() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Integer>> input = input(20000,500);
+        ExternalSorter<Integer,Integer> sorter = new ExternalSorter<>(ORDER,4*1024,3,dir,null,0L);
+        assertSorted(expected(input,0),sorter.sort(input.iterator()));
+        Assert.assertEquals("Spill files were not cleaned up",0,dir.list().length);
+    }
+
+    @Test
+    public void topNKeepsOnlyTheSmallestRecords() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Integer>> input = input(20000,20000);
+        ExternalSorter<Integer,Integer> sorter = new ExternalSorter<>(ORDER,Long.MAX_VALUE,4,dir,null,100L);
+        Iterator<Tuple2<Integer,Integer>> sorted = sorter.sort(input.iterator());
+        List<Integer> keys = new ArrayList<>();
+        while(sorted.hasNext()){
+            keys.add(sorted.next()._1());
+        }
+        List<Integer> expected = new ArrayList<>();
+        for(Tuple2<Integer,Integer> t : expected(input,100)){
+            expected.add(t._1());
+        }
+        Assert.assertEquals("Incorrect top N",expected,keys);
+    }
+
+    @Test
+    public void topNFallsBackToTruncatedRuns() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Integer>> input = input(20000,500);
+        ExternalSorter<Integer,Integer> sorter = new ExternalSorter<>(ORDER,4*1024,4,dir,null,1000L);
+        assertSorted(expected(input,1000),sorter.sort(input.iterator()));
+        Assert.assertEquals("Spill files were not cleaned up",0,dir.list().length);
+    }
+
+    @Test
+    public void loserTreeMergesUnevenSources() throws Exception{
+        List<Iterator<Integer>> sources = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(0L);
+        for(int i=0;i<7;i++){
+            List<Integer> source = new ArrayList<>();
+            for(int j=0;j<i*13;j++){
+                source.add(random.nextInt(100));
+            }
+            Collections.sort(source);
+            expected.addAll(source);
+            sources.add(source.iterator());
+        }
+        Collections.sort(expected);
+        LoserTree<Integer> tree = new LoserTree<>(sources,ORDER);
+        List<Integer> actual = new ArrayList<>();
+        while(tree.hasNext()){
+            actual.add(tree.next());
+        }
+        Assert.assertEquals("Incorrect merge",expected,actual);
+    }
+
+    private static List<Tuple2<Integer,Integer>> input(int rows,int keys){
+        Random random = new Random(1L);
+        List<Tuple2<Integer,Integer>> input = new ArrayList<>(rows);
+        for(int i=0;i<rows;i++){
+            input.add(new Tuple2<>(random.nextInt(keys),i));
+        }
+        return input;
+    }
+
+    private static List<Tuple2<Integer,Integer>> expected(List<Tuple2<Integer,Integer>> input,int limit){
+        List<Tuple2<Integer,Integer>> sorted = new ArrayList<>(input);
+        Collections.sort(sorted,new Comparator<Tuple2<Integer, Integer>>(){
+            @Override
+            public int compare(Tuple2<Integer, Integer> o1,Tuple2<Integer, Integer> o2){
+                return o1._1().compareTo(o2._1());
+            }
+        });
+        return limit>0?sorted.subList(0,limit):sorted;
+    }
+
+    private static void assertSorted(List<Tuple2<Integer,Integer>> expected,Iterator<Tuple2<Integer,Integer>> actual){
+        int i = 0;
+        while(actual.hasNext()){
+            Tuple2<Integer,Integer> next = actual.next();
+            Assert.assertTrue("Too many records returned",i<expected.size());
+            Assert.assertEquals("Incorrect key at position "+i,expected.get(i)._1(),next._1());
+            Assert.assertEquals("Incorrect value at position "+i,expected.get(i)._2(),next._2());
+            i++;
+        }
+        Assert.assertEquals("Incorrect number of records",expected.size(),i);
+    }
+}
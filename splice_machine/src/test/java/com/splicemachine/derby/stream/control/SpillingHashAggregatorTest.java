@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import scala.Tuple2;
+
+import java.io.File;
+import java.util.*;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@Category(ArchitectureIndependent.class)
+public class SpillingHashAggregatorTest{
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final SpillingHashAggregator.Combiner<Long,Long> SUM = new SpillingHashAggregator.Combiner<Long, Long>(){
+        @Override public Long createCombiner(Long value){ return value; }
+        @Override public Long mergeValue(Long combiner,Long value){ return combiner+value; }
+        @Override public Long mergeCombiners(Long first,Long second){ return first+second; }
+    };
+
+    private static final SpillingHashAggregator.Combiner<Long,List<Long>> GROUP = new SpillingHashAggregator.Combiner<Long, List<Long>>(){
+        @Override public List<Long> createCombiner(Long value){
+            List<Long> values = new ArrayList<>();
+            values.add(value);
+            return values;
+        }
+        @Override public List<Long> mergeValue(List<Long> combiner,Long value){
+            combiner.add(value);
+            return combiner;
+        }
+        @Override public List<Long> mergeCombiners(List<Long> first,List<Long> second){
+            first.addAll(second);
+            return first;
+        }
+        @Override public boolean retainsValues(){ return true; }
+    };
+
+    @Test
+    public void reducesInMemoryWhenUnderBudget() throws Exception{
+        File dir = tempFolder.newFolder();
+        SpillingHashAggregator<Integer,Long,Long> aggregator = new SpillingHashAggregator<>(SUM,Long.MAX_VALUE,4,dir,null);
+        Map<Integer,Long> actual = collect(aggregator.aggregate(input(1000,10).iterator()));
+        Assert.assertEquals("Incorrect reduction",expectedSums(input(1000,10)),actual);
+        Assert.assertEquals("Should not have spilled",0,dir.list().length);
+    }
+
+    @Test
+    public void reducesCorrectlyWhenSpilling() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Long>> input = input(50000,5000);
+        SpillingHashAggregator<Integer,Long,Long> aggregator = new SpillingHashAggregator<>(SUM,16*1024,8,dir,null);
+        Map<Integer,Long> actual = collect(aggregator.aggregate(input.iterator()));
+        Assert.assertEquals("Incorrect reduction",expectedSums(input),actual);
+        Assert.assertEquals("Spill files were not cleaned up",0,dir.list().length);
+    }
+
+    @Test
+    public void groupsCorrectlyWhenSpilling() throws Exception{
+        File dir = tempFolder.newFolder();
+        List<Tuple2<Integer,Long>> input = input(50000,500);
+        SpillingHashAggregator<Integer,Long,List<Long>> aggregator = new SpillingHashAggregator<>(GROUP,64*1024,8,dir,null);
+        Iterator<Tuple2<Integer,List<Long>>> groups = aggregator.aggregate(input.iterator());
+        Set<Integer> seen = new HashSet<>();
+        int count = 0;
+        while(groups.hasNext()){
+            Tuple2<Integer,List<Long>> group = groups.next();
+            Assert.assertTrue("Key "+group._1()+" was returned more than once",seen.add(group._1()));
+            long last = -1;
+            for(Long value : group._2()){
+                Assert.assertEquals("Value in the wrong group",(long)group._1(),value%500);
+                Assert.assertTrue("Values were reordered",value>last);
+                last = value;
+                count++;
+            }
+        }
+        Assert.assertEquals("Incorrect number of groups",500,seen.size());
+        Assert.assertEquals("Incorrect number of values",input.size(),count);
+        Assert.assertEquals("Spill files were not cleaned up",0,dir.list().length);
+    }
+
+    @Test
+    public void abandonedIteratorsAreCleanedUpOnClose() throws Exception{
+        File dir = tempFolder.newFolder();
+        final List<AutoCloseable> closeables = new ArrayList<>();
+        SpliceOperation operation = mock(SpliceOperation.class);
+        doAnswer(new Answer<Void>(){
+            @Override
+            public Void answer(InvocationOnMock invocation){
+                closeables.add((AutoCloseable)invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(operation).registerCloseable(any(AutoCloseable.class));
+        OperationContext context = mock(OperationContext.class);
+        when(context.getOperation()).thenReturn(operation);
+
+        SpillingHashAggregator<Integer,Long,Long> aggregator = new SpillingHashAggregator<>(SUM,16*1024,8,dir,context);
+        Iterator<Tuple2<Integer,Long>> results = aggregator.aggregate(input(50000,5000).iterator());
+        results.next();
+        Assert.assertTrue("Should have spilled",dir.list().length>0);
+        verify(context).recordSpill(anyLong());
+
+        for(AutoCloseable closeable : closeables){
+            closeable.close();
+        }
+        Assert.assertEquals("Spill files were not cleaned up on close",0,dir.list().length);
+    }
+
+    private static List<Tuple2<Integer,Long>> input(int rows,int keys){
+        List<Tuple2<Integer,Long>> input = new ArrayList<>(rows);
+        for(long i=0;i<rows;i++){
+            input.add(new Tuple2<>((int)(i%keys),i));
+        }
+        return input;
+    }
+
+    private static Map<Integer,Long> expectedSums(List<Tuple2<Integer,Long>> input){
+        Map<Integer,Long> sums = new HashMap<>();
+        for(Tuple2<Integer,Long> t : input){
+            Long existing = sums.get(t._1());
+            sums.put(t._1(),existing==null?t._2():existing+t._2());
+        }
+        return sums;
+    }
+
+    private static <K,V> Map<K,V> collect(Iterator<Tuple2<K,V>> results){
+        Map<K,V> map = new HashMap<>();
+        while(results.hasNext()){
+            Tuple2<K,V> next = results.next();
+            Assert.assertNull("Key "+next._1()+" was returned more than once",map.put(next._1(),next._2()));
+        }
+        return map;
+    }
+}
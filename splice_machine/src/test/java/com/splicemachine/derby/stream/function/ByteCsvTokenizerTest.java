@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ByteCsvTokenizerTest{
+    private final ByteCsvTokenizer tokenizer = new ByteCsvTokenizer('"',',',3);
+
+    @Test
+    public void testUnquotedFields() throws Exception{
+        tokenizer.reset(chunk("a,b,,d\ne,f,g,h\n"));
+        assertRecord("a","b",null,"d");
+        Assert.assertTrue(tokenizer.isNull(2));
+        assertRecord("e","f","g","h");
+        Assert.assertFalse(tokenizer.readRecord());
+    }
+
+    @Test
+    public void testQuotedFields() throws Exception{
+        tokenizer.reset(chunk("\"a,b\",\"c\"\"d\",e\"f\"g,\"\"\n"));
+        assertRecord("a,b","c\"d","efg",null);
+    }
+
+    @Test
+    public void testSkipsEmptyLines() throws Exception{
+        tokenizer.reset(chunk("\n\na,b\r\n\r\nc,d"));
+        assertRecord("a","b");
+        Assert.assertEquals(3,tokenizer.getLineNumber());
+        assertRecord("c","d");
+        Assert.assertEquals(5,tokenizer.getLineNumber());
+        Assert.assertFalse(tokenizer.readRecord());
+    }
+
+    @Test
+    public void testNullMarkers() throws Exception{
+        tokenizer.reset(chunk("null,NULL,Null,nul\n"));
+        Assert.assertTrue(tokenizer.readRecord());
+        Assert.assertTrue(tokenizer.isNull(0));
+        Assert.assertTrue(tokenizer.isNull(1));
+        Assert.assertFalse(tokenizer.isNull(2));
+        Assert.assertFalse(tokenizer.isNull(3));
+    }
+
+    @Test
+    public void testParsesLongs() throws Exception{
+        tokenizer.reset(chunk("12,-7,+3,9223372036854775807,-9223372036854775808,9223372036854775808,1.5, 4,-,\"\"\"5\"\n"));
+        Assert.assertTrue(tokenizer.readRecord());
+        Assert.assertEquals(12l,tokenizer.getLong(0));
+        Assert.assertEquals(-7l,tokenizer.getLong(1));
+        Assert.assertEquals(3l,tokenizer.getLong(2));
+        Assert.assertEquals(Long.MAX_VALUE,tokenizer.getLong(3));
+        Assert.assertEquals(Long.MIN_VALUE,tokenizer.getLong(4));
+        for(int i=5;i<tokenizer.getFieldCount();i++){
+            try{
+                tokenizer.getLong(i);
+                Assert.fail("Parsed "+tokenizer.getString(i));
+            }catch(NumberFormatException expected){
+                //expected
+            }
+        }
+    }
+
+    @Test
+    public void testReadsDirectBuffers() throws Exception{
+        byte[] data = "\"x\"\"y\",\u00e9t\u00e9,42\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data);
+        direct.flip();
+        tokenizer.reset(direct);
+        assertRecord("x\"y","\u00e9t\u00e9","42");
+        Assert.assertEquals(42l,tokenizer.getLong(2));
+    }
+
+    @Test
+    public void testQuotedLineBreaksInStreams() throws Exception{
+        tokenizer.reset(trickle("1,\"a\nb\",2\n3,\"c\r\nd\",\"\"\"\"\n"));
+        assertRecord("1","a\nb","2");
+        assertRecord("3","c\nd","\"");
+        Assert.assertEquals(4,tokenizer.getLineNumber());
+        Assert.assertFalse(tokenizer.readRecord());
+    }
+
+    @Test
+    public void testRecordsLargerThanTheStreamBuffer() throws Exception{
+        char[] large = new char[200*1024];
+        Arrays.fill(large,'x');
+        String field = new String(large);
+        tokenizer.reset(new ByteArrayInputStream(("a,"+field+"\nb,c").getBytes(StandardCharsets.UTF_8)));
+        assertRecord("a",field);
+        assertRecord("b","c");
+        Assert.assertFalse(tokenizer.readRecord());
+    }
+
+    @Test
+    public void testQuotedLineBreaksInChunksAreSkipped() throws Exception{
+        tokenizer.reset(chunk("1,\"a\n2,b\n"));
+        try{
+            tokenizer.readRecord();
+            Assert.fail("Read a quoted line break from a chunk");
+        }catch(IOException expected){
+            //expected
+        }
+        assertRecord("2","b");
+    }
+
+    @Test
+    public void testMaxLinesPerRow() throws Exception{
+        tokenizer.reset(trickle("\"a\nb\nc\nd\"\n"));
+        try{
+            tokenizer.readRecord();
+            Assert.fail("Read more lines than allowed");
+        }catch(IOException expected){
+            Assert.assertTrue(expected.getMessage(),expected.getMessage().startsWith("max number of lines"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnterminatedQuote() throws Exception{
+        tokenizer.reset(trickle("a,\"b\nc"));
+        tokenizer.readRecord();
+    }
+
+    @Test
+    public void testNextLineStart() throws Exception{
+        ByteBuffer buffer = chunk("ab\ncd\r\nef\rg");
+        Assert.assertEquals(3,ByteCsvTokenizer.nextLineStart(buffer,0));
+        Assert.assertEquals(3,ByteCsvTokenizer.nextLineStart(buffer,2));
+        Assert.assertEquals(7,ByteCsvTokenizer.nextLineStart(buffer,3));
+        Assert.assertEquals(10,ByteCsvTokenizer.nextLineStart(buffer,7));
+        Assert.assertEquals(11,ByteCsvTokenizer.nextLineStart(buffer,10));
+    }
+
+    @Test
+    public void testSupportedDelimiters() throws Exception{
+        Assert.assertTrue(ByteCsvTokenizer.supports('"','|'));
+        Assert.assertTrue(ByteCsvTokenizer.supports('\'','\u0001'));
+        Assert.assertFalse(ByteCsvTokenizer.supports('"','\u00a7'));
+        Assert.assertFalse(ByteCsvTokenizer.supports('"','"'));
+        Assert.assertFalse(ByteCsvTokenizer.supports('"','\n'));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void assertRecord(String... expected) throws IOException{
+        Assert.assertTrue("Missing record!",tokenizer.readRecord());
+        Assert.assertEquals(Arrays.asList(expected),tokenizer.getColumns());
+    }
+
+    private static ByteBuffer chunk(String data){
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*a stream which returns one byte at a time, so records are split across reads*/
+    private static InputStream trickle(String data){
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)){
+            @Override
+            public synchronized int read(byte[] b,int off,int len){
+                return super.read(b,off,Math.min(len,1));
+            }
+        };
+    }
+}
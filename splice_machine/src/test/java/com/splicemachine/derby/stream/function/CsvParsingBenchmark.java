@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.impl.load.SpliceCsvReader;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro benchmark for the CSV parsers used by import.
+ * <p>
+ * Generates rows of integer, bigint, varchar and quoted columns in memory, and parses them with the
+ * per-line supercsv tokenizer (as {@link FileFunction} does), with supercsv over a decoding reader (as
+ * {@link StreamFileFunction} did), and with {@link ByteCsvTokenizer} over line-aligned chunks and over a
+ * stream. Every parser converts the numeric columns to longs, so the numbers include field conversion.
+ * Reports rows/s and MB/s for each parser.
+ * <p>
+ * Usage: {@code CsvParsingBenchmark [rows] [iterations] [chunkSize]}. The defaults are 1000000 rows,
+ * 5 iterations and 1MB chunks.
+ */
+public class CsvParsingBenchmark{
+
+    public static void main(String...args) throws Exception{
+        int numRows=args.length>0?Integer.parseInt(args[0]):1000000;
+        int iterations=args.length>1?Integer.parseInt(args[1]):5;
+        int chunkSize=args.length>2?Integer.parseInt(args[2]):1<<20;
+
+        byte[] data=generate(numRows);
+        String[] lines=new String(data,StandardCharsets.UTF_8).split("\n");
+        CsvPreference preference=new CsvPreference.Builder('"',',',"\n").maxLinesPerRow(1).build();
+        System.out.printf("%d rows, %.1f MB%n",numRows,data.length/(1024d*1024d));
+
+        for(int i=0;i<iterations;i++){
+            System.out.printf("Iteration %d%n",i);
+            long start=System.nanoTime();
+            long sum=parseLines(lines,preference);
+            report("supercsv lines",start,numRows,data.length,sum);
+
+            start=System.nanoTime();
+            sum=parseReader(data,preference);
+            report("supercsv stream",start,numRows,data.length,sum);
+
+            start=System.nanoTime();
+            sum=parseChunks(data,chunkSize);
+            report("byte chunks",start,numRows,data.length,sum);
+
+            start=System.nanoTime();
+            sum=parseStream(data);
+            report("byte stream",start,numRows,data.length,sum);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static byte[] generate(int numRows){
+        Random random=new Random(0l);
+        StringBuilder sb=new StringBuilder(numRows*64);
+        for(int i=0;i<numRows;i++){
+            sb.append(i).append(',')
+                    .append(random.nextLong()).append(',')
+                    .append("name").append(random.nextInt(100000)).append(',')
+                    .append('"').append("street ").append(random.nextInt(1000)).append(", \"\"apt\"\" ").append(i%10).append('"').append(',')
+                    .append(random.nextInt(200)-100)
+                    .append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long parseLines(String[] lines,CsvPreference preference) throws IOException{
+        MutableCSVTokenizer tokenizer=new MutableCSVTokenizer(new StringReader(lines[0]),preference);
+        long sum=0l;
+        for(String line:lines){
+            tokenizer.setLine(line);
+            sum+=sum(tokenizer.read());
+        }
+        return sum;
+    }
+
+    private static long parseReader(byte[] data,CsvPreference preference) throws IOException{
+        SpliceCsvReader reader=new SpliceCsvReader(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data),StandardCharsets.UTF_8)),preference);
+        long sum=0l;
+        while(reader.hasNext()){
+            sum+=sum(reader.next());
+        }
+        reader.close();
+        return sum;
+    }
+
+    private static long parseChunks(byte[] data,int chunkSize) throws IOException{
+        ByteBuffer buffer=ByteBuffer.wrap(data);
+        ByteCsvTokenizer tokenizer=new ByteCsvTokenizer('"',',',1);
+        long sum=0l;
+        int start=0;
+        while(start<data.length){
+            int end=Math.min(data.length,start+chunkSize);
+            if(end<data.length)
+                end=ByteCsvTokenizer.nextLineStart(buffer,end);
+            ByteBuffer chunk=buffer.duplicate();
+            chunk.limit(end).position(start);
+            tokenizer.reset(chunk.slice());
+            sum+=sum(tokenizer);
+            start=end;
+        }
+        return sum;
+    }
+
+    private static long parseStream(byte[] data) throws IOException{
+        ByteCsvTokenizer tokenizer=new ByteCsvTokenizer('"',',',1);
+        tokenizer.reset(new ByteArrayInputStream(data));
+        return sum(tokenizer);
+    }
+
+    private static long sum(List<String> columns){
+        return Long.parseLong(columns.get(0))+Long.parseLong(columns.get(1))+Long.parseLong(columns.get(4))+columns.get(2).length()+columns.get(3).length();
+    }
+
+    private static long sum(ByteCsvTokenizer tokenizer) throws IOException{
+        long sum=0l;
+        while(tokenizer.readRecord()){
+            sum+=tokenizer.getLong(0)+tokenizer.getLong(1)+tokenizer.getLong(4)+tokenizer.getString(2).length()+tokenizer.getString(3).length();
+        }
+        return sum;
+    }
+
+    private static void report(String name,long startNanos,int numRows,int numBytes,long checksum){
+        double seconds=(System.nanoTime()-startNanos)/1e9d;
+        System.out.printf("  %-16s %12.0f rows/s %8.1f MB/s (checksum %d)%n",
+                name,numRows/seconds,numBytes/(1024d*1024d)/seconds,checksum);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ArchitectureIndependent.class)
+public class ForeignKeyParentCacheTest {
+
+    @Test
+    public void confirmedKeyIsOnlyVisibleToTheSameTransaction() throws Exception {
+        ForeignKeyParentCache cache = new ForeignKeyParentCache(100);
+        assertFalse(cache.contains(1L, "1184", new byte[]{1, 2, 3}));
+
+        cache.confirmed(1L, "1184", new byte[]{1, 2, 3});
+        assertTrue("Equal keys should match, not just identical arrays", cache.contains(1L, "1184", new byte[]{1, 2, 3}));
+        assertFalse("Another transaction should not see the key", cache.contains(2L, "1184", new byte[]{1, 2, 3}));
+        assertFalse("Another parent conglomerate should not see the key", cache.contains(1L, "1200", new byte[]{1, 2, 3}));
+
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(3L, cache.getMissCount());
+        assertEquals(0.25d, cache.getHitRate(), 0d);
+    }
+
+    @Test
+    public void invalidatedKeyMustBeCheckedAgain() throws Exception {
+        ForeignKeyParentCache cache = new ForeignKeyParentCache(100);
+        cache.confirmed(1L, "1184", new byte[]{1, 2, 3});
+        cache.invalidate(2L, "1184", new byte[]{1, 2, 3});
+        assertTrue("Another transaction's delete should not affect the key", cache.contains(1L, "1184", new byte[]{1, 2, 3}));
+        assertEquals(0L, cache.getInvalidationCount());
+
+        cache.invalidate(1L, "1184", new byte[]{1, 2, 3});
+        assertFalse(cache.contains(1L, "1184", new byte[]{1, 2, 3}));
+        assertEquals(1L, cache.getInvalidationCount());
+        assertEquals(0L, cache.getSize());
+    }
+
+    @Test
+    public void cacheIsBoundedBySize() throws Exception {
+        ForeignKeyParentCache cache = new ForeignKeyParentCache(10);
+        for (int i = 0; i < 100; i++) {
+            cache.confirmed(1L, "1184", new byte[]{(byte) i});
+        }
+        assertTrue(cache.getSize() <= 10);
+        assertTrue(cache.getEvictionCount() >= 90);
+    }
+
+    @Test
+    public void emptyCacheNeverHits() throws Exception {
+        ForeignKeyParentCache cache = new ForeignKeyParentCache(0);
+        cache.confirmed(1L, "1184", new byte[]{1, 2, 3});
+        assertFalse(cache.contains(1L, "1184", new byte[]{1, 2, 3}));
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(0L, cache.getSize());
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.api.txn;
+
+/**
+ * Marker interface for the exception raised when a transaction reads a region which has been compacted with a purge
+ * watermark after the transaction began, so that versions of rows the transaction should see may be gone. The read
+ * fails rather than return the wrong versions; the transaction can be retried, since a new one begins after the
+ * watermark.
+ */
+public interface SnapshotTooOld{
+
+    long getBeginTimestamp();
+
+    long getPurgeWatermark();
+}
@@ -26,4 +26,43 @@ import javax.management.MXBean;
 @MXBean
 public interface TransactionCacheManagement {
 
+    /**
+     * @return the total number of lookups made against the cache since it was created
+     */
+    long getTotalRequests();
+
+    /**
+     * @return the total number of lookups which could be served from the cache
+     */
+    long getTotalHits();
+
+    /**
+     * @return the total number of lookups which had to go to the transaction table
+     */
+    long getTotalMisses();
+
+    /**
+     * @return the fraction of lookups which could be served from the cache
+     */
+    double getHitRate();
+
+    /**
+     * @return the average time (in microseconds) taken to fetch a transaction which was not cached.
+     */
+    double getAverageMissLatency();
+
+    /**
+     * @return the total number of transactions which were evicted to make room for others
+     */
+    long getTotalEvictions();
+
+    /**
+     * @return the number of transactions which are currently cached
+     */
+    int getCurrentSize();
+
+    /**
+     * @return the maximum number of transactions which can be cached
+     */
+    int getMaxSize();
 }
@@ -43,6 +43,19 @@ public interface TxnSupplier {
 		 */
 		TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException;
 
+		/**
+		 * Get the transactions associated with each of {@code txnIds}, without their destination tables.
+		 *
+		 * This is equivalent to calling {@link #getTransaction(long)} for each id, but stores
+		 * which have to go over the network fetch all of the transactions they are missing
+		 * at once, rather than one at a time.
+		 *
+		 * @param txnIds the transaction ids to fetch.
+		 * @return the transactions, in the same order as {@code txnIds}. An entry is null
+		 * if the transaction could not be found.
+		 */
+		TxnView[] getTransactions(long[] txnIds) throws IOException;
+
 		/**
 		 * Determines whether this Store has the transaction in its local cache
 		 * or not.
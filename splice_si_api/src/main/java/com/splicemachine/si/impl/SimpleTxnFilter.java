@@ -39,6 +39,12 @@ import java.io.IOException;
  *         Date: 6/23/14
  */
 public class SimpleTxnFilter implements TxnFilter{
+    /*
+     * The server-wide supplier, which caches completed transactions for every scan, and a per-scan
+     * cache in front of it which holds the active transactions (and the commit timestamps) that this
+     * scan has seen.
+     */
+    private final TxnSupplier sharedStore;
     private final TxnSupplier transactionStore;
     private final TxnView myTxn;
     private final ReadResolver readResolver;
@@ -67,6 +73,7 @@ public class SimpleTxnFilter implements TxnFilter{
                            ReadResolver readResolver,
                            TxnSupplier baseSupplier){
         assert readResolver!=null;
+        this.sharedStore = baseSupplier;
         this.transactionStore = new ActiveTxnCacheSupplier(baseSupplier,1024); //TODO -sf- configure
         this.tableName=tableName;
         this.myTxn=myTxn;
@@ -217,7 +224,20 @@ public class SimpleTxnFilter implements TxnFilter{
     private TxnView fetchTransaction(long txnId) throws IOException{
         TxnView toCompare=currentTxn;
         if(currentTxn==null || currentTxn.getTxnId()!=txnId){
-            toCompare=transactionStore.getTransaction(txnId);
+            /*
+             * Most of the versions we see were written by transactions which have long since completed,
+             * and another scan has likely already looked them up, so check the shared cache before going
+             * to the delegate. The shared cache rebuilds a view on every lookup, so we keep the views
+             * it hands us in our own cache for the rest of the scan.
+             */
+            toCompare=transactionStore.getTransactionFromCache(txnId);
+            if(toCompare==null){
+                toCompare=sharedStore.getTransactionFromCache(txnId);
+                if(toCompare!=null)
+                    transactionStore.cache(toCompare);
+                else
+                    toCompare=transactionStore.getTransaction(txnId);
+            }
             currentTxn=toCompare;
         }
         return toCompare;
@@ -249,7 +269,7 @@ public class SimpleTxnFilter implements TxnFilter{
     private void ensureTransactionIsCached(DataCell data) throws IOException{
         long txnId=data.version();//this.dataStore.getOpFactory().getTimestamp(data);
         visitedTxnIds.add(txnId);
-        if(!transactionStore.transactionCached(txnId)){
+        if(!transactionStore.transactionCached(txnId) && !sharedStore.transactionCached(txnId)){
 			/*
 			 * We do not have a cache entry for this transaction, so we want
 			 * to add it in. We have two possible scenarios:
@@ -39,6 +39,7 @@ import com.splicemachine.si.impl.TxnRegion;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.si.impl.server.PurgeWatermark;
 import com.splicemachine.si.impl.server.SITransactor;
 import com.splicemachine.si.impl.txn.SITransactionReadController;
 import com.splicemachine.storage.DataFilterFactory;
@@ -89,6 +90,7 @@ public class SIDriver {
     private final OperationFactory baseOpFactory;
     private final PartitionInfoCache partitionInfoCache;
     private final SnowflakeFactory snowflakeFactory;
+    private final PurgeWatermark purgeWatermark;
 
     public SIDriver(SIEnvironment env){
         this.tableFactory = env.tableFactory();
@@ -120,6 +122,10 @@ public class SIDriver {
         readResolver = initializedReadResolver(config,env.keyedReadResolver());
         this.fileSystem = env.fileSystem();
         this.baseOpFactory = env.baseOperationFactory();
+        this.purgeWatermark = new PurgeWatermark(txnStore,timestampSource,clock,
+                config.getCompactionPurgeVersions(),
+                config.getCompactionPurgeRetention(),
+                config.getCompactionPurgeRefreshInterval());
     }
 
 
@@ -172,6 +178,10 @@ public class SIDriver {
         return txnOpFactory;
     }
 
+    public PurgeWatermark getPurgeWatermark(){
+        return purgeWatermark;
+    }
+
     public RollForward getRollForward(){
         return rollForward;
     }
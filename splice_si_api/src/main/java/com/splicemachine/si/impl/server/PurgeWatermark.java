@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Keeps track of the timestamp below which compactions may purge versions of a row.
+ * <p>
+ * Every transaction which is active now began at or after the watermark, so a version which was committed before
+ * the watermark is visible to all of them, and every older version it shadows is visible to none of them.
+ * <p>
+ * The watermark is the oldest transaction which was active, or the current timestamp if none was, as of
+ * {@code retention} milliseconds ago. Transactions which began before then and are still active would have been
+ * active back then too, so they cannot be older than the watermark. The exception is read-only transactions,
+ * which are never recorded in the transaction table; the retention only keeps the versions they read around for
+ * so long. Compactions record the watermark they purged with in the files they write, so that the reads of older
+ * transactions fail instead of returning the wrong versions. Purging is off unless it is switched on in the
+ * configuration.
+ * <p>
+ * The transaction table is only looked up once every {@code refreshInterval} milliseconds, so that a burst of
+ * compactions does not turn into a burst of transaction table scans. Until a lookup is {@code retention}
+ * milliseconds old, the watermark is 0, and nothing is purged. The watermark is always 0 when purging is disabled.
+ */
+public class PurgeWatermark{
+    private static final Logger LOG=Logger.getLogger(PurgeWatermark.class);
+
+    private final TxnStore txnStore;
+    private final TimestampSource timestampSource;
+    private final Clock clock;
+    private final boolean enabled;
+    private final long retentionMillis;
+    private final long refreshIntervalMillis;
+
+    /*the lookups which are not old enough to be used yet, as {time, oldest active transaction}, oldest first*/
+    private final ArrayDeque<long[]> pending=new ArrayDeque<>();
+    private long lastLookup=-1l;
+    /*the oldest transaction which was active as of the last lookup. No transaction which is active now can be older*/
+    private long oldestActive=0l;
+    private long watermark=0l;
+
+    public PurgeWatermark(TxnStore txnStore,TimestampSource timestampSource,Clock clock,
+                          boolean enabled,long retentionMillis,long refreshIntervalMillis){
+        this.txnStore=txnStore;
+        this.timestampSource=timestampSource;
+        this.clock=clock;
+        this.enabled=enabled;
+        this.retentionMillis=retentionMillis;
+        this.refreshIntervalMillis=refreshIntervalMillis;
+    }
+
+    /**
+     * @return the timestamp below which committed versions are visible to every active transaction, or 0 if
+     * it is not known yet, or if purging is disabled.
+     */
+    public synchronized long getWatermark(){
+        if(!enabled) return 0l;
+        long now=clock.currentTimeMillis();
+        if(lastLookup<0 || now-lastLookup>=refreshIntervalMillis){
+            lastLookup=now;
+            try{
+                pending.add(new long[]{now,findOldestActive()});
+            }catch(IOException e){
+                //keep the watermark we have; compactions can still purge up to it
+                LOG.warn("Unable to look up the oldest active transaction, keeping purge watermark "+watermark,e);
+            }
+        }
+        while(!pending.isEmpty() && now-pending.peek()[0]>=retentionMillis){
+            watermark=Math.max(watermark,pending.poll()[1]);
+        }
+        return watermark;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private long findOldestActive() throws IOException{
+        long current=timestampSource.nextTimestamp();
+        /*
+         * Transactions are numbered in the order they begin, so no transaction older than the oldest one we found
+         * the last time can be active now.
+         */
+        long[] active=txnStore.getActiveTransactionIds(oldestActive,current,null);
+        long oldest=current;
+        for(long txnId : active){
+            if(txnId<oldest)
+                oldest=txnId;
+        }
+        oldestActive=oldest;
+        return oldest;
+    }
+}
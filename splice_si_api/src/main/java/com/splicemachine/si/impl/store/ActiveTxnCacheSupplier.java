@@ -62,6 +62,32 @@ public class ActiveTxnCacheSupplier implements TxnSupplier {
 				return txn;
 		}
 
+		@Override
+		public TxnView[] getTransactions(long[] txnIds) throws IOException {
+				TxnView[] txns = new TxnView[txnIds.length];
+				int missing = 0;
+				for(int i=0;i<txnIds.length;i++){
+						txns[i] = this.cache.get(txnIds[i]);
+						if(txns[i]==null) missing++;
+				}
+				if(missing==0) return txns;
+
+				long[] missingIds = new long[missing];
+				for(int i=0,m=0;i<txnIds.length;i++){
+						if(txns[i]==null)
+								missingIds[m++] = txnIds[i];
+				}
+				TxnView[] fetched = delegate.getTransactions(missingIds);
+				for(int i=0,m=0;i<txnIds.length;i++){
+						if(txns[i]!=null) continue;
+						TxnView txn = fetched[m++];
+						txns[i] = txn;
+						if(txn!=null && txn.getEffectiveState()== Txn.State.ACTIVE)
+								this.cache.put(txn.getTxnId(),txn);
+				}
+				return txns;
+		}
+
 		@Override
 		public boolean transactionCached(long txnId) {
         return cache.get(txnId) !=null;
@@ -15,40 +15,79 @@
 
 package com.splicemachine.si.impl.store;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.splicemachine.si.api.txn.TransactionCacheManagement;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * TxnSupplier which caches transaction which have "Completed"--i.e. which have entered the COMMITTED or ROLLEDBACK
  * state.
  * <p/>
+ * The cache is split into a number of segments, each of which is an open-addressing table keyed directly on
+ * the (primitive) transaction id. Rather than holding on to the TxnView itself, each slot holds only the
+ * begin timestamp, commit timestamp, parent id and a byte of state and flags, spread over parallel primitive
+ * arrays; a view is rebuilt from those fields when the transaction is asked for, with its parent resolved
+ * through this cache.
+ * <p/>
+ * Writers lock their segment, but readers do not: a lookup reads the slot optimistically and only
+ * falls back to the read lock if the segment was modified underneath it several times in a row. When a
+ * segment is full, an entry is evicted using the CLOCK algorithm: each lookup marks the entry it finds as
+ * referenced, and the eviction hand clears those marks until it finds an entry which has not been used
+ * since the hand last passed.
+ * <p/>
  * This class is thread-safe, and safe to be shared between many threads.
  *
  * @author Scott Fines
  *         Date: 6/18/14
  */
-public class CompletedTxnCacheSupplier implements TxnSupplier{
-    private ConcurrentLinkedHashMap<Long, TxnView> cache; // autobox for now
+public class CompletedTxnCacheSupplier implements TxnSupplier,TransactionCacheManagement{
+    /*
+     * A rough estimate of the heap held per cached transaction: a slot is 4 longs and 2 bytes, and the
+     * tables are kept between one and two thirds full.
+     */
+    public static final int ESTIMATED_ENTRY_SIZE=80;
+
+    private final Segment[] segments;
+    private final int segmentShift;
     private final TxnSupplier delegate;
-    private final AtomicLong hits=new AtomicLong();
-    private final AtomicLong requests=new AtomicLong();
+    private final int maxSize;
+    private final LongAdder hits=new LongAdder();
+    private final LongAdder requests=new LongAdder();
+    private final LongAdder missNanos=new LongAdder();
+    private final LongAdder evictions=new LongAdder();
 
     public CompletedTxnCacheSupplier(TxnSupplier delegate,int maxSize,int concurrencyLevel){
-        cache=new ConcurrentLinkedHashMap.Builder<Long, TxnView>()
-                .maximumWeightedCapacity(maxSize)
-                .concurrencyLevel(concurrencyLevel)
-                .build();
+        int numSegments=1;
+        while(numSegments<concurrencyLevel)
+            numSegments<<=1;
+        int segmentSize=Math.max(1,(maxSize+numSegments-1)/numSegments);
+        this.segments=new Segment[numSegments];
+        for(int i=0;i<numSegments;i++){
+            segments[i]=new Segment(segmentSize);
+        }
+        this.segmentShift=64-Integer.numberOfTrailingZeros(numSegments);
+        this.maxSize=segmentSize*numSegments;
         this.delegate=delegate;
     }
 
+    /**
+     * @param memory the amount of heap (in bytes) that the cache may use
+     * @return the number of transactions which can be held in {@code memory} bytes
+     */
+    public static int maxEntriesFor(long memory){
+        return (int)Math.max(1L,Math.min(Integer.MAX_VALUE,memory/ESTIMATED_ENTRY_SIZE));
+    }
+
+    @Override
     public int getMaxSize(){
-        return cache.size();
+        return maxSize;
     }
 
     @Override
@@ -63,42 +102,397 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
         if(txnId==-1)
             return Txn.ROOT_TRANSACTION;
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId); // autobox until Cliff C merge
-        if(txn!=null){
-            hits.incrementAndGet();
-            return txn;
+        requests.increment();
+        /*
+         * We don't keep the destination tables, so a caller which wants them has to go to the delegate
+         */
+        if(!getDestinationTables){
+            long hash=hash(txnId);
+            TxnView txn=segmentFor(hash).get(txnId,hash,true);
+            if(txn!=null){
+                hits.increment();
+                return txn;
+            }
         }
         //bummer, we aren't in the cache, need to check the delegate
+        long start=System.nanoTime();
         TxnView transaction=delegate.getTransaction(txnId,getDestinationTables);
+        missNanos.add(System.nanoTime()-start);
         if(transaction==null) //noinspection ConstantConditions
             return transaction; //don't cache read-only transactions;
 
         switch(transaction.getEffectiveState()){
             case COMMITTED:
             case ROLLEDBACK:
-                cache.put(transaction.getTxnId(),transaction); // Cache for Future Use
+                put(transaction); // Cache for Future Use
         }
         return transaction;
     }
 
+    @Override
+    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        int missing=0;
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            if(txnId==-1){
+                txns[i]=Txn.ROOT_TRANSACTION;
+                continue;
+            }
+            requests.increment();
+            long hash=hash(txnId);
+            TxnView txn=segmentFor(hash).get(txnId,hash,true);
+            if(txn!=null){
+                hits.increment();
+                txns[i]=txn;
+            }else
+                missing++;
+        }
+        if(missing==0) return txns;
+
+        //fetch everything we don't have from the delegate at once
+        long[] missingIds=new long[missing];
+        for(int i=0,m=0;i<txnIds.length;i++){
+            if(txns[i]==null)
+                missingIds[m++]=txnIds[i];
+        }
+        long start=System.nanoTime();
+        TxnView[] fetched=delegate.getTransactions(missingIds);
+        missNanos.add(System.nanoTime()-start);
+        for(int i=0,m=0;i<txnIds.length;i++){
+            if(txns[i]!=null) continue;
+            TxnView transaction=fetched[m++];
+            txns[i]=transaction;
+            if(transaction==null) continue; //don't cache read-only transactions
+
+            switch(transaction.getEffectiveState()){
+                case COMMITTED:
+                case ROLLEDBACK:
+                    put(transaction);
+            }
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId){
-        return cache.get(txnId)!=null;
+        long hash=hash(txnId);
+        return segmentFor(hash).contains(txnId,hash);
     }
 
     @Override
     public void cache(TxnView toCache){
         if(toCache.getState()==Txn.State.ACTIVE) return; //cannot cache incomplete transactions
-        cache.put(toCache.getTxnId(),toCache);
+        put(toCache);
     }
 
+    /**
+     * Look up a transaction without going to the delegate. Only hits are recorded in the statistics, since
+     * a caller which misses is expected to then fetch the transaction through {@link #getTransaction(long)}.
+     * <p/>
+     * If the transaction is cached but its parent is not, this is treated as a miss.
+     */
     @Override
     public TxnView getTransactionFromCache(long txnId){
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId);
-        if(txn!=null)
-            hits.incrementAndGet();
+        long hash=hash(txnId);
+        TxnView txn;
+        try{
+            txn=segmentFor(hash).get(txnId,hash,false);
+        }catch(IOException e){
+            //we never go to the delegate here, so we can't get an IOException
+            throw new IllegalStateException(e);
+        }
+        if(txn!=null){
+            requests.increment();
+            hits.increment();
+        }
         return txn;
     }
+
+    /* ****************************************************************************************************************/
+    /*JMX methods*/
+    @Override
+    public long getTotalRequests(){
+        return requests.sum();
+    }
+
+    @Override
+    public long getTotalHits(){
+        return hits.sum();
+    }
+
+    @Override
+    public long getTotalMisses(){
+        return requests.sum()-hits.sum();
+    }
+
+    @Override
+    public double getHitRate(){
+        long r=requests.sum();
+        return r==0?0d:((double)hits.sum())/r;
+    }
+
+    @Override
+    public double getAverageMissLatency(){
+        long misses=getTotalMisses();
+        return misses<=0?0d:missNanos.sum()/1000d/misses;
+    }
+
+    @Override
+    public long getTotalEvictions(){
+        return evictions.sum();
+    }
+
+    @Override
+    public int getCurrentSize(){
+        int size=0;
+        for(Segment segment : segments){
+            size+=segment.size;
+        }
+        return size;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void put(TxnView txn){
+        long txnId=txn.getTxnId();
+        if(txnId<=0) return; //never a completed transaction
+        TxnView parent=txn.getParentTxnView();
+        long parentId=parent==null?-1L:parent.getTxnId();
+        long hash=hash(txnId);
+        if(segmentFor(hash).put(txnId,hash,txn.getBeginTimestamp(),txn.getCommitTimestamp(),parentId,encodeFlags(txn)))
+            evictions.increment();
+    }
+
+    /*
+     * Rebuild a view from the cached fields. The parent is resolved through this cache, which is what
+     * the delegate would have done anyway.
+     */
+    private TxnView decode(long txnId,long beginTimestamp,long commitTimestamp,long parentId,byte flags,
+                           boolean fetchParent) throws IOException{
+        TxnView parent;
+        if(parentId<0)
+            parent=Txn.ROOT_TRANSACTION;
+        else{
+            parent=fetchParent?getTransaction(parentId):getTransactionFromCache(parentId);
+            if(parent==null) return null;
+        }
+        int level=(flags>>>ISOLATION_SHIFT)&0x03;
+        return new InheritingTxnView(parent,txnId,beginTimestamp,
+                level==0?null:Txn.IsolationLevel.fromByte((byte)level),
+                true,(flags&ADDITIVE)!=0,
+                true,(flags&ALLOWS_WRITES)!=0,
+                commitTimestamp,-1L,
+                stateOf(flags));
+    }
+
+    private static final byte STATE_MASK=0x03;
+    private static final byte COMMITTED=0x01;
+    private static final byte ROLLED_BACK=0x02;
+    private static final int ISOLATION_SHIFT=2;
+    private static final byte ADDITIVE=0x10;
+    private static final byte ALLOWS_WRITES=0x20;
+
+    private static byte encodeFlags(TxnView txn){
+        int flags;
+        switch(txn.getState()){
+            case COMMITTED:
+                flags=COMMITTED;
+                break;
+            case ROLLEDBACK:
+                flags=ROLLED_BACK;
+                break;
+            default:
+                flags=0; //only effectively completed, through a parent
+        }
+        Txn.IsolationLevel level=txn.getIsolationLevel();
+        if(level!=null)
+            flags|=level.getLevel()<<ISOLATION_SHIFT;
+        if(txn.isAdditive())
+            flags|=ADDITIVE;
+        if(txn.allowsWrites())
+            flags|=ALLOWS_WRITES;
+        return (byte)flags;
+    }
+
+    private static Txn.State stateOf(byte flags){
+        switch(flags&STATE_MASK){
+            case COMMITTED:
+                return Txn.State.COMMITTED;
+            case ROLLED_BACK:
+                return Txn.State.ROLLEDBACK;
+            default:
+                return Txn.State.ACTIVE;
+        }
+    }
+
+    private Segment segmentFor(long hash){
+        return segments.length==1?segments[0]:segments[(int)(hash>>>segmentShift)];
+    }
+
+    private static long hash(long txnId){
+        //transaction ids tend to share their low-order bits, so mix them before using them to place the entry
+        long h=txnId*0x9E3779B97F4A7C15L;
+        return h^(h>>>29);
+    }
+
+    private final class Segment{
+        private static final long EMPTY=0L;
+        /*
+         * The number of times a reader will retry an optimistic read before giving up and taking the read lock
+         */
+        private static final int MAX_OPTIMISTIC_READS=4;
+
+        private final StampedLock lock=new StampedLock();
+        private final long[] keys;
+        private final long[] beginTimestamps;
+        private final long[] commitTimestamps;
+        private final long[] parentIds;
+        private final byte[] flags;
+        private final boolean[] referenced;
+        private final int maxSize;
+        private volatile int size;
+        private int hand;
+
+        Segment(int maxSize){
+            int capacity=2;
+            while(capacity<maxSize+(maxSize>>>1)+1) //keep at least a third of the table empty
+                capacity<<=1;
+            this.keys=new long[capacity];
+            this.beginTimestamps=new long[capacity];
+            this.commitTimestamps=new long[capacity];
+            this.parentIds=new long[capacity];
+            this.flags=new byte[capacity];
+            this.referenced=new boolean[capacity];
+            this.maxSize=maxSize;
+        }
+
+        TxnView get(long txnId,long hash,boolean fetchParent) throws IOException{
+            long beginTimestamp;
+            long commitTimestamp;
+            long parentId;
+            byte f;
+            int attempt=0;
+            while(true){
+                boolean optimistic=attempt++<MAX_OPTIMISTIC_READS;
+                long stamp=optimistic?lock.tryOptimisticRead():lock.readLock();
+                try{
+                    int pos=find(txnId,hash);
+                    if(pos<0){
+                        if(lock.validate(stamp)) return null;
+                        continue;
+                    }
+                    beginTimestamp=beginTimestamps[pos];
+                    commitTimestamp=commitTimestamps[pos];
+                    parentId=parentIds[pos];
+                    f=flags[pos];
+                    if(!lock.validate(stamp)) continue;
+                    //racy, but a lost (or misplaced) mark only changes which entry is evicted next
+                    referenced[pos]=true;
+                }finally{
+                    if(!optimistic) lock.unlockRead(stamp);
+                }
+                break;
+            }
+            //build the view outside of the lock, since the parent may live in this segment too
+            return decode(txnId,beginTimestamp,commitTimestamp,parentId,f,fetchParent);
+        }
+
+        boolean contains(long txnId,long hash){
+            long stamp=lock.tryOptimisticRead();
+            boolean found=find(txnId,hash)>=0;
+            if(lock.validate(stamp)) return found;
+            stamp=lock.readLock();
+            try{
+                return find(txnId,hash)>=0;
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * @return true if an entry was evicted to make room
+         */
+        boolean put(long txnId,long hash,long beginTimestamp,long commitTimestamp,long parentId,byte f){
+            long stamp=lock.writeLock();
+            try{
+                if(find(txnId,hash)>=0) return false; //someone else got there first
+                boolean evicted=false;
+                if(size>=maxSize){
+                    evictOne();
+                    evicted=true;
+                }
+                int mask=keys.length-1;
+                int pos=(int)hash&mask;
+                while(keys[pos]!=EMPTY)
+                    pos=(pos+1)&mask;
+                beginTimestamps[pos]=beginTimestamp;
+                commitTimestamps[pos]=commitTimestamp;
+                parentIds[pos]=parentId;
+                flags[pos]=f;
+                referenced[pos]=false;
+                keys[pos]=txnId;
+                size++;
+                return evicted;
+            }finally{
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /*
+         * Readers call this without holding the lock, so the probe is bounded in case it
+         * races with a writer that is shifting entries around.
+         */
+        private int find(long txnId,long hash){
+            int mask=keys.length-1;
+            int pos=(int)hash&mask;
+            for(int i=0;i<=mask;i++){
+                long key=keys[pos];
+                if(key==txnId) return pos;
+                if(key==EMPTY) return -1;
+                pos=(pos+1)&mask;
+            }
+            return -1;
+        }
+
+        private void evictOne(){
+            int mask=keys.length-1;
+            while(true){
+                int pos=hand;
+                hand=(hand+1)&mask;
+                if(keys[pos]==EMPTY) continue;
+                if(referenced[pos]){
+                    referenced[pos]=false;
+                    continue;
+                }
+                removeAt(pos);
+                return;
+            }
+        }
+
+        /*
+         * Backward-shift deletion: move later entries of the same probe run into the hole, so that
+         * lookups never need tombstones.
+         */
+        private void removeAt(int pos){
+            int mask=keys.length-1;
+            int gap=pos;
+            for(int i=(pos+1)&mask;keys[i]!=EMPTY;i=(i+1)&mask){
+                int ideal=(int)hash(keys[i])&mask;
+                if(((i-ideal)&mask)>=((i-gap)&mask)){
+                    keys[gap]=keys[i];
+                    beginTimestamps[gap]=beginTimestamps[i];
+                    commitTimestamps[gap]=commitTimestamps[i];
+                    parentIds[gap]=parentIds[i];
+                    flags[gap]=flags[i];
+                    referenced[gap]=referenced[i];
+                    gap=i;
+                }
+            }
+            keys[gap]=EMPTY;
+            referenced[gap]=false;
+            size--;
+        }
+    }
 }
@@ -58,6 +58,31 @@ public class SimpleCompletedTxnCacheSupplier implements TxnSupplier{
         }
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException {
+        TxnView[] txns = new TxnView[txnIds.length];
+        int missing = 0;
+        for (int i = 0; i < txnIds.length; i++) {
+            txns[i] = cache.getIfPresent(txnIds[i]);
+            if (txns[i] == null) missing++;
+        }
+        if (missing == 0) return txns;
+
+        long[] missingIds = new long[missing];
+        for (int i = 0, m = 0; i < txnIds.length; i++) {
+            if (txns[i] == null)
+                missingIds[m++] = txnIds[i];
+        }
+        TxnView[] fetched = delegate.getTransactions(missingIds);
+        for (int i = 0, m = 0; i < txnIds.length; i++) {
+            if (txns[i] != null) continue;
+            txns[i] = fetched[m++];
+            if (txns[i] != null)
+                cache.put(txnIds[i], txns[i]);
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId) {
         return getTransactionFromCache(txnId)!=null;
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.impl.store.TestingTimestampSource;
+import com.splicemachine.si.impl.store.TestingTxnStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class PurgeWatermarkTest{
+    private final IncrementingClock clock = new IncrementingClock();
+    private final TestingTimestampSource timestampSource = new TestingTimestampSource();
+    private final ActiveTxns txnStore = new ActiveTxns(clock,timestampSource);
+
+    @Test
+    public void testWatermarkLagsBehindByTheRetention() throws Exception{
+        PurgeWatermark watermark = new PurgeWatermark(txnStore,timestampSource,clock,true,1000,100);
+        Assert.assertEquals("Nothing should be purged until a lookup is old enough!",0,watermark.getWatermark());
+        advance(500);
+        Assert.assertEquals(0,watermark.getWatermark());
+        advance(500);
+        Assert.assertEquals("Incorrect watermark!",1,watermark.getWatermark());
+        advance(500);
+        Assert.assertEquals("Incorrect watermark!",2,watermark.getWatermark());
+    }
+
+    @Test
+    public void testActiveTransactionsHoldTheWatermarkBack() throws Exception{
+        for(int i=0;i<10;i++){
+            timestampSource.nextTimestamp();
+        }
+        txnStore.active = new long[]{7,5,9};
+        PurgeWatermark watermark = new PurgeWatermark(txnStore,timestampSource,clock,true,0,100);
+        Assert.assertEquals(5,watermark.getWatermark());
+
+        txnStore.active = new long[]{};
+        advance(100);
+        Assert.assertEquals("Incorrect watermark once no transaction is active!",12,watermark.getWatermark());
+        Assert.assertEquals("Lookup does not start from the last oldest transaction!",5,txnStore.lastMinTxnId);
+    }
+
+    @Test
+    public void testLooksUpOncePerRefreshInterval() throws Exception{
+        PurgeWatermark watermark = new PurgeWatermark(txnStore,timestampSource,clock,true,0,100);
+        watermark.getWatermark();
+        advance(50);
+        watermark.getWatermark();
+        Assert.assertEquals(1,txnStore.lookups);
+        advance(50);
+        watermark.getWatermark();
+        Assert.assertEquals(2,txnStore.lookups);
+    }
+
+    @Test
+    public void testNothingIsPurgedWhenDisabled() throws Exception{
+        PurgeWatermark watermark = new PurgeWatermark(txnStore,timestampSource,clock,false,0,100);
+        Assert.assertEquals(0,watermark.getWatermark());
+        Assert.assertEquals(0,txnStore.lookups);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void advance(long millis){
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static class ActiveTxns extends TestingTxnStore{
+        long[] active = new long[]{};
+        long lastMinTxnId = -1;
+        int lookups;
+
+        ActiveTxns(IncrementingClock clock,TestingTimestampSource timestampSource){
+            super(clock,timestampSource,null,Long.MAX_VALUE);
+        }
+
+        @Override
+        public long[] getActiveTransactionIds(long minTxnId,long maxTxnId,byte[] table) throws IOException{
+            lookups++;
+            lastMinTxnId = minTxnId;
+            return active;
+        }
+    }
+}
@@ -17,6 +17,8 @@ package com.splicemachine.si.impl.store;
 
 import com.splicemachine.concurrent.IncrementingClock;
 import com.splicemachine.si.api.txn.*;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
 import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.si.testenv.ArchitectureIndependent;
 import org.junit.Assert;
@@ -26,9 +28,13 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.splicemachine.si.impl.TxnTestUtils.assertTxnsMatch;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -160,4 +166,88 @@ public class CompletedTxnCacheSupplierTest{
         TxnView fromCache=store.getTransaction(txn.getTxnId());
         assertTxnsMatch("Transaction from store is not correct!",txn,fromCache);
     }
+
+    @Test
+    public void testEvictsWhenFull() throws Exception{
+        TxnSupplier backStore=mock(TxnSupplier.class);
+        CompletedTxnCacheSupplier store=new CompletedTxnCacheSupplier(backStore,4,1);
+        for(long txnId=1;txnId<=100;txnId++){
+            store.cache(new CommittedTxn(txnId,txnId+1));
+            Assert.assertTrue("Most recent transaction was not cached!",store.transactionCached(txnId));
+            Assert.assertTrue("Cache exceeded its maximum size!",store.getCurrentSize()<=store.getMaxSize());
+        }
+        Assert.assertEquals("Incorrect number of evictions!",100-store.getMaxSize(),store.getTotalEvictions());
+    }
+
+    @Test
+    public void testRecordsHitsAndMisses() throws Exception{
+        TxnSupplier backStore=mock(TxnSupplier.class);
+        when(backStore.getTransaction(anyLong(),anyBoolean())).thenAnswer(new Answer<TxnView>(){
+            @Override
+            public TxnView answer(InvocationOnMock invocationOnMock) throws Throwable{
+                long txnId=(Long)invocationOnMock.getArguments()[0];
+                return new CommittedTxn(txnId,txnId+1);
+            }
+        });
+        CompletedTxnCacheSupplier store=new CompletedTxnCacheSupplier(backStore,10,16);
+        store.getTransaction(1l);
+        store.getTransaction(1l);
+        store.getTransaction(2l);
+        store.getTransaction(1l);
+
+        Assert.assertEquals("Incorrect request count!",4l,store.getTotalRequests());
+        Assert.assertEquals("Incorrect hit count!",2l,store.getTotalHits());
+        Assert.assertEquals("Incorrect miss count!",2l,store.getTotalMisses());
+        Assert.assertEquals("Incorrect hit rate!",0.5d,store.getHitRate(),0d);
+        Assert.assertEquals("Incorrect size!",2,store.getCurrentSize());
+    }
+
+    @Test
+    public void testRebuildsChildTransactionsFromCache() throws Exception{
+        TxnView parent=new InheritingTxnView(Txn.ROOT_TRANSACTION,10l,10l,Txn.IsolationLevel.SNAPSHOT_ISOLATION,
+                true,false,true,true,20l,-1l,Txn.State.COMMITTED);
+        TxnView child=new InheritingTxnView(parent,12l,12l,null,
+                true,true,true,true,15l,-1l,Txn.State.COMMITTED);
+        CompletedTxnCacheSupplier store=new CompletedTxnCacheSupplier(mock(TxnSupplier.class),10,16);
+        store.cache(parent);
+        store.cache(child);
+
+        TxnView fromCache=store.getTransactionFromCache(child.getTxnId());
+        Assert.assertNotNull("Child was not cached!",fromCache);
+        Assert.assertEquals("Incorrect commit timestamp!",15l,fromCache.getCommitTimestamp());
+        Assert.assertEquals("Incorrect effective commit timestamp!",20l,fromCache.getEffectiveCommitTimestamp());
+        Assert.assertEquals("Incorrect parent!",parent.getTxnId(),fromCache.getParentTxnView().getTxnId());
+        Assert.assertEquals("Incorrect isolation level!",Txn.IsolationLevel.SNAPSHOT_ISOLATION,fromCache.getIsolationLevel());
+        Assert.assertTrue("Child should be additive!",fromCache.isAdditive());
+    }
+
+    @Test
+    public void testFetchesMissingTransactionsAtOnce() throws Exception{
+        final List<long[]> fetched=new ArrayList<>();
+        TxnSupplier backStore=mock(TxnSupplier.class);
+        when(backStore.getTransactions(any(long[].class))).thenAnswer(new Answer<TxnView[]>(){
+            @Override
+            public TxnView[] answer(InvocationOnMock invocationOnMock) throws Throwable{
+                long[] txnIds=(long[])invocationOnMock.getArguments()[0];
+                fetched.add(txnIds);
+                TxnView[] txns=new TxnView[txnIds.length];
+                for(int i=0;i<txnIds.length;i++){
+                    txns[i]=new CommittedTxn(txnIds[i],txnIds[i]+1);
+                }
+                return txns;
+            }
+        });
+        CompletedTxnCacheSupplier store=new CompletedTxnCacheSupplier(backStore,10,16);
+        store.cache(new CommittedTxn(1l,2l));
+
+        long[] txnIds=new long[]{1l,3l,5l};
+        TxnView[] txns=store.getTransactions(txnIds);
+        Assert.assertEquals("Missing transactions were not fetched at once!",1,fetched.size());
+        Assert.assertArrayEquals("Cached transaction was fetched again!",new long[]{3l,5l},fetched.get(0));
+        for(int i=0;i<txnIds.length;i++){
+            Assert.assertEquals("Incorrect transaction!",txnIds[i],txns[i].getTxnId());
+        }
+        Assert.assertTrue("Fetched transaction was not cached!",store.transactionCached(5l));
+        Assert.assertEquals("Incorrect hit count!",1l,store.getTotalHits());
+    }
 }
@@ -30,5 +30,11 @@ public interface TimestampClientStatistics{
 	long getNumberTimestampRequests();
 	
  	double getAvgTimestampRequestDuration();
+
+	/**
+	 * @return the number of requests actually sent to the server. Concurrent timestamp
+	 * requests are coalesced, so this may be far lower than {@link #getNumberTimestampRequests()}.
+	 */
+	long getNumberTimestampBatches();
 	
 }
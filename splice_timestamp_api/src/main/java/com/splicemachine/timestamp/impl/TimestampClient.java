@@ -53,6 +53,19 @@ import org.apache.log4j.Logger;
  * For the caller, the invocation of {@link #getNextTimestamp()}
  * is synchronous.
  * <p>
+ * Concurrent requests are coalesced. Only one request is on the wire at a time
+ * (unless a batch fills up); callers which arrive while it is outstanding join the
+ * next batch, which is sent as a single request for a contiguous range of timestamps
+ * as soon as the outstanding one is answered. Each caller in the batch then takes
+ * its own timestamp out of that range. Since a batch is only sent once all of its
+ * callers have arrived, every caller still receives a timestamp which was generated
+ * after its call began. An idle client sends a lone request right away, so this
+ * costs nothing when there is no contention.
+ * <p>
+ * Every connection opens with a handshake (see {@link TimestampRequestDecoder}). Against a
+ * server which predates batched requests, the client falls back to requesting one
+ * timestamp per call.
+ * <p>
  * This class should generally not be constructed directly.
  *
  * @author Walt Koetke
@@ -67,7 +80,12 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     /**
      * Fixed number of bytes in the message we expect to receive back from the server.
      */
-    private static final int FIXED_MSG_RECEIVED_LENGTH = 10; // 2 byte client id + 8 byte timestamp
+    private static final int FIXED_MSG_RECEIVED_LENGTH = 10; // 2 byte client id + 8 byte first timestamp of the range
+
+    /**
+     * The largest number of callers which may share a single request (the count goes over the wire as a short).
+     */
+    private static final int MAX_BATCH_SIZE = Short.MAX_VALUE;
 
     private enum State {
         DISCONNECTED, CONNECTING, CONNECTED, SHUTDOWN
@@ -96,12 +114,36 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     // but use a short just in case.
     private AtomicInteger clientCallCounter = new AtomicInteger(CLIENT_COUNTER_INIT);
 
+    /**
+     * Guards the batch which callers are currently joining, and the number of batches on the wire.
+     */
+    private final Object batchLock = new Object();
+    private Batch pendingBatch = null;
+    private int batchesInFlight = 0;
+
+    /**
+     * The state of the handshake on the current connection. The channel is only handed out to callers
+     * once the handshake is done, so that nothing else is written ahead of it.
+     */
+    private final AtomicInteger handshakeReplies = new AtomicInteger(0);
+    private volatile CountDownLatch handshakeLatch;
+    private volatile boolean legacyServer = false;
+
+    /**
+     * Guards the move from DISCONNECTED to CONNECTING, so that only the thread which gets to connect
+     * replaces connectLatch. The latch is released once that attempt has succeeded or failed, and is
+     * always set before the state says CONNECTING, so callers who see CONNECTING wait on the right one.
+     */
+    private final Object connectLock = new Object();
+    private volatile CountDownLatch connectLatch = new CountDownLatch(0);
+
     int timeoutMillis;
 
     // Metrics to expose via JMX. See TimestampClientStatistics
     // for solid definitions of each metric.
     private AtomicLong numRequests = new AtomicLong(0);
     private AtomicLong totalRequestDuration = new AtomicLong(0);
+    private AtomicLong numBatches = new AtomicLong(0);
     private TimestampHostProvider timestampHostProvider;
 
 
@@ -168,44 +210,94 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     }
 
     protected void connectIfNeeded() throws TimestampIOException{
-
-        // Even though state is an atomic reference, synchronize on whole block
-        // including code that attempts connection. Otherwise, two threads might
-        // end up trying to connect at the same time.
-
-        boolean shouldContinue = true;
-        while(shouldContinue){
+        while(true){
             State s = state.get();
-            if(s !=State.DISCONNECTED) return;
-            shouldContinue = !state.compareAndSet(s,State.CONNECTING);
+            switch(s){
+                case CONNECTED:
+                    if(channel!=null) return;
+                    // the connection was lost, connect again
+                    state.compareAndSet(State.CONNECTED,State.DISCONNECTED);
+                    break;
+                case CONNECTING:
+                    // Don't race ahead of a connection (and handshake) which is still going on
+                    if(!CountDownLatches.uncheckedAwait(connectLatch,timeoutMillis,TimeUnit.MILLISECONDS)){
+                        throw new TimestampIOException("Timed out after "+timeoutMillis+" ms waiting to connect to the TimestampServer");
+                    }
+                    if(state.get()!=State.CONNECTED){
+                        throw new TimestampIOException("Unable to connect to TimestampServer");
+                    }
+                    break;
+                case SHUTDOWN:
+                    throw new TimestampIOException("TimestampClient has been shut down");
+                default:
+                    CountDownLatch latch = new CountDownLatch(1);
+                    synchronized(connectLock){
+                        if(state.get()!=State.DISCONNECTED) break;
+                        connectLatch = latch;
+                        if(!state.compareAndSet(State.DISCONNECTED,State.CONNECTING)) break;
+                    }
+                    try{
+                        connect();
+                    }finally{
+                        latch.countDown();
+                    }
+                    return;
+            }
         }
+    }
 
-        if (LOG.isInfoEnabled()) {
-            SpliceLogUtils.info(LOG, "Attempting to connect to server (host %s, port %s)", timestampHostProvider.getHost(), getPort());
-        }
+    /**
+     * Opens a new connection and waits for its handshake. Only called by the thread which moved the state to
+     * CONNECTING, and always moves it on to CONNECTED or (on failure) back to DISCONNECTED.
+     */
+    private void connect() throws TimestampIOException{
+        handshakeReplies.set(0);
+        handshakeLatch = new CountDownLatch(1);
+
+        Channel c = null;
+        boolean connected = false;
+        try{
+            if (LOG.isInfoEnabled()) {
+                SpliceLogUtils.info(LOG, "Attempting to connect to server (host %s, port %s)", timestampHostProvider.getHost(), getPort());
+            }
 
-        ChannelFuture futureConnect = bootstrap.connect(new InetSocketAddress(timestampHostProvider.getHost(), getPort()));
-        final CountDownLatch latchConnect = new CountDownLatch(1);
-        futureConnect.addListener(new ChannelFutureListener() {
-                                      public void operationComplete(ChannelFuture cf) throws Exception {
-                                          if (cf.isSuccess()) {
-                                              channel = cf.getChannel();
-                                              latchConnect.countDown();
-                                          } else {
-                                              latchConnect.countDown();
-                                              doClientErrorThrow(LOG, "TimestampClient unable to connect to TimestampServer", cf.getCause());
+            ChannelFuture futureConnect = bootstrap.connect(new InetSocketAddress(timestampHostProvider.getHost(), getPort()));
+            final CountDownLatch latchConnect = new CountDownLatch(1);
+            final AtomicReference<Channel> connectedChannel = new AtomicReference<>();
+            futureConnect.addListener(new ChannelFutureListener() {
+                                          public void operationComplete(ChannelFuture cf) throws Exception {
+                                              if (cf.isSuccess()) {
+                                                  connectedChannel.set(cf.getChannel());
+                                                  latchConnect.countDown();
+                                              } else {
+                                                  latchConnect.countDown();
+                                                  doClientErrorThrow(LOG, "TimestampClient unable to connect to TimestampServer", cf.getCause());
+                                              }
                                           }
                                       }
-                                  }
-        );
+            );
 
-        CountDownLatches.uncheckedAwait(latchConnect);
-        if(channel == null) {
-            throw new TimestampIOException("Unable to connect to TimestampServer");
+            CountDownLatches.uncheckedAwait(latchConnect);
+            c = connectedChannel.get();
+            if(c == null) {
+                throw new TimestampIOException("Unable to connect to TimestampServer");
+            }
+            if (!CountDownLatches.uncheckedAwait(handshakeLatch, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new TimestampIOException("Timed out after " + timeoutMillis + " ms waiting for the TimestampServer handshake");
+            }
+            // the channel must be in place before anyone can see that we are connected
+            channel = c;
+            connected = state.compareAndSet(State.CONNECTING, State.CONNECTED);
+            if(!connected){
+                throw new TimestampIOException("TimestampClient was shut down while connecting");
+            }
+        }finally{
+            if(!connected){
+                if(channel == c) channel = null;
+                state.compareAndSet(State.CONNECTING, State.DISCONNECTED);
+                if(c != null) c.close();
+            }
         }
-
-        // Can only assume connecting (not connected) until channelConnected method is invoked
-        state.set(State.CONNECTING);
     }
 
     public long getNextTimestamp() throws TimestampIOException {
@@ -215,66 +307,136 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         connectIfNeeded();
 
-        short clientCallId = (short) clientCallCounter.getAndIncrement();
-        final ClientCallback callback = new ClientCallback(clientCallId);
-        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", clientCallId);
+        Batch batch;
+        int position;
+        boolean send;
+        int maxBatchSize = legacyServer ? 1 : MAX_BATCH_SIZE;
+        synchronized (batchLock) {
+            batch = pendingBatch;
+            if (batch == null) {
+                batch = pendingBatch = new Batch(nextCallerId());
+            }
+            position = batch.size++;
+            send = batchesInFlight == 0 || batch.size >= maxBatchSize;
+            if (send) {
+                pendingBatch = null;
+                batchesInFlight++;
+            }
+        }
+        if (send) {
+            sendBatch(batch);
+        }
+
+        // Wait for the response to the request our batch went out in (whether we sent it or not)
+
+        try {
+            boolean success = batch.await(timeoutMillis);
+            if (!success) {
+                // Don't hold up everyone else behind a request which may never be answered
+                batchComplete(batch);
+                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, batch);
+            }
+        } catch (InterruptedException e) {
+            doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, batch);
+        }
+
+        // If we get here, it should mean the client received the response with the range of timestamps,
+        // so we can pick ours out of it and send it back to the caller.
+
+        long firstTimestamp = batch.getNewTimestamp();
+        if (firstTimestamp < 0) {
+            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, batch);
+        }
+        long timestamp = firstTimestamp + position;
+
+        SpliceLogUtils.debug(LOG, "Client call complete: %s, position %s", batch, position);
 
-        // Add this caller (id and callback) to the map of current clients.
+        // Since request was successful, update JMX metrics
+        numRequests.incrementAndGet();
+        totalRequestDuration.addAndGet(System.currentTimeMillis() - requestStartTime);
+
+        return timestamp;
+    }
+
+    private void sendBatch(final Batch batch) throws TimestampIOException {
+        short clientCallId = batch.getCallerId();
+        SpliceLogUtils.debug(LOG, "Starting new client call with id %s for %s timestamps", clientCallId, batch.size);
+
+        // Add this batch (id and callback) to the map of current clients.
         // If an entry was already present for this caller id, that is a bug,
         // so throw an exception.
-        if (clientCallbacks.putIfAbsent(clientCallId, callback) != null) {
+        if (clientCallbacks.putIfAbsent(clientCallId, batch) != null) {
+            batch.error(new TimestampIOException("Duplicate client callback id " + clientCallId));
+            batchComplete(batch);
             doClientErrorThrow(LOG, "Found existing client callback with caller id %s, so unable to handle new call.", null, clientCallId);
         }
 
         try {
-            ChannelBuffer buffer = ChannelBuffers.buffer(2);
-            buffer.writeShort(clientCallId);
-            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", callback);
-            ChannelFuture futureWrite = channel.write(buffer);
+            ChannelBuffer buffer;
+            if (legacyServer) {
+                assert batch.size == 1;
+                buffer = ChannelBuffers.buffer(TimestampServer.LEGACY_MSG_RECEIVED_LENGTH);
+                buffer.writeShort(clientCallId);
+            } else {
+                buffer = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+                buffer.writeShort(clientCallId);
+                buffer.writeShort(batch.size);
+            }
+            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", batch);
+            Channel c = channel;
+            if (c == null) {
+                throw new TimestampIOException("Not connected to the TimestampServer");
+            }
+            ChannelFuture futureWrite = c.write(buffer);
             futureWrite.addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
                     if (!future.isSuccess()) {
+                        clientCallbacks.remove(batch.getCallerId());
+                        batch.error(new TimestampIOException("Unable to send timestamp request", future.getCause()));
+                        batchComplete(batch);
                         doClientErrorThrow(LOG, "Error writing message from timestamp client to server", future.getCause());
                     } else {
-                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", callback);
+                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", batch);
                     }
                 }
             });
         } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
             clientCallbacks.remove(clientCallId);
-            callback.error(e);
-            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, callback);
+            batch.error(e);
+            batchComplete(batch);
+            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, batch);
         }
+        numBatches.incrementAndGet();
+    }
 
-        // If we get here, request was successfully sent without exception.
-        // However, we might not have received response yet, so we need to
-        // wait for that now.
+    private short nextCallerId() {
+        short callerId;
+        do {
+            callerId = (short) clientCallCounter.getAndIncrement();
+        } while (callerId == TimestampServer.HANDSHAKE_CALLER_ID);
+        return callerId;
+    }
 
-        try {
-            boolean success = callback.await(timeoutMillis);
-            if (!success) {
-                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, callback);
+    /**
+     * Called once a batch is no longer on the wire (whether it was answered, failed, or timed out), so that
+     * the callers which queued up behind it can be sent. Calling this more than once for a batch is harmless.
+     */
+    private void batchComplete(Batch batch) throws TimestampIOException {
+        Batch next = null;
+        synchronized (batchLock) {
+            if (batch.finished || batch == pendingBatch) return; // already done, or never sent
+            batch.finished = true;
+            batchesInFlight--;
+            if (batchesInFlight == 0 && pendingBatch != null) {
+                next = pendingBatch;
+                pendingBatch = null;
+                batchesInFlight++;
             }
-        } catch (InterruptedException e) {
-            doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, callback);
         }
-
-        // If we get here, it should mean the client received the response with the timestamp,
-        // which we can fetch now from the callback and send it back to the caller.
-
-        long timestamp = callback.getNewTimestamp();
-        if (timestamp < 0) {
-            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, callback);
+        if (next != null) {
+            sendBatch(next);
         }
-
-        SpliceLogUtils.debug(LOG, "Client call complete: %s", callback);
-
-        // Since request was successful, update JMX metrics
-        numRequests.incrementAndGet();
-        totalRequestDuration.addAndGet(System.currentTimeMillis() - requestStartTime);
-
-        return timestamp;
     }
 
     @Override
@@ -287,42 +449,66 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         ensureReadableBytes(buf, 8);
 
         long timestamp = buf.readLong();
-        assert (timestamp > 0);
         ensureReadableBytes(buf, 0);
 
+        if (clientCallerId == TimestampServer.HANDSHAKE_CALLER_ID) {
+            handshakeReplied(timestamp);
+            super.messageReceived(ctx, e);
+            return;
+        }
+        assert (timestamp > 0);
+
         SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s", clientCallerId, timestamp);
         Callback cb = clientCallbacks.remove(clientCallerId);
         if (cb == null) {
             doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
         }
 
-        // This releases the latch the original client thread is waiting for
-        // (to provide the synchronous behavior for that caller) and also
-        // provides the timestamp.
+        // This releases the latch the original client threads are waiting for
+        // (to provide the synchronous behavior for those callers) and also
+        // provides the first timestamp of their range.
         cb.complete(timestamp);
+        if (cb instanceof Batch) {
+            batchComplete((Batch) cb);
+        }
 
         super.messageReceived(ctx, e);
     }
 
+    /**
+     * The first reply to the handshake is always a timestamp, since the server can't yet tell us apart from
+     * an older client. The second tells us whether it understood the handshake.
+     */
+    private void handshakeReplied(long reply) {
+        if (handshakeReplies.incrementAndGet() != 2) return;
+        legacyServer = reply != TimestampServer.HANDSHAKE_ACCEPTED;
+        if (legacyServer) {
+            LOG.warn("TimestampServer does not support batched requests, requesting one timestamp at a time until it is upgraded");
+        }
+        handshakeLatch.countDown();
+    }
+
     @Override
     public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         SpliceLogUtils.info(LOG, "Successfully connected to server");
-        channel = e.getChannel();
-        state.set(State.CONNECTED);
+        // The handshake must be the first thing on the wire, so callers only get the channel once it's done
+        ChannelBuffer handshake = ChannelBuffers.buffer(2 * TimestampServer.LEGACY_MSG_RECEIVED_LENGTH);
+        handshake.writeShort(TimestampServer.HANDSHAKE_CALLER_ID);
+        handshake.writeShort(TimestampServer.HANDSHAKE_CALLER_ID);
+        e.getChannel().write(handshake);
+        // connectIfNeeded marks us connected once the handshake is done
         super.channelConnected(ctx, e);
     }
 
     @Override
     public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         LOG.info("TimestampClient was disconnected from the server");
-        boolean shouldContinue;
-        do{
-            State s = state.get();
-            if(s==State.SHUTDOWN) return; //ignore shut down errors
-            channel=null;
-            shouldContinue = !state.compareAndSet(s,State.DISCONNECTED);
-        }while(shouldContinue);
-        connectIfNeeded();
+        // A connection which never finished its handshake is cleaned up by connect()
+        if(e.getChannel() != channel) return;
+        channel = null;
+        state.compareAndSet(State.CONNECTED, State.DISCONNECTED);
+        // The next request reconnects. Doing it here would block this I/O thread on the handshake,
+        // whose reply may need this very thread.
     }
 
     @Override
@@ -353,6 +539,11 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return a / b;
     }
 
+    @Override
+    public long getNumberTimestampBatches() {
+        return numBatches.get();
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if(state.get() != State.SHUTDOWN) {
@@ -360,6 +551,19 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         }
     }
 
+    /**
+     * The callers which share a single request to the server.
+     */
+    private static final class Batch extends ClientCallback {
+        // both guarded by batchLock
+        private int size;
+        private boolean finished;
+
+        Batch(short callerId) {
+            super(callerId);
+        }
+    }
+
     public static void doClientErrorThrow(Logger logger, String message, Throwable t, Object... args) throws TimestampIOException {
         if (message == null) message = "";
         TimestampIOException t1 = t != null ? new TimestampIOException(message, t) : new TimestampIOException(message);
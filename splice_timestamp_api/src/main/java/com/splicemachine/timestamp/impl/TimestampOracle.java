@@ -88,13 +88,27 @@ public class TimestampOracle implements TimestampOracleStatistics{
     }
 
 	public long getNextTimestamp() throws TimestampIOException {
-		long nextTS = _timestampCounter.getAndIncrement();
+		return getNextTimestamps(1);
+	}
+
+	/**
+	 * Hand out a contiguous range of timestamps.
+	 *
+	 * @param count the number of timestamps to hand out
+	 * @return the first timestamp in the range. The caller owns every timestamp from this
+	 * up to (but not including) {@code first+count}.
+	 */
+	public long getNextTimestamps(int count) throws TimestampIOException {
+		assert count > 0 : "Cannot hand out an empty range of timestamps";
+		long firstTS = _timestampCounter.getAndAdd(count);
+		long lastTS = firstTS + count - 1;
 		long maxTS = _maxReservedTimestamp; // avoid the double volatile read
-		if (nextTS > maxTS) {
+		while (lastTS > maxTS) {
 			reserveNextBlock(maxTS);
+			maxTS = _maxReservedTimestamp;
 		}
-		_numTimestampsCreated.incrementAndGet(); // JMX metric
-		return nextTS;
+		_numTimestampsCreated.addAndGet(count); // JMX metric
+		return firstTS;
 	}
 
     private void reserveNextBlock(long priorMaxReservedTimestamp) throws TimestampIOException {
@@ -21,7 +21,6 @@ import org.jboss.netty.channel.ChannelHandler;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.Channels;
-import org.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
 
 public class TimestampPipelineFactoryLite implements ChannelPipelineFactory {
 
@@ -42,7 +41,7 @@ public class TimestampPipelineFactoryLite implements ChannelPipelineFactory {
         SpliceLogUtils.debug(LOG, "Creating new channel pipeline...");
         ChannelPipeline pipeline = Channels.pipeline();
         ((TimestampServerHandler) tsHandler).initializeIfNeeded();
-        pipeline.addLast("decoder", new FixedLengthFrameDecoder(TimestampServer.FIXED_MSG_RECEIVED_LENGTH));
+        pipeline.addLast("decoder", new TimestampRequestDecoder());
         pipeline.addLast("handler", tsHandler);
         SpliceLogUtils.debug(LOG, "Done creating channel pipeline");
         return pipeline;
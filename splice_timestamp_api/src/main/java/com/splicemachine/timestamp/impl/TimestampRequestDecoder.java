@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.FrameDecoder;
+
+/**
+ * Splits the requests from a single client connection into messages of
+ * {@link TimestampServer#FIXED_MSG_RECEIVED_LENGTH} bytes (caller id and number of timestamps).
+ * <p>
+ * Clients which predate batched requests send just a 2 byte caller id, so every connection starts
+ * out reading those, each as a request for a single timestamp. A newer client opens the connection
+ * with {@link TimestampServer#HANDSHAKE_CALLER_ID} twice; an older client can never do that, since
+ * it does not reuse a caller id until it has gone through all the others. The first of the two is
+ * answered like any other request (we cannot tell them apart yet), while the second is passed on as
+ * a request for zero timestamps, which the handler acknowledges. Everything after it is read as
+ * batched requests.
+ * <p>
+ * Holds per-connection state, so each pipeline needs its own instance.
+ */
+public class TimestampRequestDecoder extends FrameDecoder {
+    private int frameLength = TimestampServer.LEGACY_MSG_RECEIVED_LENGTH;
+    private int legacyRequests = 0; // only counted up to 2
+    private boolean openedWithHandshake = false;
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+        if (buffer.readableBytes() < frameLength) {
+            return null;
+        }
+        if (frameLength == TimestampServer.FIXED_MSG_RECEIVED_LENGTH) {
+            return buffer.readBytes(frameLength);
+        }
+
+        short callerId = buffer.readShort();
+        short count = 1;
+        if (legacyRequests < 2) {
+            legacyRequests++;
+            boolean handshake = callerId == TimestampServer.HANDSHAKE_CALLER_ID;
+            if (legacyRequests == 1) {
+                openedWithHandshake = handshake;
+            } else if (openedWithHandshake && handshake) {
+                frameLength = TimestampServer.FIXED_MSG_RECEIVED_LENGTH;
+                count = 0;
+            }
+        }
+        ChannelBuffer request = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+        request.writeShort(callerId);
+        request.writeShort(count);
+        return request;
+    }
+}
@@ -34,12 +34,30 @@ public class TimestampServer {
     /**
      * Fixed number of bytes in the message we expect to receive from the client.
      */
-    static final int FIXED_MSG_RECEIVED_LENGTH = 2; // 2 byte client id
+    static final int FIXED_MSG_RECEIVED_LENGTH = 4; // 2 byte client id + 2 byte number of timestamps
+
+    /**
+     * Fixed number of bytes in the message sent by clients which predate batched requests. Every connection
+     * starts out with these, until the client completes the handshake (see {@link TimestampRequestDecoder}).
+     */
+    static final int LEGACY_MSG_RECEIVED_LENGTH = 2; // 2 byte client id
+
+    /**
+     * The caller id which a client sends twice, as the first two legacy messages on a connection, to ask
+     * for batched requests. Clients never use it as an ordinary caller id.
+     */
+    static final short HANDSHAKE_CALLER_ID = Short.MIN_VALUE;
+
+    /**
+     * Sent back (in place of a timestamp) for the second handshake message, once the server has switched
+     * the connection to batched requests. A server which predates them sends a timestamp instead.
+     */
+    static final long HANDSHAKE_ACCEPTED = -2L;
 
     /**
      * Fixed number of bytes in the message we expect to send back to the client.
      */
-    static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte timestamp
+    static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte first timestamp of the range
 
     private int port;
     private ChannelFactory factory;
@@ -60,11 +60,26 @@ public class TimestampServerHandler extends TimestampBaseHandler {
         ensureReadableBytes(buf, TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
 
         final short callerId = buf.readShort();
+        ensureReadableBytes(buf, 2);
+
+        // The client may ask for a range of timestamps on behalf of several callers; we
+        // respond with the first timestamp in the range
+        short count = buf.readShort();
         ensureReadableBytes(buf, 0);
+        long nextTimestamp;
+        if (count == 0 && callerId == TimestampServer.HANDSHAKE_CALLER_ID) {
+            // The decoder has switched this connection over to batched requests; let the client know
+            SpliceLogUtils.debug(LOG, "Client switched to batched timestamp requests");
+            nextTimestamp = TimestampServer.HANDSHAKE_ACCEPTED;
+        } else {
+            if (count <= 0) {
+                throw new TimestampIOException("Invalid number of timestamps " + count + " requested by caller id " + callerId);
+            }
 
-        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s", callerId);
-        long nextTimestamp = oracle.getNextTimestamp();
-        assert nextTimestamp > 0;
+            SpliceLogUtils.trace(LOG, "Received request for %s timestamps from client. Caller id = %s", count, callerId);
+            nextTimestamp = oracle.getNextTimestamps(count);
+            assert nextTimestamp > 0;
+        }
 
 
         //
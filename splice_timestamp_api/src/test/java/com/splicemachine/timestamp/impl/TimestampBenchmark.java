@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import com.splicemachine.timestamp.api.TimestampHostProvider;
+import com.splicemachine.timestamp.api.TimestampIOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load benchmark for the timestamp oracle, through the full client/server path.
+ * <p>
+ * Starts a {@link TimestampServer} on the loopback interface, backed by an in-memory block manager, and
+ * has many threads share each {@link TimestampClient} (as the threads of a region server would) while
+ * they request timestamps as fast as they can. Reports throughput, the mean latency of a request, and
+ * how many callers shared each request on the wire. It also checks that every thread saw strictly
+ * increasing timestamps.
+ * <p>
+ * Usage: {@code TimestampBenchmark [threads] [clients] [seconds] [port]}. The defaults are 64 threads
+ * spread over 1 client for 30 seconds, on port 60612.
+ */
+public class TimestampBenchmark{
+
+    public static void main(String...args) throws Exception{
+        int numThreads=args.length>0?Integer.parseInt(args[0]):64;
+        int numClients=args.length>1?Integer.parseInt(args[1]):1;
+        int seconds=args.length>2?Integer.parseInt(args[2]):30;
+        final int port=args.length>3?Integer.parseInt(args[3]):60612;
+
+        TimestampServer server=new TimestampServer(port,new MemoryBlockManager(),8192);
+        server.startServer();
+
+        TimestampHostProvider hostProvider=new TimestampHostProvider(){
+            @Override public String getHost(){ return "localhost"; }
+            @Override public int getPort(){ return port; }
+        };
+        TimestampClient[] clients=new TimestampClient[numClients];
+        for(int i=0;i<numClients;i++){
+            clients[i]=new TimestampClient(60000,hostProvider);
+            clients[i].getNextTimestamp(); //connect before we start the clock
+        }
+
+        ExecutorService executor=Executors.newFixedThreadPool(numThreads);
+        final long end=System.nanoTime()+TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<long[]>> futures=new ArrayList<>(numThreads);
+        for(int i=0;i<numThreads;i++){
+            final TimestampClient client=clients[i%numClients];
+            futures.add(executor.submit(new Callable<long[]>(){
+                @Override
+                public long[] call() throws Exception{
+                    long count=0l;
+                    long totalNanos=0l;
+                    long last=-1l;
+                    long now;
+                    while((now=System.nanoTime())<end){
+                        long ts=client.getNextTimestamp();
+                        totalNanos+=System.nanoTime()-now;
+                        count++;
+                        if(ts<=last)
+                            throw new IllegalStateException("Timestamp "+ts+" was not larger than "+last);
+                        last=ts;
+                    }
+                    return new long[]{count,totalNanos};
+                }
+            }));
+        }
+
+        long count=0l;
+        long totalNanos=0l;
+        for(Future<long[]> future:futures){
+            long[] result=future.get();
+            count+=result[0];
+            totalNanos+=result[1];
+        }
+        executor.shutdown();
+
+        long batches=0l;
+        for(TimestampClient client:clients){
+            batches+=client.getNumberTimestampBatches();
+            client.shutdown();
+        }
+        server.stopServer();
+
+        System.out.printf("threads=%d, clients=%d, duration=%ds%n",numThreads,numClients,seconds);
+        System.out.printf("timestamps: %d (%.1f/s)%n",count,count/(double)seconds);
+        System.out.printf("mean latency: %.1f us%n",totalNanos/1000d/Math.max(1l,count));
+        System.out.printf("requests on the wire: %d (%.1f timestamps per request)%n",batches,count/(double)Math.max(1l,batches));
+    }
+
+    private static class MemoryBlockManager implements TimestampBlockManager{
+        private volatile long maxReserved=0l;
+
+        @Override
+        public void reserveNextBlock(long currentMaxReserved) throws TimestampIOException{
+            maxReserved=currentMaxReserved;
+        }
+
+        @Override
+        public long initialize() throws TimestampIOException{
+            return maxReserved;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampHostProvider;
+import com.splicemachine.timestamp.api.TimestampIOException;
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimestampClientTest{
+    private static final int CALLERS=16;
+
+    @Test
+    public void callersWhichArriveDuringTheHandshakeWaitForIt() throws Exception{
+        CountDownLatch handshake=new CountDownLatch(1);
+        int port=freePort();
+        HeldHandshakeServer server=new HeldHandshakeServer(port,handshake);
+        TimestampClient client=new TimestampClient(60000,hostProvider(port));
+        ExecutorService executor=Executors.newFixedThreadPool(CALLERS);
+        try{
+            List<Future<Long>> futures=requestTimestamps(client,executor);
+            //give every caller the time to find the connection still waiting on its handshake
+            Thread.sleep(500);
+            Assert.assertEquals("The connection was made more than once!",1,server.connections.get());
+            handshake.countDown();
+
+            Set<Long> timestamps=new HashSet<>();
+            for(Future<Long> future:futures){
+                timestamps.add(future.get(30,TimeUnit.SECONDS));
+            }
+            Assert.assertEquals("Callers were handed the same timestamp!",CALLERS,timestamps.size());
+        }finally{
+            executor.shutdownNow();
+            client.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void failedConnectionIsRetriedByTheNextCaller() throws Exception{
+        int port=freePort();
+        TimestampClient client=new TimestampClient(5000,hostProvider(port));
+        ExecutorService executor=Executors.newFixedThreadPool(CALLERS);
+        HeldHandshakeServer server=null;
+        try{
+            //nothing is listening yet, so every caller has to fail, rather than hang or find no channel
+            for(Future<Long> future:requestTimestamps(client,executor)){
+                try{
+                    future.get(30,TimeUnit.SECONDS);
+                    Assert.fail("Got a timestamp without a server!");
+                }catch(ExecutionException ee){
+                    Assert.assertTrue("Unexpected failure "+ee.getCause(),ee.getCause() instanceof TimestampIOException);
+                }
+            }
+
+            server=new HeldHandshakeServer(port,new CountDownLatch(0));
+            Assert.assertTrue("Invalid timestamp!",client.getNextTimestamp()>0);
+        }finally{
+            executor.shutdownNow();
+            client.shutdown();
+            if(server!=null)
+                server.stop();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static List<Future<Long>> requestTimestamps(final TimestampClient client,ExecutorService executor){
+        List<Future<Long>> futures=new ArrayList<>(CALLERS);
+        for(int i=0;i<CALLERS;i++){
+            futures.add(executor.submit(new Callable<Long>(){
+                @Override
+                public Long call() throws Exception{
+                    return client.getNextTimestamp();
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private static int freePort() throws Exception{
+        try(ServerSocket socket=new ServerSocket(0)){
+            return socket.getLocalPort();
+        }
+    }
+
+    private static TimestampHostProvider hostProvider(final int port){
+        return new TimestampHostProvider(){
+            @Override public String getHost(){ return "localhost"; }
+            @Override public int getPort(){ return port; }
+        };
+    }
+
+    /**
+     * Answers requests the way {@link TimestampServerHandler} does, but holds back its acknowledgement of the
+     * handshake until it is released.
+     */
+    private static class HeldHandshakeServer{
+        private final NioServerSocketChannelFactory factory;
+        private final Channel channel;
+        private final AtomicLong connections=new AtomicLong();
+
+        HeldHandshakeServer(int port,final CountDownLatch handshake){
+            factory=new NioServerSocketChannelFactory(Executors.newCachedThreadPool(),Executors.newCachedThreadPool());
+            ServerBootstrap bootstrap=new ServerBootstrap(factory);
+            final AtomicLong nextTimestamp=new AtomicLong(1l);
+            bootstrap.setPipelineFactory(new ChannelPipelineFactory(){
+                @Override
+                public ChannelPipeline getPipeline() throws Exception{
+                    connections.incrementAndGet();
+                    ChannelPipeline pipeline=Channels.pipeline();
+                    pipeline.addLast("decoder",new TimestampRequestDecoder());
+                    pipeline.addLast("handler",new SimpleChannelHandler(){
+                        @Override
+                        public void messageReceived(ChannelHandlerContext ctx,MessageEvent e) throws Exception{
+                            ChannelBuffer request=(ChannelBuffer)e.getMessage();
+                            short callerId=request.readShort();
+                            short count=request.readShort();
+                            long reply;
+                            if(count==0 && callerId==TimestampServer.HANDSHAKE_CALLER_ID){
+                                handshake.await();
+                                reply=TimestampServer.HANDSHAKE_ACCEPTED;
+                            }else
+                                reply=nextTimestamp.getAndAdd(count);
+                            ChannelBuffer response=ChannelBuffers.buffer(TimestampServer.FIXED_MSG_SENT_LENGTH);
+                            response.writeShort(callerId);
+                            response.writeLong(reply);
+                            e.getChannel().write(response);
+                        }
+                    });
+                    return pipeline;
+                }
+            });
+            channel=bootstrap.bind(new InetSocketAddress(port));
+        }
+
+        void stop(){
+            channel.close().awaitUninterruptibly();
+            factory.releaseExternalResources();
+        }
+    }
+}
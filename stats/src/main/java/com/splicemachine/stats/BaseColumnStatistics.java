@@ -23,6 +23,12 @@ import java.io.IOException;
  *         Date: 3/5/15
  */
 public abstract class BaseColumnStatistics<T extends Comparable<T>> implements ColumnStatistics<T> {
+    /*
+     * Written in front of statistics which are followed by an (optional) histogram. Statistics written
+     * before histograms were kept start with the column id instead, which is never negative.
+     */
+    protected static final int HISTOGRAM_FORMAT = -1;
+
     protected int columnId;
     protected long totalBytes;
     protected long totalCount;
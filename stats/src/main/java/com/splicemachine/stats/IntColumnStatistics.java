@@ -24,10 +24,13 @@ import com.splicemachine.stats.estimate.UniformIntDistribution;
 import com.splicemachine.stats.frequency.FrequencyCounters;
 import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.IntFrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogram;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Scott Fines
@@ -38,6 +41,7 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
     private IntFrequentElements frequentElements;
     private int min;
     private int max;
+    private EquiDepthLongHistogram histogram;
 
     private transient Distribution<Integer> distribution;
 
@@ -51,11 +55,29 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
                                long totalCount,
                                long nullCount,
                                long minCount) {
+        this(columnId,cardinalityEstimator,frequentElements,min,max,null,totalBytes,totalCount,nullCount,minCount);
+    }
+
+    /**
+     * @param histogram a histogram of the non-null values other than the minimum and the frequent elements,
+     *                  or {@code null} if none was collected
+     */
+    public IntColumnStatistics(int columnId,
+                               IntCardinalityEstimator cardinalityEstimator,
+                               IntFrequentElements frequentElements,
+                               int min,
+                               int max,
+                               EquiDepthLongHistogram histogram,
+                               long totalBytes,
+                               long totalCount,
+                               long nullCount,
+                               long minCount) {
         super(columnId, totalBytes, totalCount, nullCount,minCount);
         this.cardinalityEstimator = cardinalityEstimator;
         this.frequentElements = frequentElements;
         this.min = min;
         this.max = max;
+        this.histogram = histogram;
         this.distribution = new UniformIntDistribution(this);
     }
 
@@ -71,6 +93,11 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
     @Override public Integer maxValue() { return max; }
     public int min(){ return min; }
     public int max(){ return max; }
+    /**
+     * @return the histogram of the values other than the minimum and the frequent elements, or {@code null}
+     * if there is none
+     */
+    public EquiDepthLongHistogram histogram(){ return histogram; }
 
     @Override
     public ColumnStatistics<Integer> getClone() {
@@ -78,6 +105,7 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
                 frequentElements.newCopy(),
                 min,
                 max,
+                histogram,
                 totalBytes,
                 totalCount,
                 nullCount,minCount);
@@ -91,12 +119,35 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
     @Override
     public ColumnStatistics<Integer> merge(ColumnStatistics<Integer> other) {
         assert other.getCardinalityEstimator() instanceof IntCardinalityEstimator: "Cannot merge statistics of type "+ other.getClass();
+        EquiDepthLongHistogram otherHistogram = other instanceof IntColumnStatistics? ((IntColumnStatistics)other).histogram: null;
+        /*
+         * Each histogram leaves out the rows of its own min and frequent elements, which are not the ones
+         * the merged statistics count separately; remember what was left out so the merged histogram can
+         * be brought in line with the merged min and frequent elements.
+         */
+        Map<Long,Long> excludedRows = null;
+        if(histogram!=null && otherHistogram!=null){
+            excludedRows = new HashMap<>();
+            EquiDepthLongHistogram.addExcludedRows(excludedRows,min,minCount,frequentElements.allFrequentElements());
+            EquiDepthLongHistogram.addExcludedRows(excludedRows,other.minValue(),other.minCount(),other.topK().allFrequentElements());
+        }
         cardinalityEstimator = (IntCardinalityEstimator)cardinalityEstimator.merge(other.getCardinalityEstimator());
         frequentElements = (IntFrequentElements)frequentElements.merge(other.topK());
-        if(other.minValue()<min)
+        if(other.minValue()<min){
             min = other.minValue();
+            minCount = other.minCount();
+        }else if(other.minValue()==min)
+            minCount+=other.minCount();
         if(other.maxValue()>max)
             max = other.maxValue();
+        if(excludedRows!=null){
+            Map<Long,Long> mergedExcludedRows = new HashMap<>();
+            EquiDepthLongHistogram.addExcludedRows(mergedExcludedRows,min,minCount,frequentElements.allFrequentElements());
+            histogram = histogram.merge(otherHistogram).adjustExcludedRows(excludedRows,mergedExcludedRows);
+        }else{
+            //without the histogram of both sides, we can't tell where the values of the merged statistics lie
+            histogram = null;
+        }
         totalBytes+=other.totalBytes();
         totalCount+=other.nullCount()+other.nonNullCount();
         nullCount+=other.nullCount();
@@ -112,16 +163,23 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
 
         @Override
         public void encode(IntColumnStatistics item,DataOutput encoder) throws IOException {
+            encoder.writeInt(HISTOGRAM_FORMAT);
             BaseColumnStatistics.write(item, encoder);
             encoder.writeInt(item.min);
             encoder.writeInt(item.max);
             CardinalityEstimators.intEncoder().encode(item.cardinalityEstimator, encoder);
             FrequencyCounters.intEncoder().encode(item.frequentElements,encoder);
+            encoder.writeBoolean(item.histogram!=null);
+            if(item.histogram!=null)
+                EquiDepthLongHistogram.encoder().encode(item.histogram,encoder);
         }
 
         @Override
         public IntColumnStatistics decode(DataInput decoder) throws IOException {
             int columnId = decoder.readInt();
+            boolean hasHistogram = columnId==HISTOGRAM_FORMAT;
+            if(hasHistogram)
+                columnId = decoder.readInt();
             long totalBytes = decoder.readLong();
             long totalCount = decoder.readLong();
             long nullCount = decoder.readLong();
@@ -130,7 +188,10 @@ public class IntColumnStatistics extends BaseColumnStatistics<Integer>{
             int max = decoder.readInt();
             IntCardinalityEstimator cardinalityEstimator = CardinalityEstimators.intEncoder().decode(decoder);
             IntFrequentElements frequentElements = FrequencyCounters.intEncoder().decode(decoder);
-            return new IntColumnStatistics(columnId,cardinalityEstimator,frequentElements,min,max,totalBytes,totalCount,nullCount,minCount);
+            EquiDepthLongHistogram histogram = null;
+            if(hasHistogram && decoder.readBoolean())
+                histogram = EquiDepthLongHistogram.encoder().decode(decoder);
+            return new IntColumnStatistics(columnId,cardinalityEstimator,frequentElements,min,max,histogram,totalBytes,totalCount,nullCount,minCount);
         }
     }
 }
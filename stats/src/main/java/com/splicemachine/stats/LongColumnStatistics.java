@@ -25,10 +25,13 @@ import com.splicemachine.stats.estimate.UniformLongDistribution;
 import com.splicemachine.stats.frequency.FrequencyCounters;
 import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.LongFrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogram;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Scott Fines
@@ -39,6 +42,7 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
     private LongFrequentElements frequentElements;
     private long min;
     private long max;
+    private EquiDepthLongHistogram histogram;
     private LongDistribution distribution;
 
     public LongColumnStatistics(int columnId,LongCardinalityEstimator cardinalityEstimator,
@@ -49,11 +53,28 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
                                 long totalCount,
                                 long nullCount,
                                 long minCount) {
+        this(columnId,cardinalityEstimator,frequentElements,min,max,null,totalBytes,totalCount,nullCount,minCount);
+    }
+
+    /**
+     * @param histogram a histogram of the non-null values other than the minimum and the frequent elements,
+     *                  or {@code null} if none was collected
+     */
+    public LongColumnStatistics(int columnId,LongCardinalityEstimator cardinalityEstimator,
+                                LongFrequentElements frequentElements,
+                                long min,
+                                long max,
+                                EquiDepthLongHistogram histogram,
+                                long totalBytes,
+                                long totalCount,
+                                long nullCount,
+                                long minCount) {
         super(columnId, totalBytes, totalCount, nullCount,minCount);
         this.cardinalityEstimator = cardinalityEstimator;
         this.frequentElements = frequentElements;
         this.min = min;
         this.max = max;
+        this.histogram = histogram;
         this.distribution = new UniformLongDistribution(this);
     }
 
@@ -64,6 +85,11 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
     @Override public Long maxValue() { return max; }
     public long min() { return min; }
     public long max() { return max; }
+    /**
+     * @return the histogram of the values other than the minimum and the frequent elements, or {@code null}
+     * if there is none
+     */
+    public EquiDepthLongHistogram histogram(){ return histogram; }
 
     @Override
     public ColumnStatistics<Long> getClone() {
@@ -71,6 +97,7 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
                 frequentElements.newCopy(),
                 min,
                 max,
+                histogram,
                 totalBytes,
                 totalCount,
                 nullCount,
@@ -85,12 +112,35 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
     @Override
     public ColumnStatistics<Long> merge(ColumnStatistics<Long> other) {
         assert other.getCardinalityEstimator() instanceof LongCardinalityEstimator: "Cannot merge instance of type "+ other.getClass();
+        EquiDepthLongHistogram otherHistogram = other instanceof LongColumnStatistics? ((LongColumnStatistics)other).histogram: null;
+        /*
+         * Each histogram leaves out the rows of its own min and frequent elements, which are not the ones
+         * the merged statistics count separately; remember what was left out so the merged histogram can
+         * be brought in line with the merged min and frequent elements.
+         */
+        Map<Long,Long> excludedRows = null;
+        if(histogram!=null && otherHistogram!=null){
+            excludedRows = new HashMap<>();
+            EquiDepthLongHistogram.addExcludedRows(excludedRows,min,minCount,frequentElements.allFrequentElements());
+            EquiDepthLongHistogram.addExcludedRows(excludedRows,other.minValue(),other.minCount(),other.topK().allFrequentElements());
+        }
         cardinalityEstimator = cardinalityEstimator.merge((LongCardinalityEstimator)other.getCardinalityEstimator());
         frequentElements = (LongFrequentElements)frequentElements.merge(other.topK());
-        if(min>other.minValue())
+        if(min>other.minValue()){
             min = other.minValue();
+            minCount = other.minCount();
+        }else if(other.minValue()==min)
+            minCount+=other.minCount();
         if(max<other.maxValue())
             max = other.maxValue();
+        if(excludedRows!=null){
+            Map<Long,Long> mergedExcludedRows = new HashMap<>();
+            EquiDepthLongHistogram.addExcludedRows(mergedExcludedRows,min,minCount,frequentElements.allFrequentElements());
+            histogram = histogram.merge(otherHistogram).adjustExcludedRows(excludedRows,mergedExcludedRows);
+        }else{
+            //without the histogram of both sides, we can't tell where the values of the merged statistics lie
+            histogram = null;
+        }
         totalBytes+=other.totalBytes();
         totalCount+=other.nullCount()+other.nonNullCount();
         nullCount+=other.nullCount();
@@ -106,16 +156,23 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
 
         @Override
         public void encode(LongColumnStatistics item,DataOutput encoder) throws IOException {
+            encoder.writeInt(HISTOGRAM_FORMAT);
             BaseColumnStatistics.write(item, encoder);
             encoder.writeLong(item.min);
             encoder.writeLong(item.max);
             CardinalityEstimators.longEncoder().encode(item.cardinalityEstimator, encoder);
             FrequencyCounters.longEncoder().encode(item.frequentElements,encoder);
+            encoder.writeBoolean(item.histogram!=null);
+            if(item.histogram!=null)
+                EquiDepthLongHistogram.encoder().encode(item.histogram,encoder);
         }
 
         @Override
         public LongColumnStatistics decode(DataInput decoder) throws IOException {
             int columnId = decoder.readInt();
+            boolean hasHistogram = columnId==HISTOGRAM_FORMAT;
+            if(hasHistogram)
+                columnId = decoder.readInt();
             long totalBytes = decoder.readLong();
             long totalCount = decoder.readLong();
             long nullCount = decoder.readLong();
@@ -124,7 +181,10 @@ public class LongColumnStatistics extends BaseColumnStatistics<Long> {
             long max = decoder.readLong();
             LongCardinalityEstimator cardinalityEstimator = CardinalityEstimators.longEncoder().decode(decoder);
             LongFrequentElements frequentElements = FrequencyCounters.longEncoder().decode(decoder);
-            return new LongColumnStatistics(columnId,cardinalityEstimator,frequentElements,min,max,totalBytes,totalCount,nullCount,minCount);
+            EquiDepthLongHistogram histogram = null;
+            if(hasHistogram && decoder.readBoolean())
+                histogram = EquiDepthLongHistogram.encoder().decode(decoder);
+            return new LongColumnStatistics(columnId,cardinalityEstimator,frequentElements,min,max,histogram,totalBytes,totalCount,nullCount,minCount);
         }
     }
 
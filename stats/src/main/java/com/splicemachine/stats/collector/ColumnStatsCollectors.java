@@ -20,6 +20,7 @@ import com.splicemachine.stats.cardinality.CardinalityEstimators;
 import com.splicemachine.stats.estimate.DistributionFactory;
 import com.splicemachine.stats.frequency.FrequencyCounter;
 import com.splicemachine.stats.frequency.FrequencyCounters;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogramBuilder;
 import com.splicemachine.stats.order.*;
 
 /**
@@ -47,16 +48,32 @@ public class ColumnStatsCollectors {
     }
 
     public static IntColumnStatsCollector intCollector(int columnId,int precision, int topK){
+        return intCollector(columnId,precision,topK,0);
+    }
+
+    /**
+     * @param histogramBuckets the number of buckets of the histogram to keep, or 0 to not keep a histogram
+     */
+    public static IntColumnStatsCollector intCollector(int columnId,int precision, int topK,int histogramBuckets){
         return new IntColumn(columnId,CardinalityEstimators.hyperLogLogInt(precision),
                 FrequencyCounters.intCounter(2*topK),
                 IntMinMaxCollector.newInstance(),
+                histogramBuilder(histogramBuckets),
                 topK);
     }
 
     public static LongColumnStatsCollector longCollector(int columnId,int precision, int topK){
+        return longCollector(columnId,precision,topK,0);
+    }
+
+    /**
+     * @param histogramBuckets the number of buckets of the histogram to keep, or 0 to not keep a histogram
+     */
+    public static LongColumnStatsCollector longCollector(int columnId,int precision, int topK,int histogramBuckets){
         return new LongColumn(columnId,CardinalityEstimators.hyperLogLogLong(precision),
                 FrequencyCounters.longCounter(2 * topK),
                 LongMinMaxCollector.newInstance(),
+                histogramBuilder(histogramBuckets),
                 topK);
     }
 
@@ -81,4 +98,10 @@ public class ColumnStatsCollectors {
         ComparableMinMaxCollector<T> minMaxCollector = new ComparableMinMaxCollector<>();
         return new ComparableColumn<>(columnId,estimator, counter, minMaxCollector, topK,distributionFactory);
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static EquiDepthLongHistogramBuilder histogramBuilder(int histogramBuckets){
+        return histogramBuckets>0? new EquiDepthLongHistogramBuilder(histogramBuckets): null;
+    }
 }
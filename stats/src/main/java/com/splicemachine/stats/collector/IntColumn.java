@@ -18,8 +18,14 @@ package com.splicemachine.stats.collector;
 import com.splicemachine.stats.IntColumnStatistics;
 import com.splicemachine.stats.cardinality.IntCardinalityEstimator;
 import com.splicemachine.stats.frequency.IntFrequencyCounter;
+import com.splicemachine.stats.frequency.IntFrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogram;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogramBuilder;
 import com.splicemachine.stats.order.IntMinMaxCollector;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A Statistics collector for an integer column.
  *
@@ -31,6 +37,7 @@ class IntColumn implements IntColumnStatsCollector {
     private final IntCardinalityEstimator cardinalityEstimator;
     private final IntFrequencyCounter frequencyCounter;
     private final IntMinMaxCollector minMaxCollector;
+    private final EquiDepthLongHistogramBuilder histogramBuilder;
 
     private long nullCount;
     private long totalBytes;
@@ -44,6 +51,20 @@ class IntColumn implements IntColumnStatsCollector {
                      IntFrequencyCounter frequencyCounter,
                      IntMinMaxCollector minMaxCollector,
                      int topK) {
+        this(columnId,cardinalityEstimator,frequencyCounter,minMaxCollector,null,topK);
+    }
+
+    /**
+     * @param histogramBuilder the builder of the histogram of the column, or {@code null} if no histogram
+     *                         should be kept
+     */
+    public IntColumn(int columnId,
+                     IntCardinalityEstimator cardinalityEstimator,
+                     IntFrequencyCounter frequencyCounter,
+                     IntMinMaxCollector minMaxCollector,
+                     EquiDepthLongHistogramBuilder histogramBuilder,
+                     int topK) {
+        this.histogramBuilder = histogramBuilder;
         this.cardinalityEstimator = cardinalityEstimator;
         this.frequencyCounter = frequencyCounter;
         this.minMaxCollector = minMaxCollector;
@@ -53,11 +74,13 @@ class IntColumn implements IntColumnStatsCollector {
 
     @Override
     public IntColumnStatistics build() {
+        IntFrequentElements frequentElements = frequencyCounter.frequentElements(topK);
         return new IntColumnStatistics(columnId,
                 cardinalityEstimator,
-                frequencyCounter.frequentElements(topK),
+                frequentElements,
                 minMaxCollector.min(),
                 minMaxCollector.max(),
+                buildHistogram(frequentElements),
                 totalBytes,
                 count,
                 nullCount,
@@ -80,6 +103,8 @@ class IntColumn implements IntColumnStatsCollector {
         cardinalityEstimator.update(item,count);
         frequencyCounter.update(item,count);
         minMaxCollector.update(item,count);
+        if(histogramBuilder!=null)
+            histogramBuilder.update(item,count);
         this.count+=count;
     }
 
@@ -89,4 +114,25 @@ class IntColumn implements IntColumnStatsCollector {
             updateNull(count);
         else update(item.intValue(),count);
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private EquiDepthLongHistogram buildHistogram(IntFrequentElements frequentElements){
+        if(histogramBuilder==null) return null;
+        /*
+         * The min and the frequent elements are counted separately, so the histogram only has to account
+         * for the remaining rows.
+         */
+        Map<Long,Long> excludedRows = new HashMap<>();
+        EquiDepthLongHistogram.addExcludedRows(excludedRows,minMaxCollector.min(),minMaxCollector.minCount(),
+                frequentElements.allFrequentElements());
+        long rowCount = count-nullCount;
+        long[] excluded = new long[excludedRows.size()];
+        int i=0;
+        for(Map.Entry<Long,Long> rows:excludedRows.entrySet()){
+            excluded[i++] = rows.getKey();
+            rowCount-=rows.getValue();
+        }
+        return histogramBuilder.build(rowCount,excluded);
+    }
 }
@@ -18,8 +18,14 @@ package com.splicemachine.stats.collector;
 import com.splicemachine.stats.LongColumnStatistics;
 import com.splicemachine.stats.cardinality.LongCardinalityEstimator;
 import com.splicemachine.stats.frequency.LongFrequencyCounter;
+import com.splicemachine.stats.frequency.LongFrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogram;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogramBuilder;
 import com.splicemachine.stats.order.LongMinMaxCollector;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author Scott Fines
  *         Date: 2/24/15
@@ -29,6 +35,7 @@ class LongColumn implements LongColumnStatsCollector {
     private final LongCardinalityEstimator cardinalityEstimator;
     private final LongFrequencyCounter frequencyCounter;
     private final LongMinMaxCollector minMaxCollector;
+    private final EquiDepthLongHistogramBuilder histogramBuilder;
 
     private long nullCount;
     private long totalBytes;
@@ -42,6 +49,20 @@ class LongColumn implements LongColumnStatsCollector {
                       LongFrequencyCounter frequencyCounter,
                       LongMinMaxCollector minMaxCollector,
                       int topK) {
+        this(columnId,cardinalityEstimator,frequencyCounter,minMaxCollector,null,topK);
+    }
+
+    /**
+     * @param histogramBuilder the builder of the histogram of the column, or {@code null} if no histogram
+     *                         should be kept
+     */
+    public LongColumn(int columnId,
+                      LongCardinalityEstimator cardinalityEstimator,
+                      LongFrequencyCounter frequencyCounter,
+                      LongMinMaxCollector minMaxCollector,
+                      EquiDepthLongHistogramBuilder histogramBuilder,
+                      int topK) {
+        this.histogramBuilder = histogramBuilder;
         this.cardinalityEstimator = cardinalityEstimator;
         this.frequencyCounter = frequencyCounter;
         this.minMaxCollector = minMaxCollector;
@@ -51,11 +72,13 @@ class LongColumn implements LongColumnStatsCollector {
 
     @Override
     public LongColumnStatistics build() {
+        LongFrequentElements frequentElements = frequencyCounter.frequentElements(topK);
         return new LongColumnStatistics(columnId,
                 cardinalityEstimator,
-                frequencyCounter.frequentElements(topK),
+                frequentElements,
                 minMaxCollector.min(),
                 minMaxCollector.max(),
+                buildHistogram(frequentElements),
                 totalBytes,
                 count,
                 nullCount,
@@ -65,7 +88,7 @@ class LongColumn implements LongColumnStatsCollector {
     @Override public void updateSize(int size) { totalBytes+=size; }
     @Override public void updateNull() { updateNull(1l); }
     @Override public void update(long item) { update(item,1l); }
-    @Override public void update(Long item) { update(item,count); }
+    @Override public void update(Long item) { update(item,1l); }
 
     @Override
     public void updateNull(long count) {
@@ -78,6 +101,8 @@ class LongColumn implements LongColumnStatsCollector {
         cardinalityEstimator.update(item,count);
         frequencyCounter.update(item,count);
         minMaxCollector.update(item,count);
+        if(histogramBuilder!=null)
+            histogramBuilder.update(item,count);
         this.count+=count;
     }
 
@@ -87,4 +112,25 @@ class LongColumn implements LongColumnStatsCollector {
             updateNull(count);
         else update(item.longValue(),count);
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private EquiDepthLongHistogram buildHistogram(LongFrequentElements frequentElements){
+        if(histogramBuilder==null) return null;
+        /*
+         * The min and the frequent elements are counted separately, so the histogram only has to account
+         * for the remaining rows.
+         */
+        Map<Long,Long> excludedRows = new HashMap<>();
+        EquiDepthLongHistogram.addExcludedRows(excludedRows,minMaxCollector.min(),minMaxCollector.minCount(),
+                frequentElements.allFrequentElements());
+        long rowCount = count-nullCount;
+        long[] excluded = new long[excludedRows.size()];
+        int i=0;
+        for(Map.Entry<Long,Long> rows:excludedRows.entrySet()){
+            excluded[i++] = rows.getKey();
+            rowCount-=rows.getValue();
+        }
+        return histogramBuilder.build(rowCount,excluded);
+    }
 }
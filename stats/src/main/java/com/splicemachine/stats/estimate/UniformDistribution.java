@@ -82,4 +82,19 @@ public abstract class UniformDistribution<T> extends BaseDistribution<T>{
         }
         return (long)baseEstimate;
     }
+
+    /**
+     * The histogram counterpart of {@link #uniformRangeCount(boolean, boolean, double, Set)}: the histogram
+     * accounts for the rows which are not in the frequent elements (nor the min), so the estimate is the sum of both.
+     *
+     * @param histogramEstimate the histogram's estimate of the number of rows in the range
+     * @param frequentElements the frequent elements in the range
+     */
+    protected final long histogramRangeCount(long histogramEstimate,Set<? extends FrequencyEstimate<T>> frequentElements){
+        long estimate = histogramEstimate;
+        for(FrequencyEstimate<T> est: frequentElements){
+            estimate+=est.count()-est.error();
+        }
+        return estimate;
+    }
 }
@@ -18,6 +18,7 @@ package com.splicemachine.stats.estimate;
 import com.splicemachine.stats.IntColumnStatistics;
 import com.splicemachine.stats.frequency.IntFrequencyEstimate;
 import com.splicemachine.stats.frequency.IntFrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogram;
 import com.splicemachine.utils.ComparableComparator;
 
 import java.util.Set;
@@ -205,7 +206,12 @@ public class UniformIntDistribution extends UniformDistribution<Integer> impleme
         IntFrequentElements ife = (IntFrequentElements)columnStats.topK();
         //if we are the min value, don't include the start key in frequent elements
         Set<IntFrequencyEstimate> intFrequencyEstimates = ife.frequentBetween(start, stop, includeMinFreqs, includeStop);
-        long l=uniformRangeCount(includeMinFreqs,includeStop,baseEstimate,intFrequencyEstimates);
+        EquiDepthLongHistogram histogram = ((IntColumnStatistics)columnStats).histogram();
+        long l;
+        if(histogram!=null)
+            l=histogramRangeCount(histogram.between(start,stop,includeStart,includeStop),intFrequencyEstimates);
+        else
+            l=uniformRangeCount(includeMinFreqs,includeStop,baseEstimate,intFrequencyEstimates);
         if(includeStart && isMin)
             l+=minCount();
         return l;
@@ -18,6 +18,7 @@ package com.splicemachine.stats.estimate;
 import com.splicemachine.stats.LongColumnStatistics;
 import com.splicemachine.stats.frequency.LongFrequencyEstimate;
 import com.splicemachine.stats.frequency.LongFrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthLongHistogram;
 import com.splicemachine.utils.ComparableComparator;
 
 import java.util.Set;
@@ -178,7 +179,12 @@ public class UniformLongDistribution extends UniformDistribution<Long> implement
         //if we are the min value, don't include the start key in frequent elements
         boolean includeStartFreqs=includeStart && !isMin;
         Set<LongFrequencyEstimate> longFrequencyEstimates = sfe.frequentBetween(start, stop,includeStartFreqs, includeStop);
-        long l=uniformRangeCount(includeStartFreqs,includeStop,baseEstimate,longFrequencyEstimates);
+        EquiDepthLongHistogram histogram = ((LongColumnStatistics)columnStats).histogram();
+        long l;
+        if(histogram!=null)
+            l=histogramRangeCount(histogram.between(start,stop,includeStart,includeStop),longFrequencyEstimates);
+        else
+            l=uniformRangeCount(includeStartFreqs,includeStop,baseEstimate,longFrequencyEstimates);
         if(isMin&&includeStart)
             l+=minCount();
         return l;
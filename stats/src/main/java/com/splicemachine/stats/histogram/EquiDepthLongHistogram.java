@@ -0,0 +1,355 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.histogram;
+
+import com.splicemachine.encoding.Encoder;
+import com.splicemachine.stats.frequency.FrequencyEstimate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An equi-depth histogram over the values of an integral column, small enough to be kept with the
+ * statistics of a partition.
+ * <p>
+ * Bucket {@code i} holds the values in {@code [bounds[i],bounds[i+1])}, except for the last bucket which also
+ * holds its upper bound. Each bucket records an estimate of the number of rows with a value in the bucket, and
+ * values are assumed to be spread evenly within a bucket. Since each bucket holds (roughly) the same number of
+ * rows, dense regions of the data get narrow buckets, which keeps range estimates reasonable on skewed data.
+ * <p>
+ * Unlike {@link EquiDepthIntHistogram}, this is built from a sample of the data
+ * (see {@link EquiDepthLongHistogramBuilder}), and histograms of different partitions can be merged.
+ * <p>
+ * The rows of the minimum and of the frequent elements are counted by the column statistics themselves, so
+ * the histogram leaves them out (see {@link #addExcludedRows(Map, long, long, Set)}).
+ */
+public class EquiDepthLongHistogram {
+    private final long[] bounds;
+    private final long[] counts;
+
+    EquiDepthLongHistogram(long[] bounds, long[] counts) {
+        assert counts.length == 0 || bounds.length == counts.length + 1 : "Incorrect number of bounds";
+        this.bounds = bounds;
+        this.counts = counts;
+    }
+
+    public static EquiDepthLongHistogram empty() {
+        return new EquiDepthLongHistogram(new long[0], new long[0]);
+    }
+
+    public int getNumBuckets() {
+        return counts.length;
+    }
+
+    /**
+     * @return the number of rows accounted for by the histogram
+     */
+    public long rowCount() {
+        long rows = 0l;
+        for (long count : counts) {
+            rows += count;
+        }
+        return rows;
+    }
+
+    /**
+     * @return an estimate of the number of rows with a value between {@code start} and {@code stop}
+     */
+    public long between(long start, long stop, boolean includeStart, boolean includeStop) {
+        if (!includeStart) {
+            if (start == Long.MAX_VALUE) return 0l;
+            start++;
+        }
+        if (!includeStop) {
+            if (stop == Long.MIN_VALUE) return 0l;
+            stop--;
+        }
+        if (start > stop) return 0l;
+        return Math.round(estimate(start, stop));
+    }
+
+    /**
+     * Merge this histogram with the histogram of another partition.
+     * <p>
+     * The buckets of both histograms are split at each other's bounds, after which the neighbouring buckets
+     * holding the fewest rows are joined until there are no more buckets than either of the histograms had.
+     *
+     * @return a new histogram covering the rows of both histograms
+     */
+    public EquiDepthLongHistogram merge(EquiDepthLongHistogram other) {
+        if (other.counts.length == 0) return this;
+        if (counts.length == 0) return other;
+        int maxBuckets = Math.max(counts.length, other.counts.length);
+
+        long[] lowerBounds = new long[counts.length + other.counts.length];
+        System.arraycopy(bounds, 0, lowerBounds, 0, counts.length);
+        System.arraycopy(other.bounds, 0, lowerBounds, counts.length, other.counts.length);
+        Arrays.sort(lowerBounds);
+        int numBuckets = 1;
+        for (int i = 1; i < lowerBounds.length; i++) {
+            if (lowerBounds[i] != lowerBounds[numBuckets - 1])
+                lowerBounds[numBuckets++] = lowerBounds[i];
+        }
+        long top = Math.max(bounds[counts.length], other.bounds[other.counts.length]);
+
+        long[] mergedBounds = Arrays.copyOf(lowerBounds, numBuckets + 1);
+        mergedBounds[numBuckets] = top;
+        double[] mergedCounts = new double[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            long hi = i == numBuckets - 1 ? top : mergedBounds[i + 1] - 1;
+            mergedCounts[i] = estimate(mergedBounds[i], hi) + other.estimate(mergedBounds[i], hi);
+        }
+
+        return joinBuckets(mergedBounds, mergedCounts, numBuckets, maxBuckets);
+    }
+
+    /**
+     * Account for a change in the rows which are left out of the histogram, as happens when the statistics of
+     * two partitions are merged: a value of one partition can become frequent in the merged statistics, or the
+     * minimum of one partition can be neither the merged minimum nor a merged frequent element.
+     * <p>
+     * Rows which were left out before but no longer are put in a bucket of their own, after which the
+     * neighbouring buckets holding the fewest rows are joined until there are no more buckets than before. Rows
+     * which are newly left out are taken from the bucket holding their value.
+     *
+     * @param previous the rows left out of this histogram, by value
+     * @param current the rows to leave out from now on, by value
+     * @return a new histogram holding the rows which are not in {@code current}
+     */
+    public EquiDepthLongHistogram adjustExcludedRows(Map<Long, Long> previous, Map<Long, Long> current) {
+        Map<Long, Long> changes = new TreeMap<>(previous);
+        for (Map.Entry<Long, Long> excluded : current.entrySet()) {
+            Long rows = changes.get(excluded.getKey());
+            changes.put(excluded.getKey(), (rows == null ? 0l : rows) - excluded.getValue());
+        }
+
+        int numBuckets = counts.length;
+        int maxBuckets = numBuckets;
+        //each added value can split a bucket in three
+        long[] newBounds = Arrays.copyOf(bounds, numBuckets + 2 * changes.size() + 2);
+        double[] newCounts = new double[numBuckets + 2 * changes.size() + 1];
+        for (int i = 0; i < numBuckets; i++) {
+            newCounts[i] = counts[i];
+        }
+        for (Map.Entry<Long, Long> change : changes.entrySet()) {
+            long value = change.getKey();
+            long rows = change.getValue();
+            if (rows > 0) {
+                if (numBuckets == 0) maxBuckets++;
+                //give the value a bucket of its own, so its rows aren't spread over the values around it
+                numBuckets = splitAt(newBounds, newCounts, numBuckets, value);
+            } else if (rows == 0 || numBuckets == 0 || value < newBounds[0] || value > newBounds[numBuckets])
+                continue; //none of the rows of the value are in the histogram
+            int bucket = bucketOf(newBounds, numBuckets, value);
+            newCounts[bucket] = Math.max(0d, newCounts[bucket] + rows);
+        }
+        if (numBuckets == 0) return this;
+        return joinBuckets(newBounds, newCounts, numBuckets, maxBuckets);
+    }
+
+    /**
+     * Add the rows which the histogram of a column leaves out to {@code excludedRows}: the guaranteed part
+     * ({@code count()-error()}) of the count of each frequent element, which is all the distribution adds back
+     * when estimating a range, and the rows of the minimum, unless it is one of those frequent elements.
+     *
+     * @param excludedRows the number of rows left out, by value
+     * @param min the minimum of the column
+     * @param minCount the number of rows holding the minimum
+     * @param frequentElements the frequent elements of the column
+     */
+    public static void addExcludedRows(Map<Long, Long> excludedRows,
+                                       long min,
+                                       long minCount,
+                                       Set<? extends FrequencyEstimate<? extends Number>> frequentElements) {
+        boolean minIsFrequent = false;
+        for (FrequencyEstimate<? extends Number> est : frequentElements) {
+            long guaranteed = est.count() - est.error();
+            if (guaranteed <= 0) continue;
+            long value = est.getValue().longValue();
+            addRows(excludedRows, value, guaranteed);
+            if (value == min)
+                minIsFrequent = true;
+        }
+        if (!minIsFrequent)
+            addRows(excludedRows, min, minCount);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EquiDepthLongHistogram{");
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append("[").append(bounds[i]).append(",").append(upperBound(i)).append("]=").append(counts[i]);
+        }
+        return sb.append("}").toString();
+    }
+
+    public static Encoder<EquiDepthLongHistogram> encoder() {
+        return EncDec.INSTANCE;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * The (fractional) number of rows in [start,stop], both ends inclusive.
+     */
+    private double estimate(long start, long stop) {
+        double rows = 0d;
+        for (int i = 0; i < counts.length; i++) {
+            long lo = bounds[i];
+            long hi = upperBound(i);
+            if (hi < start) continue;
+            if (lo > stop) break;
+            //upcast to double to avoid overflow in the subtractions
+            double width = (double) hi - lo + 1;
+            double overlap = (double) Math.min(hi, stop) - Math.max(lo, start) + 1;
+            rows += counts[i] * (overlap / width);
+        }
+        return rows;
+    }
+
+    private long upperBound(int bucket) {
+        return bucket == counts.length - 1 ? bounds[counts.length] : bounds[bucket + 1] - 1;
+    }
+
+    private static int bucketOf(long[] bounds, int numBuckets, long value) {
+        int pos = Arrays.binarySearch(bounds, 0, numBuckets, value);
+        return pos >= 0 ? pos : -pos - 2;
+    }
+
+    /*
+     * Split the buckets so that there is a bucket holding only value, adding (empty) buckets if the value is
+     * outside of the histogram. The rows of a split bucket are shared out by the width of each part.
+     *
+     * @return the new number of buckets
+     */
+    private static int splitAt(long[] bounds, double[] counts, int numBuckets, long value) {
+        if (numBuckets == 0) {
+            bounds[0] = value;
+            bounds[1] = value;
+            counts[0] = 0d;
+            return 1;
+        }
+        long top = bounds[numBuckets];
+        if (value < bounds[0]) {
+            //value, followed by an empty bucket up to the old first bucket
+            int added = value + 1 < bounds[0] ? 2 : 1;
+            System.arraycopy(bounds, 0, bounds, added, numBuckets + 1);
+            System.arraycopy(counts, 0, counts, added, numBuckets);
+            bounds[0] = value;
+            counts[0] = 0d;
+            if (added == 2) {
+                bounds[1] = value + 1;
+                counts[1] = 0d;
+            }
+            return numBuckets + added;
+        }
+        if (value > top) {
+            //an empty bucket from the old top, followed by value
+            bounds[numBuckets] = top + 1;
+            if (top + 1 < value) {
+                counts[numBuckets++] = 0d;
+                bounds[numBuckets] = value;
+            }
+            counts[numBuckets++] = 0d;
+            bounds[numBuckets] = value;
+            return numBuckets;
+        }
+        int bucket = bucketOf(bounds, numBuckets, value);
+        long lo = bounds[bucket];
+        long hi = bucket == numBuckets - 1 ? top : bounds[bucket + 1] - 1;
+        if (lo == hi) return numBuckets;
+        double perValue = counts[bucket] / ((double) hi - lo + 1);
+        int added = (lo < value ? 1 : 0) + (value < hi ? 1 : 0);
+        System.arraycopy(bounds, bucket + 1, bounds, bucket + 1 + added, numBuckets - bucket);
+        System.arraycopy(counts, bucket + 1, counts, bucket + 1 + added, numBuckets - bucket - 1);
+        int i = bucket;
+        if (lo < value) {
+            counts[i++] = perValue * ((double) value - lo);
+            bounds[i] = value;
+        }
+        counts[i] = perValue;
+        if (value < hi) {
+            bounds[++i] = value + 1;
+            counts[i] = perValue * ((double) hi - value);
+        }
+        return numBuckets + added;
+    }
+
+    /*
+     * Join the neighbouring buckets holding the fewest rows until there are at most maxBuckets buckets.
+     */
+    private static EquiDepthLongHistogram joinBuckets(long[] bounds, double[] counts, int numBuckets, int maxBuckets) {
+        while (numBuckets > maxBuckets) {
+            int smallest = 0;
+            for (int i = 1; i < numBuckets - 1; i++) {
+                if (counts[i] + counts[i + 1] < counts[smallest] + counts[smallest + 1])
+                    smallest = i;
+            }
+            counts[smallest] += counts[smallest + 1];
+            System.arraycopy(counts, smallest + 2, counts, smallest + 1, numBuckets - smallest - 2);
+            System.arraycopy(bounds, smallest + 2, bounds, smallest + 1, numBuckets - smallest - 1);
+            numBuckets--;
+        }
+        long[] finalCounts = new long[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            finalCounts[i] = Math.round(counts[i]);
+        }
+        return new EquiDepthLongHistogram(Arrays.copyOf(bounds, numBuckets + 1), finalCounts);
+    }
+
+    private static void addRows(Map<Long, Long> rowsByValue, long value, long rows) {
+        Long current = rowsByValue.get(value);
+        rowsByValue.put(value, current == null ? rows : current + rows);
+    }
+
+    static class EncDec implements Encoder<EquiDepthLongHistogram> {
+        public static final EncDec INSTANCE = new EncDec();
+
+        @Override
+        public void encode(EquiDepthLongHistogram item, DataOutput encoder) throws IOException {
+            encoder.writeInt(item.counts.length);
+            if (item.counts.length == 0) return;
+            for (long bound : item.bounds) {
+                encoder.writeLong(bound);
+            }
+            for (long count : item.counts) {
+                encoder.writeLong(count);
+            }
+        }
+
+        @Override
+        public EquiDepthLongHistogram decode(DataInput decoder) throws IOException {
+            int numBuckets = decoder.readInt();
+            if (numBuckets == 0) return empty();
+            long[] bounds = new long[numBuckets + 1];
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = decoder.readLong();
+            }
+            long[] counts = new long[numBuckets];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = decoder.readLong();
+            }
+            return new EquiDepthLongHistogram(bounds, counts);
+        }
+    }
+}
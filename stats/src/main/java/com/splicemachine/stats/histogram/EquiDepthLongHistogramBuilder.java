@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.histogram;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Builds an {@link EquiDepthLongHistogram} from a uniform (reservoir) sample of the values seen, so that the
+ * memory used does not depend on the number of rows in the partition.
+ */
+public class EquiDepthLongHistogramBuilder {
+    /*The number of sampled values to keep for each bucket of the histogram*/
+    static final int SAMPLES_PER_BUCKET = 32;
+
+    private final int numBuckets;
+    private final long[] sample;
+    private final Random random;
+    private int sampleSize;
+    private long valuesSeen;
+
+    public EquiDepthLongHistogramBuilder(int numBuckets) {
+        this(numBuckets, new Random());
+    }
+
+    public EquiDepthLongHistogramBuilder(int numBuckets, Random random) {
+        assert numBuckets > 0 : "Cannot build a histogram without buckets";
+        this.numBuckets = numBuckets;
+        this.sample = new long[numBuckets * SAMPLES_PER_BUCKET];
+        this.random = random;
+    }
+
+    /**
+     * @param value the value to add
+     * @param count the number of rows holding the value
+     */
+    public void update(long value, long count) {
+        for (long i = 0; i < count; i++) {
+            valuesSeen++;
+            if (sampleSize < sample.length) {
+                sample[sampleSize++] = value;
+            } else {
+                long pos = (long) (random.nextDouble() * valuesSeen);
+                if (pos < sample.length)
+                    sample[(int) pos] = value;
+            }
+        }
+    }
+
+    /**
+     * Build the histogram of all rows whose value is not in {@code excludedValues}.
+     * <p>
+     * Values whose count is known exactly (such as the minimum and the frequent elements of the column) are
+     * best excluded, so that they are not counted twice when estimating ranges.
+     *
+     * @param rowCount       the number of rows the histogram should account for, which is the number of
+     *                       rows which were added less the rows holding an excluded value.
+     * @param excludedValues the values to leave out of the histogram
+     * @return a histogram of the rows
+     */
+    public EquiDepthLongHistogram build(long rowCount, long[] excludedValues) {
+        long[] excluded = Arrays.copyOf(excludedValues, excludedValues.length);
+        Arrays.sort(excluded);
+        long[] values = new long[sampleSize];
+        int n = 0;
+        for (int i = 0; i < sampleSize; i++) {
+            if (Arrays.binarySearch(excluded, sample[i]) < 0)
+                values[n++] = sample[i];
+        }
+        if (n == 0 || rowCount <= 0) return EquiDepthLongHistogram.empty();
+        Arrays.sort(values, 0, n);
+
+        int maxBuckets = Math.min(numBuckets, n);
+        double rowsPerValue = ((double) rowCount) / n;
+        long[] bounds = new long[maxBuckets + 1];
+        long[] counts = new long[maxBuckets];
+        int bucket = 0;
+        int start = 0;
+        while (start < n) {
+            //split the remaining values evenly over the remaining buckets
+            int remaining = n - start;
+            int end = start + (remaining + maxBuckets - bucket - 1) / (maxBuckets - bucket);
+            //never split the rows of a single value over two buckets
+            while (end < n && values[end] == values[end - 1]) {
+                end++;
+            }
+            bounds[bucket] = values[start];
+            counts[bucket] = Math.round((end - start) * rowsPerValue);
+            bucket++;
+            start = end;
+        }
+        bounds[bucket] = values[n - 1];
+        return new EquiDepthLongHistogram(Arrays.copyOf(bounds, bucket + 1), Arrays.copyOf(counts, bucket));
+    }
+}
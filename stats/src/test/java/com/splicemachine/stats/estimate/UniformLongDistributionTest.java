@@ -19,6 +19,7 @@ import com.carrotsearch.hppc.FloatArrayList;
 import com.carrotsearch.hppc.LongArrayList;
 import com.splicemachine.stats.LongColumnStatistics;
 import com.splicemachine.stats.cardinality.CardinalityEstimators;
+import com.splicemachine.stats.cardinality.LongCardinalityEstimator;
 import com.splicemachine.stats.collector.ColumnStatsCollectors;
 import com.splicemachine.stats.collector.FloatColumnStatsCollector;
 import com.splicemachine.stats.collector.LongColumnStatsCollector;
@@ -29,10 +30,15 @@ import com.splicemachine.stats.frequency.LongFrequentElements;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.sql.Time;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.Random;
 
 /**
  * @author Scott Fines
@@ -230,6 +236,95 @@ public class UniformLongDistributionTest{
         Assert.assertEquals(0,dist.rangeSelectivity(scs.min(),(scs.min()+1),false,true));
     }
 
+    @Test
+    public void testRangeSelectivityFollowsSkewedData() throws Exception{
+        /*
+         * 90% of the rows are in [0,100), the rest are spread up to 1000000. Assuming the values
+         * are spread uniformly between the min and the max puts almost none of the rows in [0,100).
+         */
+        LongColumnStatsCollector col = ColumnStatsCollectors.longCollector(0,14,5,32);
+        Random random = new Random(0l);
+        long inRange = 0;
+        for(int i=0;i<100000;i++){
+            if(random.nextInt(10)<9){
+                col.update(random.nextInt(100));
+                inRange++;
+            }else
+                col.update(100+random.nextInt(999900));
+        }
+        LongColumnStatistics stats = col.build();
+        Assert.assertNotNull("No histogram was collected!",stats.histogram());
+        UniformLongDistribution dist = (UniformLongDistribution)stats.getDistribution();
+        Assert.assertEquals("Incorrect range selectivity!",inRange,dist.rangeSelectivity(0l,100l,true,false),5000d);
+        Assert.assertEquals("Incorrect range selectivity!",100000-inRange,
+                dist.rangeSelectivity(100l,1000000l,true,true),5000d);
+    }
+
+    @Test
+    public void testMergedHistogramCountsEachRowOnce() throws Exception{
+        /*
+         * The right partition leaves its min and its frequent elements out of its histogram, but after the merge
+         * its min is no longer the min, and its frequent elements don't all fit in the merged top 5.
+         */
+        LongColumnStatsCollector left = ColumnStatsCollectors.longCollector(0,14,5,32);
+        for(long i=0;i<1000;i++){
+            left.update(i);
+        }
+        left.update(5000l,20000l);
+        LongColumnStatsCollector right = ColumnStatsCollectors.longCollector(0,14,5,32);
+        right.update(5000l,50l);
+        for(long i=2000;i<2010;i++){
+            right.update(i,1000l);
+        }
+        for(long i=3000;i<4000;i++){
+            right.update(i);
+        }
+        LongColumnStatistics stats = left.build();
+        stats.merge(right.build());
+
+        Assert.assertEquals("Incorrect min!",0l,stats.min());
+        Assert.assertEquals("Incorrect min count!",1l,stats.minCount());
+        long rows = stats.nonNullCount();
+        Assert.assertEquals("Incorrect row count!",1000+20000+50+10000+1000,rows);
+        UniformLongDistribution dist = (UniformLongDistribution)stats.getDistribution();
+        Assert.assertEquals("Rows were lost or counted twice!",rows,dist.rangeSelectivity(stats.min(),stats.max(),true,true),0.01d*rows);
+        Assert.assertEquals("Incorrect range selectivity!",1000l,dist.rangeSelectivity(0l,1000l,true,false),0.01d*rows);
+        Assert.assertEquals("Incorrect range selectivity!",20000l,dist.rangeSelectivity(4000l,6000l,true,true),0.01d*rows);
+    }
+
+    @Test
+    public void testDecodesStatisticsWrittenWithoutHistogram() throws Exception{
+        LongColumnStatsCollector col = ColumnStatsCollectors.longCollector(1,14,5,32);
+        for(long i=0;i<1000;i++){
+            col.update(i);
+        }
+        LongColumnStatistics stats = col.build();
+
+        //the format used before histograms were collected
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeInt(stats.columnId());
+        out.writeLong(stats.totalBytes());
+        out.writeLong(stats.nullCount()+stats.nonNullCount());
+        out.writeLong(stats.nullCount());
+        out.writeLong(stats.minCount());
+        out.writeLong(stats.min());
+        out.writeLong(stats.max());
+        CardinalityEstimators.longEncoder().encode((LongCardinalityEstimator)stats.getCardinalityEstimator(),out);
+        FrequencyCounters.longEncoder().encode((LongFrequentElements)stats.topK(),out);
+        LongColumnStatistics decoded = LongColumnStatistics.encoder().decode(
+                new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        Assert.assertEquals("Incorrect column id!",1,decoded.columnId());
+        Assert.assertEquals("Incorrect max!",999l,decoded.max());
+        Assert.assertNull("Decoded a histogram which was never written!",decoded.histogram());
+
+        baos.reset();
+        LongColumnStatistics.encoder().encode(stats,out);
+        decoded = LongColumnStatistics.encoder().decode(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        Assert.assertEquals("Incorrect column id!",1,decoded.columnId());
+        Assert.assertEquals("Incorrect histogram!",stats.histogram().toString(),decoded.histogram().toString());
+    }
+
     @Test
     public void emptyDistributionReturnsZeroForAllEstimates() throws Exception{
         //the test is to make sure that we can create the entity without it breaking
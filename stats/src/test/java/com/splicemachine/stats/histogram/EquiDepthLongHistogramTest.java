@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.histogram;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class EquiDepthLongHistogramTest {
+
+    @Test
+    public void testUniformDataIsEstimatedExactlyWhenFullySampled() throws Exception {
+        EquiDepthLongHistogramBuilder builder = new EquiDepthLongHistogramBuilder(8, new Random(0L));
+        for (long i = 0; i < 256; i++) {
+            builder.update(i, 1L);
+        }
+        EquiDepthLongHistogram histogram = builder.build(256L, new long[0]);
+
+        Assert.assertEquals(8, histogram.getNumBuckets());
+        Assert.assertEquals(256L, histogram.rowCount());
+        Assert.assertEquals(256L, histogram.between(Long.MIN_VALUE, Long.MAX_VALUE, true, true));
+        Assert.assertEquals(100L, histogram.between(0L, 100L, true, false));
+        Assert.assertEquals(99L, histogram.between(0L, 100L, false, false));
+        Assert.assertEquals(1L, histogram.between(255L, 255L, true, true));
+        Assert.assertEquals(0L, histogram.between(255L, 255L, false, true));
+        Assert.assertEquals(0L, histogram.between(300L, 400L, true, true));
+    }
+
+    @Test
+    public void testSkewedDataGetsNarrowBuckets() throws Exception {
+        /*
+         * 90% of the rows are in [0,1000), the remaining rows are spread over [1000,10000000). Assuming a
+         * uniform spread between the min and the max would put almost nothing in [0,1000).
+         */
+        Random random = new Random(0L);
+        EquiDepthLongHistogramBuilder builder = new EquiDepthLongHistogramBuilder(32, random);
+        int rows = 100000;
+        long inDenseRange = 0;
+        for (int i = 0; i < rows; i++) {
+            long value;
+            if (random.nextInt(10) < 9) {
+                value = random.nextInt(1000);
+                inDenseRange++;
+            } else
+                value = 1000 + random.nextInt(9999000);
+            builder.update(value, 1L);
+        }
+        EquiDepthLongHistogram histogram = builder.build(rows, new long[0]);
+
+        long estimate = histogram.between(0L, 1000L, true, false);
+        Assert.assertEquals("Incorrect estimate of the dense range!", inDenseRange, estimate, 0.05d * rows);
+        estimate = histogram.between(1000L, 10000000L, true, true);
+        Assert.assertEquals("Incorrect estimate of the sparse range!", rows - inDenseRange, estimate, 0.05d * rows);
+    }
+
+    @Test
+    public void testExcludedValuesAreLeftOut() throws Exception {
+        //few enough values to be kept in the sample
+        EquiDepthLongHistogramBuilder builder = new EquiDepthLongHistogramBuilder(4, new Random(0L));
+        for (long i = 0; i < 60; i++) {
+            builder.update(i, 1L);
+            builder.update(30L, 1L);
+        }
+        EquiDepthLongHistogram histogram = builder.build(59L, new long[]{30L});
+        Assert.assertEquals(59L, histogram.rowCount());
+        Assert.assertEquals("Excluded value was counted!", 3L, histogram.between(29L, 31L, true, true), 1d);
+        Assert.assertEquals(59L, histogram.between(0L, 59L, true, true));
+    }
+
+    @Test
+    public void testMergeKeepsRowsAndBucketCount() throws Exception {
+        EquiDepthLongHistogramBuilder left = new EquiDepthLongHistogramBuilder(8, new Random(0L));
+        EquiDepthLongHistogramBuilder right = new EquiDepthLongHistogramBuilder(8, new Random(1L));
+        for (long i = 0; i < 200; i++) {
+            left.update(i, 1L);
+            right.update(100 + i, 1L);
+        }
+        EquiDepthLongHistogram merged = left.build(200L, new long[0]).merge(right.build(200L, new long[0]));
+
+        Assert.assertEquals(8, merged.getNumBuckets());
+        Assert.assertEquals(400L, merged.rowCount(), 2d);
+        Assert.assertEquals(100L, merged.between(0L, 100L, true, false), 10d);
+        Assert.assertEquals(200L, merged.between(100L, 200L, true, false), 10d);
+        Assert.assertEquals(100L, merged.between(200L, 300L, true, false), 10d);
+
+        Assert.assertSame(merged, merged.merge(EquiDepthLongHistogram.empty()));
+        Assert.assertSame(merged, EquiDepthLongHistogram.empty().merge(merged));
+    }
+
+    @Test
+    public void testAdjustExcludedRows() throws Exception {
+        EquiDepthLongHistogramBuilder builder = new EquiDepthLongHistogramBuilder(4, new Random(0L));
+        for (long i = 0; i < 100; i++) {
+            builder.update(i, 1L);
+        }
+        EquiDepthLongHistogram histogram = builder.build(100L, new long[0]);
+        //50 and 200 are no longer left out, 10 now is
+        Map<Long, Long> previous = new HashMap<>();
+        previous.put(50L, 100L);
+        previous.put(200L, 10L);
+        Map<Long, Long> current = Collections.singletonMap(10L, 1L);
+        EquiDepthLongHistogram adjusted = histogram.adjustExcludedRows(previous, current);
+
+        Assert.assertEquals(4, adjusted.getNumBuckets());
+        Assert.assertEquals(209L, adjusted.rowCount());
+        Assert.assertEquals("Rows of an added value were spread out!", 101L, adjusted.between(50L, 50L, true, true));
+        Assert.assertEquals("Rows outside the old bounds were lost!", 35L, adjusted.between(75L, 200L, true, true));
+        Assert.assertEquals("Rows of a newly left out value were kept!", 49L, adjusted.between(0L, 50L, true, false));
+
+        Assert.assertEquals(5L, EquiDepthLongHistogram.empty().adjustExcludedRows(Collections.singletonMap(7L, 5L),
+                Collections.<Long, Long>emptyMap()).between(7L, 7L, true, true));
+    }
+
+    @Test
+    public void testEncodesAndDecodes() throws Exception {
+        EquiDepthLongHistogramBuilder builder = new EquiDepthLongHistogramBuilder(16, new Random(0L));
+        Random random = new Random(0L);
+        for (int i = 0; i < 10000; i++) {
+            builder.update(random.nextLong(), 1L);
+        }
+        EquiDepthLongHistogram histogram = builder.build(10000L, new long[0]);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        EquiDepthLongHistogram.encoder().encode(histogram, new DataOutputStream(baos));
+        EquiDepthLongHistogram decoded = EquiDepthLongHistogram.encoder().decode(
+                new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        Assert.assertEquals(histogram.toString(), decoded.toString());
+    }
+}